@@ -0,0 +1,18 @@
+package com.asemenkov.gromacs.analysis.config;
+
+import com.asemenkov.gromacs.frame.config.GmxFrameConfig;
+import com.asemenkov.gromacs.io.config.GmxIoConfig;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+@Configuration
+@Import({ GmxFrameConfig.class, GmxIoConfig.class })
+@ComponentScan("com.asemenkov.gromacs.analysis")
+public class GmxAnalysisConfig {
+
+}
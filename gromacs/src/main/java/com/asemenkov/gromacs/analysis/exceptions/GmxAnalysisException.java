@@ -0,0 +1,26 @@
+package com.asemenkov.gromacs.analysis.exceptions;
+
+/**
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+public class GmxAnalysisException extends RuntimeException {
+
+    private static final long serialVersionUID = 3847120950263816025L;
+
+    public GmxAnalysisException() {
+    }
+
+    public GmxAnalysisException(String message) {
+        super(message);
+    }
+
+    public GmxAnalysisException(Throwable throwable) {
+        super(throwable);
+    }
+
+    public GmxAnalysisException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+
+}
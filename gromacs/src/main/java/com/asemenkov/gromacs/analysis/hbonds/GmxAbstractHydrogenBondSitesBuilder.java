@@ -0,0 +1,18 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+public abstract class GmxAbstractHydrogenBondSitesBuilder {
+
+    protected @Autowired GmxResidueReflectionData residueReflectionData;
+
+    // ======== INTERFACE ========
+
+    public abstract GmxHydrogenBondSites build();
+
+}
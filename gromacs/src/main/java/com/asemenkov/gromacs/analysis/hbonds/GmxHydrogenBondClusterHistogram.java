@@ -0,0 +1,82 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streaming accumulator of hydrogen bond cluster sizes over frames.
+ *
+ * @author asemenkov
+ * @since Jul 01, 2019
+ */
+public class GmxHydrogenBondClusterHistogram implements Consumer<GmxHydrogenBondNetwork> {
+
+    private long[] clustersNums = new long[64];
+    private long clustersNum;
+    private long verticesNum;
+    private int percolatingFramesNum;
+    private int maxClusterSize;
+    private int framesNum;
+
+    @Override
+    public void accept(GmxHydrogenBondNetwork network) {
+        if (clustersNums.length <= network.getLargestClusterSize())
+            clustersNums = Arrays.copyOf(clustersNums, Math.max(2 * clustersNums.length, //
+                    network.getLargestClusterSize() + 1));
+
+        for (int size = 1; size <= network.getLargestClusterSize(); size++)
+            clustersNums[size] += network.getClustersNum(size);
+
+        clustersNum += network.getClustersNum();
+        verticesNum += network.getVerticesNum();
+        maxClusterSize = Math.max(maxClusterSize, network.getLargestClusterSize());
+        if (network.isPercolating()) percolatingFramesNum++;
+        framesNum++;
+    }
+
+    // ======== GETTERS ========
+
+    public int getFramesNum() {
+        return framesNum;
+    }
+
+    public int getMaxClusterSize() {
+        return maxClusterSize;
+    }
+
+    public int getPercolatingFramesNum() {
+        return percolatingFramesNum;
+    }
+
+    /**
+     * @return total number of clusters of the size over all frames
+     */
+    public long getClustersNum(int size) {
+        return size < clustersNums.length ? clustersNums[size] : 0;
+    }
+
+    /**
+     * @return cluster sizes distribution: index is the size, value is the fraction of clusters
+     */
+    public double[] getClusterSizeDistribution() {
+        double[] distribution = new double[maxClusterSize + 1];
+        if (clustersNum == 0) return distribution;
+        for (int size = 1; size <= maxClusterSize; size++) //
+            distribution[size] = (double) clustersNums[size] / clustersNum;
+        return distribution;
+    }
+
+    public double getMeanClusterSize() {
+        return clustersNum == 0 ? 0 : (double) verticesNum / clustersNum;
+    }
+
+    /**
+     * @return mean size of the cluster a random residue belongs to
+     */
+    public double getWeightedMeanClusterSize() {
+        if (verticesNum == 0) return 0;
+        double sum = 0;
+        for (int size = 1; size <= maxClusterSize; size++) sum += (double) size * size * clustersNums[size];
+        return sum / verticesNum;
+    }
+}
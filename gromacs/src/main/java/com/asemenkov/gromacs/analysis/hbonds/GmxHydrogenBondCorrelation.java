@@ -0,0 +1,76 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import java.util.Arrays;
+
+/**
+ * Continuous and intermittent hydrogen bond autocorrelation functions normalized to 1 at zero lag,
+ * averaged over all bonded pairs and time origins.
+ *
+ * @author asemenkov
+ * @since Jun 24, 2019
+ */
+public class GmxHydrogenBondCorrelation {
+
+    private final double timeStep;
+    private final double[] continuous;
+    private final double[] intermittent;
+    private final int pairsNum;
+
+    GmxHydrogenBondCorrelation(double timeStep, double[] continuous, double[] intermittent, int pairsNum) {
+        this.timeStep = timeStep;
+        this.continuous = continuous;
+        this.intermittent = intermittent;
+        this.pairsNum = pairsNum;
+    }
+
+    // ======== GETTERS ========
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public int getPairsNum() {
+        return pairsNum;
+    }
+
+    public int getLagsNum() {
+        return continuous.length;
+    }
+
+    public double[] getTimes() {
+        double[] times = new double[continuous.length];
+        Arrays.setAll(times, lag -> lag * timeStep);
+        return times;
+    }
+
+    public double[] getContinuous() {
+        return continuous;
+    }
+
+    public double[] getIntermittent() {
+        return intermittent;
+    }
+
+    /**
+     * @return integral of the continuous autocorrelation function
+     */
+    public double getContinuousLifetime() {
+        return integrate(continuous);
+    }
+
+    /**
+     * @return integral of the intermittent autocorrelation function
+     */
+    public double getIntermittentLifetime() {
+        return integrate(intermittent);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private double integrate(double[] function) {
+        double integral = 0;
+        for (int lag = 1; lag < function.length; lag++)
+            integral += (function[lag - 1] + function[lag]) * timeStep / 2;
+        return integral;
+    }
+}
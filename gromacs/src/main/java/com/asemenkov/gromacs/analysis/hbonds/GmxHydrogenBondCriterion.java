@@ -0,0 +1,187 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+
+/**
+ * Geometric hydrogen bond criterion compiled into primitive fields: cutoffs are stored squared
+ * and as cosines, so {@link #test} needs neither square roots nor trigonometry, and a single
+ * final class keeps the detector's call site monomorphic whatever criterion is chosen.
+ * <ul>
+ * <li>distance is measured either between donor and acceptor (D...A) or hydrogen and acceptor (H...A);</li>
+ * <li>angle is none, H-D...A not greater than the cutoff (gmx hbond),
+ * or D-H...A not less than the cutoff.</li>
+ * </ul>
+ * Instances are immutable.
+ *
+ * @author asemenkov
+ * @since Jul 15, 2019
+ */
+public final class GmxHydrogenBondCriterion {
+
+    public enum Distance {
+        DONOR_ACCEPTOR, HYDROGEN_ACCEPTOR
+    }
+
+    public enum Angle {
+        NONE, HYDROGEN_DONOR_ACCEPTOR, DONOR_HYDROGEN_ACCEPTOR
+    }
+
+    private final Distance distance;
+    private final Angle angle;
+    private final float distanceCutoff;
+    private final double angleCutoff;
+
+    private final boolean hydrogenAcceptorDistance;
+    private final float distanceCutoff2;
+    private final float cos, cos2;
+
+    private GmxHydrogenBondCriterion(Distance distance, float distanceCutoff, Angle angle, double angleCutoff) {
+        if (distance == null || angle == null) throw new GmxAnalysisException("Criterion type is missing.");
+        if (distanceCutoff <= 0) throw new GmxAnalysisException("Invalid distance cutoff: " + distanceCutoff);
+        if (angleCutoff < 0 || angleCutoff > 180) //
+            throw new GmxAnalysisException("Invalid angle cutoff: " + angleCutoff);
+
+        this.distance = distance;
+        this.angle = angle;
+        this.distanceCutoff = distanceCutoff;
+        this.angleCutoff = angleCutoff;
+        this.hydrogenAcceptorDistance = distance == Distance.HYDROGEN_ACCEPTOR;
+        this.distanceCutoff2 = distanceCutoff * distanceCutoff;
+        this.cos = (float) Math.cos(Math.toRadians(angleCutoff));
+        this.cos2 = cos * cos;
+    }
+
+    public static GmxHydrogenBondCriterion of(Distance distance, float distanceCutoff, Angle angle, //
+            double angleCutoff) {
+        return new GmxHydrogenBondCriterion(distance, distanceCutoff, angle, angleCutoff);
+    }
+
+    /**
+     * @return D...A &lt;= 0.35 nm and H-D...A &lt;= 30 degrees, the default criterion of gmx hbond
+     */
+    public static GmxHydrogenBondCriterion gmx() {
+        return hydrogenDonorAcceptor(0.35f, 30);
+    }
+
+    /**
+     * @param distanceCutoff maximal D...A distance, nm
+     */
+    public static GmxHydrogenBondCriterion donorAcceptorDistance(float distanceCutoff) {
+        return of(Distance.DONOR_ACCEPTOR, distanceCutoff, Angle.NONE, 0);
+    }
+
+    /**
+     * @param distanceCutoff maximal H...A distance, nm
+     */
+    public static GmxHydrogenBondCriterion hydrogenAcceptorDistance(float distanceCutoff) {
+        return of(Distance.HYDROGEN_ACCEPTOR, distanceCutoff, Angle.NONE, 0);
+    }
+
+    /**
+     * @param distanceCutoff maximal D...A distance, nm
+     * @param angleCutoff    maximal H-D...A angle, degrees
+     */
+    public static GmxHydrogenBondCriterion hydrogenDonorAcceptor(float distanceCutoff, double angleCutoff) {
+        return of(Distance.DONOR_ACCEPTOR, distanceCutoff, Angle.HYDROGEN_DONOR_ACCEPTOR, angleCutoff);
+    }
+
+    /**
+     * @param distanceCutoff maximal H...A distance, nm
+     * @param angleCutoff    minimal D-H...A angle, degrees
+     */
+    public static GmxHydrogenBondCriterion donorHydrogenAcceptor(float distanceCutoff, double angleCutoff) {
+        return of(Distance.HYDROGEN_ACCEPTOR, distanceCutoff, Angle.DONOR_HYDROGEN_ACCEPTOR, angleCutoff);
+    }
+
+    public GmxHydrogenBondCriterion withDistanceCutoff(float distanceCutoff) {
+        return of(distance, distanceCutoff, angle, angleCutoff);
+    }
+
+    public GmxHydrogenBondCriterion withAngleCutoff(double angleCutoff) {
+        return of(distance, distanceCutoff, angle, angleCutoff);
+    }
+
+    // ======== GETTERS ========
+
+    public Distance getDistance() {
+        return distance;
+    }
+
+    public Angle getAngle() {
+        return angle;
+    }
+
+    public float getDistanceCutoff() {
+        return distanceCutoff;
+    }
+
+    public double getAngleCutoff() {
+        return angleCutoff;
+    }
+
+    /**
+     * @param maxDonorHydrogenDistance the longest D-H bond of the frame, nm
+     * @return the D...A distance enclosing all candidate acceptors
+     */
+    public float getSearchRadius(float maxDonorHydrogenDistance) {
+        return hydrogenAcceptorDistance ? distanceCutoff + maxDonorHydrogenDistance : distanceCutoff;
+    }
+
+    // ======== KERNEL ========
+
+    /**
+     * @param hx, hy, hz vector from the donor to the hydrogen
+     * @param h2         its squared length
+     * @param ax, ay, az vector from the donor to the acceptor
+     * @param a2         its squared length
+     */
+    public boolean test(float hx, float hy, float hz, float h2, float ax, float ay, float az, float a2) {
+        float haX = 0, haY = 0, haZ = 0, ha2 = 0;
+        if (hydrogenAcceptorDistance) {
+            haX = ax - hx;
+            haY = ay - hy;
+            haZ = az - hz;
+            ha2 = haX * haX + haY * haY + haZ * haZ;
+            if (ha2 > distanceCutoff2) return false;
+        } else if (a2 > distanceCutoff2) return false;
+
+        switch (angle) {
+        case HYDROGEN_DONOR_ACCEPTOR:
+            return isCosineAtLeast(hx * ax + hy * ay + hz * az, h2 * a2, cos, cos2);
+        case DONOR_HYDROGEN_ACCEPTOR:
+            if (!hydrogenAcceptorDistance) {
+                haX = ax - hx;
+                haY = ay - hy;
+                haZ = az - hz;
+                ha2 = haX * haX + haY * haY + haZ * haZ;
+            }
+            return isCosineAtMost(-(hx * haX + hy * haY + hz * haZ), h2 * ha2, cos, cos2);
+        default:
+            return true;
+        }
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    /**
+     * cos(angle) &gt;= cos compared in squared space
+     */
+    static boolean isCosineAtLeast(float dot, float lengths2, float cos, float cos2) {
+        if (cos >= 0) return dot >= 0 && dot * dot >= cos2 * lengths2;
+        return dot >= 0 || dot * dot <= cos2 * lengths2;
+    }
+
+    /**
+     * cos(angle) &lt;= cos compared in squared space
+     */
+    static boolean isCosineAtMost(float dot, float lengths2, float cos, float cos2) {
+        if (cos >= 0) return dot <= 0 || dot * dot <= cos2 * lengths2;
+        return dot <= 0 && dot * dot >= cos2 * lengths2;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GmxHydrogenBondCriterion[%s <= %.3f nm, %s %.1f deg]", //
+                distance, distanceCutoff, angle, angleCutoff);
+    }
+}
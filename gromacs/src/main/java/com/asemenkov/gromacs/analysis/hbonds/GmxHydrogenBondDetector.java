@@ -0,0 +1,270 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.utils.GmxCellList;
+import com.asemenkov.gromacs.analysis.utils.GmxVerletList;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Detects D-H...A hydrogen bonds with a geometric {@link GmxHydrogenBondCriterion}, by default
+ * the one of gmx hbond: distance D...A &lt;= cutoff and angle H-D...A &lt;= angle cutoff, both with
+ * minimum image convention in rectangular or triclinic boxes. Acceptors are binned
+ * into a periodic linked-cell list with cells not smaller than the search radius,
+ * so every donor is tested against 27 cells only and detection is O(N) per frame.
+ * With a positive skin, donor-acceptor candidates are kept in a {@link GmxVerletList} between
+ * calls, and the cell list is rebuilt only when atoms moved farther than half of the skin:
+ * this mode pays off for consecutive frames of a trajectory.
+ *
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxHydrogenBondDetector {
+
+    private static final int DONORS_PER_CHUNK = 2048;
+
+    private @Autowired ApplicationContext applicationContext;
+
+    private final GmxCellList acceptorsCellList = new GmxCellList();
+    private final GmxVerletList verletList = new GmxVerletList();
+    private GmxHydrogenBondSites sites;
+    private GmxHydrogenBondCriterion criterion = GmxHydrogenBondCriterion.gmx();
+    private float skin;
+
+    private float[] frameXyz = new float[0];
+    private int[][] chunkPairs = new int[0][];
+    private int[] chunkSizes = new int[0];
+
+    // ======== INTERFACE ========
+
+    public GmxHydrogenBondDetector withSites(GmxHydrogenBondSites sites) {
+        this.sites = sites;
+        return this;
+    }
+
+    public GmxHydrogenBondDetector withCriterion(GmxHydrogenBondCriterion criterion) {
+        if (criterion == null) throw new GmxAnalysisException("Hydrogen bond criterion is missing.");
+        this.criterion = criterion;
+        return this;
+    }
+
+    /**
+     * @param distanceCutoff distance cutoff of the current criterion, nm
+     */
+    public GmxHydrogenBondDetector withDistanceCutoff(float distanceCutoff) {
+        this.criterion = criterion.withDistanceCutoff(distanceCutoff);
+        return this;
+    }
+
+    /**
+     * @param angleCutoff angle cutoff of the current criterion, degrees
+     */
+    public GmxHydrogenBondDetector withAngleCutoff(double angleCutoff) {
+        this.criterion = criterion.withAngleCutoff(angleCutoff);
+        return this;
+    }
+
+    /**
+     * @param skin margin of the Verlet neighbour list, nm; 0 disables the list
+     */
+    public GmxHydrogenBondDetector withSkin(float skin) {
+        if (!(skin >= 0)) throw new GmxAnalysisException("Invalid skin: " + skin);
+        this.skin = skin;
+        verletList.reset();
+        return this;
+    }
+
+    public GmxHydrogenBondSites getSites() {
+        return sites;
+    }
+
+    public GmxHydrogenBondCriterion getCriterion() {
+        return criterion;
+    }
+
+    public float getSkin() {
+        return skin;
+    }
+
+    public GmxVerletList getVerletList() {
+        return verletList;
+    }
+
+    /**
+     * Detects hydrogen bonds between residues of the frame. If no sites were specified,
+     * they are built from the frame residues and reused for the following calls.
+     */
+    public GmxHydrogenBonds detect(GmxFrame frame) {
+        if (sites == null) sites = applicationContext.getBean(GmxHydrogenBondSitesFromFrameBuilder.class) //
+                .withFrame(frame).build();
+
+        GmxAtom[] atoms = frame.getAtoms();
+        if (frameXyz.length < 3 * atoms.length) frameXyz = new float[3 * atoms.length];
+        IntStream.range(0, atoms.length).parallel().forEach(i -> {
+            frameXyz[3 * i] = atoms[i].getCoordinateX();
+            frameXyz[3 * i + 1] = atoms[i].getCoordinateY();
+            frameXyz[3 * i + 2] = atoms[i].getCoordinateZ();
+        });
+
+        GmxHydrogenBonds bonds = new GmxHydrogenBonds(sites);
+        bonds.setFrameNo(frame.getFrameNo());
+        detect(frameXyz, GmxPbcBox.of(frame.getBox()), bonds);
+        return bonds;
+    }
+
+    public GmxHydrogenBonds detect(float[] xyz, float[] box) {
+        GmxHydrogenBonds bonds = new GmxHydrogenBonds(sites);
+        detect(xyz, box, bonds);
+        return bonds;
+    }
+
+    /**
+     * @param box 3 edges of a rectangular box or 9 components of a triclinic box
+     */
+    public void detect(float[] xyz, float[] box, GmxHydrogenBonds bonds) {
+        validateBox(box);
+        detect(xyz, GmxPbcBox.of(box), bonds);
+    }
+
+    /**
+     * @param xyz   interleaved coordinates x0, y0, z0, x1, ... indexed by atom numbers
+     * @param box   periodic box
+     * @param bonds output, cleared before detection
+     */
+    public void detect(float[] xyz, GmxPbcBox box, GmxHydrogenBonds bonds) {
+        validateInput(bonds);
+        bonds.clear();
+        if (sites.getDonorsNum() == 0 || sites.getAcceptorsNum() == 0) return;
+
+        float searchRadius = criterion.getSearchRadius(getMaxDonorHydrogenDistance(xyz, box));
+        if (skin > 0) verletList.update(xyz, sites.getDonorAtoms(), sites.getAcceptorAtoms(), box, searchRadius, skin);
+        else acceptorsCellList.build(xyz, sites.getAcceptorAtoms(), box, searchRadius);
+
+        int chunksNum = (sites.getDonorsNum() + DONORS_PER_CHUNK - 1) / DONORS_PER_CHUNK;
+        ensureChunks(chunksNum);
+        IntStream.range(0, chunksNum).parallel().forEach(chunk -> {
+            if (skin > 0) detectChunkFromVerletList(xyz, box, searchRadius, chunk);
+            else detectChunk(xyz, box, searchRadius, chunk);
+        });
+
+        for (int chunk = 0; chunk < chunksNum; chunk++)
+            bonds.addAll(chunkPairs[chunk], chunkSizes[chunk]);
+    }
+
+    // ======== KERNEL ========
+
+    private void detectChunk(float[] xyz, GmxPbcBox box, float searchRadius, int chunk) {
+        int[] donorAtoms = sites.getDonorAtoms();
+        int[] hydrogenAtoms = sites.getHydrogenAtoms();
+        GmxHydrogenBondCriterion criterion = this.criterion;
+        float searchRadius2 = searchRadius * searchRadius;
+
+        int[] cells = new int[27];
+        float[] hydrogen = new float[3];
+        float[] acceptor = new float[3];
+        chunkSizes[chunk] = 0;
+
+        int from = chunk * DONORS_PER_CHUNK;
+        int to = Math.min(from + DONORS_PER_CHUNK, sites.getDonorsNum());
+        for (int donor = from; donor < to; donor++) {
+            int d = 3 * donorAtoms[donor];
+            box.displacement(xyz, donorAtoms[donor], hydrogenAtoms[donor], hydrogen);
+
+            int cellsNum = acceptorsCellList.getNeighbourCells( //
+                    acceptorsCellList.getCell(xyz[d], xyz[d + 1], xyz[d + 2]), cells);
+            for (int c = 0; c < cellsNum; c++)
+                for (int entry = acceptorsCellList.getHead(cells[c]); entry >= 0; //
+                     entry = acceptorsCellList.getNext(entry))
+                    testPair(xyz, box, criterion, searchRadius2, donor, hydrogen, entry, acceptor, chunk);
+        }
+    }
+
+    private void detectChunkFromVerletList(float[] xyz, GmxPbcBox box, float searchRadius, int chunk) {
+        int[] entries = verletList.getEntries();
+        GmxHydrogenBondCriterion criterion = this.criterion;
+        float searchRadius2 = searchRadius * searchRadius;
+
+        float[] hydrogen = new float[3];
+        float[] acceptor = new float[3];
+        chunkSizes[chunk] = 0;
+
+        int from = chunk * DONORS_PER_CHUNK;
+        int to = Math.min(from + DONORS_PER_CHUNK, sites.getDonorsNum());
+        for (int donor = from; donor < to; donor++) {
+            box.displacement(xyz, sites.getDonorAtoms()[donor], sites.getHydrogenAtoms()[donor], hydrogen);
+            for (int i = verletList.getFrom(donor); i < verletList.getTo(donor); i++)
+                testPair(xyz, box, criterion, searchRadius2, donor, hydrogen, entries[i], acceptor, chunk);
+        }
+    }
+
+    /**
+     * @param hydrogen vector from the donor to the hydrogen
+     * @param entry    acceptor site
+     * @param acceptor buffer for the vector from the donor to the acceptor
+     */
+    private void testPair(float[] xyz, GmxPbcBox box, GmxHydrogenBondCriterion criterion, float searchRadius2,
+            int donor, float[] hydrogen, int entry, float[] acceptor, int chunk) {
+
+        int d = 3 * sites.getDonorAtoms()[donor];
+        int a = 3 * sites.getAcceptorAtoms()[entry];
+        if (a == d) return;
+
+        acceptor[0] = xyz[a] - xyz[d];
+        acceptor[1] = xyz[a + 1] - xyz[d + 1];
+        acceptor[2] = xyz[a + 2] - xyz[d + 2];
+        box.minimumImage(acceptor);
+        float hx = hydrogen[0], hy = hydrogen[1], hz = hydrogen[2];
+        float ax = acceptor[0], ay = acceptor[1], az = acceptor[2];
+        float a2 = ax * ax + ay * ay + az * az;
+        if (a2 > searchRadius2 || !criterion.test(hx, hy, hz, hx * hx + hy * hy + hz * hz, ax, ay, az, a2)) return;
+
+        int[] pairs = chunkPairs[chunk];
+        int pairsNum = chunkSizes[chunk];
+        if (2 * pairsNum + 2 > pairs.length) chunkPairs[chunk] = pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+        pairs[2 * pairsNum] = donor;
+        pairs[2 * pairsNum + 1] = entry;
+        chunkSizes[chunk] = pairsNum + 1;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private float getMaxDonorHydrogenDistance(float[] xyz, GmxPbcBox box) {
+        if (criterion.getDistance() == GmxHydrogenBondCriterion.Distance.DONOR_ACCEPTOR) return 0;
+        float[] delta = new float[3];
+        float max2 = 0;
+        for (int donor = 0; donor < sites.getDonorsNum(); donor++) {
+            box.displacement(xyz, sites.getDonorAtoms()[donor], sites.getHydrogenAtoms()[donor], delta);
+            max2 = Math.max(max2, delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2]);
+        }
+        return (float) Math.sqrt(max2);
+    }
+
+    private void ensureChunks(int chunksNum) {
+        if (chunkPairs.length >= chunksNum) return;
+        int oldLength = chunkPairs.length;
+        chunkPairs = Arrays.copyOf(chunkPairs, chunksNum);
+        chunkSizes = Arrays.copyOf(chunkSizes, chunksNum);
+        for (int i = oldLength; i < chunksNum; i++) chunkPairs[i] = new int[256];
+    }
+
+    private void validateInput(GmxHydrogenBonds bonds) {
+        if (sites == null) throw new GmxAnalysisException("Hydrogen bond sites are missing.");
+        if (bonds.getSites() != sites) throw new GmxAnalysisException("Hydrogen bonds belong to other sites.");
+    }
+
+    private void validateBox(float[] box) {
+        if (box == null || (box.length != 3 && box.length != 9) || box[0] <= 0 || box[1] <= 0 || box[2] <= 0)
+            throw new GmxAnalysisException("Invalid box: " + Arrays.toString(box));
+    }
+}
@@ -0,0 +1,218 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.utils.GmxFft;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Records existence series h(t) of every donor-acceptor pair that is bonded at least once
+ * and computes hydrogen bond autocorrelation functions:
+ * <ul>
+ * <li>intermittent C(t) = &lt;h(0) h(t)&gt; / &lt;h&gt; via FFT, O(T log T) per pair;</li>
+ * <li>continuous S(t) = &lt;h(0) H(t)&gt; / &lt;h&gt;, where H(t) = 1 while the bond is unbroken,
+ * via histogram of bond run lengths, O(T) per pair.</li>
+ * </ul>
+ * Pairs are identified by sites of the same {@link GmxHydrogenBondSites}, i.e. by atom indexes
+ * of the frame structure. Frames must be accepted in trajectory order.
+ *
+ * @author asemenkov
+ * @since Jun 24, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxHydrogenBondLifetimeAnalyzer implements Consumer<GmxHydrogenBonds> {
+
+    private GmxHydrogenBondSites sites;
+    private double timeStep = 1;
+    private int maxLag = -1;
+    private int framesNum;
+
+    private int[] donorFirstPair = new int[0];
+    private int[] pairNext = new int[256];
+    private int[] pairAcceptor = new int[256];
+    private BitSet[] pairSeries = new BitSet[256];
+    private int pairsNum;
+
+    // ======== INTERFACE ========
+
+    /**
+     * @param timeStep time between consecutive frames, ps
+     */
+    public GmxHydrogenBondLifetimeAnalyzer withTimeStep(double timeStep) {
+        if (timeStep <= 0) throw new GmxAnalysisException("Invalid time step: " + timeStep);
+        this.timeStep = timeStep;
+        return this;
+    }
+
+    /**
+     * @param maxLag maximal lag in frames; by default half of the frames number
+     */
+    public GmxHydrogenBondLifetimeAnalyzer withMaxLag(int maxLag) {
+        if (maxLag < 0) throw new GmxAnalysisException("Invalid max lag: " + maxLag);
+        this.maxLag = maxLag;
+        return this;
+    }
+
+    public int getFramesNum() {
+        return framesNum;
+    }
+
+    public int getPairsNum() {
+        return pairsNum;
+    }
+
+    /**
+     * Records hydrogen bonds of the next frame
+     */
+    @Override
+    public void accept(GmxHydrogenBonds bonds) {
+        if (sites == null) initSites(bonds.getSites());
+        else if (bonds.getSites() != sites) throw new GmxAnalysisException("Hydrogen bonds belong to other sites.");
+
+        for (int bond = 0; bond < bonds.getSize(); bond++)
+            getOrCreatePair(bonds.getDonorSite(bond), bonds.getAcceptorSite(bond)).set(framesNum);
+        framesNum++;
+    }
+
+    public GmxHydrogenBondCorrelation correlate() {
+        if (framesNum == 0) throw new GmxAnalysisException("No frames recorded.");
+        int lagsNum = Math.min(maxLag < 0 ? framesNum / 2 : maxLag, framesNum - 1) + 1;
+        int paddedLength = GmxFft.getPaddedLength(2 * framesNum);
+
+        Accumulator accumulator = IntStream.range(0, (pairsNum + 1) / 2).parallel().collect( //
+                () -> new Accumulator(paddedLength, framesNum), //
+                (acc, couple) -> correlateCouple(2 * couple, acc), //
+                Accumulator::merge);
+        double[] spectrum = accumulator.spectrum;
+        long[] runs = accumulator.runs;
+
+        GmxHydrogenBondCorrelation correlation = new GmxHydrogenBondCorrelation(timeStep, //
+                normalize(getContinuousSums(runs, lagsNum)), //
+                normalize(getIntermittentSums(spectrum, lagsNum)), pairsNum);
+
+        Logger.log(String.format("Hydrogen bond lifetimes over %d frames and %d pairs: continuous %.3f, "
+                        + "intermittent %.3f", framesNum, pairsNum, correlation.getContinuousLifetime(),
+                correlation.getIntermittentLifetime()));
+        return correlation;
+    }
+
+    // ======== KERNEL ========
+
+    /**
+     * Two real series are transformed at once as real and imaginary parts: for the sum of
+     * their power spectra |A(k)|^2 + |B(k)|^2 = (|Z(k)|^2 + |Z(n-k)|^2) / 2, symmetrized later.
+     */
+    private void correlateCouple(int pair, Accumulator acc) {
+        Arrays.fill(acc.re, 0);
+        Arrays.fill(acc.im, 0);
+        fillSeries(pairSeries[pair], acc.re, acc.runs);
+        if (pair + 1 < pairsNum) fillSeries(pairSeries[pair + 1], acc.im, acc.runs);
+
+        GmxFft.transform(acc.re, acc.im, false);
+        for (int k = 0; k < acc.spectrum.length; k++)
+            acc.spectrum[k] += acc.re[k] * acc.re[k] + acc.im[k] * acc.im[k];
+    }
+
+    private static void fillSeries(BitSet series, double[] values, long[] runs) {
+        for (int start = series.nextSetBit(0); start >= 0; start = series.nextSetBit(start)) {
+            int end = series.nextClearBit(start);
+            Arrays.fill(values, start, end, 1);
+            runs[end - start]++;
+            start = end;
+        }
+    }
+
+    private double[] getIntermittentSums(double[] spectrum, int lagsNum) {
+        int n = spectrum.length;
+        double[] re = new double[n];
+        double[] im = new double[n];
+        for (int k = 0; k < n; k++) re[k] = (spectrum[k] + spectrum[(n - k) % n]) / 2;
+        GmxFft.transform(re, im, true);
+        return Arrays.copyOf(re, lagsNum);
+    }
+
+    /**
+     * A run of L frames contributes L - t origins to lag t &lt; L
+     */
+    private double[] getContinuousSums(long[] runs, int lagsNum) {
+        double[] sums = new double[lagsNum];
+        long runsLonger = 0;
+        long framesInRunsLonger = 0;
+        for (int length = framesNum; length >= 1; length--) {
+            runsLonger += runs[length];
+            framesInRunsLonger += runs[length] * length;
+            int lag = length - 1;
+            if (lag < lagsNum) sums[lag] = framesInRunsLonger - (double) lag * runsLonger;
+        }
+        return sums;
+    }
+
+    /**
+     * Averages over (T - t) time origins and normalizes to 1 at zero lag
+     */
+    private double[] normalize(double[] sums) {
+        double[] function = new double[sums.length];
+        if (sums[0] <= 0) return function;
+        double zero = sums[0] / framesNum;
+        for (int lag = 0; lag < sums.length; lag++) function[lag] = sums[lag] / (framesNum - lag) / zero;
+        return function;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void initSites(GmxHydrogenBondSites sites) {
+        this.sites = sites;
+        donorFirstPair = new int[sites.getDonorsNum()];
+        Arrays.fill(donorFirstPair, -1);
+    }
+
+    private BitSet getOrCreatePair(int donorSite, int acceptorSite) {
+        for (int pair = donorFirstPair[donorSite]; pair >= 0; pair = pairNext[pair])
+            if (pairAcceptor[pair] == acceptorSite) return pairSeries[pair];
+
+        if (pairsNum == pairSeries.length) {
+            pairNext = Arrays.copyOf(pairNext, 2 * pairsNum);
+            pairAcceptor = Arrays.copyOf(pairAcceptor, 2 * pairsNum);
+            pairSeries = Arrays.copyOf(pairSeries, 2 * pairsNum);
+        }
+
+        pairNext[pairsNum] = donorFirstPair[donorSite];
+        pairAcceptor[pairsNum] = acceptorSite;
+        pairSeries[pairsNum] = new BitSet(framesNum + 1);
+        donorFirstPair[donorSite] = pairsNum;
+        return pairSeries[pairsNum++];
+    }
+
+    // ======== ACCUMULATOR ========
+
+    /**
+     * Per-thread sums of power spectra and run lengths with FFT buffers
+     */
+    private static class Accumulator {
+
+        private final double[] spectrum;
+        private final long[] runs;
+        private final double[] re;
+        private final double[] im;
+
+        private Accumulator(int paddedLength, int framesNum) {
+            this.spectrum = new double[paddedLength];
+            this.runs = new long[framesNum + 1];
+            this.re = new double[paddedLength];
+            this.im = new double[paddedLength];
+        }
+
+        private void merge(Accumulator other) {
+            for (int i = 0; i < spectrum.length; i++) spectrum[i] += other.spectrum[i];
+            for (int i = 0; i < runs.length; i++) runs[i] += other.runs[i];
+        }
+    }
+}
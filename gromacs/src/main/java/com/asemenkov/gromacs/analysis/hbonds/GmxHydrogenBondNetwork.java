@@ -0,0 +1,175 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.utils.GmxUnionFind;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.Arrays;
+
+/**
+ * Residue-level hydrogen bond network of one frame: residues are vertices keyed by residue No,
+ * bonds are edges. Connected components are found with a primitive union-find, so no object
+ * is created per vertex or edge and all arrays are reused by the following frames.
+ * A cluster is percolating if it is connected to its own periodic image.
+ *
+ * @author asemenkov
+ * @since Jul 01, 2019
+ */
+public class GmxHydrogenBondNetwork {
+
+    private final GmxHydrogenBondSites sites;
+    private final GmxUnionFind unionFind = new GmxUnionFind();
+    private final boolean[] vertices;
+    private final int[] referenceAtoms;
+    private final int verticesNum;
+
+    private float[] frameXyz = new float[0];
+    private int[] clusterSizesCounts = new int[0];
+    private int clustersNum;
+    private int largestClusterSize;
+    private int percolatingClustersNum;
+    private int frameNo;
+
+    /**
+     * Every residue owning a donor or an acceptor site becomes a vertex. Its reference atom,
+     * the acceptor or the first donor heavy atom, is used to unwrap bonds across the box.
+     */
+    public GmxHydrogenBondNetwork(GmxHydrogenBondSites sites) {
+        this.sites = sites;
+        int maxResidueNo = Math.max( //
+                Arrays.stream(sites.getDonorResidues()).max().orElse(-1), //
+                Arrays.stream(sites.getAcceptorResidues()).max().orElse(-1));
+
+        this.vertices = new boolean[maxResidueNo + 1];
+        this.referenceAtoms = new int[maxResidueNo + 1];
+        Arrays.fill(referenceAtoms, -1);
+
+        for (int i = sites.getDonorsNum() - 1; i >= 0; i--)
+            referenceAtoms[sites.getDonorResidues()[i]] = sites.getDonorAtoms()[i];
+        for (int i = 0; i < sites.getAcceptorsNum(); i++)
+            referenceAtoms[sites.getAcceptorResidues()[i]] = sites.getAcceptorAtoms()[i];
+
+        int num = 0;
+        for (int residueNo = 0; residueNo <= maxResidueNo; residueNo++)
+            if (vertices[residueNo] = referenceAtoms[residueNo] >= 0) num++;
+        this.verticesNum = num;
+    }
+
+    // ======== INTERFACE ========
+
+    public void build(GmxFrame frame, GmxHydrogenBonds bonds) {
+        GmxAtom[] atoms = frame.getAtoms();
+        if (frameXyz.length < 3 * atoms.length) frameXyz = new float[3 * atoms.length];
+        for (int i = 0; i < atoms.length; i++) atoms[i].getCoordinates(frameXyz, 3 * i);
+        build(bonds, frameXyz, GmxPbcBox.of(frame.getBox()));
+    }
+
+    /**
+     * @param bonds hydrogen bonds of the frame
+     * @param xyz   interleaved coordinates of the frame used to detect percolation
+     * @param box   periodic box of the frame
+     */
+    public void build(GmxHydrogenBonds bonds, float[] xyz, GmxPbcBox box) {
+        if (bonds.getSites() != sites) throw new GmxAnalysisException("Hydrogen bonds belong to other sites.");
+        unionFind.reset(vertices.length);
+        frameNo = bonds.getFrameNo();
+
+        float tolerance = Math.min(box.getHeight(0), Math.min(box.getHeight(1), box.getHeight(2))) / 2;
+        float[] delta = new float[3];
+        float[] bond = new float[3];
+
+        for (int i = 0; i < bonds.getSize(); i++) {
+            int donorResidue = bonds.getDonorResidueNo(i);
+            int acceptorResidue = bonds.getAcceptorResidueNo(i);
+
+            box.displacement(xyz, referenceAtoms[donorResidue], bonds.getDonorAtomNo(i), bond);
+            box.displacement(xyz, bonds.getDonorAtomNo(i), bonds.getAcceptorAtomNo(i), delta);
+            addTo(bond, delta);
+            box.displacement(xyz, bonds.getAcceptorAtomNo(i), referenceAtoms[acceptorResidue], delta);
+            addTo(bond, delta);
+
+            unionFind.union(donorResidue, acceptorResidue, bond[0], bond[1], bond[2], tolerance);
+        }
+
+        countClusters();
+    }
+
+    // ======== GETTERS ========
+
+    public GmxHydrogenBondSites getSites() {
+        return sites;
+    }
+
+    public int getFrameNo() {
+        return frameNo;
+    }
+
+    public int getVerticesNum() {
+        return verticesNum;
+    }
+
+    public int getClustersNum() {
+        return clustersNum;
+    }
+
+    public int getLargestClusterSize() {
+        return largestClusterSize;
+    }
+
+    public int getPercolatingClustersNum() {
+        return percolatingClustersNum;
+    }
+
+    public boolean isPercolating() {
+        return percolatingClustersNum > 0;
+    }
+
+    /**
+     * @return representative residue No of the cluster of the residue
+     */
+    public int getClusterNo(int residueNo) {
+        return unionFind.find(residueNo);
+    }
+
+    public int getClusterSize(int residueNo) {
+        return unionFind.getSize(residueNo);
+    }
+
+    public boolean isClusterPercolating(int residueNo) {
+        return unionFind.isPercolating(residueNo);
+    }
+
+    /**
+     * @return number of clusters of the size
+     */
+    public int getClustersNum(int size) {
+        return size < clusterSizesCounts.length ? clusterSizesCounts[size] : 0;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void countClusters() {
+        if (clusterSizesCounts.length <= verticesNum) clusterSizesCounts = new int[verticesNum + 1];
+        else Arrays.fill(clusterSizesCounts, 0);
+        clustersNum = 0;
+        largestClusterSize = 0;
+        percolatingClustersNum = 0;
+
+        for (int residueNo = 0; residueNo < vertices.length; residueNo++) {
+            if (!vertices[residueNo] || !unionFind.isRoot(residueNo)) continue;
+            int size = unionFind.getSize(residueNo);
+            clusterSizesCounts[size]++;
+            clustersNum++;
+            largestClusterSize = Math.max(largestClusterSize, size);
+            if (unionFind.isPercolating(residueNo)) percolatingClustersNum++;
+        }
+    }
+
+    private static void addTo(float[] vector, float[] delta) {
+        vector[0] += delta[0];
+        vector[1] += delta[1];
+        vector[2] += delta[2];
+    }
+}
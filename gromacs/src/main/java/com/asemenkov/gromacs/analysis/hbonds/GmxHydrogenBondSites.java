@@ -0,0 +1,75 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+/**
+ * Flat index tables of hydrogen bond donors (D-H pairs) and acceptors of one topology.
+ * All values are atom and residue numbers, so the tables don't depend on frame coordinates.
+ *
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+public class GmxHydrogenBondSites {
+
+    private final int[] donorAtoms;
+    private final int[] hydrogenAtoms;
+    private final int[] donorResidues;
+    private final int[] acceptorAtoms;
+    private final int[] acceptorResidues;
+
+    GmxHydrogenBondSites(int donorsNum, int acceptorsNum) {
+        this.donorAtoms = new int[donorsNum];
+        this.hydrogenAtoms = new int[donorsNum];
+        this.donorResidues = new int[donorsNum];
+        this.acceptorAtoms = new int[acceptorsNum];
+        this.acceptorResidues = new int[acceptorsNum];
+    }
+
+    // ======== GETTERS ========
+
+    public int getDonorsNum() {
+        return donorAtoms.length;
+    }
+
+    public int getAcceptorsNum() {
+        return acceptorAtoms.length;
+    }
+
+    /**
+     * @return atom numbers of heavy atoms the donor hydrogens are bonded to
+     */
+    public int[] getDonorAtoms() {
+        return donorAtoms;
+    }
+
+    /**
+     * @return atom numbers of @Donor hydrogens
+     */
+    public int[] getHydrogenAtoms() {
+        return hydrogenAtoms;
+    }
+
+    public int[] getDonorResidues() {
+        return donorResidues;
+    }
+
+    public int[] getAcceptorAtoms() {
+        return acceptorAtoms;
+    }
+
+    public int[] getAcceptorResidues() {
+        return acceptorResidues;
+    }
+
+    // ======== SETTERS ========
+
+    void setDonor(int index, int donorAtom, int hydrogenAtom, int residueNo) {
+        donorAtoms[index] = donorAtom;
+        hydrogenAtoms[index] = hydrogenAtom;
+        donorResidues[index] = residueNo;
+    }
+
+    void setAcceptor(int index, int acceptorAtom, int residueNo) {
+        acceptorAtoms[index] = acceptorAtom;
+        acceptorResidues[index] = residueNo;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxHydrogenBondSitesFromFrameBuilder extends GmxAbstractHydrogenBondSitesBuilder {
+
+    private GmxFrame frame;
+
+    // ======== INTERFACE ========
+
+    public GmxHydrogenBondSitesFromFrameBuilder withFrame(GmxFrame frame) {
+        this.frame = frame;
+        return this;
+    }
+
+    @Override
+    public GmxHydrogenBondSites build() {
+        validateFrame();
+        GmxResidue[] residues = frame.getResidues();
+
+        int[] donorOffsets = new int[residues.length + 1];
+        int[] acceptorOffsets = new int[residues.length + 1];
+        for (int i = 0; i < residues.length; i++) {
+            donorOffsets[i + 1] = donorOffsets[i] + residues[i].getDonorAtoms().length;
+            acceptorOffsets[i + 1] = acceptorOffsets[i] + (residues[i].getAcceptorAtom() == null ? 0 : 1);
+        }
+
+        GmxHydrogenBondSites sites = new GmxHydrogenBondSites( //
+                donorOffsets[residues.length], acceptorOffsets[residues.length]);
+
+        IntStream.range(0, residues.length).parallel().forEach(i -> {
+            GmxResidue residue = residues[i];
+            GmxAtom[] allAtoms = residue.getAllAtoms();
+            GmxAtom[] donors = residue.getDonorAtoms();
+            int[] heavyAtoms = residueReflectionData.getResidueDonorsHeavyAtoms(residue.getClass());
+
+            for (int j = 0; j < donors.length; j++)
+                sites.setDonor(donorOffsets[i] + j, allAtoms[heavyAtoms[j]].getAtomNo(), //
+                        donors[j].getAtomNo(), residue.getResidueNo());
+
+            if (residue.getAcceptorAtom() != null) sites.setAcceptor(acceptorOffsets[i], //
+                    residue.getAcceptorAtom().getAtomNo(), residue.getResidueNo());
+        });
+
+        Logger.log(String.format("Hydrogen bond sites created from frame: %d donors, %d acceptors", //
+                sites.getDonorsNum(), sites.getAcceptorsNum()));
+        return sites;
+    }
+
+    // ======== VALIDATION METHODS ========
+
+    private void validateFrame() {
+        if (frame == null) throw new GmxAnalysisException("Frame is missing.");
+        if (Arrays.stream(frame.getResidues()).anyMatch(residue -> //
+                residueReflectionData.getResidueDonorsHeavyAtoms(residue.getClass()) == null))
+            throw new GmxAnalysisException("Frame contains residues unknown to reflection data.");
+    }
+}
@@ -0,0 +1,101 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds hydrogen bond sites from atom indexes of the frame structure only,
+ * so no GmxAtom or GmxResidue instance is created.
+ *
+ * @author asemenkov
+ * @since Jun 17, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxHydrogenBondSitesFromStructureBuilder extends GmxAbstractHydrogenBondSitesBuilder {
+
+    private GmxFrameStructure frameStructure;
+
+    // ======== INTERFACE ========
+
+    public GmxHydrogenBondSitesFromStructureBuilder withFrameStructure(GmxFrameStructure frameStructure) {
+        this.frameStructure = frameStructure;
+        return this;
+    }
+
+    @Override
+    public GmxHydrogenBondSites build() {
+        validateFrameStructure();
+        int typesNum = frameStructure.getResidueTypesNum();
+        int[][] heavyAtoms = new int[typesNum][];
+        int[][] donors = new int[typesNum][];
+        int[] acceptors = new int[typesNum];
+        for (int type = 0; type < typesNum; type++) {
+            Class<? extends GmxResidue> residueClass = frameStructure.getResidueTypeClass(type);
+            heavyAtoms[type] = residueReflectionData.getResidueDonorsHeavyAtoms(residueClass);
+            donors[type] = getDonorsPositions(residueClass);
+            acceptors[type] = getAcceptorPosition(residueClass);
+        }
+
+        // sites of a residue start where sites of the previous residue end
+        int residuesNum = frameStructure.getResiduesNum();
+        int[] donorOffsets = new int[residuesNum + 1];
+        int[] acceptorOffsets = new int[residuesNum + 1];
+        for (int r = 0; r < residuesNum; r++) {
+            int type = frameStructure.getResidueType(r);
+            donorOffsets[r + 1] = donorOffsets[r] + donors[type].length;
+            acceptorOffsets[r + 1] = acceptorOffsets[r] + (acceptors[type] >= 0 ? 1 : 0);
+        }
+
+        GmxHydrogenBondSites sites = new GmxHydrogenBondSites(donorOffsets[residuesNum], acceptorOffsets[residuesNum]);
+        IntStream.range(0, residuesNum).parallel().forEach(r -> {
+            int type = frameStructure.getResidueType(r);
+            int residueNo = frameStructure.getResidueNo(r);
+            for (int j = 0; j < donors[type].length; j++)
+                sites.setDonor(donorOffsets[r] + j, frameStructure.getResidueAtom(r, heavyAtoms[type][j]), //
+                        frameStructure.getResidueAtom(r, donors[type][j]), residueNo);
+            if (acceptors[type] >= 0)
+                sites.setAcceptor(acceptorOffsets[r], frameStructure.getResidueAtom(r, acceptors[type]), residueNo);
+        });
+
+        Logger.log(String.format("Hydrogen bond sites created from frame structure: %d donors, %d acceptors", //
+                sites.getDonorsNum(), sites.getAcceptorsNum()));
+        return sites;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private int[] getDonorsPositions(Class<? extends GmxResidue> residueClass) {
+        List<Field> atoms = Arrays.asList(residueReflectionData.getResidueAtomsFields(residueClass));
+        return Arrays.stream(residueReflectionData.getResidueDonorsFields(residueClass)) //
+                .mapToInt(atoms::indexOf) //
+                .toArray();
+    }
+
+    private int getAcceptorPosition(Class<? extends GmxResidue> residueClass) {
+        List<Field> atoms = Arrays.asList(residueReflectionData.getResidueAtomsFields(residueClass));
+        return atoms.indexOf(residueReflectionData.getResidueAcceptorField(residueClass));
+    }
+
+    // ======== VALIDATION METHODS ========
+
+    private void validateFrameStructure() {
+        if (frameStructure == null) throw new GmxAnalysisException("Frame structure is missing.");
+        if (IntStream.range(0, frameStructure.getResidueTypesNum()).anyMatch(type -> residueReflectionData //
+                .getResidueDonorsHeavyAtoms(frameStructure.getResidueTypeClass(type)) == null))
+            throw new GmxAnalysisException("Frame structure contains residues unknown to reflection data.");
+        if (IntStream.range(0, frameStructure.getResiduesNum()).anyMatch(r -> frameStructure.getResidueAtomsNum(r) //
+                != residueReflectionData.getResidueAtomsFields(frameStructure.getResidueClass(r)).length))
+            throw new GmxAnalysisException("Frame structure residue atoms don't match residue classes.");
+    }
+}
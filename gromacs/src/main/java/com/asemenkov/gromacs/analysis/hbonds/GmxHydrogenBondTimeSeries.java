@@ -0,0 +1,57 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import java.util.Arrays;
+
+/**
+ * Number of hydrogen bonds per frame of a trajectory, stored in growable primitive arrays.
+ *
+ * @author asemenkov
+ * @since Jun 17, 2019
+ */
+public class GmxHydrogenBondTimeSeries {
+
+    private int[] frameNos = new int[1024];
+    private int[] counts = new int[1024];
+    private int size;
+
+    // ======== GETTERS ========
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getFrameNo(int index) {
+        return frameNos[index];
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    public int[] getFrameNos() {
+        return Arrays.copyOf(frameNos, size);
+    }
+
+    public int[] getCounts() {
+        return Arrays.copyOf(counts, size);
+    }
+
+    public double getMeanCount() {
+        if (size == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < size; i++) sum += counts[i];
+        return (double) sum / size;
+    }
+
+    // ======== SETTERS ========
+
+    public void add(int frameNo, int count) {
+        if (size == counts.length) {
+            frameNos = Arrays.copyOf(frameNos, 2 * size);
+            counts = Arrays.copyOf(counts, 2 * size);
+        }
+        frameNos[size] = frameNo;
+        counts[size] = count;
+        size++;
+    }
+}
@@ -0,0 +1,155 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.trajectory.GmxFrameAnalysis;
+import com.asemenkov.gromacs.analysis.trajectory.GmxTrajectoryExecutor;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.io.GmxXtcFileNativeReader;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Streams an .xtc trajectory through the hydrogen bond detector. One frame structure is bound
+ * to raw coordinates of every frame, so neither GmxFrame nor GmxAtom nor GmxResidue instances
+ * are created: the detector works on the interleaved coordinates of the frame directly,
+ * and the cell list and the bonds are reused for all frames.
+ * The box of the frame structure is used for every frame.
+ *
+ * @author asemenkov
+ * @since Jun 17, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxHydrogenBondTrajectoryAnalyzer {
+
+    private @Autowired ApplicationContext applicationContext;
+    private @Autowired GmxXtcFileNativeReader xtcFileNativeReader;
+
+    private GmxFrameStructure frameStructure;
+    private GmxHydrogenBondDetector detector;
+    private Consumer<GmxHydrogenBonds> bondsConsumer;
+    private Path xtcFilePath;
+    private int threadsNum = 1;
+
+    // ======== INTERFACE ========
+
+    public GmxHydrogenBondTrajectoryAnalyzer withFrameStructure(GmxFrameStructure frameStructure) {
+        this.frameStructure = frameStructure;
+        return this;
+    }
+
+    public GmxHydrogenBondTrajectoryAnalyzer withXtcFile(Path xtcFilePath) {
+        this.xtcFilePath = xtcFilePath;
+        return this;
+    }
+
+    /**
+     * @param detector configured detector; if sites are not specified, they are built from the frame structure
+     */
+    public GmxHydrogenBondTrajectoryAnalyzer withDetector(GmxHydrogenBondDetector detector) {
+        this.detector = detector;
+        return this;
+    }
+
+    /**
+     * @param bondsConsumer receives bonds of every frame in frame order; in sequential mode
+     *                      the instance is reused, so copy what must be kept
+     */
+    public GmxHydrogenBondTrajectoryAnalyzer withBondsConsumer(Consumer<GmxHydrogenBonds> bondsConsumer) {
+        this.bondsConsumer = bondsConsumer;
+        return this;
+    }
+
+    /**
+     * @param threadsNum if greater than 1, frames are analyzed in parallel by {@link GmxTrajectoryExecutor}
+     *                   and the bonds consumer receives a copy of bonds of every frame
+     */
+    public GmxHydrogenBondTrajectoryAnalyzer withThreadsNum(int threadsNum) {
+        if (threadsNum < 1) throw new GmxAnalysisException("Invalid threads number: " + threadsNum);
+        this.threadsNum = threadsNum;
+        return this;
+    }
+
+    public GmxHydrogenBondTimeSeries analyze() {
+        validateInput();
+        if (detector == null) detector = applicationContext.getBean(GmxHydrogenBondDetector.class);
+        if (detector.getSites() == null) detector.withSites(applicationContext //
+                .getBean(GmxHydrogenBondSitesFromStructureBuilder.class) //
+                .withFrameStructure(frameStructure) //
+                .build());
+
+        GmxPbcBox box = GmxPbcBox.of(frameStructure.getBox());
+        GmxHydrogenBondTimeSeries timeSeries = new GmxHydrogenBondTimeSeries();
+        Consumer<GmxHydrogenBonds> consumer = bonds -> {
+            timeSeries.add(bonds.getFrameNo(), bonds.getSize());
+            if (bondsConsumer != null) bondsConsumer.accept(bonds);
+        };
+
+        if (threadsNum == 1) analyzeSequentially(createFrameAnalysis(detector, box, false), consumer);
+        else applicationContext.getBean(GmxTrajectoryExecutor.class) //
+                .withXtcFile(xtcFilePath) //
+                .withThreadsNum(threadsNum) //
+                .execute(() -> createFrameAnalysis(copyDetector(), box, true), consumer);
+
+        Logger.log(String.format("Hydrogen bonds analyzed in %d frames of %s, mean count %.3f", //
+                timeSeries.getSize(), xtcFilePath.getFileName(), timeSeries.getMeanCount()));
+        return timeSeries;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void analyzeSequentially(GmxFrameAnalysis<GmxHydrogenBonds> analysis,
+            Consumer<GmxHydrogenBonds> consumer) {
+
+        xtcFileNativeReader.openXtcFile(xtcFilePath);
+        try {
+            GmxFrameCoordinates frameCoordinates;
+            while ((frameCoordinates = xtcFileNativeReader.readNextFrame()) != null)
+                consumer.accept(analysis.analyze(frameCoordinates));
+        } finally {
+            if (xtcFileNativeReader.isBusy()) xtcFileNativeReader.closeXtcFile();
+        }
+    }
+
+    /**
+     * @param copy if false, the same bonds instance is returned for every frame
+     */
+    private GmxFrameAnalysis<GmxHydrogenBonds> createFrameAnalysis(GmxHydrogenBondDetector detector,
+            GmxPbcBox box, boolean copy) {
+
+        int atomsNum = frameStructure.getAtomsNum();
+        GmxHydrogenBonds bonds = new GmxHydrogenBonds(detector.getSites());
+
+        return frameCoordinates -> {
+            if (frameCoordinates.getAtomsNum() != atomsNum) throw new GmxAnalysisException( //
+                    "Frame structure atomsNum isn't equal to .xtc file atomsNum: " + xtcFilePath);
+
+            detector.detect(frameCoordinates.getXyz(), box, bonds);
+            bonds.setFrameNo(frameCoordinates.getFrameNo());
+            return copy ? bonds.copy() : bonds;
+        };
+    }
+
+    private GmxHydrogenBondDetector copyDetector() {
+        return applicationContext.getBean(GmxHydrogenBondDetector.class) //
+                .withSites(detector.getSites()) //
+                .withCriterion(detector.getCriterion()) //
+                .withSkin(detector.getSkin());
+    }
+
+    // ======== VALIDATION METHODS ========
+
+    private void validateInput() {
+        if (frameStructure == null) throw new GmxAnalysisException("Frame structure is missing.");
+        if (xtcFilePath == null) throw new GmxAnalysisException("Path to .xtc file is missing.");
+    }
+}
@@ -0,0 +1,116 @@
+package com.asemenkov.gromacs.analysis.hbonds;
+
+import java.util.Arrays;
+
+/**
+ * Hydrogen bonds of one frame stored as pairs of indexes into {@link GmxHydrogenBondSites}
+ * tables: no object is created per bond and the storage is reused after {@link #clear()}.
+ *
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+public class GmxHydrogenBonds {
+
+    private final GmxHydrogenBondSites sites;
+    private int[] donorSites = new int[64];
+    private int[] acceptorSites = new int[64];
+    private int frameNo;
+    private int size;
+
+    public GmxHydrogenBonds(GmxHydrogenBondSites sites) {
+        this.sites = sites;
+    }
+
+    // ======== GETTERS ========
+
+    public GmxHydrogenBondSites getSites() {
+        return sites;
+    }
+
+    public int getFrameNo() {
+        return frameNo;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getDonorSite(int bond) {
+        return donorSites[bond];
+    }
+
+    public int getAcceptorSite(int bond) {
+        return acceptorSites[bond];
+    }
+
+    public int getDonorAtomNo(int bond) {
+        return sites.getDonorAtoms()[donorSites[bond]];
+    }
+
+    public int getHydrogenAtomNo(int bond) {
+        return sites.getHydrogenAtoms()[donorSites[bond]];
+    }
+
+    public int getAcceptorAtomNo(int bond) {
+        return sites.getAcceptorAtoms()[acceptorSites[bond]];
+    }
+
+    public int getDonorResidueNo(int bond) {
+        return sites.getDonorResidues()[donorSites[bond]];
+    }
+
+    public int getAcceptorResidueNo(int bond) {
+        return sites.getAcceptorResidues()[acceptorSites[bond]];
+    }
+
+    /**
+     * @return compact copy which doesn't share storage with this instance
+     */
+    public GmxHydrogenBonds copy() {
+        GmxHydrogenBonds copy = new GmxHydrogenBonds(sites);
+        copy.donorSites = Arrays.copyOf(donorSites, size);
+        copy.acceptorSites = Arrays.copyOf(acceptorSites, size);
+        copy.frameNo = frameNo;
+        copy.size = size;
+        return copy;
+    }
+
+    // ======== SETTERS ========
+
+    public void setFrameNo(int frameNo) {
+        this.frameNo = frameNo;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int donorSite, int acceptorSite) {
+        ensureCapacity(size + 1);
+        donorSites[size] = donorSite;
+        acceptorSites[size] = acceptorSite;
+        size++;
+    }
+
+    /**
+     * @param pairs    interleaved donor site, acceptor site pairs
+     * @param pairsNum number of pairs to add
+     */
+    public void addAll(int[] pairs, int pairsNum) {
+        ensureCapacity(size + pairsNum);
+        for (int i = 0; i < pairsNum; i++) {
+            donorSites[size] = pairs[2 * i];
+            acceptorSites[size] = pairs[2 * i + 1];
+            size++;
+        }
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= donorSites.length) return;
+        int newCapacity = Math.max(capacity, Math.max(64, 2 * donorSites.length));
+        donorSites = Arrays.copyOf(donorSites, newCapacity);
+        acceptorSites = Arrays.copyOf(acceptorSites, newCapacity);
+    }
+}
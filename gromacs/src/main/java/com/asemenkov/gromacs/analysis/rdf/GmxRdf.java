@@ -0,0 +1,54 @@
+package com.asemenkov.gromacs.analysis.rdf;
+
+/**
+ * Radial distribution function g(r) of one selection pair and its running coordination number n(r),
+ * the mean number of target atoms within r from a reference atom. Values are given at bin centers.
+ *
+ * @author asemenkov
+ * @since Jul 29, 2019
+ */
+public class GmxRdf {
+
+    private final String name;
+    private final double[] radii;
+    private final double[] rdf;
+    private final double[] coordinationNumbers;
+    private final int framesNum;
+
+    public GmxRdf(String name, double[] radii, double[] rdf, double[] coordinationNumbers, int framesNum) {
+        this.name = name;
+        this.radii = radii;
+        this.rdf = rdf;
+        this.coordinationNumbers = coordinationNumbers;
+        this.framesNum = framesNum;
+    }
+
+    // ======== GETTERS ========
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBinsNum() {
+        return radii.length;
+    }
+
+    /**
+     * @return bin centers, nm
+     */
+    public double[] getRadii() {
+        return radii;
+    }
+
+    public double[] getRdf() {
+        return rdf;
+    }
+
+    public double[] getCoordinationNumbers() {
+        return coordinationNumbers;
+    }
+
+    public int getFramesNum() {
+        return framesNum;
+    }
+}
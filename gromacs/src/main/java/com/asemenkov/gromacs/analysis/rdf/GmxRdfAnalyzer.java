@@ -0,0 +1,296 @@
+package com.asemenkov.gromacs.analysis.rdf;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.trajectory.GmxFrameAnalysis;
+import com.asemenkov.gromacs.analysis.trajectory.GmxTrajectoryExecutor;
+import com.asemenkov.gromacs.analysis.utils.GmxCellList;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.gromacs.particles.utils.GmxAtomReflectionData;
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Computes radial distribution functions of several selection pairs in a single pass over an .xtc
+ * trajectory. Frames are analyzed in parallel by {@link GmxTrajectoryExecutor}; every worker thread
+ * bins distances into its own histograms, which are merged after the pass, so no synchronization
+ * is needed per frame. Target atoms are binned into a cell list once per frame for all pairs
+ * sharing the target selection. The box of the frame structure is used for every frame.
+ *
+ * @author asemenkov
+ * @since Jul 29, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxRdfAnalyzer {
+
+    private static final float DEFAULT_CUTOFF = 1.f;
+    private static final float DEFAULT_BIN_WIDTH = 0.002f;
+
+    private @Autowired ApplicationContext applicationContext;
+    private @Autowired GmxAtomReflectionData atomReflectionData;
+    private @Autowired GmxResidueReflectionData residueReflectionData;
+
+    private final Map<String, GmxRdfSelection[]> pairs = new LinkedHashMap<>();
+    private GmxFrameStructure frameStructure;
+    private Path xtcFilePath;
+    private float cutoff = DEFAULT_CUTOFF;
+    private float binWidth = DEFAULT_BIN_WIDTH;
+    private int threadsNum = Runtime.getRuntime().availableProcessors();
+
+    // ======== INTERFACE ========
+
+    public GmxRdfAnalyzer withFrameStructure(GmxFrameStructure frameStructure) {
+        this.frameStructure = frameStructure;
+        return this;
+    }
+
+    public GmxRdfAnalyzer withXtcFile(Path xtcFilePath) {
+        this.xtcFilePath = xtcFilePath;
+        return this;
+    }
+
+    /**
+     * @param cutoff the largest distance, nm; must not exceed half of the box height
+     */
+    public GmxRdfAnalyzer withCutoff(float cutoff) {
+        if (!(cutoff > 0)) throw new GmxAnalysisException("Invalid cutoff: " + cutoff);
+        this.cutoff = cutoff;
+        return this;
+    }
+
+    /**
+     * @param binWidth histogram bin width, nm
+     */
+    public GmxRdfAnalyzer withBinWidth(float binWidth) {
+        if (!(binWidth > 0)) throw new GmxAnalysisException("Invalid bin width: " + binWidth);
+        this.binWidth = binWidth;
+        return this;
+    }
+
+    public GmxRdfAnalyzer withThreadsNum(int threadsNum) {
+        if (threadsNum < 1) throw new GmxAnalysisException("Invalid threads number: " + threadsNum);
+        this.threadsNum = threadsNum;
+        return this;
+    }
+
+    public GmxRdfAnalyzer withPair(GmxRdfSelection reference, GmxRdfSelection target) {
+        return withPair(reference + "-" + target, reference, target);
+    }
+
+    /**
+     * @param name      unique name of the pair
+     * @param reference selection of atoms at the origin
+     * @param target    selection of atoms counted around reference atoms
+     */
+    public GmxRdfAnalyzer withPair(String name, GmxRdfSelection reference, GmxRdfSelection target) {
+        if (reference == null || target == null) throw new GmxAnalysisException("Selection is missing.");
+        if (pairs.containsKey(name)) throw new GmxAnalysisException("Duplicate pair name: " + name);
+        pairs.put(name, new GmxRdfSelection[] { reference, target });
+        return this;
+    }
+
+    /**
+     * @return RDFs in the order the pairs were added
+     */
+    public List<GmxRdf> analyze() {
+        validateInput();
+        GmxPbcBox box = GmxPbcBox.of(frameStructure.getBox());
+        validateCutoff(box);
+        int binsNum = Math.max(1, Math.round(cutoff / binWidth));
+
+        Map<GmxRdfSelection, int[]> selections = new HashMap<>();
+        List<int[]> references = new ArrayList<>(pairs.size());
+        List<int[]> targets = new ArrayList<>(pairs.size());
+        for (GmxRdfSelection[] pair : pairs.values()) {
+            references.add(selections.computeIfAbsent(pair[0], this::select));
+            targets.add(selections.computeIfAbsent(pair[1], this::select));
+        }
+
+        List<Accumulator> accumulators = new CopyOnWriteArrayList<>();
+        applicationContext.getBean(GmxTrajectoryExecutor.class) //
+                .withXtcFile(xtcFilePath) //
+                .withThreadsNum(threadsNum) //
+                .execute(() -> {
+                    Accumulator accumulator = new Accumulator(box, references, targets, binsNum);
+                    accumulators.add(accumulator);
+                    return accumulator;
+                }, nothing -> {});
+
+        long[][] histograms = new long[pairs.size()][binsNum];
+        int framesNum = 0;
+        for (Accumulator accumulator : accumulators) {
+            framesNum += accumulator.framesNum;
+            for (int pair = 0; pair < histograms.length; pair++)
+                for (int bin = 0; bin < binsNum; bin++) histograms[pair][bin] += accumulator.histograms[pair][bin];
+        }
+        if (framesNum == 0) throw new GmxAnalysisException("No frames in .xtc file: " + xtcFilePath);
+
+        List<GmxRdf> rdfs = new ArrayList<>(pairs.size());
+        int pair = 0;
+        for (String name : pairs.keySet()) {
+            rdfs.add(normalize(name, histograms[pair], references.get(pair), targets.get(pair), box, framesNum));
+            pair++;
+        }
+
+        Logger.log(String.format("RDF of %d pairs computed in %d frames of %s", //
+                rdfs.size(), framesNum, xtcFilePath.getFileName()));
+        return rdfs;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private int[] select(GmxRdfSelection selection) {
+        Class<? extends GmxAtom> atomClass = selection.getAtomClass();
+        if (selection.getAtomAbbreviation() != null) {
+            if (atomReflectionData.isAbbreviationAbsent(selection.getAtomAbbreviation()))
+                throw new GmxAnalysisException("Unknown atom abbreviation: " + selection.getAtomAbbreviation());
+            atomClass = atomReflectionData.getAtomClass(selection.getAtomAbbreviation());
+        }
+
+        Class<? extends GmxAtom>[] atomsSequence = frameStructure.getAtomsSequence();
+        BitSet selected = new BitSet(atomsSequence.length);
+        if (selection.getResidueAbbreviation() == null) {
+            for (int i = 0; i < atomsSequence.length; i++) if (atomsSequence[i] == atomClass) selected.set(i);
+        } else {
+            if (residueReflectionData.isAbbreviationAbsent(selection.getResidueAbbreviation()))
+                throw new GmxAnalysisException("Unknown residue abbreviation: " + selection.getResidueAbbreviation());
+            Class<? extends GmxResidue> residueClass = //
+                    residueReflectionData.getResidueClass(selection.getResidueAbbreviation());
+            for (int r = 0, residuesNum = frameStructure.getResiduesNum(); r < residuesNum; r++) {
+                if (frameStructure.getResidueClass(r) != residueClass) continue;
+                for (int j = 0; j < frameStructure.getResidueAtomsNum(r); j++) {
+                    int atom = frameStructure.getResidueAtom(r, j);
+                    if (atomClass == null || atomsSequence[atom] == atomClass) selected.set(atom);
+                }
+            }
+        }
+
+        if (selected.isEmpty()) throw new GmxAnalysisException("Selection is empty: " + selection);
+        return selected.stream().toArray();
+    }
+
+    private GmxRdf normalize(String name, long[] histogram, int[] reference, int[] target, GmxPbcBox box,
+            int framesNum) {
+
+        BitSet overlap = new BitSet();
+        Arrays.stream(reference).forEach(overlap::set);
+        long selfPairsNum = Arrays.stream(target).filter(overlap::get).count();
+        double pairsNum = (double) reference.length * target.length - selfPairsNum;
+        double volume = box.getVolume();
+
+        double[] radii = new double[histogram.length];
+        double[] rdf = new double[histogram.length];
+        double[] coordinationNumbers = new double[histogram.length];
+        long cumulative = 0;
+
+        for (int bin = 0; bin < histogram.length; bin++) {
+            double r1 = bin * (double) binWidth;
+            double r2 = (bin + 1) * (double) binWidth;
+            double shellVolume = 4. / 3. * Math.PI * (r2 * r2 * r2 - r1 * r1 * r1);
+            cumulative += histogram[bin];
+            radii[bin] = (bin + 0.5) * binWidth;
+            rdf[bin] = pairsNum == 0 ? 0 : histogram[bin] * volume / (framesNum * pairsNum * shellVolume);
+            coordinationNumbers[bin] = (double) cumulative / ((double) framesNum * reference.length);
+        }
+        return new GmxRdf(name, radii, rdf, coordinationNumbers, framesNum);
+    }
+
+    // ======== ACCUMULATOR ========
+
+    private class Accumulator implements GmxFrameAnalysis<Void> {
+
+        private final GmxPbcBox box;
+        private final List<int[]> references;
+        private final List<int[]> targets;
+        private final Map<int[], GmxCellList> cellLists = new IdentityHashMap<>();
+        private final long[][] histograms;
+        private final float maxDistance2;
+        private int framesNum;
+
+        private Accumulator(GmxPbcBox box, List<int[]> references, List<int[]> targets, int binsNum) {
+            this.box = box;
+            this.references = references;
+            this.targets = targets;
+            this.histograms = new long[references.size()][binsNum];
+            this.maxDistance2 = binsNum * binWidth * binsNum * binWidth;
+            targets.forEach(target -> cellLists.put(target, new GmxCellList()));
+        }
+
+        @Override
+        public Void analyze(GmxFrameCoordinates frameCoordinates) {
+            if (frameCoordinates.getAtomsNum() != frameStructure.getAtomsNum()) throw new GmxAnalysisException( //
+                    "Frame structure atomsNum isn't equal to .xtc file atomsNum: " + xtcFilePath);
+
+            float[] xyz = frameCoordinates.getXyz();
+            float minCellSize = (float) Math.sqrt(maxDistance2);
+            cellLists.forEach((target, cellList) -> cellList.build(xyz, target, box, minCellSize));
+            for (int pair = 0; pair < histograms.length; pair++)
+                accumulate(xyz, references.get(pair), targets.get(pair), cellLists.get(targets.get(pair)), //
+                        histograms[pair]);
+
+            framesNum++;
+            return null;
+        }
+
+        private void accumulate(float[] xyz, int[] reference, int[] target, GmxCellList cellList, long[] histogram) {
+            int[] cells = new int[27];
+            float[] delta = new float[3];
+
+            for (int atom : reference) {
+                int r = 3 * atom;
+                float x = xyz[r], y = xyz[r + 1], z = xyz[r + 2];
+                int cellsNum = cellList.getNeighbourCells(cellList.getCell(x, y, z), cells);
+                for (int c = 0; c < cellsNum; c++) {
+                    for (int entry = cellList.getHead(cells[c]); entry >= 0; entry = cellList.getNext(entry)) {
+                        int t = 3 * target[entry];
+                        if (t == r) continue;
+
+                        delta[0] = xyz[t] - x;
+                        delta[1] = xyz[t + 1] - y;
+                        delta[2] = xyz[t + 2] - z;
+                        box.minimumImage(delta);
+                        float distance2 = delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2];
+                        if (distance2 >= maxDistance2) continue;
+
+                        int bin = (int) (Math.sqrt(distance2) / binWidth);
+                        if (bin < histogram.length) histogram[bin]++;
+                    }
+                }
+            }
+        }
+    }
+
+    // ======== VALIDATION METHODS ========
+
+    private void validateInput() {
+        if (frameStructure == null) throw new GmxAnalysisException("Frame structure is missing.");
+        if (xtcFilePath == null) throw new GmxAnalysisException("Path to .xtc file is missing.");
+        if (pairs.isEmpty()) throw new GmxAnalysisException("No selection pairs specified.");
+    }
+
+    private void validateCutoff(GmxPbcBox box) {
+        for (int dimension = 0; dimension < 3; dimension++)
+            if (cutoff > box.getHeight(dimension) / 2) throw new GmxAnalysisException( //
+                    "Cutoff exceeds half of the box height: " + cutoff + " > " + box.getHeight(dimension) / 2);
+    }
+}
@@ -0,0 +1,90 @@
+package com.asemenkov.gromacs.analysis.rdf;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.Objects;
+
+/**
+ * Atom selection of an RDF pair: atoms of a GmxAtom class or atom abbreviation, optionally
+ * restricted to residues of one abbreviation, or all atoms of such residues. Abbreviations
+ * are resolved with reflection data when the selection is applied to a frame structure.
+ *
+ * @author asemenkov
+ * @since Jul 29, 2019
+ */
+public final class GmxRdfSelection {
+
+    private final Class<? extends GmxAtom> atomClass;
+    private final String atomAbbreviation;
+    private final String residueAbbreviation;
+
+    private GmxRdfSelection(Class<? extends GmxAtom> atomClass, String atomAbbreviation,
+            String residueAbbreviation) {
+        this.atomClass = atomClass;
+        this.atomAbbreviation = atomAbbreviation;
+        this.residueAbbreviation = residueAbbreviation;
+    }
+
+    public static GmxRdfSelection atoms(Class<? extends GmxAtom> atomClass) {
+        if (atomClass == null) throw new GmxAnalysisException("Atom class is missing.");
+        return new GmxRdfSelection(atomClass, null, null);
+    }
+
+    public static GmxRdfSelection atoms(String atomAbbreviation) {
+        if (atomAbbreviation == null) throw new GmxAnalysisException("Atom abbreviation is missing.");
+        return new GmxRdfSelection(null, atomAbbreviation, null);
+    }
+
+    public static GmxRdfSelection residues(String residueAbbreviation) {
+        if (residueAbbreviation == null) throw new GmxAnalysisException("Residue abbreviation is missing.");
+        return new GmxRdfSelection(null, null, residueAbbreviation);
+    }
+
+    /**
+     * @return atoms of the class belonging to residues of the abbreviation, e.g. oxygens of SOL
+     */
+    public static GmxRdfSelection residueAtoms(String residueAbbreviation, Class<? extends GmxAtom> atomClass) {
+        if (residueAbbreviation == null) throw new GmxAnalysisException("Residue abbreviation is missing.");
+        if (atomClass == null) throw new GmxAnalysisException("Atom class is missing.");
+        return new GmxRdfSelection(atomClass, null, residueAbbreviation);
+    }
+
+    // ======== GETTERS ========
+
+    public Class<? extends GmxAtom> getAtomClass() {
+        return atomClass;
+    }
+
+    public String getAtomAbbreviation() {
+        return atomAbbreviation;
+    }
+
+    public String getResidueAbbreviation() {
+        return residueAbbreviation;
+    }
+
+    // ======== OBJECT ========
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (!(object instanceof GmxRdfSelection)) return false;
+        GmxRdfSelection selection = (GmxRdfSelection) object;
+        return atomClass == selection.atomClass //
+                && Objects.equals(atomAbbreviation, selection.atomAbbreviation) //
+                && Objects.equals(residueAbbreviation, selection.residueAbbreviation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(atomClass, atomAbbreviation, residueAbbreviation);
+    }
+
+    @Override
+    public String toString() {
+        String atoms = atomClass != null ? atomClass.getSimpleName() : atomAbbreviation;
+        if (residueAbbreviation == null) return atoms;
+        return atoms == null ? residueAbbreviation : residueAbbreviation + ":" + atoms;
+    }
+}
@@ -0,0 +1,18 @@
+package com.asemenkov.gromacs.analysis.trajectory;
+
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+
+/**
+ * Analysis of one trajectory frame. An instance is used by a single thread at a time,
+ * so it may keep reusable buffers; the result must not share them.
+ *
+ * @param <R> result of one frame
+ * @author asemenkov
+ * @since Jul 08, 2019
+ */
+@FunctionalInterface
+public interface GmxFrameAnalysis<R> {
+
+    R analyze(GmxFrameCoordinates frameCoordinates);
+
+}
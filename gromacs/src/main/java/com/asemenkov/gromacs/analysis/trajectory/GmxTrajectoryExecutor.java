@@ -0,0 +1,192 @@
+package com.asemenkov.gromacs.analysis.trajectory;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.io.GmxXtcFileNativeReader;
+import com.asemenkov.utils.config.Factories.DuoFactory;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a per-frame analysis over an .xtc trajectory on a pool of threads. Frames are read
+ * by the calling thread, since the native reader handles one file at a time, and dispatched
+ * in chunks to workers. Every worker thread gets its own analysis instance from the factory.
+ * At most 2 chunks per thread are in flight, so memory doesn't depend on trajectory length.
+ * Results are delivered on the calling thread in frame order.
+ *
+ * @author asemenkov
+ * @since Jul 08, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxTrajectoryExecutor {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8;
+
+    private @Autowired GmxXtcFileNativeReader xtcFileNativeReader;
+    private @Autowired DuoFactory<GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameViewFactory;
+
+    private int threadsNum = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private Path xtcFilePath;
+
+    // ======== INTERFACE ========
+
+    public GmxTrajectoryExecutor withXtcFile(Path xtcFilePath) {
+        this.xtcFilePath = xtcFilePath;
+        return this;
+    }
+
+    public GmxTrajectoryExecutor withThreadsNum(int threadsNum) {
+        if (threadsNum < 1) throw new GmxAnalysisException("Invalid threads number: " + threadsNum);
+        this.threadsNum = threadsNum;
+        return this;
+    }
+
+    /**
+     * @param chunkSize number of frames analyzed by one task
+     */
+    public GmxTrajectoryExecutor withChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new GmxAnalysisException("Invalid chunk size: " + chunkSize);
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * @param analysisFactory creates one analysis instance per worker thread
+     * @param resultConsumer  receives results in frame order on the calling thread
+     */
+    public <R> void execute(Supplier<? extends GmxFrameAnalysis<R>> analysisFactory, Consumer<R> resultConsumer) {
+        validateInput();
+        ThreadLocal<GmxFrameAnalysis<R>> analyses = ThreadLocal.withInitial(analysisFactory);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadsNum);
+        Deque<Future<List<R>>> futures = new ArrayDeque<>();
+        int framesNum = 0;
+
+        xtcFileNativeReader.openXtcFile(xtcFilePath);
+        try {
+            List<GmxFrameCoordinates> chunk = new ArrayList<>(chunkSize);
+            GmxFrameCoordinates frameCoordinates;
+            while ((frameCoordinates = xtcFileNativeReader.readNextFrame()) != null) {
+                chunk.add(frameCoordinates);
+                framesNum++;
+                if (chunk.size() < chunkSize) continue;
+                List<GmxFrameCoordinates> fullChunk = chunk;
+                futures.addLast(executorService.submit(() -> analyzeChunk(analyses.get(), fullChunk)));
+                chunk = new ArrayList<>(chunkSize);
+                if (futures.size() >= 2 * threadsNum) deliver(futures.pollFirst(), resultConsumer);
+            }
+
+            List<GmxFrameCoordinates> lastChunk = chunk;
+            if (!lastChunk.isEmpty()) futures.addLast(executorService.submit(() -> //
+                    analyzeChunk(analyses.get(), lastChunk)));
+            while (!futures.isEmpty()) deliver(futures.pollFirst(), resultConsumer);
+
+        } finally {
+            if (xtcFileNativeReader.isBusy()) xtcFileNativeReader.closeXtcFile();
+            executorService.shutdownNow();
+        }
+
+        Logger.log(String.format("Trajectory %s analyzed: %d frames on %d threads", //
+                xtcFilePath.getFileName(), framesNum, threadsNum));
+    }
+
+    /**
+     * @return results of all frames in frame order
+     */
+    public <R> List<R> execute(Supplier<? extends GmxFrameAnalysis<R>> analysisFactory) {
+        List<R> results = new ArrayList<>();
+        execute(analysisFactory, results::add);
+        return results;
+    }
+
+    /**
+     * Runs the analysis on frames of the structure. Every worker thread builds one frame of atom views on
+     * its first trajectory frame and rebinds it to coordinates of the next ones, so atoms and residues
+     * are not rebuilt per trajectory frame. The frame is valid during the analysis call only.
+     *
+     * @param analysisFactory creates one analysis instance per worker thread
+     * @param resultConsumer  receives results in frame order on the calling thread
+     */
+    public <R> void executeOnFrames(GmxFrameStructure frameStructure,
+            Supplier<? extends Function<GmxFrame, R>> analysisFactory, Consumer<R> resultConsumer) {
+        if (frameStructure == null) throw new GmxAnalysisException("Frame structure is missing.");
+        execute(() -> getFrameAnalysis(frameStructure, analysisFactory.get()), resultConsumer);
+    }
+
+    /**
+     * @return results of all frames in frame order
+     */
+    public <R> List<R> executeOnFrames(GmxFrameStructure frameStructure,
+            Supplier<? extends Function<GmxFrame, R>> analysisFactory) {
+        List<R> results = new ArrayList<>();
+        executeOnFrames(frameStructure, analysisFactory, results::add);
+        return results;
+    }
+
+    /**
+     * Combines results in frame order, so the reducer has to be associative only
+     */
+    public <R> R reduce(Supplier<? extends GmxFrameAnalysis<R>> analysisFactory, R identity,
+            BinaryOperator<R> reducer) {
+        List<R> result = new ArrayList<>(1);
+        result.add(identity);
+        execute(analysisFactory, frameResult -> result.set(0, reducer.apply(result.get(0), frameResult)));
+        return result.get(0);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private <R> GmxFrameAnalysis<R> getFrameAnalysis(GmxFrameStructure frameStructure,
+            Function<GmxFrame, R> analysis) {
+        GmxFrame[] frame = new GmxFrame[1];
+        return frameCoordinates -> {
+            if (frame[0] == null) frame[0] = frameViewFactory.get(frameStructure, frameCoordinates);
+            else frame[0].rebindFrameCoordinates(frameCoordinates);
+            return analysis.apply(frame[0]);
+        };
+    }
+
+    private static <R> List<R> analyzeChunk(GmxFrameAnalysis<R> analysis, List<GmxFrameCoordinates> chunk) {
+        List<R> results = new ArrayList<>(chunk.size());
+        for (GmxFrameCoordinates frameCoordinates : chunk) results.add(analysis.analyze(frameCoordinates));
+        return results;
+    }
+
+    private static <R> void deliver(Future<List<R>> future, Consumer<R> resultConsumer) {
+        try {
+            future.get().forEach(resultConsumer);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new GmxAnalysisException("Trajectory analysis is interrupted.", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) throw (RuntimeException) exception.getCause();
+            throw new GmxAnalysisException(exception.getCause());
+        }
+    }
+
+    // ======== VALIDATION METHODS ========
+
+    private void validateInput() {
+        if (xtcFilePath == null) throw new GmxAnalysisException("Path to .xtc file is missing.");
+    }
+}
@@ -0,0 +1,120 @@
+package com.asemenkov.gromacs.analysis.utils;
+
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+
+import java.util.Arrays;
+
+/**
+ * Linked-cell list over a periodic box. Atoms are binned by fractional coordinates into cells
+ * not thinner than the cutoff, so 27 neighbour cells are enough for triclinic boxes as well.
+ * Binned entries are positions in the array of atom indexes passed to {@link #build}, so the same list
+ * can bin any subset of atoms.
+ * Arrays are reused between builds, thus rebinning a frame of the same size allocates nothing.
+ *
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+public class GmxCellList {
+
+    private static final int[] OFFSETS_1 = { 0 };
+    private static final int[] OFFSETS_2 = { 0, 1 };
+    private static final int[] OFFSETS_3 = { -1, 0, 1 };
+
+    private int[] head = new int[0];
+    private int[] next = new int[0];
+    private int cellsX, cellsY, cellsZ;
+    private GmxPbcBox box;
+
+    // ======== INTERFACE ========
+
+    /**
+     * @param xyz         interleaved coordinates x0, y0, z0, x1, ... of all atoms
+     * @param atoms       indexes of atoms to bin
+     * @param box         periodic box
+     * @param minCellSize cells are never thinner than this value, usually the cutoff
+     */
+    public void build(float[] xyz, int[] atoms, GmxPbcBox box, float minCellSize) {
+        this.box = box;
+        cellsX = Math.max(1, (int) (box.getHeight(0) / minCellSize));
+        cellsY = Math.max(1, (int) (box.getHeight(1) / minCellSize));
+        cellsZ = Math.max(1, (int) (box.getHeight(2) / minCellSize));
+        limitCellsNum(2 * atoms.length + 27);
+
+        int cellsNum = getCellsNum();
+        if (head.length < cellsNum) head = new int[cellsNum];
+        if (next.length < atoms.length) next = new int[atoms.length];
+        Arrays.fill(head, 0, cellsNum, -1);
+
+        for (int i = atoms.length - 1; i >= 0; i--) {
+            int cell = getCell(xyz[3 * atoms[i]], xyz[3 * atoms[i] + 1], xyz[3 * atoms[i] + 2]);
+            next[i] = head[cell];
+            head[cell] = i;
+        }
+    }
+
+    public int getCell(float x, float y, float z) {
+        int cellX = wrap((int) Math.floor(box.getFractionalX(x, y, z) * cellsX), cellsX);
+        int cellY = wrap((int) Math.floor(box.getFractionalY(y, z) * cellsY), cellsY);
+        int cellZ = wrap((int) Math.floor(box.getFractionalZ(z) * cellsZ), cellsZ);
+        return (cellX * cellsY + cellY) * cellsZ + cellZ;
+    }
+
+    /**
+     * @param cell  cell index
+     * @param cells output array of at least 27 elements
+     * @return number of distinct periodic neighbour cells written to the output, including cell itself
+     */
+    public int getNeighbourCells(int cell, int[] cells) {
+        int cellZ = cell % cellsZ;
+        int cellY = (cell / cellsZ) % cellsY;
+        int cellX = cell / (cellsZ * cellsY);
+        int[] offsetsX = getOffsets(cellsX);
+        int[] offsetsY = getOffsets(cellsY);
+        int[] offsetsZ = getOffsets(cellsZ);
+
+        int num = 0;
+        for (int offsetX : offsetsX)
+            for (int offsetY : offsetsY)
+                for (int offsetZ : offsetsZ)
+                    cells[num++] = (wrap(cellX + offsetX, cellsX) * cellsY //
+                            + wrap(cellY + offsetY, cellsY)) * cellsZ + wrap(cellZ + offsetZ, cellsZ);
+        return num;
+    }
+
+    /**
+     * @return position of the first entry of the cell, or -1 if the cell is empty
+     */
+    public int getHead(int cell) {
+        return head[cell];
+    }
+
+    /**
+     * @return position of the entry following the given one in the same cell, or -1
+     */
+    public int getNext(int entry) {
+        return next[entry];
+    }
+
+    public int getCellsNum() {
+        return cellsX * cellsY * cellsZ;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void limitCellsNum(int maxCellsNum) {
+        if (getCellsNum() <= maxCellsNum) return;
+        double factor = Math.cbrt((double) getCellsNum() / maxCellsNum);
+        cellsX = Math.max(1, (int) (cellsX / factor));
+        cellsY = Math.max(1, (int) (cellsY / factor));
+        cellsZ = Math.max(1, (int) (cellsZ / factor));
+    }
+
+    private static int[] getOffsets(int cellsNum) {
+        return cellsNum >= 3 ? OFFSETS_3 : cellsNum == 2 ? OFFSETS_2 : OFFSETS_1;
+    }
+
+    private static int wrap(int cell, int cellsNum) {
+        int wrapped = cell % cellsNum;
+        return wrapped < 0 ? wrapped + cellsNum : wrapped;
+    }
+}
@@ -0,0 +1,80 @@
+package com.asemenkov.gromacs.analysis.utils;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+
+/**
+ * In-place iterative radix-2 fast Fourier transform over separate real and imaginary arrays.
+ *
+ * @author asemenkov
+ * @since Jun 24, 2019
+ */
+public final class GmxFft {
+
+    private GmxFft() {
+    }
+
+    /**
+     * @return the smallest power of 2 not less than the length
+     */
+    public static int getPaddedLength(int length) {
+        int padded = 1;
+        while (padded < length) padded <<= 1;
+        return padded;
+    }
+
+    /**
+     * @param re      real parts, the length must be a power of 2
+     * @param im      imaginary parts of the same length
+     * @param inverse if true, the inverse transform is computed and scaled by 1/n
+     */
+    public static void transform(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        if (n != im.length || Integer.bitCount(n) != 1) //
+            throw new GmxAnalysisException("FFT length must be a power of 2: " + n);
+
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                swap(re, i, j);
+                swap(im, i, j);
+            }
+        }
+
+        for (int length = 2; length <= n; length <<= 1) {
+            double angle = (inverse ? 2 : -2) * Math.PI / length;
+            double stepRe = Math.cos(angle), stepIm = Math.sin(angle);
+            int half = length >> 1;
+            for (int start = 0; start < n; start += length) {
+                double wRe = 1, wIm = 0;
+                for (int k = 0; k < half; k++) {
+                    int u = start + k, v = u + half;
+                    double vRe = re[v] * wRe - im[v] * wIm;
+                    double vIm = re[v] * wIm + im[v] * wRe;
+                    re[v] = re[u] - vRe;
+                    im[v] = im[u] - vIm;
+                    re[u] += vRe;
+                    im[u] += vIm;
+                    double nextRe = wRe * stepRe - wIm * stepIm;
+                    wIm = wRe * stepIm + wIm * stepRe;
+                    wRe = nextRe;
+                }
+            }
+        }
+
+        if (!inverse) return;
+        for (int i = 0; i < n; i++) {
+            re[i] /= n;
+            im[i] /= n;
+        }
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private static void swap(double[] array, int i, int j) {
+        double tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
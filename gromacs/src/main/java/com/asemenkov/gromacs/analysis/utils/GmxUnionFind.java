@@ -0,0 +1,145 @@
+package com.asemenkov.gromacs.analysis.utils;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint sets over primitive arrays with union by size and path compression. Every element
+ * also keeps its periodic offset relative to its parent, so a set which closes a loop through
+ * a periodic image of itself, i.e. spans the box, is marked as percolating.
+ * Arrays are reused between {@link #reset} calls.
+ *
+ * @author asemenkov
+ * @since Jul 01, 2019
+ */
+public class GmxUnionFind {
+
+    private int[] parent = new int[0];
+    private int[] size = new int[0];
+    private float[] offsets = new float[0];
+    private boolean[] percolating = new boolean[0];
+    private int elementsNum;
+    private int setsNum;
+
+    // ======== INTERFACE ========
+
+    public void reset(int elementsNum) {
+        if (parent.length < elementsNum) {
+            parent = new int[elementsNum];
+            size = new int[elementsNum];
+            offsets = new float[3 * elementsNum];
+            percolating = new boolean[elementsNum];
+        }
+        for (int i = 0; i < elementsNum; i++) parent[i] = i;
+        Arrays.fill(size, 0, elementsNum, 1);
+        Arrays.fill(offsets, 0, 3 * elementsNum, 0);
+        Arrays.fill(percolating, 0, elementsNum, false);
+        this.elementsNum = elementsNum;
+        this.setsNum = elementsNum;
+    }
+
+    public int find(int element) {
+        int root = element;
+        while (parent[root] != root) root = parent[root];
+        compress(element, root);
+        return root;
+    }
+
+    public boolean union(int element1, int element2) {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2) return false;
+        link(root1, root2, 0, 0, 0);
+        return true;
+    }
+
+    /**
+     * Unites sets of two elements, where element2 is located at element1 + (dx, dy, dz).
+     * If they already belong to the same set, but their offsets disagree by more than
+     * the tolerance, the set is marked as percolating.
+     */
+    public void union(int element1, int element2, float dx, float dy, float dz, float tolerance) {
+        int root1 = find(element1);
+        int root2 = find(element2);
+
+        // offsets of elements relative to their roots after compression
+        float x = offsets[3 * element1] + dx - offsets[3 * element2];
+        float y = offsets[3 * element1 + 1] + dy - offsets[3 * element2 + 1];
+        float z = offsets[3 * element1 + 2] + dz - offsets[3 * element2 + 2];
+
+        if (root1 != root2) link(root1, root2, x, y, z);
+        else if (x * x + y * y + z * z > tolerance * tolerance) percolating[root1] = true;
+    }
+
+    public int getElementsNum() {
+        return elementsNum;
+    }
+
+    public int getSetsNum() {
+        return setsNum;
+    }
+
+    /**
+     * @return size of the set of the element
+     */
+    public int getSize(int element) {
+        return size[find(element)];
+    }
+
+    public boolean isPercolating(int element) {
+        return percolating[find(element)];
+    }
+
+    public boolean isRoot(int element) {
+        return parent[element] == element;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    /**
+     * Attaches one root to the other, root2 is located at root1 + (x, y, z)
+     */
+    private void link(int root1, int root2, float x, float y, float z) {
+        if (size[root1] < size[root2]) {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+            x = -x;
+            y = -y;
+            z = -z;
+        }
+        parent[root2] = root1;
+        size[root1] += size[root2];
+        percolating[root1] |= percolating[root2];
+        offsets[3 * root2] = x;
+        offsets[3 * root2 + 1] = y;
+        offsets[3 * root2 + 2] = z;
+        setsNum--;
+    }
+
+    /**
+     * Points every element of the path directly to the root and accumulates offsets
+     */
+    private void compress(int element, int root) {
+        float x = 0, y = 0, z = 0;
+        for (int current = element; current != root; current = parent[current]) {
+            x += offsets[3 * current];
+            y += offsets[3 * current + 1];
+            z += offsets[3 * current + 2];
+        }
+
+        while (element != root) {
+            int next = parent[element];
+            float nextX = x - offsets[3 * element];
+            float nextY = y - offsets[3 * element + 1];
+            float nextZ = z - offsets[3 * element + 2];
+            parent[element] = root;
+            offsets[3 * element] = x;
+            offsets[3 * element + 1] = y;
+            offsets[3 * element + 2] = z;
+            element = next;
+            x = nextX;
+            y = nextY;
+            z = nextZ;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.asemenkov.gromacs.analysis.utils;
+
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+
+import java.util.Arrays;
+
+/**
+ * Verlet neighbour list of center atoms against neighbour atoms, built with a skin margin over the cutoff.
+ * Positions at the build are kept as reference, and the list is rebuilt only when the cutoff plus twice
+ * the largest displacement since then exceeds the list radius, so no pair within the cutoff is ever missed.
+ * Neighbours are stored in CSR layout: entries of center i are {@code getEntries()[getFrom(i) .. getTo(i))},
+ * and every entry is a position in the array of neighbour atoms, as in {@link GmxCellList}.
+ *
+ * @author asemenkov
+ * @since Jul 22, 2019
+ */
+public class GmxVerletList {
+
+    private final GmxCellList cellList = new GmxCellList();
+    private int[] offsets = new int[1];
+    private int[] entries = new int[256];
+    private float[] referenceXyz = new float[0];
+
+    private int[] centerAtoms;
+    private int[] neighbourAtoms;
+    private GmxPbcBox box;
+    private float radius;
+    private int buildsNum;
+
+    // ======== INTERFACE ========
+
+    /**
+     * @param xyz            interleaved coordinates x0, y0, z0, x1, ... of all atoms
+     * @param centerAtoms    indexes of center atoms
+     * @param neighbourAtoms indexes of neighbour atoms, the same atom as the center is never listed
+     * @param box            periodic box
+     * @param cutoff         distance within which all pairs must be listed, nm
+     * @param skin           margin added to the cutoff at the build, nm
+     * @return true if the list was rebuilt
+     */
+    public boolean update(float[] xyz, int[] centerAtoms, int[] neighbourAtoms, GmxPbcBox box, float cutoff,
+            float skin) {
+
+        if (!isRebuildNeeded(xyz, centerAtoms, neighbourAtoms, box, cutoff)) return false;
+        build(xyz, centerAtoms, neighbourAtoms, box, cutoff + skin);
+        return true;
+    }
+
+    /**
+     * Drops the list, so the next update rebuilds it.
+     */
+    public void reset() {
+        centerAtoms = null;
+        neighbourAtoms = null;
+        box = null;
+    }
+
+    public int getFrom(int center) {
+        return offsets[center];
+    }
+
+    public int getTo(int center) {
+        return offsets[center + 1];
+    }
+
+    public int[] getEntries() {
+        return entries;
+    }
+
+    public int getPairsNum() {
+        return centerAtoms == null ? 0 : offsets[centerAtoms.length];
+    }
+
+    public int getBuildsNum() {
+        return buildsNum;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private boolean isRebuildNeeded(float[] xyz, int[] centerAtoms, int[] neighbourAtoms, GmxPbcBox box,
+            float cutoff) {
+
+        if (centerAtoms != this.centerAtoms || neighbourAtoms != this.neighbourAtoms) return true;
+        if (!box.equals(this.box)) return true;
+        if (cutoff >= radius) return true;
+
+        float maxDisplacement = Math.max(getMaxDisplacement(xyz, centerAtoms, box),
+                getMaxDisplacement(xyz, neighbourAtoms, box));
+        return cutoff + 2 * maxDisplacement > radius;
+    }
+
+    private float getMaxDisplacement(float[] xyz, int[] atoms, GmxPbcBox box) {
+        float[] delta = new float[3];
+        float max2 = 0;
+        for (int atom : atoms) {
+            int a = 3 * atom;
+            delta[0] = xyz[a] - referenceXyz[a];
+            delta[1] = xyz[a + 1] - referenceXyz[a + 1];
+            delta[2] = xyz[a + 2] - referenceXyz[a + 2];
+            box.minimumImage(delta);
+            max2 = Math.max(max2, delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2]);
+        }
+        return (float) Math.sqrt(max2);
+    }
+
+    private void build(float[] xyz, int[] centerAtoms, int[] neighbourAtoms, GmxPbcBox box, float radius) {
+        cellList.build(xyz, neighbourAtoms, box, radius);
+        if (offsets.length < centerAtoms.length + 1) offsets = new int[centerAtoms.length + 1];
+
+        float radius2 = radius * radius;
+        int[] cells = new int[27];
+        float[] delta = new float[3];
+        int pairsNum = 0;
+
+        for (int center = 0; center < centerAtoms.length; center++) {
+            offsets[center] = pairsNum;
+            int c = 3 * centerAtoms[center];
+            float x = xyz[c], y = xyz[c + 1], z = xyz[c + 2];
+
+            int cellsNum = cellList.getNeighbourCells(cellList.getCell(x, y, z), cells);
+            for (int i = 0; i < cellsNum; i++) {
+                for (int entry = cellList.getHead(cells[i]); entry >= 0; entry = cellList.getNext(entry)) {
+                    int n = 3 * neighbourAtoms[entry];
+                    if (n == c) continue;
+
+                    delta[0] = xyz[n] - x;
+                    delta[1] = xyz[n + 1] - y;
+                    delta[2] = xyz[n + 2] - z;
+                    box.minimumImage(delta);
+                    if (delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2] > radius2) continue;
+
+                    if (pairsNum == entries.length) entries = Arrays.copyOf(entries, 2 * entries.length);
+                    entries[pairsNum++] = entry;
+                }
+            }
+        }
+        offsets[centerAtoms.length] = pairsNum;
+
+        if (referenceXyz.length < xyz.length) referenceXyz = new float[xyz.length];
+        System.arraycopy(xyz, 0, referenceXyz, 0, xyz.length);
+        this.centerAtoms = centerAtoms;
+        this.neighbourAtoms = neighbourAtoms;
+        this.box = box;
+        this.radius = radius;
+        buildsNum++;
+    }
+}
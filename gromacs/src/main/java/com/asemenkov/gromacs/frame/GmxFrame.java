@@ -2,18 +2,23 @@ package com.asemenkov.gromacs.frame;
 
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.selection.GmxSelection;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameCloner;
+import com.asemenkov.gromacs.frame.utils.GmxFrameTransaction;
 import com.asemenkov.gromacs.particles.GmxAtom;
 import com.asemenkov.gromacs.particles.GmxResidue;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
-import org.springframework.util.SerializationUtils;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * @author asemenkov
@@ -42,18 +47,40 @@ public final class GmxFrame {
         return Arrays.copyOf(atoms, getAtomsNum());
     }
 
+    public GmxAtom getAtom(int index) {
+        return atoms[index];
+    }
+
+    /**
+     * @return read-only list backed by the atoms array, no copy is made
+     */
+    public List<GmxAtom> getAtomsView() {
+        return Collections.unmodifiableList(Arrays.asList(atoms));
+    }
+
     public GmxAtom[] getAtomsDeepCopy() {
-        return (GmxAtom[]) SerializationUtils.deserialize(SerializationUtils.serialize(atoms));
+        return GmxFrameCloner.copyAtoms(this);
     }
 
     public GmxResidue[] getResiduesDeepCopy() {
-        return (GmxResidue[]) SerializationUtils.deserialize(SerializationUtils.serialize(residues));
+        return GmxFrameCloner.copyResidues(this, GmxFrameCloner.copyAtoms(this));
     }
 
     public GmxResidue[] getResidues() {
         return Arrays.copyOf(residues, getResiduesNum());
     }
 
+    public GmxResidue getResidue(int index) {
+        return residues[index];
+    }
+
+    /**
+     * @return read-only list backed by the residues array, no copy is made
+     */
+    public List<GmxResidue> getResiduesView() {
+        return Collections.unmodifiableList(Arrays.asList(residues));
+    }
+
     public int getAtomsNum() {
         return atoms.length;
     }
@@ -71,7 +98,19 @@ public final class GmxFrame {
     }
 
     public float[] getBox() {
-        return Arrays.copyOf(frameStructure.getBox(), 3);
+        return frameStructure.getBox();
+    }
+
+    public float getBoxX() {
+        return frameStructure.getBoxX();
+    }
+
+    public float getBoxY() {
+        return frameStructure.getBoxY();
+    }
+
+    public float getBoxZ() {
+        return frameStructure.getBoxZ();
     }
 
     // ======== SETTERS ========
@@ -92,6 +131,31 @@ public final class GmxFrame {
         this.residues = residues;
     }
 
+    /**
+     * Moves existing atoms and residues to coordinates of the same topology, e.g. of the next trajectory
+     * frame, instead of building a new frame. Atom views are rebound to the new buffer without copying,
+     * other atoms copy their coordinates from it.
+     */
+    public void rebindFrameCoordinates(GmxFrameCoordinates frameCoordinates) {
+        if (frameCoordinates == null) throw new GmxFrameException("frameCoordinates is missing");
+        if (frameCoordinates.getAtomsNum() != getAtomsNum()) throw new GmxFrameException( //
+                "frameCoordinates coordsNum isn't equal to frame atomsNum: " + frameCoordinates.getAtomsNum());
+
+        float[] xyz = frameCoordinates.getXyz();
+        IntStream.range(0, atoms.length).parallel().forEach(i -> {
+            if (atoms[i].isCoordinatesView()) atoms[i].bindCoordinates(xyz, i);
+            else atoms[i].setCoordinates(xyz, 3 * i);
+        });
+        this.frameCoordinates = frameCoordinates;
+    }
+
+    /**
+     * @return batch of edits applied to this frame on commit with a single reindex and rebuild
+     */
+    public GmxFrameTransaction beginTransaction() {
+        return new GmxFrameTransaction(this);
+    }
+
     // ======== ATOM FUNCTIONAL INTERFACE ========
 
     public void applyConsumerToAtoms(Consumer<? super GmxAtom> atomsConsumer) {
@@ -114,6 +178,10 @@ public final class GmxFrame {
         return Arrays.stream(atoms).parallel().filter(atomsPredicate).toArray(GmxAtom[]::new);
     }
 
+    public GmxAtom[] getSelectedAtoms(GmxSelection selection) {
+        return selection.getAtoms(this);
+    }
+
     // ======== RESIDUE FUNCTIONAL INTERFACE ========
 
     public void applyConsumerToResidues(Consumer<? super GmxResidue> residuesConsumer) {
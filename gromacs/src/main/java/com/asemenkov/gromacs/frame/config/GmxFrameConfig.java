@@ -3,9 +3,11 @@ package com.asemenkov.gromacs.frame.config;
 import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameCloner;
 import com.asemenkov.gromacs.frame.utils.GmxFrameInitializer;
 import com.asemenkov.gromacs.particles.config.GmxParticlesConfig;
 import com.asemenkov.utils.config.Factories.DuoFactory;
+import com.asemenkov.utils.config.Factories.MonoFactory;
 import com.asemenkov.utils.io.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
@@ -32,6 +34,22 @@ public class GmxFrameConfig {
         return this::getFrame;
     }
 
+    /**
+     * @return factory of frames whose atoms are views of the frame coordinates buffer
+     */
+    @Bean
+    public DuoFactory<GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameViewFactory() {
+        return this::getFrameView;
+    }
+
+    /**
+     * @return factory of deep copies of frames, e.g. to snapshot a frame before editing it
+     */
+    @Bean
+    public MonoFactory<GmxFrame, GmxFrame> frameCopyFactory() {
+        return this::getFrameCopy;
+    }
+
     // ======== REALIZATION ========
 
     private GmxFrame getFrame(GmxFrameStructure structure, GmxFrameCoordinates coordinates) {
@@ -44,4 +62,21 @@ public class GmxFrameConfig {
         return frame;
     }
 
+    private GmxFrame getFrameView(GmxFrameStructure structure, GmxFrameCoordinates coordinates) {
+        GmxFrame frame = applicationContext.getBean(GmxFrame.class);
+        frame.setFrameStructure(structure);
+        frame.setFrameCoordinates(coordinates);
+        GmxFrameInitializer.initAtomViews(frame);
+        GmxFrameInitializer.initResidues(frame);
+        Logger.log("Frame No " + frame.getFrameNo() + " successfully created as a view");
+        return frame;
+    }
+
+    private GmxFrame getFrameCopy(GmxFrame source) {
+        GmxFrame frame = applicationContext.getBean(GmxFrame.class);
+        GmxFrameCloner.copyFrame(source, frame);
+        Logger.log("Frame No " + frame.getFrameNo() + " successfully copied");
+        return frame;
+    }
+
 }
@@ -0,0 +1,131 @@
+package com.asemenkov.gromacs.frame.coordinates;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random sequential packing of residues and free atoms into a periodic box. Every item is tried at random
+ * pivot positions, and orientations if rotated, until none of its atoms is closer than the minimal distance to atoms of
+ * items placed before, by the minimum image convention. Placed atoms are kept in a spatial hash of cells
+ * not smaller than the minimal distance, so each try checks 27 cells at most. Items are placed one by one
+ * from a single seeded generator, so the same seed gives the same coordinates.
+ *
+ * @author asemenkov
+ * @since Sep 30, 2019
+ */
+final class GmxCoordinatesPacker {
+
+    private final float[] box;
+    private final float minimalDistance2;
+    private final int maxAttempts;
+    private final boolean isRotated;
+    private final Random random;
+    private final GmxRotation rotation = new GmxRotation();
+
+    private final int cellsX, cellsY, cellsZ;
+    private final float cellSizeX, cellSizeY, cellSizeZ;
+    private final int[] cellHeads;
+    private final int[] nextAtoms;
+
+    /**
+     * @param atomsNum number of atoms to place, used to size the spatial hash
+     */
+    GmxCoordinatesPacker(float[] box, float minimalDistance, int maxAttempts, boolean isRotated, long seed,
+            int atomsNum) {
+        this.box = box.clone();
+        this.minimalDistance2 = minimalDistance * minimalDistance;
+        this.maxAttempts = maxAttempts;
+        this.isRotated = isRotated;
+        this.random = new Random(seed);
+
+        double cellSize = Math.max(minimalDistance, Math.cbrt(box[0] * box[1] * box[2] / Math.max(1, atomsNum)));
+        cellsX = (int) Math.max(1, Math.floor(box[0] / cellSize));
+        cellsY = (int) Math.max(1, Math.floor(box[1] / cellSize));
+        cellsZ = (int) Math.max(1, Math.floor(box[2] / cellSize));
+        cellSizeX = box[0] / cellsX;
+        cellSizeY = box[1] / cellsY;
+        cellSizeZ = box[2] / cellsZ;
+
+        cellHeads = new int[cellsX * cellsY * cellsZ];
+        nextAtoms = new int[atomsNum];
+        Arrays.fill(cellHeads, -1);
+    }
+
+    /**
+     * Places one item, a residue or a free atom, and writes coordinates of its atoms.
+     *
+     * @param atoms       indexes of the item atoms in the coordinates array
+     * @param pivotDeltas offsets of the item atoms from the pivot, in the order of atoms
+     */
+    void place(float[] xyz, int[] atoms, float[][] pivotDeltas) {
+        boolean isRotating = isRotated && atoms.length > 1;
+        if (!isRotating) rotation.setIdentity();
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            float pivotX = random.nextFloat() * box[0];
+            float pivotY = random.nextFloat() * box[1];
+            float pivotZ = random.nextFloat() * box[2];
+            if (isRotating) rotation.setRandom(random);
+
+            boolean clash = false;
+            for (int j = 0; j < atoms.length && !clash; j++) {
+                rotation.place(xyz, atoms[j], pivotX, pivotY, pivotZ, pivotDeltas[j]);
+                clash = isClashing(xyz, atoms[j]);
+            }
+
+            if (!clash) {
+                for (int atom : atoms) addToHash(xyz, atom);
+                return;
+            }
+        }
+        throw new GmxFrameException("Cannot place atoms " + Arrays.toString(atoms) + " in " + maxAttempts
+                + " attempts, the box is too dense for the minimal distance");
+    }
+
+    // ======== SPATIAL HASH ========
+
+    private boolean isClashing(float[] xyz, int atom) {
+        float x = xyz[3 * atom], y = xyz[3 * atom + 1], z = xyz[3 * atom + 2];
+        int cellX = getCell(x, cellSizeX, cellsX);
+        int cellY = getCell(y, cellSizeY, cellsY);
+        int cellZ = getCell(z, cellSizeZ, cellsZ);
+
+        int rangeX = Math.min(1, (cellsX - 1) / 2), rangeY = Math.min(1, (cellsY - 1) / 2);
+        int rangeZ = Math.min(1, (cellsZ - 1) / 2);
+        int lastX = cellsX == 2 ? 1 : rangeX, lastY = cellsY == 2 ? 1 : rangeY, lastZ = cellsZ == 2 ? 1 : rangeZ;
+
+        for (int i = -rangeX; i <= lastX; i++)
+            for (int j = -rangeY; j <= lastY; j++)
+                for (int l = -rangeZ; l <= lastZ; l++) {
+                    int cell = (Math.floorMod(cellX + i, cellsX) * cellsY + Math.floorMod(cellY + j, cellsY)) * cellsZ
+                            + Math.floorMod(cellZ + l, cellsZ);
+                    for (int other = cellHeads[cell]; other >= 0; other = nextAtoms[other])
+                        if (getMinimumImageDistance2(xyz, atom, other) < minimalDistance2) return true;
+                }
+        return false;
+    }
+
+    private void addToHash(float[] xyz, int atom) {
+        int cell = (getCell(xyz[3 * atom], cellSizeX, cellsX) * cellsY + getCell(xyz[3 * atom + 1], cellSizeY, cellsY))
+                * cellsZ + getCell(xyz[3 * atom + 2], cellSizeZ, cellsZ);
+        nextAtoms[atom] = cellHeads[cell];
+        cellHeads[cell] = atom;
+    }
+
+    private float getMinimumImageDistance2(float[] xyz, int atom1, int atom2) {
+        float deltaX = getMinimumImage(xyz[3 * atom1] - xyz[3 * atom2], box[0]);
+        float deltaY = getMinimumImage(xyz[3 * atom1 + 1] - xyz[3 * atom2 + 1], box[1]);
+        float deltaZ = getMinimumImage(xyz[3 * atom1 + 2] - xyz[3 * atom2 + 2], box[2]);
+        return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+    }
+
+    private static float getMinimumImage(float delta, float edge) {
+        return delta - edge * (float) Math.rint(delta / edge);
+    }
+
+    private static int getCell(float coordinate, float cellSize, int cellsNum) {
+        return Math.floorMod((int) Math.floor(coordinate / cellSize), cellsNum);
+    }
+}
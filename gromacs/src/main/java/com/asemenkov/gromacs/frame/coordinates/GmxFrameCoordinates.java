@@ -1,25 +1,82 @@
 package com.asemenkov.gromacs.frame.coordinates;
 
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+
 /**
+ * Coordinates of one frame in a single interleaved array x0, y0, z0, x1, y1, z1, ...
+ * One contiguous block per frame instead of an array per atom keeps loops over atoms
+ * free of pointer chasing and lets analysis kernels work on the storage directly.
+ *
  * @author asemenkov
  * @since Apr 9, 2018
  */
 public class GmxFrameCoordinates {
 
-    private final float[][] coordinates;
+    private final float[] xyz;
     private final int frameNo;
 
+    /**
+     * Copies per-atom arrays into the interleaved storage; used by the native .xtc reader.
+     */
     public GmxFrameCoordinates(float[][] coordinates, int frameNo) {
-        this.coordinates = coordinates;
+        this.xyz = new float[3 * coordinates.length];
         this.frameNo = frameNo;
+        for (int i = 0; i < coordinates.length; i++) System.arraycopy(coordinates[i], 0, xyz, 3 * i, 3);
     }
 
-    public float[][] getCoordinates() {
-        return coordinates;
+    /**
+     * @param xyz interleaved coordinates, taken without copying
+     */
+    public GmxFrameCoordinates(float[] xyz, int frameNo) {
+        if (xyz == null || xyz.length % 3 != 0) throw new GmxFrameException( //
+                "Invalid interleaved coordinates length: " + (xyz == null ? null : xyz.length));
+        this.xyz = xyz;
+        this.frameNo = frameNo;
+    }
+
+    // ======== GETTERS ========
+
+    public int getAtomsNum() {
+        return xyz.length / 3;
     }
 
     public int getFrameNo() {
         return frameNo;
     }
 
+    /**
+     * @return interleaved storage itself, not a copy
+     */
+    public float[] getXyz() {
+        return xyz;
+    }
+
+    public float getX(int atom) {
+        return xyz[3 * atom];
+    }
+
+    public float getY(int atom) {
+        return xyz[3 * atom + 1];
+    }
+
+    public float getZ(int atom) {
+        return xyz[3 * atom + 2];
+    }
+
+    /**
+     * @param destination array of at least 3 elements to copy x, y, z of the atom to
+     */
+    public void getCoordinates(int atom, float[] destination) {
+        System.arraycopy(xyz, 3 * atom, destination, 0, 3);
+    }
+
+    /**
+     * @return per-atom copies of coordinates; allocates an array per atom, so prefer {@link #getXyz()}
+     */
+    public float[][] getCoordinates() {
+        float[][] coordinates = new float[getAtomsNum()][];
+        for (int i = 0; i < coordinates.length; i++) coordinates[i] = new float[] { getX(i), getY(i), getZ(i) };
+        return coordinates;
+    }
+
 }
@@ -7,7 +7,7 @@ import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.stream.IntStream;
 
 /**
  * @author asemenkov
@@ -30,11 +30,11 @@ public class GmxFrameCoordinatesFromArraysBuilder extends GmxAbstractFrameCoordi
     @Override
     public GmxFrameCoordinates build() {
         validateAtomsArray();
-        float[][] coordinates = Arrays.stream(atoms) //
-                .map(GmxAtom::getCoordinates) //
-                .toArray(float[][]::new);
+        float[] xyz = new float[3 * atoms.length];
+        IntStream.range(0, atoms.length).parallel().forEach(i -> //
+                atoms[i].getCoordinates(xyz, 3 * i));
 
-        GmxFrameCoordinates toReturn = new GmxFrameCoordinates(coordinates, frameNo);
+        GmxFrameCoordinates toReturn = new GmxFrameCoordinates(xyz, frameNo);
         Logger.log("Frame coordinates successfully created from array of atoms");
         return toReturn;
     }
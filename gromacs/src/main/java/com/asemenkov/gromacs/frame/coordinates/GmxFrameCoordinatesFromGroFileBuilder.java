@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * @author asemenkov
@@ -29,11 +30,12 @@ public class GmxFrameCoordinatesFromGroFileBuilder extends GmxAbstractFrameCoord
     @Override
     public GmxFrameCoordinates build() {
         validateGroFileAtomLines();
-        float[][] coordinates = groFileAtomLines.parallelStream() //
-                .map(GmxGroFileAtomLine::getCoordinates) //
-                .toArray(float[][]::new);
+        GmxGroFileAtomLine[] atomLines = groFileAtomLines.toArray(new GmxGroFileAtomLine[0]);
+        float[] xyz = new float[3 * atomLines.length];
+        IntStream.range(0, atomLines.length).parallel().forEach(i -> //
+                System.arraycopy(atomLines[i].getCoordinates(), 0, xyz, 3 * i, 3));
 
-        GmxFrameCoordinates toReturn = new GmxFrameCoordinates(coordinates, frameNo);
+        GmxFrameCoordinates toReturn = new GmxFrameCoordinates(xyz, frameNo);
         Logger.log("Frame coordinates successfully created from .gro file");
         return toReturn;
     }
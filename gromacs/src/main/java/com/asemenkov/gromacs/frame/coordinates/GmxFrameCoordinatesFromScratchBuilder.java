@@ -2,18 +2,23 @@ package com.asemenkov.gromacs.frame.coordinates;
 
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxCoordinatesStatistics;
 import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
 import com.asemenkov.utils.io.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.DoubleStream;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 /**
+ * Builds coordinates either on a regular lattice, the default, or by random packing with a minimal distance
+ * between atoms. Both are deterministic: the same structure and seed give the same coordinates.
+ *
  * @author asemenkov
  * @since Aug 12, 2018
  */
@@ -22,8 +27,15 @@ import java.util.stream.IntStream;
 public class GmxFrameCoordinatesFromScratchBuilder
         extends GmxAbstractFrameCoordinatesBuilder<GmxFrameCoordinatesFromScratchBuilder> {
 
+    private static final int MAX_ATTEMPTS = 1000;
+    private static final float BOX_TOLERANCE = 1e-4f;
+    private static final float[][] FREE_ATOM_DELTAS = { { 0.f, 0.f, 0.f } };
+
     private @Autowired GmxResidueReflectionData residueReflectionData;
     private GmxFrameStructure frameStructure;
+    private float minimalDistance;
+    private boolean isRandomOrientations;
+    private long seed;
 
     // ======== INTERFACE ========
 
@@ -32,20 +44,45 @@ public class GmxFrameCoordinatesFromScratchBuilder
         return this;
     }
 
+    /**
+     * Enables random packing: residues and free atoms are placed at random positions, not closer than the
+     * minimal distance to each other. Atoms of the same residue are not checked against each other.
+     */
+    public GmxFrameCoordinatesFromScratchBuilder withMinimalDistance(float minimalDistance) {
+        this.minimalDistance = minimalDistance;
+        return this;
+    }
+
+    public GmxFrameCoordinatesFromScratchBuilder withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public GmxFrameCoordinatesFromScratchBuilder withRandomOrientations(boolean isRandomOrientations) {
+        this.isRandomOrientations = isRandomOrientations;
+        return this;
+    }
+
     @Override
     public GmxFrameCoordinates build() {
         validateFrameStructure();
+        validateMinimalDistance();
         float[] box = frameStructure.getBox();
+        validateBox(box);
         int atomsNum = frameStructure.getAtomsSequence().length;
-        int residuesNum = frameStructure.getResidueIndexesMap().values().stream().mapToInt(a -> a.length)
-                .sum();
-        int residueAtomsNum = frameStructure.getResidueAtomsMap().values().stream().mapToInt(a -> a.length)
-                .sum();
-        int freeAtomsNum = atomsNum - residueAtomsNum;
-        int coordinatesNum = freeAtomsNum + residuesNum;
-
-        float[][] rawCoordinates = getRawCoordinates(box, coordinatesNum);
-        float[][] fullCoordinates = getFullCoordinates(rawCoordinates, atomsNum);
+        int[][] itemsAtoms = getItemsAtoms(atomsNum);
+        float[][][] itemsDeltas = getItemsDeltas(itemsAtoms.length);
+
+        float[] fullCoordinates = new float[3 * atomsNum];
+        if (minimalDistance > 0) {
+            GmxCoordinatesPacker packer = new GmxCoordinatesPacker(box, minimalDistance, MAX_ATTEMPTS, //
+                    isRandomOrientations, seed, atomsNum);
+            for (int i = 0; i < itemsAtoms.length; i++) packer.place(fullCoordinates, itemsAtoms[i], itemsDeltas[i]);
+        } else {
+            float[] rawCoordinates = getRawCoordinates(box, itemsAtoms.length);
+            setFullCoordinates(fullCoordinates, rawCoordinates, itemsAtoms, itemsDeltas);
+        }
+        validateFullCoordinates(fullCoordinates, box, itemsDeltas);
 
         GmxFrameCoordinates toReturn = new GmxFrameCoordinates(fullCoordinates, frameNo);
         Logger.log("Frame coordinates successfully created from scratch");
@@ -58,64 +95,105 @@ public class GmxFrameCoordinatesFromScratchBuilder
         if (frameStructure == null) throw new GmxFrameException("Frame structure is missing.");
     }
 
-    // ======== SUPPORT METHODS ========
+    private void validateMinimalDistance() {
+        if (minimalDistance < 0 || Float.isNaN(minimalDistance)) //
+            throw new GmxFrameException("Minimal distance is negative: " + minimalDistance);
+    }
 
-    private float[][] getRawCoordinates(float[] box, int coordinatesNum) {
-        double volume = box[0] * box[1] * box[2];
-        double interval = Math.cbrt(coordinatesNum / volume);
+    private void validateBox(float[] box) {
+        if (!(box[0] > 0 && box[1] > 0 && box[2] > 0) || Float.isInfinite(box[0] + box[1] + box[2])) //
+            throw new GmxFrameException("Invalid box: " + Arrays.toString(box));
+    }
 
-        int xNum = (int) (box[0] * interval);
-        if (xNum == 0) xNum = 1;
-        int yNum = (int) (box[1] * interval);
-        if (yNum == 0) yNum = 1;
-        int zNum = coordinatesNum / (xNum * yNum) + 1;
+    /**
+     * Pivots are placed inside the box, so every atom must be within the box grown by the farthest
+     * atom of an item from its pivot, whatever the orientation.
+     */
+    private void validateFullCoordinates(float[] fullCoordinates, float[] box, float[][][] itemsDeltas) {
+        float reach = 0;
+        for (float[][] deltas : itemsDeltas)
+            for (float[] delta : deltas) {
+                double length2 = delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2];
+                reach = Math.max(reach, (float) Math.sqrt(length2));
+            }
+        reach += BOX_TOLERANCE;
+
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.of(fullCoordinates);
+        float[] min = statistics.getMin();
+        float[] max = statistics.getMax();
+        for (int i = 0; i < 3; i++)
+            if (!(min[i] >= -reach && max[i] <= box[i] + reach)) //
+                throw new GmxFrameException("Coordinates don't fit the box " + Arrays.toString(box) + ": from "
+                        + Arrays.toString(min) + " to " + Arrays.toString(max));
+    }
 
-        double xInterval = box[0] / xNum;
-        double yInterval = box[1] / yNum;
-        double zInterval = box[2] / zNum;
-
-        double[] xStream, yStream, zStream;
-        xStream = DoubleStream.iterate(xInterval / 2, x -> x + xInterval).limit(xNum).toArray();
-        yStream = DoubleStream.iterate(yInterval / 2, y -> y + yInterval).limit(yNum).toArray();
-        zStream = DoubleStream.iterate(zInterval / 2, z -> z + zInterval).limit(zNum).toArray();
-
-        AtomicInteger index = new AtomicInteger(0);
-        float[][] rawCoords = new float[xNum * yNum * zNum][3];
-        DoubleStream.of(xStream).parallel().forEach(x -> //
-                DoubleStream.of(yStream).parallel().forEach(y -> //
-                        DoubleStream.of(zStream).parallel().forEach(z -> {
-                            int j = index.getAndIncrement();
-                            rawCoords[j][0] = (float) x;
-                            rawCoords[j][1] = (float) y;
-                            rawCoords[j][2] = (float) z;
-                        })));
+    // ======== SUPPORT METHODS ========
 
-        return rawCoords;
+    /**
+     * @return atom indexes of residues in the order of the structure, then of every free atom in ascending index
+     */
+    private int[][] getItemsAtoms(int atomsNum) {
+        int residuesNum = frameStructure.getResiduesNum();
+        boolean[] isResidueAtom = new boolean[atomsNum];
+        for (int r = 0; r < residuesNum; r++)
+            for (int j = 0; j < frameStructure.getResidueAtomsNum(r); j++)
+                isResidueAtom[frameStructure.getResidueAtom(r, j)] = true;
+
+        int[] freeAtoms = IntStream.range(0, atomsNum).filter(i -> !isResidueAtom[i]).toArray();
+        int[][] itemsAtoms = new int[residuesNum + freeAtoms.length][];
+        for (int i = 0; i < residuesNum; i++) itemsAtoms[i] = frameStructure.getResidueAtoms(i);
+        for (int i = 0; i < freeAtoms.length; i++) itemsAtoms[residuesNum + i] = new int[] { freeAtoms[i] };
+        return itemsAtoms;
+    }
+
+    private float[][][] getItemsDeltas(int itemsNum) {
+        float[][][] itemsDeltas = new float[itemsNum][][];
+        Arrays.fill(itemsDeltas, FREE_ATOM_DELTAS);
+        for (int i = 0, residuesNum = frameStructure.getResiduesNum(); i < residuesNum; i++)
+            itemsDeltas[i] = residueReflectionData.getResiduePivotDeltas(frameStructure.getResidueClass(i));
+        return itemsDeltas;
     }
 
-    private float[][] getFullCoordinates(float[][] rawCoordinates, int atomsNum) {
-        float[][] fullCoordinates = new float[atomsNum][];
-        AtomicInteger index = new AtomicInteger(0);
+    /**
+     * Lattice sites are numbered along Z first, then Y, then X, and item k takes site k.
+     */
+    private float[] getRawCoordinates(float[] box, int coordinatesNum) {
+        double volume = box[0] * box[1] * box[2];
+        double interval = Math.cbrt(coordinatesNum / volume);
 
-        frameStructure.getResidueIndexesMap().forEach((key, value) -> {
-            float[][] deltas = residueReflectionData.getResiduePivotDeltas(key);
+        int xNum = Math.max((int) (box[0] * interval), 1);
+        int yNum = Math.max((int) (box[1] * interval), 1);
+        int zNum = coordinatesNum / (xNum * yNum) + 1;
 
-            IntStream.of(value).parallel().forEach(i -> {
-                float[] pivotCoordinate = rawCoordinates[index.getAndIncrement()];
-                int[] atomIndexes = frameStructure.getResidueAtomsMap().get(i);
+        float xInterval = box[0] / xNum;
+        float yInterval = box[1] / yNum;
+        float zInterval = box[2] / zNum;
 
-                IntStream.range(0, atomIndexes.length).forEach(j ->  //
-                        fullCoordinates[atomIndexes[j]] = new float[] { //
-                                pivotCoordinate[0] + deltas[j][0], //
-                                pivotCoordinate[1] + deltas[j][1], //
-                                pivotCoordinate[2] + deltas[j][2] });
-            });
+        float[] rawCoords = new float[3 * coordinatesNum];
+        IntStream.range(0, coordinatesNum).parallel().forEach(k -> {
+            rawCoords[3 * k] = (k / (yNum * zNum) + 0.5f) * xInterval;
+            rawCoords[3 * k + 1] = (k / zNum % yNum + 0.5f) * yInterval;
+            rawCoords[3 * k + 2] = (k % zNum + 0.5f) * zInterval;
         });
 
-        IntStream.range(0, fullCoordinates.length).parallel() //
-                .filter(i -> fullCoordinates[i] == null) //
-                .forEach(i -> fullCoordinates[i] = rawCoordinates[index.getAndIncrement()]);
+        return rawCoords;
+    }
 
-        return fullCoordinates;
+    private void setFullCoordinates(float[] fullCoordinates, float[] rawCoordinates, int[][] itemsAtoms,
+            float[][][] itemsDeltas) {
+        GmxRotation[] rotations = new GmxRotation[itemsAtoms.length];
+        if (isRandomOrientations) {
+            Random random = new Random(seed);
+            for (int i = 0; i < itemsAtoms.length; i++)
+                if (itemsAtoms[i].length > 1) rotations[i] = GmxRotation.ofRandom(random);
+        }
+
+        GmxRotation identity = new GmxRotation();
+        IntStream.range(0, itemsAtoms.length).parallel().forEach(i -> {
+            GmxRotation rotation = rotations[i] != null ? rotations[i] : identity;
+            for (int j = 0; j < itemsAtoms[i].length; j++)
+                rotation.place(fullCoordinates, itemsAtoms[i][j], rawCoordinates[3 * i], rawCoordinates[3 * i + 1],
+                        rawCoordinates[3 * i + 2], itemsDeltas[i][j]);
+        });
     }
 }
@@ -0,0 +1,194 @@
+package com.asemenkov.gromacs.frame.offheap;
+
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.utils.GmxArgSort;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Frame with interleaved coordinates x0, y0, z0, x1, ... in a direct buffer on top of an off-heap
+ * topology. Atoms and residues are addressed by index instead of GmxAtom and GmxResidue objects,
+ * so the heap footprint of a frame doesn't depend on the number of atoms. A trajectory is read by
+ * refilling one frame with {@link #readCoordinates(GmxFrameCoordinates)}.
+ * <p>
+ * The box is the box of the frame structure at build time and stays fixed for the whole trajectory,
+ * as .xtc frames are read without their boxes.
+ *
+ * @author asemenkov
+ * @since Aug 12, 2019
+ */
+public final class GmxOffHeapFrame {
+
+    private final GmxOffHeapTopology topology;
+    private final FloatBuffer xyz;
+    private final float[] box;
+    private int frameNo;
+
+    GmxOffHeapFrame(GmxOffHeapTopology topology, float[] box) {
+        this.topology = topology;
+        this.box = Arrays.copyOf(box, 3);
+        this.xyz = ByteBuffer.allocateDirect(12 * topology.getAtomsNum()) //
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    // ======== GETTERS ========
+
+    public GmxOffHeapTopology getTopology() {
+        return topology;
+    }
+
+    public int getAtomsNum() {
+        return topology.getAtomsNum();
+    }
+
+    public int getResiduesNum() {
+        return topology.getResiduesNum();
+    }
+
+    public int getFrameNo() {
+        return frameNo;
+    }
+
+    public String getDescription() {
+        return topology.getDescription();
+    }
+
+    /**
+     * @return box of the frame structure this frame was built from, the same for every trajectory frame
+     */
+    public float[] getBox() {
+        return Arrays.copyOf(box, 3);
+    }
+
+    // ======== COORDINATES ========
+
+    public float getX(int atom) {
+        return xyz.get(3 * atom);
+    }
+
+    public float getY(int atom) {
+        return xyz.get(3 * atom + 1);
+    }
+
+    public float getZ(int atom) {
+        return xyz.get(3 * atom + 2);
+    }
+
+    public double getRadiusVector(int atom) {
+        float x = getX(atom), y = getY(atom), z = getZ(atom);
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * @param destination array of at least 3 elements to copy x, y, z of the atom to
+     */
+    public void getCoordinates(int atom, float[] destination) {
+        destination[0] = getX(atom);
+        destination[1] = getY(atom);
+        destination[2] = getZ(atom);
+    }
+
+    public void setCoordinates(int atom, float x, float y, float z) {
+        xyz.put(3 * atom, x);
+        xyz.put(3 * atom + 1, y);
+        xyz.put(3 * atom + 2, z);
+    }
+
+    /**
+     * Copies coordinates of the next trajectory frame into the buffer of this frame; the box is kept.
+     */
+    public void readCoordinates(GmxFrameCoordinates frameCoordinates) {
+        if (frameCoordinates.getAtomsNum() != getAtomsNum()) throw new GmxFrameException( //
+                "frameCoordinates atomsNum isn't equal to frame atomsNum: " + frameCoordinates.getAtomsNum());
+        FloatBuffer destination = xyz.duplicate();
+        destination.put(frameCoordinates.getXyz());
+        frameNo = frameCoordinates.getFrameNo();
+    }
+
+    /**
+     * @return on-heap copy of the coordinates
+     */
+    public GmxFrameCoordinates toFrameCoordinates() {
+        float[] coordinates = new float[3 * getAtomsNum()];
+        xyz.duplicate().get(coordinates);
+        return new GmxFrameCoordinates(coordinates, frameNo);
+    }
+
+    // ======== ATOM FUNCTIONAL INTERFACE ========
+
+    public void applyConsumerToAtoms(IntConsumer atomsConsumer) {
+        IntStream.range(0, getAtomsNum()).parallel().forEach(atomsConsumer);
+    }
+
+    public int getMinAtom(IntToDoubleFunction atomsKey) {
+        return getMin(getAtomsNum(), atomsKey);
+    }
+
+    public int getMaxAtom(IntToDoubleFunction atomsKey) {
+        return getMin(getAtomsNum(), atom -> -atomsKey.applyAsDouble(atom));
+    }
+
+    public int[] getSortedAtoms(IntToDoubleFunction atomsKey) {
+        return getSorted(getAtomsNum(), atomsKey);
+    }
+
+    public int[] getFilteredAtoms(IntPredicate atomsPredicate) {
+        return IntStream.range(0, getAtomsNum()).parallel().filter(atomsPredicate).toArray();
+    }
+
+    // ======== RESIDUE FUNCTIONAL INTERFACE ========
+
+    public void applyConsumerToResidues(IntConsumer residuesConsumer) {
+        IntStream.range(0, getResiduesNum()).parallel().forEach(residuesConsumer);
+    }
+
+    public int getMinResidue(IntToDoubleFunction residuesKey) {
+        return getMin(getResiduesNum(), residuesKey);
+    }
+
+    public int getMaxResidue(IntToDoubleFunction residuesKey) {
+        return getMin(getResiduesNum(), residue -> -residuesKey.applyAsDouble(residue));
+    }
+
+    public int[] getSortedResidues(IntToDoubleFunction residuesKey) {
+        return getSorted(getResiduesNum(), residuesKey);
+    }
+
+    public int[] getFilteredResidues(IntPredicate residuesPredicate) {
+        return IntStream.range(0, getResiduesNum()).parallel().filter(residuesPredicate).toArray();
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    /**
+     * @return index with the minimal key, the first one of equal keys
+     */
+    private static int getMin(int length, IntToDoubleFunction key) {
+        if (length == 0) throw new GmxFrameException();
+        double[] min = IntStream.range(0, length).parallel().collect(() -> new double[] { 0, -1 }, (acc, i) -> {
+            double iKey = key.applyAsDouble(i);
+            if (acc[1] < 0 || iKey < acc[0]) {
+                acc[0] = iKey;
+                acc[1] = i;
+            }
+        }, (acc1, acc2) -> {
+            if (acc2[1] >= 0 && (acc1[1] < 0 || acc2[0] < acc1[0])) {
+                acc1[0] = acc2[0];
+                acc1[1] = acc2[1];
+            }
+        });
+        return (int) min[1];
+    }
+
+    private static int[] getSorted(int length, IntToDoubleFunction key) {
+        return GmxArgSort.argsort(IntStream.range(0, length).parallel().mapToDouble(key).toArray());
+    }
+}
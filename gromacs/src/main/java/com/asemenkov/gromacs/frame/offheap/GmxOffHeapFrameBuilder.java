@@ -0,0 +1,141 @@
+package com.asemenkov.gromacs.frame.offheap;
+
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds an off-heap frame either from a frame structure, which is needed only while building,
+ * or from the topology of another off-heap frame, which is then shared.
+ *
+ * @author asemenkov
+ * @since Aug 12, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxOffHeapFrameBuilder {
+
+    private @Autowired GmxResidueReflectionData residueReflectionData;
+
+    private GmxFrameStructure frameStructure;
+    private GmxOffHeapTopology topology;
+    private GmxFrameCoordinates frameCoordinates;
+    private float[] box;
+
+    // ======== INTERFACE ========
+
+    public GmxOffHeapFrameBuilder withFrameStructure(GmxFrameStructure frameStructure) {
+        this.frameStructure = frameStructure;
+        return this;
+    }
+
+    public GmxOffHeapFrameBuilder withTopology(GmxOffHeapTopology topology) {
+        this.topology = topology;
+        return this;
+    }
+
+    /**
+     * @param frameCoordinates initial coordinates; zeros if not provided
+     */
+    public GmxOffHeapFrameBuilder withFrameCoordinates(GmxFrameCoordinates frameCoordinates) {
+        this.frameCoordinates = frameCoordinates;
+        return this;
+    }
+
+    /**
+     * @param box box of the frame; taken from the frame structure if not provided
+     */
+    public GmxOffHeapFrameBuilder withBox(float[] box) {
+        this.box = box;
+        return this;
+    }
+
+    public GmxOffHeapFrame build() {
+        if (frameStructure == null && topology == null) throw new GmxFrameException("frameStructure is missing");
+        if (frameStructure == null && box == null) throw new GmxFrameException("box is missing");
+        if (box != null && box.length != 3) throw new GmxFrameException("invalid box: " + Arrays.toString(box));
+
+        GmxOffHeapTopology frameTopology = topology != null ? topology : buildTopology();
+        GmxOffHeapFrame frame = new GmxOffHeapFrame(frameTopology, box != null ? box : frameStructure.getBox());
+        if (frameCoordinates != null) frame.readCoordinates(frameCoordinates);
+        Logger.log("Off-heap frame No " + frame.getFrameNo() + " successfully created");
+        return frame;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    @SuppressWarnings("unchecked")
+    private GmxOffHeapTopology buildTopology() {
+        validateFrameStructure();
+        Class<? extends GmxAtom>[] atomsSequence = frameStructure.getAtomsSequence();
+        String[] abbreviationsSequence = frameStructure.getAtomAbbreviationsSequence();
+
+        List<Class<? extends GmxAtom>> atomClasses = new ArrayList<>();
+        List<String> atomAbbreviations = new ArrayList<>();
+        Map<Class<? extends GmxAtom>, Map<String, Integer>> atomTypesMap = new HashMap<>();
+        int[] atomTypes = new int[atomsSequence.length];
+        for (int i = 0; i < atomsSequence.length; i++) {
+            Map<String, Integer> abbreviations = atomTypesMap.computeIfAbsent(atomsSequence[i], k -> new HashMap<>());
+            Integer type = abbreviations.get(abbreviationsSequence[i]);
+            if (type == null) {
+                type = atomClasses.size();
+                abbreviations.put(abbreviationsSequence[i], type);
+                atomClasses.add(atomsSequence[i]);
+                atomAbbreviations.add(abbreviationsSequence[i]);
+            }
+            atomTypes[i] = type;
+        }
+
+        // residues go in the order of the frame structure, as in GmxFrameInitializer.initResidues
+        int residuesNum = frameStructure.getResiduesNum();
+        Class<? extends GmxResidue>[] residueClasses = new Class[frameStructure.getResidueTypesNum()];
+        int[] residuePivots = new int[residueClasses.length];
+        for (int type = 0; type < residueClasses.length; type++) {
+            residueClasses[type] = frameStructure.getResidueTypeClass(type);
+            residuePivots[type] = Arrays.asList(residueReflectionData.getResidueAtomsFields(residueClasses[type])) //
+                    .indexOf(residueReflectionData.getResiduePivotField(residueClasses[type]));
+        }
+
+        int[] residueTypes = new int[residuesNum];
+        int[] residueNos = new int[residuesNum];
+        int[] residueOffsets = new int[residuesNum + 1];
+        for (int r = 0; r < residuesNum; r++) {
+            residueTypes[r] = frameStructure.getResidueType(r);
+            residueNos[r] = frameStructure.getResidueNo(r);
+            residueOffsets[r + 1] = residueOffsets[r] + frameStructure.getResidueAtomsNum(r);
+        }
+        int[] residueAtoms = new int[residueOffsets[residuesNum]];
+        for (int r = 0; r < residuesNum; r++)
+            for (int j = 0; j < frameStructure.getResidueAtomsNum(r); j++)
+                residueAtoms[residueOffsets[r] + j] = frameStructure.getResidueAtom(r, j);
+
+        return new GmxOffHeapTopology(frameStructure.getDescription(), //
+                atomClasses.toArray(new Class[0]), atomAbbreviations.toArray(new String[0]), //
+                residueClasses, residuePivots, atomTypes, residueTypes, residueNos, residueOffsets, residueAtoms);
+    }
+
+    private void validateFrameStructure() {
+        if (frameStructure.getAtomsSequence() == null || frameStructure.getAtomsSequence().length == 0)
+            throw new GmxFrameException("frameStructure doesn't specify atoms sequence");
+        if (Arrays.stream(frameStructure.getAtomsSequence()).anyMatch(Objects::isNull))
+            throw new GmxFrameException("frameStructure atoms array contains null pointers");
+        if (frameStructure.getAtomAbbreviationsSequence() == null || frameStructure
+                .getAtomAbbreviationsSequence().length != frameStructure.getAtomsSequence().length)
+            throw new GmxFrameException("frameStructure doesn't specify atoms abbreviations sequence");
+    }
+}
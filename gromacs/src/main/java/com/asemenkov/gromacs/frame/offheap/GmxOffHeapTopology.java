@@ -0,0 +1,152 @@
+package com.asemenkov.gromacs.frame.offheap;
+
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Topology of a frame kept in direct buffers: a type id per atom, and residues as offsets into
+ * one array of atom indexes. Atom and residue types are tables of distinct classes, so the heap
+ * holds only a few objects regardless of the number of atoms. Immutable; frames share it.
+ *
+ * @author asemenkov
+ * @since Aug 12, 2019
+ */
+public final class GmxOffHeapTopology {
+
+    private final String description;
+    private final Class<? extends GmxAtom>[] atomClasses;
+    private final String[] atomAbbreviations;
+    private final Class<? extends GmxResidue>[] residueClasses;
+    private final int[] residuePivots;
+
+    private final IntBuffer atomTypes;
+    private final IntBuffer atomResidues;
+    private final IntBuffer residueTypes;
+    private final IntBuffer residueNos;
+    private final IntBuffer residueOffsets;
+    private final IntBuffer residueAtoms;
+
+    /**
+     * @param atomClasses       atom class of each atom type
+     * @param atomAbbreviations atom abbreviation of each atom type
+     * @param residueClasses    residue class of each residue type
+     * @param residuePivots     position of the pivot atom among atoms of each residue type
+     * @param atomTypes         atom type of each atom
+     * @param residueTypes      residue type of each residue
+     * @param residueNos        residue number of each residue
+     * @param residueOffsets    residue r holds residueAtoms[residueOffsets[r]] .. [residueOffsets[r + 1] - 1]
+     * @param residueAtoms      atom indexes of all residues
+     */
+    GmxOffHeapTopology(String description, Class<? extends GmxAtom>[] atomClasses, String[] atomAbbreviations,
+            Class<? extends GmxResidue>[] residueClasses, int[] residuePivots, int[] atomTypes, int[] residueTypes,
+            int[] residueNos, int[] residueOffsets, int[] residueAtoms) {
+        this.description = description;
+        this.atomClasses = atomClasses;
+        this.atomAbbreviations = atomAbbreviations;
+        this.residueClasses = residueClasses;
+        this.residuePivots = residuePivots;
+
+        this.atomTypes = allocate(atomTypes);
+        this.residueTypes = allocate(residueTypes);
+        this.residueNos = allocate(residueNos);
+        this.residueOffsets = allocate(residueOffsets);
+        this.residueAtoms = allocate(residueAtoms);
+
+        int[] atomResidues = new int[atomTypes.length];
+        Arrays.fill(atomResidues, -1);
+        for (int r = 0; r < residueTypes.length; r++)
+            for (int k = residueOffsets[r]; k < residueOffsets[r + 1]; k++) atomResidues[residueAtoms[k]] = r;
+        this.atomResidues = allocate(atomResidues);
+    }
+
+    // ======== GETTERS ========
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getAtomsNum() {
+        return atomTypes.capacity();
+    }
+
+    public int getResiduesNum() {
+        return residueTypes.capacity();
+    }
+
+    public int getAtomTypesNum() {
+        return atomClasses.length;
+    }
+
+    public int getResidueTypesNum() {
+        return residueClasses.length;
+    }
+
+    // ======== ATOMS ========
+
+    public int getAtomType(int atom) {
+        return atomTypes.get(atom);
+    }
+
+    public Class<? extends GmxAtom> getAtomClass(int atom) {
+        return atomClasses[atomTypes.get(atom)];
+    }
+
+    public String getAtomAbbreviation(int atom) {
+        return atomAbbreviations[atomTypes.get(atom)];
+    }
+
+    /**
+     * @return index of the residue the atom belongs to, or -1 for a free atom
+     */
+    public int getAtomResidue(int atom) {
+        return atomResidues.get(atom);
+    }
+
+    public boolean isFreeAtom(int atom) {
+        return atomResidues.get(atom) < 0;
+    }
+
+    // ======== RESIDUES ========
+
+    public int getResidueType(int residue) {
+        return residueTypes.get(residue);
+    }
+
+    public Class<? extends GmxResidue> getResidueClass(int residue) {
+        return residueClasses[residueTypes.get(residue)];
+    }
+
+    public int getResidueNo(int residue) {
+        return residueNos.get(residue);
+    }
+
+    public int getResidueAtomsNum(int residue) {
+        return residueOffsets.get(residue + 1) - residueOffsets.get(residue);
+    }
+
+    /**
+     * @param position position of the atom in the residue, as in {@link GmxResidue#getAllAtoms()}
+     * @return index of the atom in the frame
+     */
+    public int getResidueAtom(int residue, int position) {
+        return residueAtoms.get(residueOffsets.get(residue) + position);
+    }
+
+    public int getPivotAtom(int residue) {
+        return getResidueAtom(residue, residuePivots[residueTypes.get(residue)]);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private static IntBuffer allocate(int[] values) {
+        IntBuffer buffer = ByteBuffer.allocateDirect(4 * values.length).order(ByteOrder.nativeOrder()).asIntBuffer();
+        buffer.put(values);
+        buffer.clear();
+        return buffer;
+    }
+}
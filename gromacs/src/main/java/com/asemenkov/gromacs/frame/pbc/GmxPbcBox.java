@@ -0,0 +1,389 @@
+package com.asemenkov.gromacs.frame.pbc;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.Arrays;
+
+/**
+ * Periodic box with minimum-image kernels over primitive coordinates. The box is either
+ * rectangular (3 edges) or triclinic with GROMACS conventions: 9 components in .gro order
+ * v1(x) v2(y) v3(z) v1(y) v1(z) v2(x) v2(z) v3(x) v3(y), lower triangular box matrix
+ * a = (ax, 0, 0), b = (bx, by, 0), c = (cx, cy, cz).
+ * <p>
+ * Instances are immutable, so a single box may be shared by any number of threads.
+ *
+ * @author asemenkov
+ * @since Jun 10, 2019
+ */
+public final class GmxPbcBox {
+
+    private final boolean triclinic;
+    private final float ax, bx, by, cx, cy, cz;
+    private final float invAx, invBy, invCz;
+    private final float[] heights;
+    private final float safeRadius2;
+
+    private GmxPbcBox(float ax, float bx, float by, float cx, float cy, float cz) {
+        this.triclinic = bx != 0 || cx != 0 || cy != 0;
+        this.ax = ax;
+        this.bx = bx;
+        this.by = by;
+        this.cx = cx;
+        this.cy = cy;
+        this.cz = cz;
+        this.invAx = 1 / ax;
+        this.invBy = 1 / by;
+        this.invCz = 1 / cz;
+
+        double volume = (double) ax * by * cz;
+        double bcArea = Math.sqrt(Math.pow(by * cz, 2) + Math.pow(bx * cz, 2) + Math.pow(bx * cy - by * cx, 2));
+        double caArea = Math.sqrt(Math.pow(ax * cz, 2) + Math.pow(ax * cy, 2));
+        this.heights = new float[] { (float) (volume / bcArea), (float) (volume / caArea), cz };
+
+        float minHeight = Math.min(heights[0], Math.min(heights[1], heights[2]));
+        this.safeRadius2 = minHeight * minHeight / 4;
+    }
+
+    /**
+     * @param box 3 edges of a rectangular box or 9 components of a triclinic box
+     */
+    public static GmxPbcBox of(float[] box) {
+        if (box == null || (box.length != 3 && box.length != 9)) //
+            throw new GmxFrameException("Invalid box: " + Arrays.toString(box));
+        if (box[0] <= 0 || box[1] <= 0 || box[2] <= 0) //
+            throw new GmxFrameException("Invalid box: " + Arrays.toString(box));
+        if (box.length == 3) return new GmxPbcBox(box[0], 0, box[1], 0, 0, box[2]);
+
+        if (box[3] != 0 || box[4] != 0 || box[6] != 0) //
+            throw new GmxFrameException("Triclinic box must be lower triangular: " + Arrays.toString(box));
+        return new GmxPbcBox(box[0], box[5], box[1], box[7], box[8], box[2]);
+    }
+
+    // ======== GETTERS ========
+
+    public boolean isTriclinic() {
+        return triclinic;
+    }
+
+    /**
+     * @return 9 components of the box in .gro order
+     */
+    public float[] getComponents() {
+        return new float[] { ax, by, cz, 0, 0, bx, 0, cx, cy };
+    }
+
+    /**
+     * @param dimension 0, 1 or 2
+     * @return distance between the opposite faces of the box, the maximal cell size in this dimension
+     */
+    public float getHeight(int dimension) {
+        return heights[dimension];
+    }
+
+    public double getVolume() {
+        return (double) ax * by * cz;
+    }
+
+    // ======== FRACTIONAL COORDINATES ========
+
+    public float getFractionalX(float x, float y, float z) {
+        float fractionalZ = z * invCz;
+        float fractionalY = (y - fractionalZ * cy) * invBy;
+        return (x - fractionalY * bx - fractionalZ * cx) * invAx;
+    }
+
+    public float getFractionalY(float y, float z) {
+        return (y - z * invCz * cy) * invBy;
+    }
+
+    public float getFractionalZ(float z) {
+        return z * invCz;
+    }
+
+    // ======== MINIMUM IMAGE ========
+
+    /**
+     * Replaces the displacement vector with its shortest periodic image
+     *
+     * @param delta displacement vector, at least 3 elements
+     */
+    public void minimumImage(float[] delta) {
+        if (!triclinic) {
+            delta[0] -= ax * (float) Math.rint(delta[0] * invAx);
+            delta[1] -= by * (float) Math.rint(delta[1] * invBy);
+            delta[2] -= cz * (float) Math.rint(delta[2] * invCz);
+            return;
+        }
+
+        float shift = (float) Math.rint(delta[2] * invCz);
+        delta[0] -= shift * cx;
+        delta[1] -= shift * cy;
+        delta[2] -= shift * cz;
+        shift = (float) Math.rint(delta[1] * invBy);
+        delta[0] -= shift * bx;
+        delta[1] -= shift * by;
+        delta[0] -= ax * (float) Math.rint(delta[0] * invAx);
+
+        if (length2(delta[0], delta[1], delta[2]) > safeRadius2) searchNeighbourImages(delta);
+    }
+
+    /**
+     * @param xyz   interleaved coordinates x0, y0, z0, x1, ...
+     * @param from  atom index
+     * @param to    atom index
+     * @param delta output: shortest displacement vector from atom 'from' to atom 'to'
+     */
+    public void displacement(float[] xyz, int from, int to, float[] delta) {
+        delta[0] = xyz[3 * to] - xyz[3 * from];
+        delta[1] = xyz[3 * to + 1] - xyz[3 * from + 1];
+        delta[2] = xyz[3 * to + 2] - xyz[3 * from + 2];
+        minimumImage(delta);
+    }
+
+    public void displacement(float[] point1, float[] point2, float[] delta) {
+        delta[0] = point2[0] - point1[0];
+        delta[1] = point2[1] - point1[1];
+        delta[2] = point2[2] - point1[2];
+        minimumImage(delta);
+    }
+
+    // ======== DISTANCES ========
+
+    public float distance2(float[] xyz, int atom1, int atom2) {
+        int i = 3 * atom1, j = 3 * atom2;
+        return getImageLength2(xyz[j] - xyz[i], xyz[j + 1] - xyz[i + 1], xyz[j + 2] - xyz[i + 2]);
+    }
+
+    public float distance2(float[] point1, float[] point2) {
+        return getImageLength2(point2[0] - point1[0], point2[1] - point1[1], point2[2] - point1[2]);
+    }
+
+    public double distance(float[] xyz, int atom1, int atom2) {
+        return Math.sqrt(distance2(xyz, atom1, atom2));
+    }
+
+    public double distance(float[] point1, float[] point2) {
+        return Math.sqrt(distance2(point1, point2));
+    }
+
+    public double distance(GmxAtom atom1, GmxAtom atom2) {
+        return Math.sqrt(getImageLength2(atom2.getCoordinateX() - atom1.getCoordinateX(), //
+                atom2.getCoordinateY() - atom1.getCoordinateY(), atom2.getCoordinateZ() - atom1.getCoordinateZ()));
+    }
+
+    // ======== ANGLES ========
+
+    public double angleCosine(float[] xyz, int vertex, int left, int right) {
+        float[] delta = new float[3];
+        displacement(xyz, vertex, left, delta);
+        float x1 = delta[0], y1 = delta[1], z1 = delta[2];
+        displacement(xyz, vertex, right, delta);
+        return angleCosine(x1, y1, z1, delta[0], delta[1], delta[2]);
+    }
+
+    public double angleCosine(float[] vertex, float[] left, float[] right) {
+        float[] delta = new float[3];
+        displacement(vertex, left, delta);
+        float x1 = delta[0], y1 = delta[1], z1 = delta[2];
+        displacement(vertex, right, delta);
+        return angleCosine(x1, y1, z1, delta[0], delta[1], delta[2]);
+    }
+
+    public double angleCosine(GmxAtom vertex, GmxAtom left, GmxAtom right) {
+        float[] delta = new float[] { left.getCoordinateX() - vertex.getCoordinateX(), //
+                left.getCoordinateY() - vertex.getCoordinateY(), left.getCoordinateZ() - vertex.getCoordinateZ() };
+        minimumImage(delta);
+        float x1 = delta[0], y1 = delta[1], z1 = delta[2];
+        delta[0] = right.getCoordinateX() - vertex.getCoordinateX();
+        delta[1] = right.getCoordinateY() - vertex.getCoordinateY();
+        delta[2] = right.getCoordinateZ() - vertex.getCoordinateZ();
+        minimumImage(delta);
+        return angleCosine(x1, y1, z1, delta[0], delta[1], delta[2]);
+    }
+
+    // ======== WRAPPING ========
+
+    /**
+     * Puts the point into the unit cell in place
+     *
+     * @return true if the point has been moved
+     */
+    public boolean wrap(float[] point) {
+        float shiftZ = (float) Math.floor(getFractionalZ(point[2]));
+        float shiftY = (float) Math.floor(getFractionalY(point[1], point[2]));
+        float shiftX = (float) Math.floor(getFractionalX(point[0], point[1], point[2]));
+        if (shiftX == 0 && shiftY == 0 && shiftZ == 0) return false;
+
+        point[0] -= shiftX * ax + shiftY * bx + shiftZ * cx;
+        point[1] -= shiftY * by + shiftZ * cy;
+        point[2] -= shiftZ * cz;
+        return true;
+    }
+
+    /**
+     * Puts all atoms into the unit cell in place
+     *
+     * @param xyz interleaved coordinates x0, y0, z0, x1, ...
+     */
+    public void wrap(float[] xyz, int atomsNum) {
+        float[] point = new float[3];
+        for (int i = 0; i < atomsNum; i++) {
+            System.arraycopy(xyz, 3 * i, point, 0, 3);
+            if (wrap(point)) System.arraycopy(point, 0, xyz, 3 * i, 3);
+        }
+    }
+
+    /**
+     * Wrapped atoms followed by their periodic images not farther than the margin from the unit cell,
+     * so that a plain Euclidean search among them finds every periodic neighbour of a point of the
+     * unit cell within the margin.
+     *
+     * @param xyz interleaved coordinates x0, y0, z0, x1, ...; not modified
+     */
+    public float[] wrapWithImages(float[] xyz, int atomsNum, float margin) {
+        float[] wrapped = Arrays.copyOf(xyz, 3 * atomsNum);
+        wrap(wrapped, atomsNum);
+        int imagesNum = putImages(wrapped, atomsNum, margin, null);
+        float[] images = Arrays.copyOf(wrapped, 3 * (atomsNum + imagesNum));
+        putImages(wrapped, atomsNum, margin, images);
+        return images;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    /**
+     * An image is taken if it is not farther than the margin from the planes of every pair of opposite
+     * faces of the unit cell, which holds for every image within the margin from the cell itself.
+     *
+     * @param images output: images go after the wrapped atoms; null to count images only
+     * @return number of images
+     */
+    private int putImages(float[] wrapped, int atomsNum, float margin, float[] images) {
+        int shellsA = (int) Math.ceil(margin / heights[0]);
+        int shellsB = (int) Math.ceil(margin / heights[1]);
+        int shellsC = (int) Math.ceil(margin / heights[2]);
+        int imagesNum = 0;
+
+        for (int atom = 0; atom < atomsNum; atom++) {
+            float x = wrapped[3 * atom], y = wrapped[3 * atom + 1], z = wrapped[3 * atom + 2];
+            float fractionalA = getFractionalX(x, y, z), fractionalB = getFractionalY(y, z);
+            float fractionalC = getFractionalZ(z);
+
+            for (int i = -shellsA; i <= shellsA; i++) {
+                if (getFaceGap(fractionalA + i) * heights[0] > margin) continue;
+                for (int j = -shellsB; j <= shellsB; j++) {
+                    if (getFaceGap(fractionalB + j) * heights[1] > margin) continue;
+                    for (int k = -shellsC; k <= shellsC; k++) {
+                        if (getFaceGap(fractionalC + k) * heights[2] > margin || (i | j | k) == 0) continue;
+                        if (images != null) {
+                            int image = 3 * (atomsNum + imagesNum);
+                            images[image] = x + i * ax + j * bx + k * cx;
+                            images[image + 1] = y + j * by + k * cy;
+                            images[image + 2] = z + k * cz;
+                        }
+                        imagesNum++;
+                    }
+                }
+            }
+        }
+        return imagesNum;
+    }
+
+    /**
+     * @return fractional distance from the unit interval
+     */
+    private static float getFaceGap(float fractional) {
+        return Math.max(0, Math.max(-fractional, fractional - 1));
+    }
+
+    private void searchNeighbourImages(float[] delta) {
+        float bestX = delta[0], bestY = delta[1], bestZ = delta[2];
+        float best2 = length2(bestX, bestY, bestZ);
+
+        for (int i = -1; i <= 1; i++)
+            for (int j = -1; j <= 1; j++)
+                for (int k = -1; k <= 1; k++) {
+                    float x = delta[0] + i * ax + j * bx + k * cx;
+                    float y = delta[1] + j * by + k * cy;
+                    float z = delta[2] + k * cz;
+                    float length2 = length2(x, y, z);
+                    if (length2 < best2) {
+                        best2 = length2;
+                        bestX = x;
+                        bestY = y;
+                        bestZ = z;
+                    }
+                }
+
+        delta[0] = bestX;
+        delta[1] = bestY;
+        delta[2] = bestZ;
+    }
+
+    /**
+     * Same reduction as {@link #minimumImage(float[])}, kept in locals since only the length is needed
+     */
+    private float getImageLength2(float dx, float dy, float dz) {
+        if (!triclinic) {
+            dx -= ax * (float) Math.rint(dx * invAx);
+            dy -= by * (float) Math.rint(dy * invBy);
+            dz -= cz * (float) Math.rint(dz * invCz);
+            return length2(dx, dy, dz);
+        }
+
+        float shift = (float) Math.rint(dz * invCz);
+        dx -= shift * cx;
+        dy -= shift * cy;
+        dz -= shift * cz;
+        shift = (float) Math.rint(dy * invBy);
+        dx -= shift * bx;
+        dy -= shift * by;
+        dx -= ax * (float) Math.rint(dx * invAx);
+
+        float best2 = length2(dx, dy, dz);
+        if (best2 <= safeRadius2) return best2;
+
+        for (int i = -1; i <= 1; i++)
+            for (int j = -1; j <= 1; j++)
+                for (int k = -1; k <= 1; k++)
+                    best2 = Math.min(best2, length2(dx + i * ax + j * bx + k * cx, dy + j * by + k * cy, dz + k * cz));
+        return best2;
+    }
+
+    private static double angleCosine(float x1, float y1, float z1, float x2, float y2, float z2) {
+        double numerator = x1 * x2 + y1 * y2 + z1 * z2;
+        double length1 = Math.sqrt(length2(x1, y1, z1));
+        double length2 = Math.sqrt(length2(x2, y2, z2));
+        return numerator / (length1 * length2);
+    }
+
+    private static float length2(float x, float y, float z) {
+        return x * x + y * y + z * z;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof GmxPbcBox)) return false;
+        GmxPbcBox box = (GmxPbcBox) other;
+        return Float.compare(ax, box.ax) == 0 && Float.compare(bx, box.bx) == 0 && Float.compare(by, box.by) == 0
+                && Float.compare(cx, box.cx) == 0 && Float.compare(cy, box.cy) == 0 && Float.compare(cz, box.cz) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Float.floatToIntBits(ax);
+        hash = 31 * hash + Float.floatToIntBits(bx);
+        hash = 31 * hash + Float.floatToIntBits(by);
+        hash = 31 * hash + Float.floatToIntBits(cx);
+        hash = 31 * hash + Float.floatToIntBits(cy);
+        hash = 31 * hash + Float.floatToIntBits(cz);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "GmxPbcBox" + Arrays.toString(getComponents());
+    }
+}
@@ -0,0 +1,59 @@
+package com.asemenkov.gromacs.frame.selection;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.BitSet;
+
+/**
+ * Atom selection compiled by {@link GmxSelectionBuilder} into set operations over atom indexes.
+ * Clauses that depend on the frame structure only are evaluated once per structure and cached;
+ * geometric clauses are evaluated on every frame. Immutable and safe to share between threads.
+ *
+ * @author asemenkov
+ * @since Oct 14, 2019
+ */
+public final class GmxSelection {
+
+    private final String expression;
+    private final GmxSelectionNode root;
+
+    GmxSelection(String expression, GmxSelectionNode root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    // ======== INTERFACE ========
+
+    /**
+     * @return indexes of selected atoms of the frame; the set belongs to the caller
+     */
+    public BitSet select(GmxFrame frame) {
+        return (BitSet) root.evaluate(frame, null).clone();
+    }
+
+    public int[] getAtomIndexes(GmxFrame frame) {
+        return root.evaluate(frame, null).stream().toArray();
+    }
+
+    public GmxAtom[] getAtoms(GmxFrame frame) {
+        return root.evaluate(frame, null).stream().mapToObj(frame::getAtom).toArray(GmxAtom[]::new);
+    }
+
+    /**
+     * @return true if the selection doesn't depend on coordinates, so it is the same for all frames
+     * of a structure
+     */
+    public boolean isStatic() {
+        return root.isStatic();
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,203 @@
+package com.asemenkov.gromacs.frame.selection;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.gromacs.particles.utils.GmxAtomReflectionData;
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+import com.asemenkov.utils.io.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles selection expressions in the spirit of gmx select:
+ * <pre>
+ * expression := term { "or" term }
+ * term       := factor { "and" factor }
+ * factor     := "not" factor | "(" expression ")" | "all" | "none" | "donor" | "acceptor"
+ *             | "name" abbreviation... | "resname" abbreviation... | "atomnr" range... | "resnr" range...
+ *             | "within" radius "of" factor
+ * range      := number | number "to" number
+ * </pre>
+ * Numbers are 0-based atom indexes and residueNo of the frame, so atom and residue 1 of a .gro file are
+ * atomnr 0 and resnr 0. Radius is in nm, by the minimum image distance in the frame box. Donors are
+ * donor hydrogens.
+ * Abbreviations are checked against reflection data when the selection is built.
+ *
+ * @author asemenkov
+ * @since Oct 14, 2019
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class GmxSelectionBuilder {
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\(|\\)|[^\\s()]+");
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList( //
+            "or", "and", "not", "all", "none", "donor", "acceptor", "name", "resname", "atomnr", "resnr", //
+            "within", "of", "to"));
+
+    private @Autowired GmxAtomReflectionData atomReflectionData;
+    private @Autowired GmxResidueReflectionData residueReflectionData;
+
+    private String expression;
+    private List<String> tokens;
+    private int position;
+
+    // ======== INTERFACE ========
+
+    public GmxSelectionBuilder withExpression(String expression) {
+        this.expression = expression;
+        return this;
+    }
+
+    public GmxSelection build() {
+        if (expression == null || expression.trim().isEmpty()) throw new GmxFrameException("Selection is empty.");
+
+        tokens = new ArrayList<>();
+        Matcher matcher = TOKEN_PATTERN.matcher(expression);
+        while (matcher.find()) tokens.add(matcher.group());
+        position = 0;
+
+        GmxSelectionNode root = parseExpression();
+        if (position < tokens.size()) throw getException("Unexpected '" + tokens.get(position) + "'");
+
+        GmxSelection selection = new GmxSelection(expression, root);
+        Logger.log("Selection successfully compiled: " + expression);
+        return selection;
+    }
+
+    // ======== PARSING ========
+
+    private GmxSelectionNode parseExpression() {
+        List<GmxSelectionNode> operands = new ArrayList<>();
+        operands.add(parseTerm());
+        while (accept("or")) operands.add(parseTerm());
+        return operands.size() == 1 ? operands.get(0) : new GmxSelectionNode.Or(operands);
+    }
+
+    private GmxSelectionNode parseTerm() {
+        List<GmxSelectionNode> operands = new ArrayList<>();
+        operands.add(parseFactor());
+        while (accept("and")) operands.add(parseFactor());
+        return operands.size() == 1 ? operands.get(0) : new GmxSelectionNode.And(operands);
+    }
+
+    private GmxSelectionNode parseFactor() {
+        String token = next();
+        switch (token) {
+            case "not":
+                return new GmxSelectionNode.Not(parseFactor());
+            case "(":
+                GmxSelectionNode node = parseExpression();
+                if (!accept(")")) throw getException("Missing ')'");
+                return node;
+            case "all":
+                return new GmxSelectionNode.All();
+            case "none":
+                return new GmxSelectionNode.None();
+            case "donor":
+                return new GmxSelectionNode.Roles(residueReflectionData, true);
+            case "acceptor":
+                return new GmxSelectionNode.Roles(residueReflectionData, false);
+            case "name":
+                return new GmxSelectionNode.AtomNames(parseAtomNames());
+            case "resname":
+                return new GmxSelectionNode.ResidueNames(parseResidueClasses());
+            case "atomnr":
+                return new GmxSelectionNode.AtomNumbers(parseRanges());
+            case "resnr":
+                return new GmxSelectionNode.ResidueNumbers(parseRanges());
+            case "within":
+                float radius = parseRadius();
+                if (!accept("of")) throw getException("Missing 'of'");
+                return new GmxSelectionNode.Within(radius, parseFactor());
+            default:
+                throw getException("Unexpected '" + token + "'");
+        }
+    }
+
+    private Set<String> parseAtomNames() {
+        Set<String> names = new HashSet<>();
+        for (String name : parseWords()) {
+            if (atomReflectionData.isAbbreviationAbsent(name)) throw getException("Unknown atom abbreviation " + name);
+            names.add(name);
+        }
+        return names;
+    }
+
+    private Set<Class<? extends GmxResidue>> parseResidueClasses() {
+        Set<Class<? extends GmxResidue>> residueClasses = new HashSet<>();
+        for (String name : parseWords()) {
+            if (residueReflectionData.isAbbreviationAbsent(name))
+                throw getException("Unknown residue abbreviation " + name);
+            residueClasses.add(residueReflectionData.getResidueClass(name));
+        }
+        return residueClasses;
+    }
+
+    private List<String> parseWords() {
+        List<String> words = new ArrayList<>();
+        while (position < tokens.size() && isWord(tokens.get(position))) words.add(tokens.get(position++));
+        if (words.isEmpty()) throw getException("Missing abbreviation");
+        return words;
+    }
+
+    private int[][] parseRanges() {
+        List<int[]> ranges = new ArrayList<>();
+        while (position < tokens.size() && isWord(tokens.get(position))) {
+            int from = parseInteger(next());
+            ranges.add(new int[] { from, accept("to") ? parseInteger(next()) : from });
+        }
+        if (ranges.isEmpty()) throw getException("Missing number");
+        return ranges.toArray(new int[0][]);
+    }
+
+    private int parseInteger(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw getException("Invalid number " + token);
+        }
+    }
+
+    private float parseRadius() {
+        String token = next();
+        try {
+            float radius = Float.parseFloat(token);
+            if (radius >= 0 && !Float.isInfinite(radius)) return radius;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw getException("Invalid radius " + token);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private String next() {
+        if (position == tokens.size()) throw getException("Unexpected end");
+        return tokens.get(position++);
+    }
+
+    private boolean accept(String token) {
+        if (position == tokens.size() || !tokens.get(position).equals(token)) return false;
+        position++;
+        return true;
+    }
+
+    private static boolean isWord(String token) {
+        return !KEYWORDS.contains(token) && !token.equals("(") && !token.equals(")");
+    }
+
+    private GmxFrameException getException(String message) {
+        return new GmxFrameException("Invalid selection '" + expression + "': " + message);
+    }
+}
@@ -0,0 +1,348 @@
+package com.asemenkov.gromacs.frame.selection;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxSpatialIndex;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Node of a compiled selection. A static node depends on the frame structure only and its atoms
+ * are cached per structure; other nodes are evaluated on every frame. Evaluation gets candidates,
+ * atoms that can still get into the result, so that geometric clauses skip atoms already rejected
+ * by static ones; a result is correct only on candidates. Results are never modified once returned.
+ *
+ * @author asemenkov
+ * @since Oct 14, 2019
+ */
+abstract class GmxSelectionNode {
+
+    private final boolean isStatic;
+    private final Map<GmxFrameStructure, BitSet> cache;
+
+    GmxSelectionNode(boolean isStatic) {
+        this.isStatic = isStatic;
+        this.cache = isStatic ? Collections.synchronizedMap(new WeakHashMap<>()) : null;
+    }
+
+    boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * @param candidates atoms to evaluate the node on, or null for all atoms
+     */
+    BitSet evaluate(GmxFrame frame, BitSet candidates) {
+        if (!isStatic) return compute(frame, candidates);
+        return cache.computeIfAbsent(frame.getFrameStructure(), structure -> compute(frame, null));
+    }
+
+    abstract BitSet compute(GmxFrame frame, BitSet candidates);
+
+    /**
+     * Children of a static node are computed directly, as only the topmost static node is cached.
+     */
+    BitSet evaluateChild(GmxSelectionNode child, GmxFrame frame, BitSet candidates) {
+        return isStatic ? child.compute(frame, candidates) : child.evaluate(frame, candidates);
+    }
+
+    // ======== ATOMS ========
+
+    static final class All extends GmxSelectionNode {
+
+        All() {
+            super(true);
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            BitSet atoms = new BitSet(frame.getAtomsNum());
+            atoms.set(0, frame.getAtomsNum());
+            return atoms;
+        }
+    }
+
+    static final class None extends GmxSelectionNode {
+
+        None() {
+            super(true);
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            return new BitSet();
+        }
+    }
+
+    static final class AtomNames extends GmxSelectionNode {
+
+        private final Set<String> names;
+
+        AtomNames(Set<String> names) {
+            super(true);
+            this.names = names;
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            String[] abbreviations = frame.getFrameStructure().getAtomAbbreviationsSequence();
+            BitSet atoms = new BitSet(abbreviations.length);
+            for (int i = 0; i < abbreviations.length; i++) if (names.contains(abbreviations[i])) atoms.set(i);
+            return atoms;
+        }
+    }
+
+    static final class AtomNumbers extends GmxSelectionNode {
+
+        private final int[][] ranges;
+
+        /**
+         * @param ranges inclusive ranges of atomNo
+         */
+        AtomNumbers(int[][] ranges) {
+            super(true);
+            this.ranges = ranges;
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            BitSet atoms = new BitSet(frame.getAtomsNum());
+            for (int[] range : ranges) {
+                int from = Math.max(range[0], 0), to = Math.min(range[1], frame.getAtomsNum() - 1);
+                if (from <= to) atoms.set(from, to + 1);
+            }
+            return atoms;
+        }
+    }
+
+    // ======== RESIDUES ========
+
+    /**
+     * Base of nodes selecting atoms of residues, or atoms at some positions of residues.
+     */
+    abstract static class ResidueAtoms extends GmxSelectionNode {
+
+        ResidueAtoms() {
+            super(true);
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            GmxFrameStructure structure = frame.getFrameStructure();
+            int[][] positions = new int[structure.getResidueTypesNum()][];
+            for (int type = 0; type < positions.length; type++)
+                positions[type] = getPositions(structure.getResidueTypeClass(type));
+
+            BitSet atoms = new BitSet(structure.getAtomsNum());
+            for (int r = 0, residuesNum = structure.getResiduesNum(); r < residuesNum; r++) {
+                if (!isResidueSelected(structure, r)) continue;
+                int[] residuePositions = positions[structure.getResidueType(r)];
+                if (residuePositions == null) {
+                    for (int j = 0; j < structure.getResidueAtomsNum(r); j++) atoms.set(structure.getResidueAtom(r, j));
+                } else {
+                    for (int position : residuePositions) atoms.set(structure.getResidueAtom(r, position));
+                }
+            }
+            return atoms;
+        }
+
+        /**
+         * @return positions of selected atoms in residues of the class, or null for all atoms
+         */
+        abstract int[] getPositions(Class<? extends GmxResidue> residueClass);
+
+        abstract boolean isResidueSelected(GmxFrameStructure structure, int residue);
+    }
+
+    static final class ResidueNames extends ResidueAtoms {
+
+        private final Set<Class<? extends GmxResidue>> residueClasses;
+
+        ResidueNames(Set<Class<? extends GmxResidue>> residueClasses) {
+            this.residueClasses = residueClasses;
+        }
+
+        @Override
+        int[] getPositions(Class<? extends GmxResidue> residueClass) {
+            return null;
+        }
+
+        @Override
+        boolean isResidueSelected(GmxFrameStructure structure, int residue) {
+            return residueClasses.contains(structure.getResidueClass(residue));
+        }
+    }
+
+    static final class ResidueNumbers extends ResidueAtoms {
+
+        private final int[][] ranges;
+
+        /**
+         * @param ranges inclusive ranges of residueNo
+         */
+        ResidueNumbers(int[][] ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        int[] getPositions(Class<? extends GmxResidue> residueClass) {
+            return null;
+        }
+
+        @Override
+        boolean isResidueSelected(GmxFrameStructure structure, int residue) {
+            int residueNo = structure.getResidueNo(residue);
+            for (int[] range : ranges) if (range[0] <= residueNo && residueNo <= range[1]) return true;
+            return false;
+        }
+    }
+
+    /**
+     * Donor hydrogens or acceptors of residues, as annotated in residue classes.
+     */
+    static final class Roles extends ResidueAtoms {
+
+        private final GmxResidueReflectionData residueReflectionData;
+        private final boolean isDonor;
+
+        Roles(GmxResidueReflectionData residueReflectionData, boolean isDonor) {
+            this.residueReflectionData = residueReflectionData;
+            this.isDonor = isDonor;
+        }
+
+        @Override
+        int[] getPositions(Class<? extends GmxResidue> residueClass) {
+            List<Field> atoms = Arrays.asList(residueReflectionData.getResidueAtomsFields(residueClass));
+            if (isDonor) return Arrays.stream(residueReflectionData.getResidueDonorsFields(residueClass)) //
+                    .mapToInt(atoms::indexOf).toArray();
+            Field acceptor = residueReflectionData.getResidueAcceptorField(residueClass);
+            return acceptor == null ? new int[0] : new int[] { atoms.indexOf(acceptor) };
+        }
+
+        @Override
+        boolean isResidueSelected(GmxFrameStructure structure, int residue) {
+            return true;
+        }
+    }
+
+    // ======== GEOMETRY ========
+
+    /**
+     * Atoms not farther than the radius from any atom of the reference selection, by the minimum image
+     * distance in the frame box as in gmx select. Reference atoms are within radius of themselves.
+     */
+    static final class Within extends GmxSelectionNode {
+
+        private final float radius;
+        private final GmxSelectionNode reference;
+
+        Within(float radius, GmxSelectionNode reference) {
+            super(false);
+            this.radius = radius;
+            this.reference = reference;
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            GmxPbcBox box = GmxPbcBox.of(frame.getBox());
+            int[] referenceAtoms = reference.evaluate(frame, null).stream().toArray();
+            float[] referenceXyz = box.wrapWithImages(getCoordinates(frame, referenceAtoms), referenceAtoms.length,
+                    radius);
+            GmxSpatialIndex spatialIndex = GmxSpatialIndex.of(referenceXyz);
+
+            int[] atoms = candidates != null ? candidates.stream().toArray() : IntStream.range(0,
+                    frame.getAtomsNum()).toArray();
+            float[] xyz = getCoordinates(frame, atoms);
+            box.wrap(xyz, atoms.length);
+            int[] within = IntStream.range(0, atoms.length).parallel() //
+                    .filter(i -> spatialIndex.isAnyWithinRadius(xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2], radius)) //
+                    .map(i -> atoms[i]).toArray();
+
+            BitSet selected = new BitSet(frame.getAtomsNum());
+            for (int i : within) selected.set(i);
+            return selected;
+        }
+
+        private static float[] getCoordinates(GmxFrame frame, int[] atoms) {
+            float[] xyz = new float[3 * atoms.length];
+            for (int i = 0; i < atoms.length; i++) frame.getAtom(atoms[i]).getCoordinates(xyz, 3 * i);
+            return xyz;
+        }
+    }
+
+    // ======== BOOLEAN ========
+
+    static final class Not extends GmxSelectionNode {
+
+        private final GmxSelectionNode operand;
+
+        Not(GmxSelectionNode operand) {
+            super(operand.isStatic());
+            this.operand = operand;
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            BitSet selected = new BitSet(frame.getAtomsNum());
+            if (candidates != null) selected.or(candidates);
+            else selected.set(0, frame.getAtomsNum());
+            selected.andNot(evaluateChild(operand, frame, candidates));
+            return selected;
+        }
+    }
+
+    /**
+     * Static operands are evaluated first, so other operands are evaluated on their intersection only.
+     */
+    static final class And extends GmxSelectionNode {
+
+        private final GmxSelectionNode[] operands;
+
+        And(List<GmxSelectionNode> operands) {
+            super(operands.stream().allMatch(GmxSelectionNode::isStatic));
+            this.operands = operands.stream() //
+                    .sorted((node1, node2) -> Boolean.compare(node2.isStatic(), node1.isStatic())) //
+                    .toArray(GmxSelectionNode[]::new);
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            BitSet selected = new BitSet(frame.getAtomsNum());
+            if (candidates != null) selected.or(candidates);
+            else selected.set(0, frame.getAtomsNum());
+            for (GmxSelectionNode operand : operands) {
+                if (selected.isEmpty()) break;
+                selected.and(evaluateChild(operand, frame, selected));
+            }
+            return selected;
+        }
+    }
+
+    static final class Or extends GmxSelectionNode {
+
+        private final GmxSelectionNode[] operands;
+
+        Or(List<GmxSelectionNode> operands) {
+            super(operands.stream().allMatch(GmxSelectionNode::isStatic));
+            this.operands = operands.toArray(new GmxSelectionNode[0]);
+        }
+
+        @Override
+        BitSet compute(GmxFrame frame, BitSet candidates) {
+            BitSet selected = new BitSet(frame.getAtomsNum());
+            for (GmxSelectionNode operand : operands) selected.or(evaluateChild(operand, frame, candidates));
+            return selected;
+        }
+    }
+}
@@ -6,10 +6,15 @@ import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.utils.io.Logger;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Residues are kept in compressed sparse rows: residue r of type residueTypes[r] holds atoms
+ * residueAtoms[residueOffsets[r]] .. residueAtoms[residueOffsets[r + 1] - 1], in the order of
+ * {@link GmxResidue#getAllAtoms()}. Residues go in the order of the frame residues.
+ *
  * @author asemenkov
  * @since Apr 17, 2018
  */
@@ -18,8 +23,11 @@ public class GmxFrameStructure {
     private final float[] box;
     private final Class<? extends GmxAtom>[] atomsSequence;
     private final String[] atomAbbreviationsSequence;
-    private final Map<Class<? extends GmxResidue>, int[]> residueIndexesMap;
-    private final Map<Integer, int[]> residueAtomsMap;
+    private Class<? extends GmxResidue>[] residueClasses;
+    private int[] residueTypes;
+    private int[] residueNos;
+    private int[] residueOffsets;
+    private int[] residueAtoms;
     private String description;
 
     @SuppressWarnings("unchecked")
@@ -27,8 +35,26 @@ public class GmxFrameStructure {
         this.box = new float[3];
         this.atomAbbreviationsSequence = new String[size];
         this.atomsSequence = (Class<? extends GmxAtom>[]) new Class[size];
-        this.residueIndexesMap = new ConcurrentHashMap<>();
-        this.residueAtomsMap = new ConcurrentHashMap<>();
+        this.residueClasses = (Class<? extends GmxResidue>[]) new Class[0];
+        this.residueTypes = new int[0];
+        this.residueNos = new int[0];
+        this.residueOffsets = new int[1];
+        this.residueAtoms = new int[0];
+    }
+
+    /**
+     * @return copy of this structure; residue arrays are shared, as they are never exposed
+     * and replaced rather than modified by {@link #setResidues}
+     */
+    public GmxFrameStructure copy() {
+        GmxFrameStructure structure = new GmxFrameStructure(atomsSequence.length);
+        System.arraycopy(box, 0, structure.box, 0, 3);
+        System.arraycopy(atomsSequence, 0, structure.atomsSequence, 0, atomsSequence.length);
+        System.arraycopy(atomAbbreviationsSequence, 0, structure.atomAbbreviationsSequence, 0,
+                atomAbbreviationsSequence.length);
+        structure.setResidues(residueClasses, residueTypes, residueNos, residueOffsets, residueAtoms);
+        structure.description = description;
+        return structure;
     }
 
     // ======== GETTERS ========
@@ -42,13 +68,25 @@ public class GmxFrameStructure {
     }
 
     public Integer getResiduesNum() {
-        return residueIndexesMap.values().stream().mapToInt(value -> value.length).sum();
+        return residueTypes.length;
     }
 
     public float[] getBox() {
         return Arrays.copyOf(box, 3);
     }
 
+    public float getBoxX() {
+        return box[0];
+    }
+
+    public float getBoxY() {
+        return box[1];
+    }
+
+    public float getBoxZ() {
+        return box[2];
+    }
+
     public Class<? extends GmxAtom>[] getAtomsSequence() {
         return atomsSequence;
     }
@@ -57,11 +95,70 @@ public class GmxFrameStructure {
         return atomAbbreviationsSequence;
     }
 
+    // ======== RESIDUES ========
+
+    public int getResidueTypesNum() {
+        return residueClasses.length;
+    }
+
+    public Class<? extends GmxResidue> getResidueTypeClass(int type) {
+        return residueClasses[type];
+    }
+
+    public int getResidueType(int residue) {
+        return residueTypes[residue];
+    }
+
+    public Class<? extends GmxResidue> getResidueClass(int residue) {
+        return residueClasses[residueTypes[residue]];
+    }
+
+    public int getResidueNo(int residue) {
+        return residueNos[residue];
+    }
+
+    public int getResidueAtomsNum(int residue) {
+        return residueOffsets[residue + 1] - residueOffsets[residue];
+    }
+
+    /**
+     * @param position position of the atom in the residue, as in {@link GmxResidue#getAllAtoms()}
+     * @return index of the atom in the frame
+     */
+    public int getResidueAtom(int residue, int position) {
+        return residueAtoms[residueOffsets[residue] + position];
+    }
+
+    public int[] getResidueAtoms(int residue) {
+        return Arrays.copyOfRange(residueAtoms, residueOffsets[residue], residueOffsets[residue + 1]);
+    }
+
+    /**
+     * @return residueNos of every residue class, built from the residue arrays on every call
+     * @deprecated use {@link #getResidueClass(int)} and {@link #getResidueNo(int)}
+     */
+    @Deprecated
     public Map<Class<? extends GmxResidue>, int[]> getResidueIndexesMap() {
+        int[] typeSizes = new int[residueClasses.length];
+        for (int type : residueTypes) typeSizes[type]++;
+        Map<Class<? extends GmxResidue>, int[]> residueIndexesMap = new LinkedHashMap<>();
+        for (int type = 0; type < residueClasses.length; type++)
+            residueIndexesMap.put(residueClasses[type], new int[typeSizes[type]]);
+
+        Arrays.fill(typeSizes, 0);
+        for (int r = 0; r < residueTypes.length; r++)
+            residueIndexesMap.get(residueClasses[residueTypes[r]])[typeSizes[residueTypes[r]]++] = residueNos[r];
         return residueIndexesMap;
     }
 
+    /**
+     * @return atom indexes of every residueNo, built from the residue arrays on every call
+     * @deprecated use {@link #getResidueAtomsNum(int)} and {@link #getResidueAtom(int, int)}
+     */
+    @Deprecated
     public Map<Integer, int[]> getResidueAtomsMap() {
+        Map<Integer, int[]> residueAtomsMap = new HashMap<>(2 * residueNos.length);
+        for (int r = 0; r < residueNos.length; r++) residueAtomsMap.put(residueNos[r], getResidueAtoms(r));
         return residueAtomsMap;
     }
 
@@ -87,12 +184,16 @@ public class GmxFrameStructure {
         atomsSequence[index] = atomClass;
     }
 
-    void setResidueIndexes(Class<? extends GmxResidue> residueClass, int[] indexes) {
-        residueIndexesMap.put(residueClass, indexes);
-    }
-
-    void setResidueAtoms(int residueIndex, int[] indexes) {
-        residueAtomsMap.put(residueIndex, indexes);
+    void setResidues(Class<? extends GmxResidue>[] residueClasses, int[] residueTypes, int[] residueNos,
+            int[] residueOffsets, int[] residueAtoms) {
+        if (residueTypes.length != residueNos.length || residueOffsets.length != residueTypes.length + 1
+                || residueOffsets[residueTypes.length] != residueAtoms.length)
+            throw new GmxFrameException("Inconsistent residue arrays.");
+        this.residueClasses = residueClasses;
+        this.residueTypes = residueTypes;
+        this.residueNos = residueNos;
+        this.residueOffsets = residueOffsets;
+        this.residueAtoms = residueAtoms;
     }
 
 }
\ No newline at end of file
@@ -56,15 +56,11 @@ public class GmxFrameStructureFromArraysBuilder extends GmxAbstractFrameStructur
         if (residues == null || residues.length == 0) return frameStructure;
 
         validateResiduesArray();
-        Arrays.stream(residues).parallel() //
-                .collect(Collectors.groupingByConcurrent(GmxResidue::getClass)) //
-                .forEach((key, value) -> frameStructure.setResidueIndexes(key, //
-                        value.stream().mapToInt(GmxResidue::getResidueNo).toArray()));
-
-        Arrays.stream(residues).parallel() //
-                .collect(Collectors.groupingByConcurrent(GmxResidue::getResidueNo)) //
-                .forEach((key, value) -> frameStructure.setResidueAtoms(key, //
-                        Arrays.stream(value.get(0).getAllAtoms()).mapToInt(GmxAtom::getAtomNo).toArray()));
+        int residueAtomsNum = Arrays.stream(residues).mapToInt(residue -> residue.getAllAtoms().length).sum();
+        GmxResidueTopologyAppender appender = new GmxResidueTopologyAppender(residues.length, residueAtomsNum);
+        for (GmxResidue residue : residues) appender.append(residue.getClass(), residue.getResidueNo(), //
+                Arrays.stream(residue.getAllAtoms()).mapToInt(GmxAtom::getAtomNo).toArray());
+        appender.appendTo(frameStructure);
 
         Logger.log("Frame structure successfully created from arrays of atoms and residues");
         return frameStructure;
@@ -58,17 +58,16 @@ public class GmxFrameStructureFromGroFileBuilder
         if (groFileResidueLines.size() == 0) return frameStructure;
 
         reindexResidues(groFileResidueLines);
-        groFileResidueLines.stream() //
-                .collect(Collectors.groupingByConcurrent(residueReflectionData::getResidueClass)) //
-                .forEach((key, value) -> frameStructure.setResidueIndexes(key, value.stream() //
-                        .mapToInt(GmxGroFileAtomLine::getResidueNo) //
-                        .distinct().toArray()));
-
-        groFileResidueLines.stream() //
-                .collect(Collectors.groupingByConcurrent(GmxGroFileAtomLine::getResidueNo)) //
-                .forEach((key, value) -> frameStructure.setResidueAtoms(key, value.stream() //
-                        .mapToInt(GmxGroFileAtomLine::getAtomNo) //
-                        .sorted().toArray()));
+        GmxResidueTopologyAppender appender = //
+                new GmxResidueTopologyAppender(groFileResidueLines.size(), groFileResidueLines.size());
+        for (int from = 0, to; from < groFileResidueLines.size(); from = to) {
+            int residueNo = groFileResidueLines.get(from).getResidueNo();
+            for (to = from + 1; to < groFileResidueLines.size(); to++)
+                if (groFileResidueLines.get(to).getResidueNo() != residueNo) break;
+            appender.append(residueReflectionData.getResidueClass(groFileResidueLines.get(from)), residueNo, //
+                    groFileResidueLines.subList(from, to).stream().mapToInt(GmxGroFileAtomLine::getAtomNo).toArray());
+        }
+        appender.appendTo(frameStructure);
 
         Logger.log("Frame structure successfully created from .gro file");
         return frameStructure;
@@ -43,6 +43,7 @@ public class GmxFrameStructureFromScratchBuilder
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public GmxFrameStructure build() {
         validateAtLeastOneMapIsNotEmpty();
         validateBox();
@@ -53,7 +54,6 @@ public class GmxFrameStructureFromScratchBuilder
         frameStructure.setBox(box);
 
         AtomicInteger atomsCounter = new AtomicInteger(0);
-        AtomicInteger residuesCounter = new AtomicInteger(0);
 
         validateFreeAtomsMap();
         freeAtomsCountMap.forEach((key, value) -> IntStream.range(0, value).parallel().forEach(i -> {
@@ -63,31 +63,39 @@ public class GmxFrameStructureFromScratchBuilder
         }));
 
         validateResiduesMap();
-        residuesCountMap.forEach((key, value) -> {
-            Class<? extends GmxResidue> residueClass = residueReflectionData.getResidueClass(key);
-            String[] abbreviations = Arrays.stream(residueReflectionData.getResidueAtomsFields(residueClass))
+        int residuesNum = residuesCountMap.values().stream().mapToInt(Integer::intValue).sum();
+        int freeAtomsNum = atomsCounter.get();
+        Class<? extends GmxResidue>[] residueClasses = new Class[residuesCountMap.size()];
+        int[] residueTypes = new int[residuesNum];
+        int[] residueNos = IntStream.range(0, residuesNum).toArray();
+        int[] residueOffsets = new int[residuesNum + 1];
+        int[] residueAtoms = IntStream.range(freeAtomsNum, atomsNum).toArray();
+
+        int type = 0;
+        int residueNo = 0;
+        for (Map.Entry<String, Integer> entry : residuesCountMap.entrySet()) {
+            residueClasses[type] = residueReflectionData.getResidueClass(entry.getKey());
+            String[] abbreviations = Arrays.stream(residueReflectionData.getResidueAtomsFields(residueClasses[type]))
                     .map(field -> field.getAnnotation(ResidueAtom.class).value()) //
                     .toArray(String[]::new);
 
-            int[] residueIndexes = IntStream.range(0, value).parallel().map(i -> {
-                int residueLength = abbreviations.length;
-                int residueNo = residuesCounter.getAndIncrement();
-                int atomNo = atomsCounter.getAndAdd(residueLength);
-                int sum = atomNo + residueLength;
-
-                for (int j = 0; j < residueLength; j++) {
-                    int index = atomNo + j;
-                    frameStructure.setAtomsClass(index, atomReflectionData.getAtomClass(abbreviations[j]));
-                    frameStructure.setAtomAbbreviation(index, abbreviations[j]);
-                }
-
-                frameStructure.setResidueAtoms(residueNo, IntStream.range(atomNo, sum).toArray());
-                return residueNo;
-            }).toArray();
-
-            frameStructure.setResidueIndexes(residueClass, residueIndexes);
-        });
-
+            int residueLength = abbreviations.length;
+            int firstResidueNo = residueNo;
+            int firstAtomNo = freeAtomsNum + residueOffsets[firstResidueNo];
+            IntStream.range(0, entry.getValue() * residueLength).parallel().forEach(i -> {
+                frameStructure.setAtomsClass(firstAtomNo + i, //
+                        atomReflectionData.getAtomClass(abbreviations[i % residueLength]));
+                frameStructure.setAtomAbbreviation(firstAtomNo + i, abbreviations[i % residueLength]);
+            });
+
+            for (int i = 0; i < entry.getValue(); i++, residueNo++) {
+                residueTypes[residueNo] = type;
+                residueOffsets[residueNo + 1] = residueOffsets[residueNo] + residueLength;
+            }
+            type++;
+        }
+
+        frameStructure.setResidues(residueClasses, residueTypes, residueNos, residueOffsets, residueAtoms);
         Logger.log("Frame structure successfully created from scratch");
         return frameStructure;
     }
@@ -0,0 +1,56 @@
+package com.asemenkov.gromacs.frame.structure;
+
+import com.asemenkov.gromacs.particles.GmxResidue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects residues one by one into the compressed residue arrays of {@link GmxFrameStructure}.
+ * Residue types are numbered in the order their classes first appear.
+ *
+ * @author asemenkov
+ * @since Oct 07, 2019
+ */
+final class GmxResidueTopologyAppender {
+
+    private final Map<Class<? extends GmxResidue>, Integer> residueTypesMap = new LinkedHashMap<>();
+    private int[] residueTypes;
+    private int[] residueNos;
+    private int[] residueOffsets;
+    private int[] residueAtoms;
+    private int residuesNum;
+
+    GmxResidueTopologyAppender(int residuesCapacity, int residueAtomsCapacity) {
+        residueTypes = new int[residuesCapacity];
+        residueNos = new int[residuesCapacity];
+        residueOffsets = new int[residuesCapacity + 1];
+        residueAtoms = new int[residueAtomsCapacity];
+    }
+
+    void append(Class<? extends GmxResidue> residueClass, int residueNo, int[] atoms) {
+        int offset = residueOffsets[residuesNum];
+        if (residuesNum == residueTypes.length) {
+            residueTypes = Arrays.copyOf(residueTypes, 2 * residuesNum + 1);
+            residueNos = Arrays.copyOf(residueNos, 2 * residuesNum + 1);
+            residueOffsets = Arrays.copyOf(residueOffsets, 2 * residuesNum + 2);
+        }
+        if (offset + atoms.length > residueAtoms.length)
+            residueAtoms = Arrays.copyOf(residueAtoms, Math.max(2 * residueAtoms.length, offset + atoms.length));
+
+        residueTypes[residuesNum] = residueTypesMap.computeIfAbsent(residueClass, k -> residueTypesMap.size());
+        residueNos[residuesNum] = residueNo;
+        System.arraycopy(atoms, 0, residueAtoms, offset, atoms.length);
+        residueOffsets[++residuesNum] = offset + atoms.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    void appendTo(GmxFrameStructure frameStructure) {
+        frameStructure.setResidues(residueTypesMap.keySet().toArray(new Class[0]), //
+                Arrays.copyOf(residueTypes, residuesNum), //
+                Arrays.copyOf(residueNos, residuesNum), //
+                Arrays.copyOf(residueOffsets, residuesNum + 1), //
+                Arrays.copyOf(residueAtoms, residueOffsets[residuesNum]));
+    }
+}
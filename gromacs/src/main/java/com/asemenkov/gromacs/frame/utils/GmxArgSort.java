@@ -0,0 +1,117 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Argsort of primitive float keys without boxing. Every key is packed with its index into one long,
+ * so sorting plain longs orders indexes by key and breaks ties by smaller index, as a stable sort would.
+ * NaN keys go last.
+ *
+ * @author asemenkov
+ * @since Sep 02, 2019
+ */
+public class GmxArgSort {
+
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    // ======== PUBLIC INTERFACE ========
+
+    /**
+     * @return indexes of all keys in ascending order of keys
+     */
+    public static int[] argsort(float[] keys) {
+        long[] packed = pack(keys);
+        if (packed.length < PARALLEL_SORT_THRESHOLD) Arrays.sort(packed);
+        else Arrays.parallelSort(packed);
+        return unpack(packed, packed.length);
+    }
+
+    /**
+     * @return indexes of k smallest keys in ascending order of keys
+     */
+    public static int[] argsort(float[] keys, int k) {
+        if (k < 0 || k > keys.length) throw new GmxFrameException("Invalid number of keys: " + k);
+        if (2 * k > keys.length) return Arrays.copyOf(argsort(keys), k);
+
+        long[] packed = pack(keys);
+        select(packed, k);
+        Arrays.sort(packed, 0, k);
+        return unpack(packed, k);
+    }
+
+    /**
+     * Double keys can't be packed with indexes, so indexes are merge sorted by keys, which is stable as well.
+     *
+     * @return indexes of all keys in ascending order of keys
+     */
+    public static int[] argsort(double[] keys) {
+        long[] bits = new long[keys.length];
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long keyBits = Double.doubleToLongBits(keys[i]);
+            bits[i] = keyBits ^ (keyBits >> 63) & Long.MAX_VALUE;
+            indexes[i] = i;
+        }
+        mergeSort(indexes, new int[keys.length], bits, 0, keys.length);
+        return indexes;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private static long[] pack(float[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int bits = Float.floatToIntBits(keys[i]);
+            bits ^= (bits >> 31) & Integer.MAX_VALUE;
+            packed[i] = (long) bits << 32 | i;
+        }
+        return packed;
+    }
+
+    private static int[] unpack(long[] packed, int length) {
+        int[] indexes = new int[length];
+        for (int i = 0; i < length; i++) indexes[i] = (int) packed[i];
+        return indexes;
+    }
+
+    /**
+     * Moves the k smallest values to the head of the array in any order.
+     */
+    private static void select(long[] values, int k) {
+        int from = 0, to = values.length - 1;
+        while (from < to && k > from && k <= to) {
+            long pivot = values[ThreadLocalRandom.current().nextInt(from, to + 1)];
+            int i = from, j = to;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) swap(values, i++, j--);
+            }
+            if (k <= j) to = j;
+            else if (k >= i) from = i;
+            else return;
+        }
+    }
+
+    private static void mergeSort(int[] indexes, int[] buffer, long[] bits, int from, int to) {
+        if (to - from < 2) return;
+        int middle = (from + to) >>> 1;
+        mergeSort(indexes, buffer, bits, from, middle);
+        mergeSort(indexes, buffer, bits, middle, to);
+        if (bits[indexes[middle - 1]] <= bits[indexes[middle]]) return;
+
+        System.arraycopy(indexes, from, buffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++)
+            indexes[i] = right == to || left < middle && bits[buffer[left]] <= bits[buffer[right]] //
+                    ? buffer[left++] : buffer[right++];
+    }
+
+    private static void swap(long[] values, int i, int j) {
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
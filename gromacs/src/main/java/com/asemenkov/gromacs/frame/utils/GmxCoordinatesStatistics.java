@@ -0,0 +1,155 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.stream.IntStream;
+
+/**
+ * Bounding box, centroid and sums of coordinates collected in one parallel pass over primitive
+ * coordinates, in the manner of {@link java.util.DoubleSummaryStatistics}. Minimums and maximums of
+ * an empty set are positive and negative infinity.
+ *
+ * @author asemenkov
+ * @since Sep 16, 2019
+ */
+public final class GmxCoordinatesStatistics {
+
+    private int count;
+    private float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+    private float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+    private double sumX, sumY, sumZ;
+    private double sumSquares;
+
+    // ======== FACTORIES ========
+
+    public static GmxCoordinatesStatistics ofAtoms(GmxFrame frame) {
+        return IntStream.range(0, frame.getAtomsNum()).parallel().collect(GmxCoordinatesStatistics::new, //
+                (statistics, i) -> statistics.accept(frame.getAtom(i)), GmxCoordinatesStatistics::combine);
+    }
+
+    /**
+     * @return statistics of residue pivot atoms
+     */
+    public static GmxCoordinatesStatistics ofResidues(GmxFrame frame) {
+        return IntStream.range(0, frame.getResiduesNum()).parallel().collect(GmxCoordinatesStatistics::new, //
+                (statistics, i) -> statistics.accept(frame.getResidue(i).getPivotAtom()), //
+                GmxCoordinatesStatistics::combine);
+    }
+
+    /**
+     * @param xyz interleaved coordinates x0, y0, z0, x1, ... of points
+     */
+    public static GmxCoordinatesStatistics of(float[] xyz) {
+        if (xyz == null || xyz.length % 3 != 0) throw new GmxFrameException( //
+                "Invalid interleaved coordinates length: " + (xyz == null ? null : xyz.length));
+        return IntStream.range(0, xyz.length / 3).parallel().collect(GmxCoordinatesStatistics::new, //
+                (statistics, i) -> statistics.accept(xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]), //
+                GmxCoordinatesStatistics::combine);
+    }
+
+    // ======== ACCUMULATION ========
+
+    public void accept(float x, float y, float z) {
+        count++;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+        sumX += x;
+        sumY += y;
+        sumZ += z;
+        sumSquares += (double) x * x + (double) y * y + (double) z * z;
+    }
+
+    public void accept(GmxAtom atom) {
+        accept(atom.getCoordinateX(), atom.getCoordinateY(), atom.getCoordinateZ());
+    }
+
+    public void combine(GmxCoordinatesStatistics other) {
+        count += other.count;
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+        sumX += other.sumX;
+        sumY += other.sumY;
+        sumZ += other.sumZ;
+        sumSquares += other.sumSquares;
+    }
+
+    // ======== GETTERS ========
+
+    public int getCount() {
+        return count;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMinZ() {
+        return minZ;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+
+    public float getMaxZ() {
+        return maxZ;
+    }
+
+    public float[] getMin() {
+        return new float[] { minX, minY, minZ };
+    }
+
+    public float[] getMax() {
+        return new float[] { maxX, maxY, maxZ };
+    }
+
+    /**
+     * @return sizes of the bounding box, zeros for an empty set
+     */
+    public float[] getExtents() {
+        if (count == 0) return new float[3];
+        return new float[] { maxX - minX, maxY - minY, maxZ - minZ };
+    }
+
+    public double[] getSum() {
+        return new double[] { sumX, sumY, sumZ };
+    }
+
+    public float[] getCentroid() {
+        verifyNotEmpty();
+        return new float[] { (float) (sumX / count), (float) (sumY / count), (float) (sumZ / count) };
+    }
+
+    /**
+     * @return root mean square distance of points to the centroid, all points weighted equally
+     */
+    public double getRadiusOfGyration() {
+        verifyNotEmpty();
+        double centroidSquared = (sumX * sumX + sumY * sumY + sumZ * sumZ) / count / count;
+        return Math.sqrt(Math.max(sumSquares / count - centroidSquared, 0.));
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void verifyNotEmpty() {
+        if (count == 0) throw new GmxFrameException("No coordinates collected");
+    }
+}
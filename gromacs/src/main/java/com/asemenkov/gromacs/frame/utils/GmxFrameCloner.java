@@ -0,0 +1,89 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Deep copies of frames in one pass over atoms and residues. Atoms are cloned with primitive copies
+ * of their coordinates, atom views are bound to one copy of the frame coordinates buffer, and copied
+ * residues are wired to the copied atoms keeping their reflection metadata.
+ *
+ * @author asemenkov
+ * @since Aug 19, 2019
+ */
+public class GmxFrameCloner {
+
+    // ======== PUBLIC INTERFACE ========
+
+    /**
+     * The coordinates buffer is copied only if some atoms are views of it.
+     */
+    public static GmxAtom[] copyAtoms(GmxFrame frame) {
+        boolean hasViews = IntStream.range(0, frame.getAtomsNum()).parallel() //
+                .anyMatch(i -> frame.getAtom(i).isCoordinatesView());
+        return copyAtoms(frame, hasViews ? frame.getFrameCoordinates().getXyz().clone() : null);
+    }
+
+    /**
+     * @param atoms copies of the frame atoms, in the order of the frame
+     */
+    public static GmxResidue[] copyResidues(GmxFrame frame, GmxAtom[] atoms) {
+        if (atoms.length != frame.getAtomsNum()) throw new GmxFrameException( //
+                "Copied atoms num isn't equal to frame atomsNum: " + atoms.length);
+
+        Map<GmxAtom, Integer> atomIndexes = isIndexedByAtomNo(frame) ? null : getAtomIndexes(frame);
+        GmxResidue[] residues = new GmxResidue[frame.getResiduesNum()];
+        IntStream.range(0, residues.length).parallel().forEach(i -> {
+            GmxResidue residue = frame.getResidue(i);
+            GmxAtom[] residueAtoms = residue.getAllAtoms();
+            GmxAtom[] copiedAtoms = new GmxAtom[residueAtoms.length];
+            for (int j = 0; j < residueAtoms.length; j++) {
+                Integer index = atomIndexes == null ? residueAtoms[j].getAtomNo() : atomIndexes.get(residueAtoms[j]);
+                if (index == null) throw new GmxFrameException("Residue atom is not in frame: " + residueAtoms[j]);
+                copiedAtoms[j] = atoms[index];
+            }
+            residues[i] = residue.copy(copiedAtoms);
+        });
+        return residues;
+    }
+
+    /**
+     * Fills an empty frame with a deep copy of the source frame.
+     */
+    public static void copyFrame(GmxFrame source, GmxFrame target) {
+        float[] xyz = source.getFrameCoordinates().getXyz().clone();
+        GmxAtom[] atoms = copyAtoms(source, xyz);
+        target.setFrameStructure(source.getFrameStructure().copy());
+        target.setFrameCoordinates(new GmxFrameCoordinates(xyz, source.getFrameNo()));
+        target.setAtoms(atoms);
+        target.setResidues(copyResidues(source, atoms));
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private static GmxAtom[] copyAtoms(GmxFrame frame, float[] xyz) {
+        GmxAtom[] atoms = new GmxAtom[frame.getAtomsNum()];
+        IntStream.range(0, atoms.length).parallel().forEach(i -> {
+            GmxAtom atom = frame.getAtom(i);
+            atoms[i] = atom.isCoordinatesView() ? atom.copy(xyz, i) : atom.copy();
+        });
+        return atoms;
+    }
+
+    private static boolean isIndexedByAtomNo(GmxFrame frame) {
+        return IntStream.range(0, frame.getAtomsNum()).parallel().allMatch(i -> frame.getAtom(i).getAtomNo() == i);
+    }
+
+    private static Map<GmxAtom, Integer> getAtomIndexes(GmxFrame frame) {
+        Map<GmxAtom, Integer> atomIndexes = new IdentityHashMap<>(2 * frame.getAtomsNum());
+        for (int i = 0; i < frame.getAtomsNum(); i++) atomIndexes.put(frame.getAtom(i), i);
+        return atomIndexes;
+    }
+}
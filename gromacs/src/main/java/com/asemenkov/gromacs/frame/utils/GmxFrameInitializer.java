@@ -1,6 +1,7 @@
 package com.asemenkov.gromacs.frame.utils;
 
 import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
 import com.asemenkov.gromacs.particles.GmxAtom;
@@ -12,7 +13,6 @@ import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 /**
@@ -48,28 +48,72 @@ public class GmxFrameInitializer {
 
         Class<? extends GmxAtom>[] atomClasses = frame.getFrameStructure().getAtomsSequence();
         String[] atomAbbreviations = frame.getFrameStructure().getAtomAbbreviationsSequence();
-        float[][] atomCoordinates = frame.getFrameCoordinates().getCoordinates();
+        GmxFrameCoordinates frameCoordinates = frame.getFrameCoordinates();
+        ThreadLocal<float[]> atomCoordinates = ThreadLocal.withInitial(() -> new float[3]);
 
-        IntStream.range(0, frame.getFrameStructure().getAtomsNum()).parallel().forEach(i -> //
-                newAtoms[i] = atomFactory.get(atomClasses[i], atomAbbreviations[i], i, atomCoordinates[i]));
+        IntStream.range(0, frame.getFrameStructure().getAtomsNum()).parallel().forEach(i -> {
+            frameCoordinates.getCoordinates(i, atomCoordinates.get());
+            newAtoms[i] = atomFactory.get(atomClasses[i], atomAbbreviations[i], i, atomCoordinates.get());
+        });
+    }
+
+    /**
+     * Creates atoms as views of the frame coordinates buffer instead of atoms with private coordinates.
+     */
+    public static void initAtomViews(GmxFrame frame) {
+        validateFrameStructureAtoms(frame);
+        GmxAtom[] newAtoms = new GmxAtom[frame.getFrameStructure().getAtomsNum()];
+        frame.setAtoms(newAtoms);
+
+        Class<? extends GmxAtom>[] atomClasses = frame.getFrameStructure().getAtomsSequence();
+        String[] atomAbbreviations = frame.getFrameStructure().getAtomAbbreviationsSequence();
+        float[] xyz = frame.getFrameCoordinates().getXyz();
+
+        IntStream.range(0, frame.getFrameStructure().getAtomsNum()).parallel().forEach(i -> {
+            newAtoms[i] = atomFactory.get(atomClasses[i], atomAbbreviations[i], i, null);
+            newAtoms[i].bindCoordinates(xyz, i);
+        });
+    }
+
+    /**
+     * Binds the i-th atom of the frame to the i-th coordinates of the frame coordinates buffer.
+     * Residues share atoms with the frame, so they follow. Takes O(N) and allocates nothing.
+     */
+    public static void bindAtoms(GmxFrame frame) {
+        if (frame.getFrameCoordinates() == null) throw new GmxFrameException("frameCoordinates is missing");
+        if (frame.getAtomsNum() != frame.getFrameCoordinates().getAtomsNum())
+            throw new GmxFrameException("frame atomsNum isn't equal to frameCoordinates coordsNum");
+
+        float[] xyz = frame.getFrameCoordinates().getXyz();
+        IntStream.range(0, frame.getAtomsNum()).parallel().forEach(i -> frame.getAtom(i).bindCoordinates(xyz, i));
     }
 
     public static void initResidues(GmxFrame frame) {
-        if (frame.getFrameStructure().getResiduesNum() > 0) validateFrameStructureResidues(frame);
-        GmxResidue[] newResidues = new GmxResidue[frame.getFrameStructure().getResiduesNum()];
+        GmxFrameStructure structure = frame.getFrameStructure();
+        if (structure.getResiduesNum() > 0) validateFrameStructureResidues(frame);
+        GmxResidue[] newResidues = new GmxResidue[structure.getResiduesNum()];
         frame.setResidues(newResidues);
 
-        AtomicInteger arrayIndex = new AtomicInteger(0);
-        frame.getFrameStructure().getResidueIndexesMap().forEach((key, value) -> {
+        // residues of one type are created in one batch, then put back to their positions
+        int[] typeOffsets = new int[structure.getResidueTypesNum() + 1];
+        for (int r = 0; r < newResidues.length; r++) typeOffsets[structure.getResidueType(r) + 1]++;
+        for (int type = 0; type < structure.getResidueTypesNum(); type++) typeOffsets[type + 1] += typeOffsets[type];
+
+        int[] order = new int[newResidues.length];
+        int[] cursors = Arrays.copyOf(typeOffsets, typeOffsets.length - 1);
+        for (int r = 0; r < newResidues.length; r++) order[cursors[structure.getResidueType(r)]++] = r;
+
+        IntStream.range(0, structure.getResidueTypesNum()).parallel().forEach(type -> {
+            int[] positions = Arrays.copyOfRange(order, typeOffsets[type], typeOffsets[type + 1]);
 
-            GmxAtom[][] residuesAtoms = Arrays.stream(value) //
-                    .mapToObj(i -> frame.getFrameStructure().getResidueAtomsMap().get(i)) //
-                    .map(i -> IntStream.of(i).mapToObj(j -> frame.getAtoms()[j]).toArray(GmxAtom[]::new)) //
+            int[] residueNos = IntStream.of(positions).map(structure::getResidueNo).toArray();
+            GmxAtom[][] residuesAtoms = IntStream.of(positions) //
+                    .mapToObj(r -> IntStream.of(structure.getResidueAtoms(r)).mapToObj(frame::getAtom) //
+                            .toArray(GmxAtom[]::new)) //
                     .toArray(GmxAtom[][]::new);
 
-            GmxResidue[] residues = residuesFactory.get(key, value, residuesAtoms);
-            int index = arrayIndex.getAndAdd(residues.length);
-            System.arraycopy(residues, 0, newResidues, index, residues.length);
+            GmxResidue[] residues = residuesFactory.get(structure.getResidueTypeClass(type), residueNos, residuesAtoms);
+            for (int k = 0; k < positions.length; k++) newResidues[positions[k]] = residues[k];
         });
     }
 
@@ -86,7 +130,7 @@ public class GmxFrameInitializer {
         if (structure.getAtomAbbreviationsSequence() == null
                 || structure.getAtomAbbreviationsSequence().length != structure.getAtomsSequence().length)
             throw new GmxFrameException("frameStructure doesn't specify atoms abbreviations sequence");
-        if (structure.getAtomsNum() != frame.getFrameCoordinates().getCoordinates().length)
+        if (structure.getAtomsNum() != frame.getFrameCoordinates().getAtomsNum())
             throw new GmxFrameException("frameStructure atomsNum isn't equal to frameCoordinates coordsNum");
     }
 
@@ -94,9 +138,9 @@ public class GmxFrameInitializer {
         GmxFrameStructure structure = frame.getFrameStructure();
         if (frame.getFrameStructure() == null) throw new GmxFrameException("frameStructure is missing");
         if (frame.getFrameCoordinates() == null) throw new GmxFrameException("frameCoordinates is missing");
-        if (structure.getResidueIndexesMap() == null || structure.getResidueIndexesMap().isEmpty())
-            throw new GmxFrameException("frameStructure doesn't specify residues indexes");
-        if (structure.getResidueAtomsMap() == null || structure.getResidueAtomsMap().isEmpty())
+        if (structure.getResidueTypesNum() == 0)
+            throw new GmxFrameException("frameStructure doesn't specify residues classes");
+        if (structure.getResiduesNum() == 0)
             throw new GmxFrameException("frameStructure doesn't specify residues atoms");
     }
 
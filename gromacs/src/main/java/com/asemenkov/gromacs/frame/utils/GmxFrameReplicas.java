@@ -0,0 +1,132 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+
+import java.util.stream.IntStream;
+
+/**
+ * Virtual replication of a frame over a multiplied box. Replica atoms and residues are never created:
+ * an index of the replicated frame maps to a source particle and a replica, whose coordinates are the
+ * source ones shifted by whole box edges. Replicas are ordered along X first, then Y, then Z, so
+ * indexes are the same as in the frame multiplied by {@link GmxFrameUtils#multiplyFrame}.
+ * The view reads the source frame on every call and follows its changes.
+ *
+ * @author asemenkov
+ * @since Sep 23, 2019
+ */
+public final class GmxFrameReplicas {
+
+    private final GmxFrame frame;
+    private final int multiX, multiY, multiZ;
+    private final float edgeX, edgeY, edgeZ;
+
+    private GmxFrameReplicas(GmxFrame frame, int multiX, int multiY, int multiZ) {
+        this.frame = frame;
+        this.multiX = multiX;
+        this.multiY = multiY;
+        this.multiZ = multiZ;
+        this.edgeX = frame.getBoxX();
+        this.edgeY = frame.getBoxY();
+        this.edgeZ = frame.getBoxZ();
+    }
+
+    public static GmxFrameReplicas of(GmxFrame frame, int multiX, int multiY, int multiZ) {
+        if (multiX <= 0 || multiY <= 0 || multiZ <= 0) //
+            throw new GmxFrameException("Box multiplier is negative integer or zero");
+        return new GmxFrameReplicas(frame, multiX, multiY, multiZ);
+    }
+
+    // ======== GETTERS ========
+
+    public int getReplicasNum() {
+        return multiX * multiY * multiZ;
+    }
+
+    public int getAtomsNum() {
+        return frame.getAtomsNum() * getReplicasNum();
+    }
+
+    public int getResiduesNum() {
+        return frame.getResiduesNum() * getReplicasNum();
+    }
+
+    public float[] getBox() {
+        return new float[] { edgeX * multiX, edgeY * multiY, edgeZ * multiZ };
+    }
+
+    /**
+     * @return replica of the atom, 0 for atoms of the source frame
+     */
+    public int getAtomReplica(int atom) {
+        return atom / frame.getAtomsNum();
+    }
+
+    public int getResidueReplica(int residue) {
+        return residue / frame.getResiduesNum();
+    }
+
+    public GmxAtom getSourceAtom(int atom) {
+        return frame.getAtom(atom % frame.getAtomsNum());
+    }
+
+    public GmxResidue getSourceResidue(int residue) {
+        return frame.getResidue(residue % frame.getResiduesNum());
+    }
+
+    // ======== COORDINATES ========
+
+    public float getX(int atom) {
+        return getSourceAtom(atom).getCoordinateX() + getShiftX(getAtomReplica(atom));
+    }
+
+    public float getY(int atom) {
+        return getSourceAtom(atom).getCoordinateY() + getShiftY(getAtomReplica(atom));
+    }
+
+    public float getZ(int atom) {
+        return getSourceAtom(atom).getCoordinateZ() + getShiftZ(getAtomReplica(atom));
+    }
+
+    public void getCoordinates(int atom, float[] destination, int position) {
+        destination[position] = getX(atom);
+        destination[position + 1] = getY(atom);
+        destination[position + 2] = getZ(atom);
+    }
+
+    /**
+     * @return coordinates of all replicated atoms, the only thing materialised by this view
+     */
+    public float[] getXyz() {
+        int atomsNum = frame.getAtomsNum();
+        float[] xyz = new float[3 * getAtomsNum()];
+        for (int j = 0; j < atomsNum; j++) frame.getAtom(j).getCoordinates(xyz, 3 * j);
+
+        IntStream.range(1, getReplicasNum()).parallel().forEach(replica -> {
+            float shiftX = getShiftX(replica), shiftY = getShiftY(replica), shiftZ = getShiftZ(replica);
+            int offset = 3 * replica * atomsNum;
+            for (int i = 0; i < 3 * atomsNum; i += 3) {
+                xyz[offset + i] = xyz[i] + shiftX;
+                xyz[offset + i + 1] = xyz[i + 1] + shiftY;
+                xyz[offset + i + 2] = xyz[i + 2] + shiftZ;
+            }
+        });
+        return xyz;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private float getShiftX(int replica) {
+        return replica % multiX * edgeX;
+    }
+
+    private float getShiftY(int replica) {
+        return replica / multiX % multiY * edgeY;
+    }
+
+    private float getShiftZ(int replica) {
+        return replica / (multiX * multiY) * edgeZ;
+    }
+}
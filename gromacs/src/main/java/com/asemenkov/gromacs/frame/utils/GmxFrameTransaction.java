@@ -0,0 +1,184 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.utils.io.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Batch of frame edits applied at once. Removals, appendages and replacements are queued and the frame
+ * stays untouched until {@link #commit()}, which filters atoms and residues in one pass, then reindexes
+ * and rebuilds the frame structure and coordinates only once. Appended particles go to the end of the
+ * frame in the order they were queued, as with consecutive calls of GmxFrameUtils.
+ *
+ * @author asemenkov
+ * @since Sep 09, 2019
+ */
+public final class GmxFrameTransaction {
+
+    private final GmxFrame frame;
+    private final Set<GmxAtom> removedAtoms = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<GmxResidue> removedResidues = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<GmxAtom> appendedAtoms = Collections.newSetFromMap(new LinkedHashMap<>());
+    private final Set<GmxResidue> appendedResidues = Collections.newSetFromMap(new LinkedHashMap<>());
+    private boolean committed;
+
+    public GmxFrameTransaction(GmxFrame frame) {
+        if (frame == null) throw new GmxFrameException("frame is missing");
+        this.frame = frame;
+    }
+
+    // ======== PARTICLES REMOVAL ========
+
+    public GmxFrameTransaction removeFreeAtoms(GmxAtom... atoms) {
+        verifyNotCommitted();
+        Arrays.stream(atoms).forEach(this::removeAtom);
+        return this;
+    }
+
+    public GmxFrameTransaction removeResidues(GmxResidue... residues) {
+        verifyNotCommitted();
+        for (GmxResidue residue : residues) {
+            if (!appendedResidues.remove(residue) && !removedResidues.add(residue)) throw new GmxFrameException(
+                    "Error while removing residues from frame: residue is removed twice: " + residue);
+            Arrays.stream(residue.getAllAtoms()).forEach(this::removeAtom);
+        }
+        return this;
+    }
+
+    // ======== PARTICLES APPENDAGE ========
+
+    public GmxFrameTransaction appendFreeAtoms(GmxAtom... atoms) {
+        verifyNotCommitted();
+        Arrays.stream(atoms).forEach(this::appendAtom);
+        return this;
+    }
+
+    public GmxFrameTransaction appendResidues(GmxResidue... residues) {
+        verifyNotCommitted();
+        for (GmxResidue residue : residues) {
+            if (!appendedResidues.add(residue)) throw new GmxFrameException("Cannot append duplicate residues");
+            Arrays.stream(residue.getAllAtoms()).forEach(this::appendAtom);
+        }
+        return this;
+    }
+
+    // ======== PARTICLES REPLACEMENT ========
+
+    public GmxAtom[] replaceAtomsWithAtoms(Class<? extends GmxAtom> atomClass, String abbr,
+            GmxAtom... atomsToReplace) {
+        GmxAtom[] newAtoms = GmxFrameUtils.createAtoms(atomClass, abbr, getCoordinates(atomsToReplace));
+        removeFreeAtoms(atomsToReplace);
+        appendFreeAtoms(newAtoms);
+        return newAtoms;
+    }
+
+    public GmxResidue[] replaceAtomsWithResidues(Class<? extends GmxResidue> residueClass,
+            GmxAtom... atomsToReplace) {
+        GmxResidue[] newResidues = GmxFrameUtils.createResidues(residueClass, getCoordinates(atomsToReplace));
+        removeFreeAtoms(atomsToReplace);
+        appendResidues(newResidues);
+        return newResidues;
+    }
+
+    public GmxAtom[] replaceResiduesWithAtoms(Class<? extends GmxAtom> atomClass, String abbr,
+            GmxResidue... residuesToReplace) {
+        GmxAtom[] newAtoms = GmxFrameUtils.createAtoms(atomClass, abbr, getPivotCoordinates(residuesToReplace));
+        removeResidues(residuesToReplace);
+        appendFreeAtoms(newAtoms);
+        return newAtoms;
+    }
+
+    public GmxResidue[] replaceResiduesWithResidues(Class<? extends GmxResidue> residueClass,
+            GmxResidue... residuesToReplace) {
+        GmxResidue[] newResidues = GmxFrameUtils.createResidues(residueClass, getPivotCoordinates(residuesToReplace));
+        removeResidues(residuesToReplace);
+        appendResidues(newResidues);
+        return newResidues;
+    }
+
+    // ======== COMMIT ========
+
+    public void commit() {
+        verifyNotCommitted();
+        committed = true;
+
+        GmxResidue[] keptResidues = frame.getFilteredResidues(residue -> !removedResidues.contains(residue));
+        if (keptResidues.length != frame.getResiduesNum() - removedResidues.size()) //
+            throw new GmxFrameException("Error while removing residues from frame: unexpected length");
+
+        GmxAtom[] keptAtoms = frame.getFilteredAtoms(atom -> !removedAtoms.contains(atom));
+        if (keptAtoms.length != frame.getAtomsNum() - removedAtoms.size()) //
+            throw new GmxFrameException("Error while removing atoms from frame: unexpected length");
+
+        GmxResidue[] residues = Arrays.copyOf(keptResidues, keptResidues.length + appendedResidues.size());
+        GmxAtom[] atoms = Arrays.copyOf(keptAtoms, keptAtoms.length + appendedAtoms.size());
+        copyAppended(appendedResidues, residues, keptResidues.length);
+        copyAppended(appendedAtoms, atoms, keptAtoms.length);
+
+        Arrays.stream(residues).parallel() //
+                .flatMap(residue -> Arrays.stream(residue.getAllAtoms())) //
+                .filter(removedAtoms::contains) //
+                .findFirst().ifPresent(atom -> {
+            throw new GmxFrameException("Atom is not free: " + atom);
+        });
+
+        if (!appendedResidues.isEmpty() && !isDistinct(residues)) //
+            throw new GmxFrameException("Cannot append duplicate residues");
+        if (!appendedAtoms.isEmpty() && !isDistinct(atoms)) //
+            throw new GmxFrameException("Cannot append duplicate atoms");
+
+        frame.setResidues(residues);
+        frame.setAtoms(atoms);
+        GmxFrameUpdater.updateFrame(frame);
+        Logger.log(String.format("Frame transaction committed. Atoms: -%d +%d, residues: -%d +%d", //
+                removedAtoms.size(), appendedAtoms.size(), removedResidues.size(), appendedResidues.size()));
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void removeAtom(GmxAtom atom) {
+        if (!appendedAtoms.remove(atom) && !removedAtoms.add(atom)) throw new GmxFrameException(
+                "Error while removing atoms from frame: atom is removed twice: " + atom);
+    }
+
+    private void appendAtom(GmxAtom atom) {
+        if (!appendedAtoms.add(atom)) throw new GmxFrameException("Cannot append duplicate atoms");
+    }
+
+    private void verifyNotCommitted() {
+        if (committed) throw new GmxFrameException("Frame transaction is already committed");
+    }
+
+    private static float[][] getCoordinates(GmxAtom[] atoms) {
+        return Arrays.stream(atoms).distinct().map(GmxFrameTransaction::copyCoordinates).toArray(float[][]::new);
+    }
+
+    private static float[][] getPivotCoordinates(GmxResidue[] residues) {
+        return Arrays.stream(residues).distinct() //
+                .map(residue -> copyCoordinates(residue.getPivotAtom())) //
+                .toArray(float[][]::new);
+    }
+
+    private static float[] copyCoordinates(GmxAtom atom) {
+        float[] xyz = new float[3];
+        atom.getCoordinates(xyz, 0);
+        return xyz;
+    }
+
+    private static <T> boolean isDistinct(T[] particles) {
+        Set<T> distinct = Collections.newSetFromMap(new IdentityHashMap<>(2 * particles.length));
+        return Arrays.stream(particles).allMatch(distinct::add);
+    }
+
+    private static <T> void copyAppended(Set<T> appended, T[] destination, int position) {
+        for (T particle : appended) destination[position++] = particle;
+    }
+}
@@ -4,10 +4,10 @@ import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinatesFromArraysBuilder;
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructureFromArraysBuilder;
+import com.asemenkov.gromacs.particles.GmxAtom;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -37,18 +37,40 @@ public class GmxFrameUpdater {
     public static void reindexAtoms(GmxFrame frame) {
         verifyNoAtomDuplicates(frame);
         AtomicInteger i = new AtomicInteger(0);
-        Arrays.stream(frame.getAtoms()).forEach(atom -> atom.setAtomNo(i.getAndIncrement()));
+        frame.getAtomsView().forEach(atom -> atom.setAtomNo(i.getAndIncrement()));
     }
 
     public static void reindexResidues(GmxFrame frame) {
         verifyNoResidueDuplicates(frame);
         AtomicInteger i = new AtomicInteger(0);
-        Arrays.stream(frame.getResidues()).forEach(residue -> residue.setResidueNo(i.getAndIncrement()));
+        frame.getResiduesView().forEach(residue -> residue.setResidueNo(i.getAndIncrement()));
     }
 
     public static void updateFrameStructure(GmxFrame frame) {
         reindexAtoms(frame);
         reindexResidues(frame);
+        buildFrameStructure(frame);
+    }
+
+    public static void updateFrameCoordinates(GmxFrame frame) {
+        reindexAtoms(frame);
+        reindexResidues(frame);
+        buildFrameCoordinates(frame);
+    }
+
+    /**
+     * Reindexes atoms and residues once, then rebuilds both frame structure and coordinates.
+     */
+    public static void updateFrame(GmxFrame frame) {
+        reindexAtoms(frame);
+        reindexResidues(frame);
+        buildFrameStructure(frame);
+        buildFrameCoordinates(frame);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private static void buildFrameStructure(GmxFrame frame) {
         frame.setFrameStructure(frameStructureFromArraysBuilder //
                 .withDescription(frame.getFrameStructure().getDescription()) //
                 .withAtomsArray(frame.getAtoms()) //
@@ -57,25 +79,25 @@ public class GmxFrameUpdater {
                 .build());
     }
 
-    public static void updateFrameCoordinates(GmxFrame frame) {
-        reindexAtoms(frame);
-        reindexResidues(frame);
+    private static void buildFrameCoordinates(GmxFrame frame) {
         frame.setFrameCoordinates(frameCoordinatesFromArraysBuilder //
                 .withFrameNo(frame.getFrameCoordinates().getFrameNo()) //
                 .withAtomsArray(frame.getAtoms()) //
                 .build());
+        if (frame.getAtomsView().stream().anyMatch(GmxAtom::isCoordinatesView))
+            GmxFrameInitializer.bindAtoms(frame);
     }
 
     // ======== PRIVATE VALIDATORS ========
 
     private static void verifyNoAtomDuplicates(GmxFrame frame) {
-        long distinctAtoms = Arrays.stream(frame.getAtoms()).distinct().count();
+        long distinctAtoms = frame.getAtomsView().stream().distinct().count();
         if (frame.getAtomsNum() != distinctAtoms) throw new GmxFrameException(
                 "There are duplicates in the frame atoms: " + (frame.getAtomsNum() - distinctAtoms));
     }
 
     private static void verifyNoResidueDuplicates(GmxFrame frame) {
-        long distinctResidues = Arrays.stream(frame.getResidues()).distinct().count();
+        long distinctResidues = frame.getResiduesView().stream().distinct().count();
         if (frame.getResiduesNum() != distinctResidues) throw new GmxFrameException(
                 "There are duplicates in the frame residues: " + (frame.getResiduesNum() - distinctResidues));
     }
@@ -2,10 +2,13 @@ package com.asemenkov.gromacs.frame.utils;
 
 import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
 import com.asemenkov.gromacs.particles.GmxAtom;
 import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.gromacs.particles.utils.GmxAtomUtils;
+import com.asemenkov.gromacs.particles.utils.GmxResidueReflectionData;
 import com.asemenkov.gromacs.particles.utils.GmxResidueUtils;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
 import com.asemenkov.utils.config.Factories.DuoFactory;
 import com.asemenkov.utils.config.Factories.TetraFactory;
 import com.asemenkov.utils.config.Factories.TriFactory;
@@ -14,9 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * @author asemenkov
@@ -28,6 +30,7 @@ public class GmxFrameUtils {
     private static TetraFactory<GmxAtom, Class<? extends GmxAtom>, String, Integer, float[]> atomFactory;
     private static TriFactory<GmxResidue, Class<? extends GmxResidue>, Integer, GmxAtom[]> residueFactory;
     private static DuoFactory<GmxAtom[], Class<? extends GmxResidue>, float[]> residueAtomsFactory;
+    private static GmxResidueReflectionData residueReflectionData;
 
     // ======== STATIC FIELDS INJECTIONS ========
 
@@ -49,6 +52,11 @@ public class GmxFrameUtils {
         GmxFrameUtils.residueAtomsFactory = residueAtomsFactory;
     }
 
+    @Autowired
+    public void setResidueReflectionData(GmxResidueReflectionData residueReflectionData) {
+        GmxFrameUtils.residueReflectionData = residueReflectionData;
+    }
+
     // ======== MINIMAL ========
 
     public static GmxAtom getAtomWithMinimalX(GmxFrame frame) {
@@ -120,52 +128,111 @@ public class GmxFrameUtils {
     // ======== SORTING ========
 
     public static GmxAtom[] getAtomsSortedByDistanceToPoint(GmxFrame frame, float[] coordinates) {
-        if (coordinates == null || coordinates.length != 3) //
-            throw new GmxFrameException("Invalid point coordinates: " + Arrays.toString(coordinates));
-
-        float[] xyz =  Arrays.copyOf(coordinates, 3);
-        GmxAtomUtils.shift(-xyz[0], -xyz[1], -xyz[2], frame.getAtoms());
-        GmxAtom[] atoms = frame.getSortedAtoms(GmxAtomUtils::cmpByRadiusVector);
-        GmxAtomUtils.shift(xyz[0], xyz[1], xyz[2], frame.getAtoms());
-        return atoms;
+        return getAtomsSortedByDistanceToPoint(frame, coordinates, frame.getAtomsNum());
     }
 
     public static GmxResidue[] getResiduesSortedByDistanceToPoint(GmxFrame frame, float[] coordinates) {
-        if (coordinates == null || coordinates.length != 3) //
-            throw new GmxFrameException("Invalid point coordinates: " + Arrays.toString(coordinates));
+        return getResiduesSortedByDistanceToPoint(frame, coordinates, frame.getResiduesNum());
+    }
 
-        GmxResidueUtils.shift(-coordinates[0], -coordinates[1], -coordinates[2], frame.getResidues());
-        GmxResidue[] residues = frame.getSortedResidues(GmxResidueUtils::cmpByRadiusVector);
-        GmxResidueUtils.shift(coordinates[0], coordinates[1], coordinates[2], frame.getResidues());
-        return residues;
+    /**
+     * @return k atoms nearest to the point, nearest first
+     */
+    public static GmxAtom[] getAtomsSortedByDistanceToPoint(GmxFrame frame, float[] coordinates, int k) {
+        validatePoint(coordinates);
+        float x = coordinates[0], y = coordinates[1], z = coordinates[2];
+        float[] distances = new float[frame.getAtomsNum()];
+        IntStream.range(0, distances.length).parallel() //
+                .forEach(i -> distances[i] = squaredDistance(frame.getAtom(i), x, y, z));
+
+        return Arrays.stream(GmxArgSort.argsort(distances, k)) //
+                .mapToObj(frame::getAtom) //
+                .toArray(GmxAtom[]::new);
+    }
+
+    /**
+     * @return k residues with pivot atoms nearest to the point, nearest first
+     */
+    public static GmxResidue[] getResiduesSortedByDistanceToPoint(GmxFrame frame, float[] coordinates, int k) {
+        validatePoint(coordinates);
+        float x = coordinates[0], y = coordinates[1], z = coordinates[2];
+        float[] distances = new float[frame.getResiduesNum()];
+        IntStream.range(0, distances.length).parallel() //
+                .forEach(i -> distances[i] = squaredDistance(frame.getResidue(i).getPivotAtom(), x, y, z));
+
+        return Arrays.stream(GmxArgSort.argsort(distances, k)) //
+                .mapToObj(frame::getResidue) //
+                .toArray(GmxResidue[]::new);
     }
 
     // ======== NEIGHBOURS ========
 
     public static GmxAtom getNeighbourAtom(GmxFrame frame, float[] coordinates, int order) {
+        return getNeighbourAtom(frame, GmxSpatialIndex.ofAtoms(frame), coordinates, order);
+    }
+
+    public static GmxResidue getNeighbourResidue(GmxFrame frame, float[] coordinates, int order) {
+        return getNeighbourResidue(frame, GmxSpatialIndex.ofResidues(frame), coordinates, order);
+    }
+
+    /**
+     * @param atomsIndex index of the frame atoms, see {@link GmxSpatialIndex#ofAtoms(GmxFrame)}
+     */
+    public static GmxAtom getNeighbourAtom(GmxFrame frame, GmxSpatialIndex atomsIndex, float[] coordinates,
+            int order) {
         if (order < 0 || order >= frame.getAtomsNum()) //
             throw new GmxFrameException("Invalid neighbour order: " + order);
-        return getAtomsSortedByDistanceToPoint(frame, coordinates)[order];
+        validatePoint(coordinates);
+        return frame.getAtom(atomsIndex.getNearest(coordinates[0], coordinates[1], coordinates[2], order + 1)[order]);
     }
 
-    public static GmxResidue getNeighbourResidue(GmxFrame frame, float[] coordinates, int order) {
+    /**
+     * @param residuesIndex index of the frame residues, see {@link GmxSpatialIndex#ofResidues(GmxFrame)}
+     */
+    public static GmxResidue getNeighbourResidue(GmxFrame frame, GmxSpatialIndex residuesIndex,
+            float[] coordinates, int order) {
         if (order < 0 || order >= frame.getResiduesNum()) //
             throw new GmxFrameException("Invalid neighbour order: " + order);
-        return getResiduesSortedByDistanceToPoint(frame, coordinates)[order];
+        validatePoint(coordinates);
+        return frame.getResidue(
+                residuesIndex.getNearest(coordinates[0], coordinates[1], coordinates[2], order + 1)[order]);
+    }
+
+    public static GmxAtom[] getAtomsWithinRadius(GmxFrame frame, GmxSpatialIndex atomsIndex, float[] coordinates,
+            float radius) {
+        validatePoint(coordinates);
+        return Arrays.stream(atomsIndex.getWithinRadius(coordinates[0], coordinates[1], coordinates[2], radius)) //
+                .mapToObj(frame::getAtom) //
+                .toArray(GmxAtom[]::new);
+    }
+
+    public static GmxResidue[] getResiduesWithinRadius(GmxFrame frame, GmxSpatialIndex residuesIndex,
+            float[] coordinates, float radius) {
+        validatePoint(coordinates);
+        return Arrays.stream(residuesIndex.getWithinRadius(coordinates[0], coordinates[1], coordinates[2], radius)) //
+                .mapToObj(frame::getResidue) //
+                .toArray(GmxResidue[]::new);
     }
 
     // ======== BOX ALTERATION ========
 
     public static void refineBox(GmxFrame frame, float padding) {
-        float minX = getAtomWithMinimalX(frame).getCoordinateX() - padding;
-        float minY = getAtomWithMinimalY(frame).getCoordinateY() - padding;
-        float minZ = getAtomWithMinimalZ(frame).getCoordinateZ() - padding;
-        float maxX = getAtomWithMaximalX(frame).getCoordinateX() + padding;
-        float maxY = getAtomWithMaximalY(frame).getCoordinateY() + padding;
-        float maxZ = getAtomWithMaximalZ(frame).getCoordinateZ() + padding;
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.ofAtoms(frame);
+        if (statistics.getCount() == 0) throw new GmxFrameException("Cannot refine box of empty frame");
+
+        float minX = statistics.getMinX() - padding;
+        float minY = statistics.getMinY() - padding;
+        float minZ = statistics.getMinZ() - padding;
+        float maxX = statistics.getMaxX() + padding;
+        float maxY = statistics.getMaxY() + padding;
+        float maxZ = statistics.getMaxZ() + padding;
 
         float[] newBox = new float[] { maxX - minX, maxY - minY, maxZ - minZ };
-        GmxAtomUtils.shift(-minX, -minY, -minZ, frame.getAtoms());
+        frame.applyConsumerToAtoms(atom -> {
+            atom.setCoordinateX(atom.getCoordinateX() - minX);
+            atom.setCoordinateY(atom.getCoordinateY() - minY);
+            atom.setCoordinateZ(atom.getCoordinateZ() - minZ);
+        });
         frame.getFrameStructure().setBox(newBox);
 
         GmxFrameUpdater.updateFrameCoordinates(frame);
@@ -173,10 +240,11 @@ public class GmxFrameUtils {
     }
 
     public static void removeAtomsOutOfBox(GmxFrame frame) {
+        float boxX = frame.getBoxX(), boxY = frame.getBoxY(), boxZ = frame.getBoxZ();
         Predicate<GmxAtom> isAtomOutOfBox = atom //
-                -> atom.getCoordinateX() >= frame.getBox()[0] //
-                || atom.getCoordinateY() >= frame.getBox()[1] //
-                || atom.getCoordinateZ() >= frame.getBox()[2] //
+                -> atom.getCoordinateX() >= boxX //
+                || atom.getCoordinateY() >= boxY //
+                || atom.getCoordinateZ() >= boxZ //
                 || atom.getCoordinateX() <= 0.f //
                 || atom.getCoordinateY() <= 0.f //
                 || atom.getCoordinateZ() <= 0.f;
@@ -188,52 +256,99 @@ public class GmxFrameUtils {
         removeFreeAtoms(frame, frame.getFilteredAtoms(isAtomOutOfBox));
     }
 
+    /**
+     * Replicates atoms and residues by cloning, with coordinates shifted by whole box edges. Replicas are
+     * ordered along X first, then Y, then Z, see {@link GmxFrameReplicas} for the same layout without copies.
+     */
     public static void multiplyFrame(GmxFrame frame, int multiX, int multiY, int multiZ) {
-        if (multiX <= 0 || multiY <= 0 || multiZ <= 0) //
-            throw new GmxFrameException("Box multiplier is negative integer or zero");
+        GmxFrameReplicas replicas = GmxFrameReplicas.of(frame, multiX, multiY, multiZ);
+        GmxFrameUpdater.reindexAtoms(frame);
 
-        multiplySingleDimension(frame, 0, multiX);
-        multiplySingleDimension(frame, 1, multiY);
-        multiplySingleDimension(frame, 2, multiZ);
+        int atomsNum = frame.getAtomsNum();
+        int residuesNum = frame.getResiduesNum();
+        float[] xyz = replicas.getXyz();
+        GmxAtom[] atoms = new GmxAtom[replicas.getAtomsNum()];
+        GmxResidue[] residues = new GmxResidue[replicas.getResiduesNum()];
+        for (int j = 0; j < atomsNum; j++) atoms[j] = frame.getAtom(j);
+        for (int j = 0; j < residuesNum; j++) residues[j] = frame.getResidue(j);
+
+        IntStream.range(1, replicas.getReplicasNum()).parallel().forEach(replica -> {
+            int atomsOffset = replica * atomsNum;
+            for (int j = 0; j < atomsNum; j++) {
+                atoms[atomsOffset + j] = frame.getAtom(j).copy();
+                atoms[atomsOffset + j].setCoordinates(xyz, 3 * (atomsOffset + j));
+            }
+            for (int j = 0; j < residuesNum; j++) {
+                GmxAtom[] residueAtoms = frame.getResidue(j).getAllAtoms();
+                GmxAtom[] newAtoms = new GmxAtom[residueAtoms.length];
+                for (int k = 0; k < residueAtoms.length; k++)
+                    newAtoms[k] = atoms[atomsOffset + residueAtoms[k].getAtomNo()];
+                residues[replica * residuesNum + j] = frame.getResidue(j).copy(newAtoms);
+            }
+        });
 
-        GmxFrameUpdater.updateFrameStructure(frame);
-        GmxFrameUpdater.updateFrameCoordinates(frame);
+        frame.getFrameStructure().setBox(replicas.getBox());
+        frame.setAtoms(atoms);
+        frame.setResidues(residues);
+        GmxFrameUpdater.updateFrame(frame);
         Logger.log(String.format("Box is multiplied: %d x %d x %d", multiX, multiY, multiZ));
     }
 
-    // ======== PARTICLES REMOVAL ========
+    // ======== RESIDUES ROTATION ========
+
+    /**
+     * Rotates every residue around its pivot atom by its own matrix, directly in the frame coordinates.
+     * Atoms of the frame must be views of the frame coordinates, see {@link GmxFrameInitializer#bindAtoms}.
+     *
+     * @param matrices row-major matrices, 9 elements per residue, as of {@link GmxRotation#getMatrix(float[], int)}
+     */
+    public static void rotateResidues(GmxFrame frame, float[] matrices) {
+        if (!Arrays.stream(frame.getAtoms()).parallel().allMatch(GmxAtom::isCoordinatesView))
+            throw new GmxFrameException("Frame atoms aren't views of frame coordinates");
+        rotateResidues(frame.getFrameStructure(), frame.getFrameCoordinates().getXyz(), matrices);
+    }
+
+    /**
+     * Rotates every residue of the structure around its pivot atom by its own matrix, in place.
+     *
+     * @param xyz      interleaved coordinates of the structure atoms x0, y0, z0, x1, ...
+     * @param matrices row-major matrices, 9 elements per residue, as of {@link GmxRotation#getMatrix(float[], int)}
+     */
+    public static void rotateResidues(GmxFrameStructure frameStructure, float[] xyz, float[] matrices) {
+        int residuesNum = frameStructure.getResiduesNum();
+        if (matrices.length != 9 * residuesNum)
+            throw new GmxFrameException("Rotation matrices and residues numbers differ: " + matrices.length / 9);
+        if (xyz.length != 3 * frameStructure.getAtomsNum())
+            throw new GmxFrameException("Coordinates and structure atoms numbers differ: " + xyz.length / 3);
+
+        int[] pivotPositions = new int[frameStructure.getResidueTypesNum()];
+        for (int type = 0; type < pivotPositions.length; type++) {
+            Class<? extends GmxResidue> residueClass = frameStructure.getResidueTypeClass(type);
+            pivotPositions[type] = Arrays.asList(residueReflectionData.getResidueAtomsFields(residueClass)) //
+                    .indexOf(residueReflectionData.getResiduePivotField(residueClass));
+        }
 
-    public static void removeFreeAtoms(GmxFrame frame, GmxAtom... atoms) {
-        Arrays.stream(frame.getResidues()).parallel() //
-                .flatMap(residue -> Arrays.stream(residue.getAllAtoms())) //
-                .filter(atom1 -> Arrays.stream(atoms).anyMatch(atom2 -> atom2 == atom1)) //
-                .findFirst().ifPresent(atom -> {
-            throw new GmxFrameException("Atom is not free: " + atom);
+        ThreadLocal<GmxRotation> rotation = ThreadLocal.withInitial(GmxRotation::new);
+        IntStream.range(0, residuesNum).parallel().forEach(r -> {
+            GmxRotation residueRotation = rotation.get().setMatrix(matrices, 9 * r);
+            int pivot = frameStructure.getResidueAtom(r, pivotPositions[frameStructure.getResidueType(r)]);
+            float pivotX = xyz[3 * pivot], pivotY = xyz[3 * pivot + 1], pivotZ = xyz[3 * pivot + 2];
+            for (int position = 0, atomsNum = frameStructure.getResidueAtomsNum(r); position < atomsNum; position++) {
+                int atom = frameStructure.getResidueAtom(r, position);
+                if (atom != pivot) residueRotation.apply(xyz, atom, pivotX, pivotY, pivotZ);
+            }
         });
+    }
 
-        int expectedNumAfterRemoval = frame.getAtomsNum() - atoms.length;
-        frame.setAtoms(frame.getFilteredAtoms( //
-                atom1 -> Arrays.stream(atoms).noneMatch(atom2 -> atom1 == atom2)));
-
-        if (frame.getAtomsNum() != expectedNumAfterRemoval) //
-            throw new GmxFrameException("Error while removing atoms from frame: unexpected length");
+    // ======== PARTICLES REMOVAL ========
 
-        GmxFrameUpdater.updateFrameStructure(frame);
-        GmxFrameUpdater.updateFrameCoordinates(frame);
+    public static void removeFreeAtoms(GmxFrame frame, GmxAtom... atoms) {
+        frame.beginTransaction().removeFreeAtoms(atoms).commit();
         Logger.log("Number of atoms removed from frame: " + atoms.length);
     }
 
     public static void removeResidues(GmxFrame frame, GmxResidue... residues) {
-        int expectedNumAfterRemoval = frame.getResiduesNum() - residues.length;
-        frame.setResidues(frame.getFilteredResidues( //
-                residue1 -> Arrays.stream(residues).noneMatch(residue2 -> residue1 == residue2)));
-
-        if (frame.getResiduesNum() != expectedNumAfterRemoval) //
-            throw new GmxFrameException("Error while removing residues from frame: unexpected length");
-
-        removeFreeAtoms(frame, Arrays.stream(residues) //
-                .flatMap(residue -> Arrays.stream(residue.getAllAtoms())) //
-                .toArray(GmxAtom[]::new));
+        frame.beginTransaction().removeResidues(residues).commit();
         Logger.log("Number of residues removed from frame: " + residues.length);
     }
 
@@ -243,15 +358,14 @@ public class GmxFrameUtils {
         int expectedNumAfterAppendage = frame.getAtomsNum() + atoms.length;
         GmxAtom[] allAtoms = new GmxAtom[expectedNumAfterAppendage];
 
-        System.arraycopy(frame.getAtoms(), 0, allAtoms, 0, frame.getAtomsNum());
+        for (int i = 0; i < frame.getAtomsNum(); i++) allAtoms[i] = frame.getAtom(i);
         System.arraycopy(atoms, 0, allAtoms, frame.getAtomsNum(), atoms.length);
 
         if (Arrays.stream(allAtoms).distinct().count() < expectedNumAfterAppendage) //
             throw new GmxFrameException("Cannot append duplicate atoms");
 
         frame.setAtoms(allAtoms);
-        GmxFrameUpdater.updateFrameStructure(frame);
-        GmxFrameUpdater.updateFrameCoordinates(frame);
+        GmxFrameUpdater.updateFrame(frame);
         Logger.log("Number of atoms added to frame: " + atoms.length);
     }
 
@@ -259,7 +373,7 @@ public class GmxFrameUtils {
         int expectedNumAfterAppendage = frame.getResiduesNum() + residues.length;
         GmxResidue[] allResidues = new GmxResidue[expectedNumAfterAppendage];
 
-        System.arraycopy(frame.getResidues(), 0, allResidues, 0, frame.getResiduesNum());
+        for (int i = 0; i < frame.getResiduesNum(); i++) allResidues[i] = frame.getResidue(i);
         System.arraycopy(residues, 0, allResidues, frame.getResiduesNum(), residues.length);
 
         if (Arrays.stream(allResidues).distinct().count() < expectedNumAfterAppendage) //
@@ -276,99 +390,62 @@ public class GmxFrameUtils {
 
     public static GmxAtom[] replaceAtomsWithAtoms(GmxFrame frame, //
             Class<? extends GmxAtom> atomClass, String abbr, GmxAtom... atomsToReplace) {
-
-        GmxAtom[] newAtoms = Arrays.stream(atomsToReplace).distinct().parallel() //
-                .map(atom -> atomFactory.get(atomClass, abbr, -1, atom.getCoordinates())) //
-                .toArray(GmxAtom[]::new);
-
-        removeFreeAtoms(frame, atomsToReplace);
-        appendFreeAtoms(frame, newAtoms);
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        GmxAtom[] newAtoms = transaction.replaceAtomsWithAtoms(atomClass, abbr, atomsToReplace);
+        transaction.commit();
         return newAtoms;
     }
 
     public static GmxResidue[] replaceAtomsWithResidues(GmxFrame frame, //
             Class<? extends GmxResidue> residueClass, GmxAtom... atomsToReplace) {
-
-        GmxResidue[] newResidues = Arrays.stream(atomsToReplace).distinct().parallel() //
-                .map(atom -> residueAtomsFactory.get(residueClass, atom.getCoordinates())) //
-                .map(newAtoms -> residueFactory.get(residueClass, 0, newAtoms)) //
-                .toArray(GmxResidue[]::new);
-
-        removeFreeAtoms(frame, atomsToReplace);
-        appendResidues(frame, newResidues);
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        GmxResidue[] newResidues = transaction.replaceAtomsWithResidues(residueClass, atomsToReplace);
+        transaction.commit();
         return newResidues;
     }
 
     public static GmxAtom[] replaceResiduesWithAtoms(GmxFrame frame, //
             Class<? extends GmxAtom> atomClass, String abbr, GmxResidue... residuesToReplace) {
-
-        GmxAtom[] newAtoms = Arrays.stream(residuesToReplace).distinct().parallel() //
-                .map(res -> atomFactory.get(atomClass, abbr, -1, res.getPivotAtom().getCoordinates())) //
-                .toArray(GmxAtom[]::new);
-
-        removeResidues(frame, residuesToReplace);
-        appendFreeAtoms(frame, newAtoms);
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        GmxAtom[] newAtoms = transaction.replaceResiduesWithAtoms(atomClass, abbr, residuesToReplace);
+        transaction.commit();
         return newAtoms;
     }
 
     public static GmxResidue[] replaceResiduesWithResidues(GmxFrame frame, //
             Class<? extends GmxResidue> residueClass, GmxResidue... residuesToReplace) {
-
-        GmxResidue[] newResidues = Arrays.stream(residuesToReplace).distinct().parallel() //
-                .map(res -> residueAtomsFactory.get(residueClass, res.getPivotAtom().getCoordinates())) //
-                .map(newAtoms -> residueFactory.get(residueClass, 0, newAtoms)) //
-                .toArray(GmxResidue[]::new);
-
-        removeResidues(frame, residuesToReplace);
-        appendResidues(frame, newResidues);
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        GmxResidue[] newResidues = transaction.replaceResiduesWithResidues(residueClass, residuesToReplace);
+        transaction.commit();
         return newResidues;
     }
 
-    // ======== SUPPORT METHODS ========
+    // ======== PARTICLES CREATION ========
 
-    private static void multiplySingleDimension(GmxFrame frame, int dimension, int multiplier) {
-        float edge = frame.getBox()[dimension];
-        float[] newBox = frame.getBox();
-        newBox[dimension] = edge * multiplier;
-        frame.getFrameStructure().setBox(newBox);
+    static GmxAtom[] createAtoms(Class<? extends GmxAtom> atomClass, String abbr, float[][] points) {
+        return Arrays.stream(points).parallel() //
+                .map(point -> atomFactory.get(atomClass, abbr, -1, point)) //
+                .toArray(GmxAtom[]::new);
+    }
 
-        int atomsNum = frame.getAtomsNum();
-        int residuesNum = frame.getResiduesNum();
+    static GmxResidue[] createResidues(Class<? extends GmxResidue> residueClass, float[][] points) {
+        return Arrays.stream(points).parallel() //
+                .map(point -> residueAtomsFactory.get(residueClass, point)) //
+                .map(newAtoms -> residueFactory.get(residueClass, 0, newAtoms)) //
+                .toArray(GmxResidue[]::new);
+    }
 
-        GmxAtom[] atoms = new GmxAtom[atomsNum * multiplier];
-        GmxResidue[] residues = new GmxResidue[residuesNum * multiplier];
-        System.arraycopy(frame.getAtoms(), 0, atoms, 0, atomsNum);
-        System.arraycopy(frame.getResidues(), 0, residues, 0, residuesNum);
-
-        Consumer<GmxAtom> shiftDimension = atom -> Logger.error(
-                "Cannot resolve Consumer for dimension " + dimension);
-
-        for (AtomicInteger i = new AtomicInteger(1); i.get() < multiplier; i.getAndIncrement()) {
-            if (dimension == 0) shiftDimension = atom -> GmxAtomUtils.shiftX(i.get() * edge, atom);
-            if (dimension == 1) shiftDimension = atom -> GmxAtomUtils.shiftY(i.get() * edge, atom);
-            if (dimension == 2) shiftDimension = atom -> GmxAtomUtils.shiftZ(i.get() * edge, atom);
-
-            GmxAtom[] newAtoms = Arrays.stream(frame.getAtoms()).parallel() //
-                    .map(atom -> atomFactory.get(atom.getClass(), atom.getAbbreviation(), atom.getAtomNo(),
-                            atom.getCoordinates())) //
-                    .peek(shiftDimension) //
-                    .toArray(GmxAtom[]::new);
-
-            GmxResidue[] newResidues = Arrays.stream(frame.getResidues()).parallel() //
-                    .map(residue -> residueFactory.get(residue.getClass(), residue.getResidueNo(), //
-                            Arrays.stream(residue.getAllAtoms()) //
-                                    .map(atom -> newAtoms[atom.getAtomNo()]) //
-                                    .toArray(GmxAtom[]::new))) //
-                    .toArray(GmxResidue[]::new);
-
-            System.arraycopy(newAtoms, 0, atoms, atomsNum * i.get(), atomsNum);
-            System.arraycopy(newResidues, 0, residues, residuesNum * i.get(), residuesNum);
-        }
+    // ======== SUPPORT METHODS ========
 
-        frame.setAtoms(atoms);
-        frame.setResidues(residues);
+    private static float squaredDistance(GmxAtom atom, float x, float y, float z) {
+        float deltaX = atom.getCoordinateX() - x;
+        float deltaY = atom.getCoordinateY() - y;
+        float deltaZ = atom.getCoordinateZ() - z;
+        return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+    }
 
-        GmxFrameUpdater.reindexAtoms(frame);
-        GmxFrameUpdater.reindexResidues(frame);
+    private static void validatePoint(float[] coordinates) {
+        if (coordinates == null || coordinates.length != 3) //
+            throw new GmxFrameException("Invalid point coordinates: " + Arrays.toString(coordinates));
     }
 }
@@ -0,0 +1,314 @@
+package com.asemenkov.gromacs.frame.utils;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the bounding box of points for nearest-neighbour and radius queries by plain
+ * Euclidean distance, as in GmxFrameUtils. Points are a snapshot of atoms or residue pivots taken
+ * when the index is built, so the frame may change afterwards. Queries don't modify the index
+ * and may be run from many threads at once. Ties in distance are broken by smaller point index.
+ *
+ * @author asemenkov
+ * @since Aug 26, 2019
+ */
+public final class GmxSpatialIndex {
+
+    private static final float POINTS_PER_CELL = 2.f;
+    private static final float FLAT_EXTENT_RATIO = 1e-3f;
+    private static final int MAX_CELLS_PER_POINT = 2;
+
+    private final float[] xyz;
+    private final float minX, minY, minZ;
+    private final float cellSizeX, cellSizeY, cellSizeZ;
+    private final int cellsX, cellsY, cellsZ;
+    private final int[] cellStarts;
+    private final int[] entries;
+
+    private GmxSpatialIndex(float[] xyz) {
+        this.xyz = xyz;
+        int pointsNum = getPointsNum();
+
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.of(xyz);
+        minX = pointsNum == 0 ? 0.f : statistics.getMinX();
+        minY = pointsNum == 0 ? 0.f : statistics.getMinY();
+        minZ = pointsNum == 0 ? 0.f : statistics.getMinZ();
+        float[] extents = statistics.getExtents();
+
+        // cubic cells of ~POINTS_PER_CELL points over the dimensions the points actually span,
+        // extents negligible against the largest one, as of a flat layer, are not spanned
+        float maxExtent = Math.max(extents[0], Math.max(extents[1], extents[2]));
+        double volume = 1.;
+        int dimensions = 0;
+        for (float extent : extents) {
+            if (extent <= maxExtent * FLAT_EXTENT_RATIO) continue;
+            volume *= extent;
+            dimensions++;
+        }
+        long maxCellsNum = Math.max(1, (long) Math.ceil(pointsNum / POINTS_PER_CELL));
+        double size = Math.pow(volume * POINTS_PER_CELL / Math.max(1, pointsNum), 1. / Math.max(1, dimensions));
+        size = Math.max(size, maxExtent / maxCellsNum);
+
+        // rounding cells numbers per dimension up may still give too many cells in total
+        while (getCellsNum(extents[0], size) * getCellsNum(extents[1], size) * getCellsNum(extents[2], size) //
+                > MAX_CELLS_PER_POINT * maxCellsNum) size *= 1.1;
+
+        cellsX = (int) getCellsNum(extents[0], size);
+        cellsY = (int) getCellsNum(extents[1], size);
+        cellsZ = (int) getCellsNum(extents[2], size);
+        cellSizeX = getCellSize(extents[0], cellsX);
+        cellSizeY = getCellSize(extents[1], cellsY);
+        cellSizeZ = getCellSize(extents[2], cellsZ);
+
+        int[] cells = new int[pointsNum];
+        cellStarts = new int[cellsX * cellsY * cellsZ + 1];
+        for (int i = 0; i < pointsNum; i++) {
+            cells[i] = getCell(xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2]);
+            cellStarts[cells[i] + 1]++;
+        }
+        for (int cell = 0; cell < cellStarts.length - 1; cell++) cellStarts[cell + 1] += cellStarts[cell];
+
+        entries = new int[pointsNum];
+        int[] positions = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+        for (int i = 0; i < pointsNum; i++) entries[positions[cells[i]]++] = i;
+    }
+
+    // ======== FACTORIES ========
+
+    public static GmxSpatialIndex ofAtoms(GmxFrame frame) {
+        float[] xyz = new float[3 * frame.getAtomsNum()];
+        for (int i = 0; i < frame.getAtomsNum(); i++) frame.getAtom(i).getCoordinates(xyz, 3 * i);
+        return new GmxSpatialIndex(xyz);
+    }
+
+    /**
+     * @return index of residue pivot atoms
+     */
+    public static GmxSpatialIndex ofResidues(GmxFrame frame) {
+        float[] xyz = new float[3 * frame.getResiduesNum()];
+        for (int i = 0; i < frame.getResiduesNum(); i++)
+            frame.getResidue(i).getPivotAtom().getCoordinates(xyz, 3 * i);
+        return new GmxSpatialIndex(xyz);
+    }
+
+    /**
+     * @param xyz interleaved coordinates x0, y0, z0, x1, ... of points, copied
+     */
+    public static GmxSpatialIndex of(float[] xyz) {
+        if (xyz == null || xyz.length % 3 != 0) throw new GmxFrameException( //
+                "Invalid interleaved coordinates length: " + (xyz == null ? null : xyz.length));
+        return new GmxSpatialIndex(xyz.clone());
+    }
+
+    // ======== QUERIES ========
+
+    public int getPointsNum() {
+        return xyz.length / 3;
+    }
+
+    public int getCellsNum() {
+        return cellsX * cellsY * cellsZ;
+    }
+
+    /**
+     * @return indexes of k nearest points, nearest first
+     */
+    public int[] getNearest(float x, float y, float z, int k) {
+        if (k < 0 || k > getPointsNum()) throw new GmxFrameException("Invalid number of neighbours: " + k);
+        if (k == 0) return new int[0];
+
+        int[] heapPoints = new int[k];
+        float[] heapDistances = new float[k];
+        int heapSize = 0;
+
+        int cellX = clamp((int) Math.floor((x - minX) / cellSizeX), cellsX);
+        int cellY = clamp((int) Math.floor((y - minY) / cellSizeY), cellsY);
+        int cellZ = clamp((int) Math.floor((z - minZ) / cellSizeZ), cellsZ);
+        int maxRing = Math.max(cellsX, Math.max(cellsY, cellsZ));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int fromX = Math.max(0, cellX - ring), toX = Math.min(cellsX - 1, cellX + ring);
+            int fromY = Math.max(0, cellY - ring), toY = Math.min(cellsY - 1, cellY + ring);
+            int fromZ = Math.max(0, cellZ - ring), toZ = Math.min(cellsZ - 1, cellZ + ring);
+
+            for (int i = fromX; i <= toX; i++)
+                for (int j = fromY; j <= toY; j++)
+                    for (int l = fromZ; l <= toZ; l++) {
+                        if (Math.abs(i - cellX) != ring && Math.abs(j - cellY) != ring && Math.abs(l - cellZ) != ring)
+                            continue;
+                        int cell = (i * cellsY + j) * cellsZ + l;
+                        for (int e = cellStarts[cell]; e < cellStarts[cell + 1]; e++) {
+                            int point = entries[e];
+                            float distance = distance2(point, x, y, z);
+                            if (heapSize < k) heapSize = pushHeap(heapPoints, heapDistances, heapSize, point, distance);
+                            else if (isCloser(point, distance, heapPoints[0], heapDistances[0]))
+                                replaceHeapTop(heapPoints, heapDistances, heapSize, point, distance);
+                        }
+                    }
+
+            if (heapSize == k) {
+                float bound = getUnvisitedDistance(x, y, z, fromX, toX, fromY, toY, fromZ, toZ);
+                if (bound * bound > heapDistances[0]) break;
+            }
+        }
+
+        int[] nearest = new int[k];
+        for (int i = k - 1; i >= 0; i--) {
+            nearest[i] = heapPoints[0];
+            heapSize = popHeap(heapPoints, heapDistances, heapSize);
+        }
+        return nearest;
+    }
+
+    /**
+     * @return indexes of points not farther than the radius, nearest first
+     */
+    public int[] getWithinRadius(float x, float y, float z, float radius) {
+        if (!(radius >= 0)) throw new GmxFrameException("Invalid radius: " + radius);
+        float radius2 = radius * radius;
+
+        int fromX = Math.max(0, clamp((int) Math.floor((x - radius - minX) / cellSizeX), cellsX) - 1);
+        int fromY = Math.max(0, clamp((int) Math.floor((y - radius - minY) / cellSizeY), cellsY) - 1);
+        int fromZ = Math.max(0, clamp((int) Math.floor((z - radius - minZ) / cellSizeZ), cellsZ) - 1);
+        int toX = Math.min(cellsX - 1, clamp((int) Math.floor((x + radius - minX) / cellSizeX), cellsX) + 1);
+        int toY = Math.min(cellsY - 1, clamp((int) Math.floor((y + radius - minY) / cellSizeY), cellsY) + 1);
+        int toZ = Math.min(cellsZ - 1, clamp((int) Math.floor((z + radius - minZ) / cellSizeZ), cellsZ) + 1);
+
+        int[] found = new int[16];
+        float[] distances = new float[16];
+        int foundNum = 0;
+        for (int i = fromX; i <= toX; i++)
+            for (int j = fromY; j <= toY; j++)
+                for (int l = fromZ; l <= toZ; l++) {
+                    int cell = (i * cellsY + j) * cellsZ + l;
+                    for (int e = cellStarts[cell]; e < cellStarts[cell + 1]; e++) {
+                        float distance = distance2(entries[e], x, y, z);
+                        if (distance > radius2) continue;
+                        if (foundNum == found.length) {
+                            found = Arrays.copyOf(found, 2 * foundNum);
+                            distances = Arrays.copyOf(distances, 2 * foundNum);
+                        }
+                        found[foundNum] = entries[e];
+                        distances[foundNum++] = distance;
+                    }
+                }
+
+        int heapSize = 0;
+        for (int i = 0; i < foundNum; i++) heapSize = pushHeap(found, distances, heapSize, found[i], distances[i]);
+        int[] within = new int[foundNum];
+        for (int i = foundNum - 1; i >= 0; i--) {
+            within[i] = found[0];
+            heapSize = popHeap(found, distances, heapSize);
+        }
+        return within;
+    }
+
+    /**
+     * @return true if any point is not farther than the radius, without collecting the points
+     */
+    public boolean isAnyWithinRadius(float x, float y, float z, float radius) {
+        if (!(radius >= 0)) throw new GmxFrameException("Invalid radius: " + radius);
+        float radius2 = radius * radius;
+
+        int fromX = Math.max(0, clamp((int) Math.floor((x - radius - minX) / cellSizeX), cellsX) - 1);
+        int fromY = Math.max(0, clamp((int) Math.floor((y - radius - minY) / cellSizeY), cellsY) - 1);
+        int fromZ = Math.max(0, clamp((int) Math.floor((z - radius - minZ) / cellSizeZ), cellsZ) - 1);
+        int toX = Math.min(cellsX - 1, clamp((int) Math.floor((x + radius - minX) / cellSizeX), cellsX) + 1);
+        int toY = Math.min(cellsY - 1, clamp((int) Math.floor((y + radius - minY) / cellSizeY), cellsY) + 1);
+        int toZ = Math.min(cellsZ - 1, clamp((int) Math.floor((z + radius - minZ) / cellSizeZ), cellsZ) + 1);
+
+        for (int i = fromX; i <= toX; i++)
+            for (int j = fromY; j <= toY; j++)
+                for (int l = fromZ; l <= toZ; l++) {
+                    int cell = (i * cellsY + j) * cellsZ + l;
+                    for (int e = cellStarts[cell]; e < cellStarts[cell + 1]; e++)
+                        if (distance2(entries[e], x, y, z) <= radius2) return true;
+                }
+        return false;
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private long getCellsNum(float extent, double size) {
+        return extent <= 0 ? 1 : Math.max(1, Math.min(Math.round(extent / size), getPointsNum()));
+    }
+
+    private static float getCellSize(float extent, int cellsNum) {
+        return extent <= 0 ? 1.f : extent / cellsNum * (1 + 1e-6f);
+    }
+
+    private int getCell(float x, float y, float z) {
+        int cellX = clamp((int) Math.floor((x - minX) / cellSizeX), cellsX);
+        int cellY = clamp((int) Math.floor((y - minY) / cellSizeY), cellsY);
+        int cellZ = clamp((int) Math.floor((z - minZ) / cellSizeZ), cellsZ);
+        return (cellX * cellsY + cellY) * cellsZ + cellZ;
+    }
+
+    private float distance2(int point, float x, float y, float z) {
+        float deltaX = xyz[3 * point] - x;
+        float deltaY = xyz[3 * point + 1] - y;
+        float deltaZ = xyz[3 * point + 2] - z;
+        return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+    }
+
+    /**
+     * @return lower bound of the distance to points of cells out of the visited block
+     */
+    private float getUnvisitedDistance(float x, float y, float z, int fromX, int toX, int fromY, int toY,
+            int fromZ, int toZ) {
+        float bound = Float.MAX_VALUE;
+        if (fromX > 0) bound = Math.min(bound, x - (minX + fromX * cellSizeX));
+        if (fromY > 0) bound = Math.min(bound, y - (minY + fromY * cellSizeY));
+        if (fromZ > 0) bound = Math.min(bound, z - (minZ + fromZ * cellSizeZ));
+        if (toX < cellsX - 1) bound = Math.min(bound, minX + (toX + 1) * cellSizeX - x);
+        if (toY < cellsY - 1) bound = Math.min(bound, minY + (toY + 1) * cellSizeY - y);
+        if (toZ < cellsZ - 1) bound = Math.min(bound, minZ + (toZ + 1) * cellSizeZ - z);
+        return Math.max(bound - 1e-4f * Math.max(cellSizeX, Math.max(cellSizeY, cellSizeZ)), 0.f);
+    }
+
+    private static int clamp(int cell, int cellsNum) {
+        return cell < 0 ? 0 : cell >= cellsNum ? cellsNum - 1 : cell;
+    }
+
+    private static boolean isCloser(int point1, float distance1, int point2, float distance2) {
+        return distance1 < distance2 || distance1 == distance2 && point1 < point2;
+    }
+
+    // max-heap of points by distance, the farthest point on top
+
+    private static int pushHeap(int[] points, float[] distances, int size, int point, float distance) {
+        int child = size;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!isCloser(points[parent], distances[parent], point, distance)) break;
+            points[child] = points[parent];
+            distances[child] = distances[parent];
+            child = parent;
+        }
+        points[child] = point;
+        distances[child] = distance;
+        return size + 1;
+    }
+
+    private static void replaceHeapTop(int[] points, float[] distances, int size, int point, float distance) {
+        int parent = 0;
+        while (2 * parent + 1 < size) {
+            int child = 2 * parent + 1;
+            if (child + 1 < size && isCloser(points[child], distances[child], points[child + 1], distances[child + 1]))
+                child++;
+            if (!isCloser(point, distance, points[child], distances[child])) break;
+            points[parent] = points[child];
+            distances[parent] = distances[child];
+            parent = child;
+        }
+        points[parent] = point;
+        distances[parent] = distance;
+    }
+
+    private static int popHeap(int[] points, float[] distances, int size) {
+        if (size > 1) replaceHeapTop(points, distances, size - 1, points[size - 1], distances[size - 1]);
+        return size - 1;
+    }
+}
@@ -3,6 +3,7 @@ package com.asemenkov.gromacs.io.config;
 import com.asemenkov.gromacs.io.GmxXtcFileNativeReader;
 import com.asemenkov.gromacs.io.gro.GmxGroFileReader;
 import com.asemenkov.gromacs.io.gro.GmxGroFileWriter;
+import com.asemenkov.gromacs.io.xvg.GmxXvgFileWriter;
 import com.asemenkov.utils.config.PathConfig;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,12 @@ public class GmxIoConfig {
         return new GmxGroFileWriter();
     }
 
+    @Bean
+    @Scope(BeanDefinition.SCOPE_PROTOTYPE)
+    public GmxXvgFileWriter xvgFileWriter() {
+        return new GmxXvgFileWriter();
+    }
+
     @Bean
     public GmxXtcFileNativeReader xtcFileNativeReader() {
         return new GmxXtcFileNativeReader();
@@ -81,7 +81,7 @@ public class GmxGroFileAtomLine {
         toReturn.atomNo = toReturn.residueNo = atom.getAtomNo();
         toReturn.atomAbbreviation = toReturn.residueAbbreviation = atom.getAbbreviation();
         toReturn.coordinates = new float[3];
-        System.arraycopy(atom.getCoordinates(), 0, toReturn.coordinates, 0, 3);
+        atom.getCoordinates(toReturn.coordinates, 0);
         return toReturn;
     }
 
@@ -93,7 +93,7 @@ public class GmxGroFileAtomLine {
             toReturn.atomAbbreviation = atom.getAbbreviation();
             toReturn.residueAbbreviation = residue.getAbbreviation();
             toReturn.coordinates = new float[3];
-            System.arraycopy(atom.getCoordinates(), 0, toReturn.coordinates, 0, 3);
+            atom.getCoordinates(toReturn.coordinates, 0);
             return toReturn;
         }).toArray(GmxGroFileAtomLine[]::new);
     }
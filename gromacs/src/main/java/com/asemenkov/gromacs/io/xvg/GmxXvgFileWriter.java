@@ -0,0 +1,67 @@
+package com.asemenkov.gromacs.io.xvg;
+
+import com.asemenkov.gromacs.io.exceptions.GmxIoException;
+import com.asemenkov.utils.io.FileUtils;
+import com.asemenkov.utils.io.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes data series as .xvg files in the xmgrace format of GROMACS tools.
+ *
+ * @author asemenkov
+ * @since Jun 24, 2019
+ */
+public class GmxXvgFileWriter {
+
+    private static final String EXTENSION = ".xvg";
+    private static final String HEADER_FORMAT = "@    title \"%s\"\n@    xaxis  label \"%s\"\n"
+            + "@    yaxis  label \"%s\"\n@TYPE xy\n";
+    private static final String LEGEND_FORMAT = "@ s%d legend \"%s\"\n";
+
+    /**
+     * @param legends legends of y series
+     * @param x       x values
+     * @param y       y series of the same length as x
+     */
+    public Path writeXvgFile(Path directory, String fileName, String title, String xLabel, String yLabel,
+            String[] legends, double[] x, double[]... y) {
+
+        if (!fileName.endsWith(EXTENSION)) fileName += EXTENSION;
+        if (legends.length != y.length) throw new GmxIoException("Legends number isn't equal to series number.");
+        if (Arrays.stream(y).anyMatch(series -> series.length != x.length)) //
+            throw new GmxIoException("Series length isn't equal to x values length.");
+
+        FileUtils.createDirectoryIfNotExists(directory);
+        Path path = Paths.get(directory.toString(), fileName);
+        BufferedWriter writer = FileUtils.getBufferedWriter(path, true, true);
+        Logger.log("Writing file: " + path);
+        if (writer == null) throw new GmxIoException("Cannot initialize BufferedWriter.");
+
+        try {
+            writer.write(String.format(HEADER_FORMAT, title, xLabel, yLabel));
+            for (int i = 0; i < legends.length; i++) writer.write(String.format(LEGEND_FORMAT, i, legends[i]));
+
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < x.length; i++) {
+                line.setLength(0);
+                line.append(String.format(Locale.US, "%12.4f", x[i]));
+                for (double[] series : y) line.append(String.format(Locale.US, " %12.6g", series[i]));
+                writer.write(line.append('\n').toString());
+            }
+
+        } catch (IOException exception) {
+            throw new GmxIoException(exception);
+        } finally {
+            FileUtils.close(writer);
+        }
+
+        return path;
+    }
+
+}
@@ -1,19 +1,26 @@
 package com.asemenkov.gromacs.particles;
 
+import com.asemenkov.gromacs.particles.exceptions.GmxAtomTypeException;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
 import java.io.Serializable;
 
 /**
+ * Coordinates of an atom are 3 consecutive floats of an array starting at an offset: either a private
+ * array of the atom, or the interleaved coordinates buffer of a frame, see {@link #bindCoordinates}.
+ * A bound atom is a flyweight view: it reads and writes the frame buffer directly, so refilling
+ * or swapping the buffer moves all atoms and residues of the frame without any allocation.
+ *
  * @author asemenkov
  * @since Apr 9, 2018
  */
-public abstract class GmxAtom implements Serializable {
+public abstract class GmxAtom implements Serializable, Cloneable {
 
     private static final long serialVersionUID = 5526554742772127782L;
     private float[] xyz;
-    private double radiusVector = -1;
+    private int offset;
+    private boolean coordinatesView;
     private final String fullName;
     private String abbreviation;
     private int atomNo;
@@ -43,25 +50,43 @@ public abstract class GmxAtom implements Serializable {
     }
 
     public double getRadiusVector() {
-        if (radiusVector == -1) //
-            radiusVector = Math.sqrt(xyz[0] * xyz[0] + xyz[1] * xyz[1] + xyz[2] * xyz[2]);
-        return radiusVector;
+        float x = getCoordinateX(), y = getCoordinateY(), z = getCoordinateZ();
+        return Math.sqrt(x * x + y * y + z * z);
     }
 
+    /**
+     * @return x, y, z: the private array of this atom, or a copy if the atom is a view of a shared buffer;
+     * use coordinate getters or {@link #getCoordinates(float[], int)} in loops
+     */
     public float[] getCoordinates() {
-        return xyz;
+        return coordinatesView ? copyCoordinates() : xyz;
+    }
+
+    /**
+     * @param destination array to copy x, y, z to
+     * @param position    index of x in the destination
+     */
+    public void getCoordinates(float[] destination, int position) {
+        System.arraycopy(xyz, offset, destination, position, 3);
     }
 
     public float getCoordinateX() {
-        return xyz[0];
+        return xyz[offset];
     }
 
     public float getCoordinateY() {
-        return xyz[1];
+        return xyz[offset + 1];
     }
 
     public float getCoordinateZ() {
-        return xyz[2];
+        return xyz[offset + 2];
+    }
+
+    /**
+     * @return true if coordinates are read from a shared buffer rather than a private array
+     */
+    public boolean isCoordinatesView() {
+        return coordinatesView;
     }
 
     // ======== SETTERS ========
@@ -76,24 +101,84 @@ public abstract class GmxAtom implements Serializable {
 
     public void setCoordinates(float[] xyz) {
         if (xyz == null) return;
-        this.radiusVector = -1;
         if (this.xyz == null) this.xyz = new float[3];
-        System.arraycopy(xyz, 0, this.xyz, 0, 3);
+        System.arraycopy(xyz, 0, this.xyz, offset, 3);
+    }
+
+    /**
+     * @param source   array to copy x, y, z from
+     * @param position index of x in the source
+     */
+    public void setCoordinates(float[] source, int position) {
+        if (this.xyz == null) this.xyz = new float[3];
+        System.arraycopy(source, position, this.xyz, offset, 3);
     }
 
     public void setCoordinateY(float y) {
-        this.radiusVector = -1;
-        this.xyz[1] = y;
+        this.xyz[offset + 1] = y;
     }
 
     public void setCoordinateX(float x) {
-        this.radiusVector = -1;
-        this.xyz[0] = x;
+        this.xyz[offset] = x;
     }
 
     public void setCoordinateZ(float z) {
-        this.radiusVector = -1;
-        this.xyz[2] = z;
+        this.xyz[offset + 2] = z;
+    }
+
+    /**
+     * Makes this atom a view of the interleaved buffer x0, y0, z0, x1, ... Current coordinates are
+     * not copied: the atom takes the coordinates the buffer holds at its index.
+     *
+     * @param buffer    interleaved coordinates, usually of {@code GmxFrameCoordinates}
+     * @param atomIndex index of this atom in the buffer
+     */
+    public void bindCoordinates(float[] buffer, int atomIndex) {
+        this.xyz = buffer;
+        this.offset = 3 * atomIndex;
+        this.coordinatesView = true;
+    }
+
+    /**
+     * Detaches this atom from a shared buffer, copying its current coordinates to a private array.
+     */
+    public void unbindCoordinates() {
+        if (!isCoordinatesView()) return;
+        this.xyz = copyCoordinates();
+        this.offset = 0;
+        this.coordinatesView = false;
+    }
+
+    /**
+     * @return shallow copy of this atom with a private copy of its coordinates, not a view
+     */
+    public GmxAtom copy() {
+        try {
+            GmxAtom atom = (GmxAtom) super.clone();
+            atom.xyz = copyCoordinates();
+            atom.offset = 0;
+            atom.coordinatesView = false;
+            return atom;
+        } catch (CloneNotSupportedException e) {
+            throw new GmxAtomTypeException(e);
+        }
+    }
+
+    /**
+     * @return shallow copy of this atom as a view of the buffer, with no private coordinates array
+     */
+    public GmxAtom copy(float[] buffer, int atomIndex) {
+        try {
+            GmxAtom atom = (GmxAtom) super.clone();
+            atom.bindCoordinates(buffer, atomIndex);
+            return atom;
+        } catch (CloneNotSupportedException e) {
+            throw new GmxAtomTypeException(e);
+        }
+    }
+
+    private float[] copyCoordinates() {
+        return xyz == null ? null : new float[] { getCoordinateX(), getCoordinateY(), getCoordinateZ() };
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.asemenkov.gromacs.particles;
 
 import com.asemenkov.gromacs.particles.exceptions.GmxAtomTypeException;
+import com.asemenkov.gromacs.particles.exceptions.GmxResidueTypeException;
 import com.asemenkov.gromacs.particles.utils.GmxAnglePredicate;
 import com.asemenkov.gromacs.particles.utils.GmxAtomUtils;
 import com.asemenkov.utils.io.Logger;
@@ -16,7 +17,7 @@ import java.util.Comparator;
  * @author asemenkov
  * @since Apr 9, 2018
  */
-public abstract class GmxResidue implements Serializable {
+public abstract class GmxResidue implements Serializable, Cloneable {
 
     private static final long serialVersionUID = 31417100405541690L;
     private final String abbreviation;
@@ -115,6 +116,23 @@ public abstract class GmxResidue implements Serializable {
         this.acceptorField = acceptorField;
     }
 
+    // ======== COPYING ========
+
+    /**
+     * Copies this residue keeping its reflection metadata and wires the copy to the provided atoms.
+     *
+     * @param atoms copies of {@link #getAllAtoms()}, in the same order
+     */
+    public GmxResidue copy(GmxAtom... atoms) {
+        try {
+            GmxResidue residue = (GmxResidue) super.clone();
+            residue.setAllAtoms(atoms);
+            return residue;
+        } catch (CloneNotSupportedException e) {
+            throw new GmxResidueTypeException(e);
+        }
+    }
+
     // ======== SUPPORT METHODS ========
 
     private void determineAllAtoms() throws IllegalArgumentException, IllegalAccessException {
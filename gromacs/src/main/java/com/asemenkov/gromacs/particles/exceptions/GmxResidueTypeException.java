@@ -0,0 +1,26 @@
+package com.asemenkov.gromacs.particles.exceptions;
+
+/**
+ * @author asemenkov
+ * @since Oct 28, 2019
+ */
+public class GmxResidueTypeException extends RuntimeException {
+
+    private static final long serialVersionUID = 6127733059152468813L;
+
+    public GmxResidueTypeException() {
+    }
+
+    public GmxResidueTypeException(String message) {
+        super(message);
+    }
+
+    public GmxResidueTypeException(Throwable throwable) {
+        super(throwable);
+    }
+
+    public GmxResidueTypeException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+
+}
@@ -32,8 +32,34 @@ public class GmxAnglePredicate {
         this.precision = precision;
     }
 
+    /**
+     * |cos - expectedCos| &lt; precision compared in squared space, so no square roots are computed
+     */
     public boolean isAngleAsExpected() {
-        return Math.abs(GmxAtomUtils.angleCosine(vertex, left, right) - expectedCos) < precision;
+        double deltaX1 = left.getCoordinateX() - vertex.getCoordinateX();
+        double deltaY1 = left.getCoordinateY() - vertex.getCoordinateY();
+        double deltaZ1 = left.getCoordinateZ() - vertex.getCoordinateZ();
+        double deltaX2 = right.getCoordinateX() - vertex.getCoordinateX();
+        double deltaY2 = right.getCoordinateY() - vertex.getCoordinateY();
+        double deltaZ2 = right.getCoordinateZ() - vertex.getCoordinateZ();
+
+        double dot = deltaX1 * deltaX2 + deltaY1 * deltaY2 + deltaZ1 * deltaZ2;
+        double lengths2 = (deltaX1 * deltaX1 + deltaY1 * deltaY1 + deltaZ1 * deltaZ1) //
+                * (deltaX2 * deltaX2 + deltaY2 * deltaY2 + deltaZ2 * deltaZ2);
+        if (lengths2 == 0) return false;
+
+        return isCosineGreater(dot, lengths2, expectedCos - precision) //
+                && isCosineLess(dot, lengths2, expectedCos + precision);
+    }
+
+    private static boolean isCosineGreater(double dot, double lengths2, double cos) {
+        if (cos >= 0) return dot > 0 && dot * dot > cos * cos * lengths2;
+        return dot >= 0 || dot * dot < cos * cos * lengths2;
+    }
+
+    private static boolean isCosineLess(double dot, double lengths2, double cos) {
+        if (cos > 0) return dot <= 0 || dot * dot < cos * cos * lengths2;
+        return dot < 0 && dot * dot > cos * cos * lengths2;
     }
 
 }
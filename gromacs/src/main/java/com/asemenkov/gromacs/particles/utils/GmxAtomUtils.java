@@ -58,7 +58,10 @@ public class GmxAtomUtils {
     }
 
     public static double euclideanDistance(GmxAtom atom1, GmxAtom atom2) {
-        return euclideanDistance(atom1.getCoordinates(), atom2.getCoordinates());
+        float deltaX = atom1.getCoordinateX() - atom2.getCoordinateX();
+        float deltaY = atom1.getCoordinateY() - atom2.getCoordinateY();
+        float deltaZ = atom1.getCoordinateZ() - atom2.getCoordinateZ();
+        return Math.sqrt(deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ);
     }
 
     // ======== ANGLES ========
@@ -80,7 +83,19 @@ public class GmxAtomUtils {
     }
 
     public static double angleCosine(GmxAtom vertex, GmxAtom left, GmxAtom right) {
-        return angleCosine(vertex.getCoordinates(), left.getCoordinates(), right.getCoordinates());
+        float deltaX1 = left.getCoordinateX() - vertex.getCoordinateX();
+        float deltaY1 = left.getCoordinateY() - vertex.getCoordinateY();
+        float deltaZ1 = left.getCoordinateZ() - vertex.getCoordinateZ();
+
+        float deltaX2 = right.getCoordinateX() - vertex.getCoordinateX();
+        float deltaY2 = right.getCoordinateY() - vertex.getCoordinateY();
+        float deltaZ2 = right.getCoordinateZ() - vertex.getCoordinateZ();
+
+        double numeratorF = deltaX1 * deltaX2 + deltaY1 * deltaY2 + deltaZ1 * deltaZ2;
+        double disToAtom1 = Math.sqrt(deltaX1 * deltaX1 + deltaY1 * deltaY1 + deltaZ1 * deltaZ1);
+        double disToAtom2 = Math.sqrt(deltaX2 * deltaX2 + deltaY2 * deltaY2 + deltaZ2 * deltaZ2);
+
+        return numeratorF / (disToAtom1 * disToAtom2);
     }
 
     public static double angleCosine(GmxAtom vertex, GmxAtom left, GmxAtom right, double leftDist,
@@ -9,10 +9,13 @@ import org.springframework.beans.factory.config.BeanDefinition;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author asemenkov
@@ -26,6 +29,7 @@ public class GmxResidueReflectionData {
     private final Map<Class<? extends GmxResidue>, Field> residueAcceptorMap = new HashMap<>();
     private final Map<Class<? extends GmxResidue>, Field> residuePivotMap = new HashMap<>();
     private final Map<Class<? extends GmxResidue>, float[][]> residuePivotDeltasMap = new HashMap<>();
+    private final Map<Class<? extends GmxResidue>, int[]> residueDonorsHeavyAtomsMap = new HashMap<>();
 
     public GmxResidueReflectionData(Set<BeanDefinition> residueBeanDefinitions) {
         if (residueBeanDefinitions == null || residueBeanDefinitions.isEmpty()) //
@@ -37,6 +41,7 @@ public class GmxResidueReflectionData {
         initResidueAcceptorMap();
         initResiduePivotMap();
         initResiduePivotDeltasMap();
+        initResidueDonorsHeavyAtomsMap();
 
         Logger.log("residueClassesMap:");
         residueClassesMap.entrySet().forEach(Logger::log);
@@ -61,6 +66,7 @@ public class GmxResidueReflectionData {
         validateResidueDonorAndAcceptorInterception();
         validateResiduePivotMap();
         validateResiduePivotDeltasMap();
+        validateResidueDonorsHeavyAtomsMap();
     }
 
     // ======== INTERFACE ========
@@ -101,6 +107,14 @@ public class GmxResidueReflectionData {
         return residuePivotDeltasMap.get(residueClass);
     }
 
+    /**
+     * @return for every @Donor field (in order of {@link #getResidueDonorsFields}) the index of
+     * the closest non-donor @ResidueAtom field, i.e. the heavy atom the hydrogen is bonded to
+     */
+    public int[] getResidueDonorsHeavyAtoms(Class<? extends GmxResidue> residueClass) {
+        return residueDonorsHeavyAtomsMap.get(residueClass);
+    }
+
     // ======== INITIALIZATION ========
 
     private void initResidueClassesMap(Set<BeanDefinition> beans) {
@@ -166,6 +180,23 @@ public class GmxResidueReflectionData {
                         }).toArray(float[][]::new)));
     }
 
+    private void initResidueDonorsHeavyAtomsMap() {
+        residueClassesMap.values().forEach(clas -> {
+            List<Field> atoms = Arrays.asList(residueAtomsMap.get(clas));
+            List<Field> donors = Arrays.asList(residueDonorsMap.get(clas));
+            float[][] deltas = residuePivotDeltasMap.get(clas);
+
+            residueDonorsHeavyAtomsMap.put(clas, donors.stream().mapToInt(donor -> {
+                float[] donorDelta = deltas[atoms.indexOf(donor)];
+                return IntStream.range(0, atoms.size()) //
+                        .filter(i -> !donors.contains(atoms.get(i))) //
+                        .boxed().min(Comparator.comparingDouble(i -> //
+                                GmxAtomUtils.euclideanDistance(deltas[i], donorDelta))) //
+                        .orElse(-1);
+            }).toArray());
+        });
+    }
+
     // ======== VALIDATIONS ========
 
     private void validateResidueAtomsMap() {
@@ -233,4 +264,15 @@ public class GmxResidueReflectionData {
                 "Wrong num of @PivotDelta in classes: " + //
                         errorClasses.stream().map(Class::getSimpleName).collect(Collectors.joining(", ")));
     }
+
+    private void validateResidueDonorsHeavyAtomsMap() {
+        Set<Class<? extends GmxResidue>> errorClasses = residueDonorsHeavyAtomsMap.entrySet().stream() //
+                .filter(entry -> Arrays.stream(entry.getValue()).anyMatch(index -> index < 0)) //
+                .map(Map.Entry::getKey) //
+                .collect(Collectors.toSet());
+
+        if (!errorClasses.isEmpty()) throw new GmxAnnotationException(
+                "@Donor needs a non-donor @ResidueAtom to be bonded to: " + //
+                        errorClasses.stream().map(Class::getSimpleName).collect(Collectors.joining(", ")));
+    }
 }
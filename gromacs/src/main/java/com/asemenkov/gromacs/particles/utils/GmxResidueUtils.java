@@ -5,6 +5,7 @@ import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.utils.io.Logger;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -58,32 +59,37 @@ public class GmxResidueUtils {
 
     public static void moveTo(float[] xyz, GmxResidue... residues) {
         Stream.of(residues).parallel().forEach(residue -> {
-            float[] pivotXYZ = residue.getPivotAtom().getCoordinates();
-            float deltaX = xyz[0] - pivotXYZ[0];
-            float deltaY = xyz[1] - pivotXYZ[1];
-            float deltaZ = xyz[2] - pivotXYZ[2];
+            GmxAtom pivot = residue.getPivotAtom();
+            float deltaX = xyz[0] - pivot.getCoordinateX();
+            float deltaY = xyz[1] - pivot.getCoordinateY();
+            float deltaZ = xyz[2] - pivot.getCoordinateZ();
             GmxAtomUtils.shift(deltaX, deltaY, deltaZ, residue.getAllAtoms());
         });
     }
 
+    /**
+     * Rotates residues around their pivot atoms: around X, then around Y, then around Z, angles in radians.
+     */
     public static void rotate(double degreeX, double degreeY, double degreeZ, GmxResidue... residues) {
-        Stream.of(residues).parallel().forEach(residue -> //
-                Arrays.stream(residue.getAllAtoms()) //
-                        .filter(atom -> atom != residue.getPivotAtom()) //
-                        .forEach(atom -> {
-                            float[] xyz = new float[3];
-                            GmxAtom pivotAtom = residue.getPivotAtom();
-                            xyz[0] = atom.getCoordinateX() - pivotAtom.getCoordinateX();
-                            xyz[1] = atom.getCoordinateY() - pivotAtom.getCoordinateY();
-                            xyz[2] = atom.getCoordinateZ() - pivotAtom.getCoordinateZ();
-                            if (degreeX != 0) xyz = rotateAroundX(xyz, degreeX);
-                            if (degreeY != 0) xyz = rotateAroundY(xyz, degreeY);
-                            if (degreeZ != 0) xyz = rotateAroundZ(xyz, degreeZ);
-                            xyz[0] += pivotAtom.getCoordinateX();
-                            xyz[1] += pivotAtom.getCoordinateY();
-                            xyz[2] += pivotAtom.getCoordinateZ();
-                            atom.setCoordinates(xyz);
-                        }));
+        rotate(GmxRotation.ofAngles(degreeX, degreeY, degreeZ), residues);
+    }
+
+    public static void rotate(GmxRotation rotation, GmxResidue... residues) {
+        Stream.of(residues).parallel().forEach(residue -> rotate(rotation, residue));
+    }
+
+    /**
+     * Rotates every residue by its own matrix, residues[i] by matrices[9 * i] .. matrices[9 * i + 8],
+     * loaded into one rotation per thread.
+     *
+     * @param matrices row-major matrices, as of {@link GmxRotation#getMatrix(float[], int)}
+     */
+    public static void rotate(float[] matrices, GmxResidue... residues) {
+        if (matrices.length != 9 * residues.length)
+            throw new IllegalArgumentException("Rotation matrices and residues numbers differ");
+        ThreadLocal<GmxRotation> rotation = ThreadLocal.withInitial(GmxRotation::new);
+        IntStream.range(0, residues.length).parallel() //
+                .forEach(i -> rotate(rotation.get().setMatrix(matrices, 9 * i), residues[i]));
     }
 
     public static boolean rotateWhile(GmxResidue residue, GmxAnglePredicate... predicates) {
@@ -102,33 +108,12 @@ public class GmxResidueUtils {
 
     // ======== SUPPORT METHODS ========
 
-    private static float[] rotateAroundX(float[] xyz, double degreeAboutX) {
-        float sinDegreeAboutX = (float) Math.sin(degreeAboutX);
-        float cosDegreeAboutX = (float) Math.cos(degreeAboutX);
-        float[] toReturn = new float[3];
-        toReturn[0] = xyz[0];
-        toReturn[1] = xyz[1] * cosDegreeAboutX - xyz[2] * sinDegreeAboutX;
-        toReturn[2] = xyz[1] * sinDegreeAboutX + xyz[2] * cosDegreeAboutX;
-        return toReturn;
-    }
-
-    private static float[] rotateAroundY(float[] xyz, double degreeAboutY) {
-        float sinDegreeAboutY = (float) Math.sin(degreeAboutY);
-        float cosDegreeAboutY = (float) Math.cos(degreeAboutY);
-        float[] toReturn = new float[3];
-        toReturn[0] = xyz[0] * cosDegreeAboutY + xyz[2] * sinDegreeAboutY;
-        toReturn[1] = xyz[1];
-        toReturn[2] = xyz[2] * cosDegreeAboutY - xyz[0] * sinDegreeAboutY;
-        return toReturn;
-    }
-
-    private static float[] rotateAroundZ(float[] xyz, double degreeAboutZ) {
-        float sinDegreeAboutZ = (float) Math.sin(degreeAboutZ);
-        float cosDegreeAboutZ = (float) Math.cos(degreeAboutZ);
-        float[] toReturn = new float[3];
-        toReturn[0] = xyz[0] * cosDegreeAboutZ - xyz[1] * sinDegreeAboutZ;
-        toReturn[1] = xyz[0] * sinDegreeAboutZ + xyz[1] * cosDegreeAboutZ;
-        toReturn[2] = xyz[2];
-        return toReturn;
+    private static void rotate(GmxRotation rotation, GmxResidue residue) {
+        GmxAtom pivotAtom = residue.getPivotAtom();
+        float pivotX = pivotAtom.getCoordinateX();
+        float pivotY = pivotAtom.getCoordinateY();
+        float pivotZ = pivotAtom.getCoordinateZ();
+        for (GmxAtom atom : residue.getAllAtoms())
+            if (atom != pivotAtom) rotation.apply(atom, pivotX, pivotY, pivotZ);
     }
 }
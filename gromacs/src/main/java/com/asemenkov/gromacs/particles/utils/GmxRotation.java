@@ -0,0 +1,191 @@
+package com.asemenkov.gromacs.particles.utils;
+
+import com.asemenkov.gromacs.particles.GmxAtom;
+
+import java.util.Random;
+
+/**
+ * Rotation as a 3x3 matrix, computed once and applied in place to interleaved coordinates
+ * x0, y0, z0, x1, ... around a pivot point. Setters reuse the instance, so a loop over residues
+ * with a different rotation each allocates nothing. Not thread-safe while being set.
+ *
+ * @author asemenkov
+ * @since Oct 21, 2019
+ */
+public final class GmxRotation {
+
+    private float m00 = 1.f, m01, m02;
+    private float m10, m11 = 1.f, m12;
+    private float m20, m21, m22 = 1.f;
+
+    // ======== FACTORIES ========
+
+    /**
+     * @return rotation around X, then around Y, then around Z, angles in radians
+     */
+    public static GmxRotation ofAngles(double aboutX, double aboutY, double aboutZ) {
+        return new GmxRotation().setAngles(aboutX, aboutY, aboutZ);
+    }
+
+    public static GmxRotation ofQuaternion(double w, double x, double y, double z) {
+        return new GmxRotation().setQuaternion(w, x, y, z);
+    }
+
+    public static GmxRotation ofRandom(Random random) {
+        return new GmxRotation().setRandom(random);
+    }
+
+    // ======== SETTERS ========
+
+    public GmxRotation setIdentity() {
+        m00 = m11 = m22 = 1.f;
+        m01 = m02 = m10 = m12 = m20 = m21 = 0.f;
+        return this;
+    }
+
+    /**
+     * Elements are composed from float sines and cosines, so rotation around a single axis gives
+     * exactly the same coordinates as the plain 2D rotation formulas.
+     */
+    public GmxRotation setAngles(double aboutX, double aboutY, double aboutZ) {
+        float sinX = (float) Math.sin(aboutX), cosX = (float) Math.cos(aboutX);
+        float sinY = (float) Math.sin(aboutY), cosY = (float) Math.cos(aboutY);
+        float sinZ = (float) Math.sin(aboutZ), cosZ = (float) Math.cos(aboutZ);
+
+        m00 = cosZ * cosY;
+        m01 = cosZ * sinY * sinX - sinZ * cosX;
+        m02 = cosZ * sinY * cosX + sinZ * sinX;
+        m10 = sinZ * cosY;
+        m11 = sinZ * sinY * sinX + cosZ * cosX;
+        m12 = sinZ * sinY * cosX - cosZ * sinX;
+        m20 = -sinY;
+        m21 = cosY * sinX;
+        m22 = cosY * cosX;
+        return this;
+    }
+
+    /**
+     * @param w scalar part; the quaternion is normalized
+     */
+    public GmxRotation setQuaternion(double w, double x, double y, double z) {
+        double norm = Math.sqrt(w * w + x * x + y * y + z * z);
+        if (!(norm > 0) || Double.isInfinite(norm))
+            throw new IllegalArgumentException("Invalid quaternion norm " + norm);
+        w /= norm;
+        x /= norm;
+        y /= norm;
+        z /= norm;
+
+        m00 = (float) (1 - 2 * (y * y + z * z));
+        m01 = (float) (2 * (x * y - z * w));
+        m02 = (float) (2 * (x * z + y * w));
+        m10 = (float) (2 * (x * y + z * w));
+        m11 = (float) (1 - 2 * (x * x + z * z));
+        m12 = (float) (2 * (y * z - x * w));
+        m20 = (float) (2 * (x * z - y * w));
+        m21 = (float) (2 * (y * z + x * w));
+        m22 = (float) (1 - 2 * (x * x + y * y));
+        return this;
+    }
+
+    /**
+     * @param matrices row-major matrices, 9 elements each, as of {@link #getMatrix(float[], int)}
+     * @param offset   index of the first element of the matrix
+     */
+    public GmxRotation setMatrix(float[] matrices, int offset) {
+        m00 = matrices[offset];
+        m01 = matrices[offset + 1];
+        m02 = matrices[offset + 2];
+        m10 = matrices[offset + 3];
+        m11 = matrices[offset + 4];
+        m12 = matrices[offset + 5];
+        m20 = matrices[offset + 6];
+        m21 = matrices[offset + 7];
+        m22 = matrices[offset + 8];
+        return this;
+    }
+
+    /**
+     * Uniformly distributed rotation, from a random unit quaternion.
+     */
+    public GmxRotation setRandom(Random random) {
+        double u1 = random.nextDouble(), u2 = 2 * Math.PI * random.nextDouble();
+        double u3 = 2 * Math.PI * random.nextDouble();
+        double a = Math.sqrt(1 - u1), b = Math.sqrt(u1);
+        return setQuaternion(b * Math.cos(u3), a * Math.sin(u2), a * Math.cos(u2), b * Math.sin(u3));
+    }
+
+    // ======== KERNELS ========
+
+    /**
+     * Writes coordinates of one atom as the pivot point plus the rotated pivot delta.
+     */
+    public void place(float[] xyz, int atom, float pivotX, float pivotY, float pivotZ, float[] pivotDelta) {
+        int i = 3 * atom;
+        float x = pivotDelta[0], y = pivotDelta[1], z = pivotDelta[2];
+        xyz[i] = pivotX + (m00 * x + m01 * y + m02 * z);
+        xyz[i + 1] = pivotY + (m10 * x + m11 * y + m12 * z);
+        xyz[i + 2] = pivotZ + (m20 * x + m21 * y + m22 * z);
+    }
+
+    /**
+     * Rotates one atom of the interleaved coordinates around the pivot point.
+     */
+    public void apply(float[] xyz, int atom, float pivotX, float pivotY, float pivotZ) {
+        int i = 3 * atom;
+        float x = xyz[i] - pivotX, y = xyz[i + 1] - pivotY, z = xyz[i + 2] - pivotZ;
+        xyz[i] = pivotX + (m00 * x + m01 * y + m02 * z);
+        xyz[i + 1] = pivotY + (m10 * x + m11 * y + m12 * z);
+        xyz[i + 2] = pivotZ + (m20 * x + m21 * y + m22 * z);
+    }
+
+    /**
+     * Rotates atoms fromAtom .. toAtom - 1 of the interleaved coordinates around the pivot point.
+     */
+    public void apply(float[] xyz, int fromAtom, int toAtom, float pivotX, float pivotY, float pivotZ) {
+        for (int atom = fromAtom; atom < toAtom; atom++) apply(xyz, atom, pivotX, pivotY, pivotZ);
+    }
+
+    /**
+     * Rotates atoms fromAtom .. toAtom - 1 of the interleaved coordinates around one of them.
+     */
+    public void apply(float[] xyz, int fromAtom, int toAtom, int pivotAtom) {
+        apply(xyz, fromAtom, toAtom, xyz[3 * pivotAtom], xyz[3 * pivotAtom + 1], xyz[3 * pivotAtom + 2]);
+    }
+
+    /**
+     * Rotates the atom around the pivot point, in place.
+     */
+    public void apply(GmxAtom atom, float pivotX, float pivotY, float pivotZ) {
+        float x = atom.getCoordinateX() - pivotX;
+        float y = atom.getCoordinateY() - pivotY;
+        float z = atom.getCoordinateZ() - pivotZ;
+        atom.setCoordinateX(pivotX + (m00 * x + m01 * y + m02 * z));
+        atom.setCoordinateY(pivotY + (m10 * x + m11 * y + m12 * z));
+        atom.setCoordinateZ(pivotZ + (m20 * x + m21 * y + m22 * z));
+    }
+
+    // ======== GETTERS ========
+
+    /**
+     * @return row-major elements of the matrix
+     */
+    public float[] getMatrix() {
+        return new float[] { m00, m01, m02, m10, m11, m12, m20, m21, m22 };
+    }
+
+    /**
+     * Puts row-major elements of the matrix into matrices[offset] .. matrices[offset + 8]
+     */
+    public void getMatrix(float[] matrices, int offset) {
+        matrices[offset] = m00;
+        matrices[offset + 1] = m01;
+        matrices[offset + 2] = m02;
+        matrices[offset + 3] = m10;
+        matrices[offset + 4] = m11;
+        matrices[offset + 5] = m12;
+        matrices[offset + 6] = m20;
+        matrices[offset + 7] = m21;
+        matrices[offset + 8] = m22;
+    }
+}
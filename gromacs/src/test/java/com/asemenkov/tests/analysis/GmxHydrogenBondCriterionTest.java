@@ -0,0 +1,115 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondCriterion;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondCriterion.Angle;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondCriterion.Distance;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBonds;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Jul 15, 2019
+ */
+@Test
+public class GmxHydrogenBondCriterionTest extends GmxAbstractTest {
+
+    private static final float[] WATER_BOX = new float[] { 3.f, 3.f, 3.f };
+
+    @Test
+    public void testCriterionKernel() {
+        GmxHydrogenBondCriterion gmx = GmxHydrogenBondCriterion.gmx();
+        Assert.assertTrue(gmx.test(0.1f, 0, 0, 0.01f, 0.28f, 0.05f, 0, 0.0809f), "Linear bond is rejected.");
+        Assert.assertFalse(gmx.test(0.1f, 0, 0, 0.01f, 0, 0.28f, 0, 0.0784f), "Perpendicular bond is accepted.");
+        Assert.assertFalse(gmx.test(0.1f, 0, 0, 0.01f, 0.36f, 0, 0, 0.1296f), "Long bond is accepted.");
+
+        GmxHydrogenBondCriterion dha = GmxHydrogenBondCriterion.donorHydrogenAcceptor(0.25f, 150);
+        Assert.assertTrue(dha.test(0.1f, 0, 0, 0.01f, 0.28f, 0, 0, 0.0784f), "Linear bond is rejected.");
+        Assert.assertFalse(dha.test(0.1f, 0, 0, 0.01f, 0.2f, 0.1f, 0, 0.05f), "Bent bond is accepted.");
+        Assert.assertFalse(dha.test(0.1f, 0, 0, 0.01f, 0.36f, 0, 0, 0.1296f), "Long bond is accepted.");
+    }
+
+    @Test
+    public void testDetectionAgainstBruteForce() {
+        GmxFrame frame = createWaterFrame(1000, WATER_BOX, 42);
+        GmxHydrogenBondCriterion[] criteria = new GmxHydrogenBondCriterion[] { //
+                GmxHydrogenBondCriterion.donorAcceptorDistance(0.3f), //
+                GmxHydrogenBondCriterion.hydrogenAcceptorDistance(0.25f), //
+                GmxHydrogenBondCriterion.donorHydrogenAcceptor(0.25f, 130), //
+                GmxHydrogenBondCriterion.of(Distance.DONOR_ACCEPTOR, 0.35f, Angle.DONOR_HYDROGEN_ACCEPTOR, 120), //
+                GmxHydrogenBondCriterion.of(Distance.HYDROGEN_ACCEPTOR, 0.3f, Angle.HYDROGEN_DONOR_ACCEPTOR, 40) };
+
+        for (GmxHydrogenBondCriterion criterion : criteria) {
+            GmxHydrogenBonds bonds = hydrogenBondDetector().withCriterion(criterion).detect(frame);
+            Set<Long> actual = new HashSet<>();
+            IntStream.range(0, bonds.getSize()).forEach(i -> actual.add( //
+                    (long) bonds.getHydrogenAtomNo(i) << 32 | bonds.getAcceptorAtomNo(i)));
+
+            Set<Long> expected = detectBruteForce(frame, criterion);
+            Assert.assertTrue(expected.size() > 100, "Too few hydrogen bonds to compare: " + criterion);
+            Assert.assertEquals(actual, expected, "Detection differs from brute force: " + criterion);
+        }
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "Invalid angle .*")
+    public void testInvalidAngleCutoff() {
+        GmxHydrogenBondCriterion.gmx().withAngleCutoff(190);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private Set<Long> detectBruteForce(GmxFrame frame, GmxHydrogenBondCriterion criterion) {
+        Set<Long> bonds = new HashSet<>();
+        GmxPbcBox box = GmxPbcBox.of(frame.getBox());
+        for (GmxResidue donorResidue : frame.getResidues()) {
+            GmxAtom donor = donorResidue.getAcceptorAtom();
+            for (GmxAtom hydrogen : donorResidue.getDonorAtoms()) {
+                for (GmxResidue acceptorResidue : frame.getResidues()) {
+                    GmxAtom acceptor = acceptorResidue.getAcceptorAtom();
+                    if (acceptor == donor) continue;
+
+                    float[] dh = new float[3];
+                    float[] da = new float[3];
+                    box.displacement(donor.getCoordinates(), hydrogen.getCoordinates(), dh);
+                    box.displacement(donor.getCoordinates(), acceptor.getCoordinates(), da);
+                    float[] ha = new float[] { da[0] - dh[0], da[1] - dh[1], da[2] - dh[2] };
+
+                    double distance = criterion.getDistance() == Distance.DONOR_ACCEPTOR ? length(da) : length(ha);
+                    if (distance > criterion.getDistanceCutoff()) continue;
+
+                    double angle = 0;
+                    if (criterion.getAngle() == Angle.HYDROGEN_DONOR_ACCEPTOR)
+                        angle = Math.toDegrees(Math.acos(dot(dh, da) / (length(dh) * length(da))));
+                    if (criterion.getAngle() == Angle.DONOR_HYDROGEN_ACCEPTOR)
+                        angle = 180 - Math.toDegrees(Math.acos(dot(dh, ha) / (length(dh) * length(ha))));
+
+                    if (criterion.getAngle() == Angle.NONE //
+                            || criterion.getAngle() == Angle.HYDROGEN_DONOR_ACCEPTOR //
+                                    && angle <= criterion.getAngleCutoff() //
+                            || criterion.getAngle() == Angle.DONOR_HYDROGEN_ACCEPTOR //
+                                    && angle >= criterion.getAngleCutoff())
+                        bonds.add((long) hydrogen.getAtomNo() << 32 | acceptor.getAtomNo());
+                }
+            }
+        }
+        return bonds;
+    }
+
+    private static double dot(float[] vector1, float[] vector2) {
+        return vector1[0] * vector2[0] + vector1[1] * vector2[1] + vector1[2] * vector2[2];
+    }
+
+    private static double length(float[] vector) {
+        return Math.sqrt(dot(vector, vector));
+    }
+}
@@ -0,0 +1,147 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSites;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBonds;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.particles.residues.GmxResidueH2O;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Jun 03, 2019
+ */
+@Test
+public class GmxHydrogenBondDetectorTest extends GmxAbstractTest {
+
+    private static final float[] WATER_BOX = new float[] { 3.f, 3.f, 3.f };
+    private static final String REGEX_INVALID_BOX = "Invalid box: .*";
+
+    @Test
+    public void testSitesFromFrame() {
+        GmxFrame frame = createWaterFrame(10, WATER_BOX, 1);
+        GmxHydrogenBondSites sites = hydrogenBondSitesFromFrameBuilder().withFrame(frame).build();
+
+        Assert.assertEquals(sites.getDonorsNum(), 20, "Wrong number of donors.");
+        Assert.assertEquals(sites.getAcceptorsNum(), 10, "Wrong number of acceptors.");
+
+        GmxResidue water = frame.getResidues()[3];
+        Assert.assertEquals(sites.getDonorAtoms()[6], water.getAcceptorAtom().getAtomNo(), "Wrong donor atom.");
+        Assert.assertEquals(sites.getHydrogenAtoms()[6], water.getDonorAtoms()[0].getAtomNo(), "Wrong hydrogen.");
+        Assert.assertEquals(sites.getDonorResidues()[7], water.getResidueNo(), "Wrong donor residue.");
+        Assert.assertEquals(sites.getAcceptorAtoms()[3], water.getAcceptorAtom().getAtomNo(), "Wrong acceptor.");
+    }
+
+    @Test
+    public void testWaterDimer() {
+        GmxFrame frame = createWaterDimer(new float[] { 1.f, 1.f, 1.f }, WATER_BOX);
+        GmxHydrogenBonds bonds = hydrogenBondDetector().detect(frame);
+
+        Assert.assertEquals(bonds.getSize(), 1, "Wrong number of hydrogen bonds.");
+        Assert.assertEquals(bonds.getDonorAtomNo(0), 0, "Wrong donor atom.");
+        Assert.assertEquals(bonds.getHydrogenAtomNo(0), 1, "Wrong hydrogen atom.");
+        Assert.assertEquals(bonds.getAcceptorAtomNo(0), 3, "Wrong acceptor atom.");
+        Assert.assertEquals(bonds.getFrameNo(), 1, "Wrong frame No.");
+    }
+
+    @Test
+    public void testWaterDimerAcrossBoxEdge() {
+        GmxFrame frame = createWaterDimer(new float[] { 2.9f, 2.9f, 2.85f }, WATER_BOX);
+        Assert.assertTrue(frame.getAtoms()[3].getCoordinateZ() > WATER_BOX[2], "Dimer doesn't cross box edge.");
+        Assert.assertEquals(hydrogenBondDetector().detect(frame).getSize(), 1, "Wrong number of hydrogen bonds.");
+    }
+
+    @Test
+    public void testWaterDimerWithStrictCutoffs() {
+        GmxFrame frame = createWaterDimer(new float[] { 1.f, 1.f, 1.f }, WATER_BOX);
+        Assert.assertEquals(hydrogenBondDetector().withDistanceCutoff(0.25f).detect(frame).getSize(), 0);
+    }
+
+    @Test
+    public void testDetectionAgainstBruteForce() {
+        GmxFrame frame = createWaterFrame(1000, WATER_BOX, 42);
+        GmxHydrogenBonds bonds = hydrogenBondDetector().detect(frame);
+        Set<Long> expected = detectBruteForce(frame, 0.35, 30);
+
+        Set<Long> actual = new HashSet<>();
+        IntStream.range(0, bonds.getSize()).forEach(i -> actual.add( //
+                (long) bonds.getHydrogenAtomNo(i) << 32 | bonds.getAcceptorAtomNo(i)));
+
+        Assert.assertTrue(expected.size() > 100, "Too few hydrogen bonds to compare: " + expected.size());
+        Assert.assertEquals(bonds.getSize(), actual.size(), "Duplicate hydrogen bonds detected.");
+        Assert.assertEquals(actual, expected, "Cell list detection differs from brute force.");
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = REGEX_INVALID_BOX)
+    public void testDetectionWithInvalidBox() {
+        GmxFrame frame = createWaterFrame(10, WATER_BOX, 1);
+        GmxHydrogenBondSites sites = hydrogenBondSitesFromFrameBuilder().withFrame(frame).build();
+        hydrogenBondDetector().withSites(sites).detect(new float[90], new float[] { 0, 1, 1 });
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private GmxFrame createWaterDimer(float[] donorPivot, float[] box) {
+        float[] hw1 = new float[] { 0.035f, 0.031f, 0.089f };
+        double length = Math.sqrt(hw1[0] * hw1[0] + hw1[1] * hw1[1] + hw1[2] * hw1[2]);
+        float[] acceptorPivot = new float[3];
+        for (int i = 0; i < 3; i++) acceptorPivot[i] = donorPivot[i] + (float) (0.28 * hw1[i] / length);
+
+        GmxResidue donor = residueByCoordsFactory.get(GmxResidueH2O.class, 0, donorPivot);
+        GmxResidue acceptor = residueByCoordsFactory.get(GmxResidueH2O.class, 0, acceptorPivot);
+        GmxAtom[] atoms = new GmxAtom[6];
+        System.arraycopy(donor.getAllAtoms(), 0, atoms, 0, 3);
+        System.arraycopy(acceptor.getAllAtoms(), 0, atoms, 3, 3);
+        IntStream.range(0, 6).forEach(i -> atoms[i].setAtomNo(i));
+        acceptor.setResidueNo(3);
+
+        return frameFactory.get(frameStructureFromArraysBuilder() //
+                .withDescription("Water dimer") //
+                .withAtomsArray(atoms) //
+                .withResiduesArray(new GmxResidue[] { donor, acceptor }) //
+                .withBox(box) //
+                .build(), frameCoordinatesFromArraysBuilder() //
+                .withAtomsArray(atoms) //
+                .withFrameNo(1) //
+                .build());
+    }
+
+    private Set<Long> detectBruteForce(GmxFrame frame, double cutoff, double angle) {
+        Set<Long> bonds = new HashSet<>();
+        float[] box = frame.getBox();
+        for (GmxResidue donorResidue : frame.getResidues()) {
+            GmxAtom donor = donorResidue.getAcceptorAtom();
+            for (GmxAtom hydrogen : donorResidue.getDonorAtoms()) {
+                for (GmxResidue acceptorResidue : frame.getResidues()) {
+                    GmxAtom acceptor = acceptorResidue.getAcceptorAtom();
+                    if (acceptor == donor) continue;
+                    double[] da = minimumImage(donor.getCoordinates(), acceptor.getCoordinates(), box);
+                    double[] dh = minimumImage(donor.getCoordinates(), hydrogen.getCoordinates(), box);
+                    double daLength = Math.sqrt(da[0] * da[0] + da[1] * da[1] + da[2] * da[2]);
+                    double dhLength = Math.sqrt(dh[0] * dh[0] + dh[1] * dh[1] + dh[2] * dh[2]);
+                    double cos = (da[0] * dh[0] + da[1] * dh[1] + da[2] * dh[2]) / (daLength * dhLength);
+                    if (daLength <= cutoff && Math.toDegrees(Math.acos(cos)) <= angle)
+                        bonds.add((long) hydrogen.getAtomNo() << 32 | acceptor.getAtomNo());
+                }
+            }
+        }
+        return bonds;
+    }
+
+    private double[] minimumImage(float[] from, float[] to, float[] box) {
+        double[] delta = new double[3];
+        for (int i = 0; i < 3; i++) {
+            delta[i] = to[i] - from[i];
+            delta[i] -= box[i] * Math.rint(delta[i] / box[i]);
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,138 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondCorrelation;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondLifetimeAnalyzer;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSites;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBonds;
+import com.asemenkov.gromacs.analysis.utils.GmxFft;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import com.asemenkov.utils.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author asemenkov
+ * @since Jun 24, 2019
+ */
+@Test
+public class GmxHydrogenBondLifetimeAnalyzerTest extends GmxAbstractTest {
+
+    private static final int FRAMES_NUM = 300;
+    private static final int[][] PAIRS = new int[][] { { 0, 1 }, { 0, 2 }, { 3, 0 }, { 5, 4 }, { 7, 9 } };
+
+    @Test
+    public void testFftAgainstDft() {
+        Random random = new Random(5);
+        double[] re = new double[64];
+        double[] im = new double[64];
+        for (int i = 0; i < re.length; i++) {
+            re[i] = random.nextDouble();
+            im[i] = random.nextDouble();
+        }
+
+        double[] fftRe = re.clone();
+        double[] fftIm = im.clone();
+        GmxFft.transform(fftRe, fftIm, false);
+
+        for (int k = 0; k < re.length; k++) {
+            double dftRe = 0, dftIm = 0;
+            for (int j = 0; j < re.length; j++) {
+                double angle = -2 * Math.PI * j * k / re.length;
+                dftRe += re[j] * Math.cos(angle) - im[j] * Math.sin(angle);
+                dftIm += re[j] * Math.sin(angle) + im[j] * Math.cos(angle);
+            }
+            Assert.assertEquals(fftRe[k], dftRe, 1e-9, "Wrong real part.");
+            Assert.assertEquals(fftIm[k], dftIm, 1e-9, "Wrong imaginary part.");
+        }
+
+        GmxFft.transform(fftRe, fftIm, true);
+        for (int i = 0; i < re.length; i++) Assert.assertEquals(fftRe[i], re[i], 1e-12, "Wrong inverse.");
+    }
+
+    @Test
+    public void testCorrelationAgainstBruteForce() {
+        boolean[][] series = createRandomSeries();
+        GmxHydrogenBondLifetimeAnalyzer analyzer = hydrogenBondLifetimeAnalyzer().withTimeStep(0.5).withMaxLag(100);
+        feedSeries(analyzer, series);
+        GmxHydrogenBondCorrelation correlation = analyzer.correlate();
+
+        Assert.assertEquals(correlation.getPairsNum(), PAIRS.length, "Wrong number of pairs.");
+        Assert.assertEquals(correlation.getLagsNum(), 101, "Wrong number of lags.");
+        Assert.assertEquals(correlation.getTimes()[100], 50., 1e-12, "Wrong time.");
+
+        double[] continuous = new double[101];
+        double[] intermittent = new double[101];
+        for (int lag = 0; lag <= 100; lag++) {
+            for (boolean[] pairSeries : series) {
+                for (int origin = 0; origin + lag < FRAMES_NUM; origin++) {
+                    boolean unbroken = true;
+                    for (int t = origin; t <= origin + lag; t++) unbroken &= pairSeries[t];
+                    if (pairSeries[origin] && pairSeries[origin + lag]) intermittent[lag]++;
+                    if (unbroken) continuous[lag]++;
+                }
+            }
+            continuous[lag] /= FRAMES_NUM - lag;
+            intermittent[lag] /= FRAMES_NUM - lag;
+        }
+
+        for (int lag = 0; lag <= 100; lag++) {
+            Assert.assertEquals(correlation.getContinuous()[lag], continuous[lag] / continuous[0], 1e-9);
+            Assert.assertEquals(correlation.getIntermittent()[lag], intermittent[lag] / intermittent[0], 1e-9);
+        }
+        Assert.assertTrue(correlation.getIntermittentLifetime() > correlation.getContinuousLifetime());
+    }
+
+    @Test
+    public void testXvgFileWriting() {
+        GmxHydrogenBondLifetimeAnalyzer analyzer = hydrogenBondLifetimeAnalyzer();
+        feedSeries(analyzer, createRandomSeries());
+        GmxHydrogenBondCorrelation correlation = analyzer.correlate();
+
+        Path path = xvgFileWriter.writeXvgFile(PATH_GRO_FROM_TESTS, "hbond-acf", "Hydrogen bond ACF", //
+                "Time (ps)", "C(t)", new String[] { "Continuous", "Intermittent" }, //
+                correlation.getTimes(), correlation.getContinuous(), correlation.getIntermittent());
+
+        List<String> lines = FileUtils.readWholeFile(path);
+        Assert.assertEquals(lines.size(), 6 + FRAMES_NUM / 2 + 1, "Wrong number of lines.");
+        Assert.assertEquals(lines.get(6).trim().split("\\s+").length, 3, "Wrong number of columns.");
+        Assert.assertEquals(Double.parseDouble(lines.get(6).trim().split("\\s+")[1]), 1., 1e-9);
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "No frames recorded.")
+    public void testCorrelationWithoutFrames() {
+        hydrogenBondLifetimeAnalyzer().correlate();
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private boolean[][] createRandomSeries() {
+        Random random = new Random(11);
+        boolean[][] series = new boolean[PAIRS.length][FRAMES_NUM];
+        for (boolean[] pairSeries : series) {
+            pairSeries[0] = random.nextBoolean();
+            for (int t = 1; t < FRAMES_NUM; t++)
+                pairSeries[t] = random.nextDouble() < 0.9 ? pairSeries[t - 1] : !pairSeries[t - 1];
+        }
+        return series;
+    }
+
+    private void feedSeries(GmxHydrogenBondLifetimeAnalyzer analyzer, boolean[][] series) {
+        GmxHydrogenBondSites sites = hydrogenBondSitesFromFrameBuilder() //
+                .withFrame(createWaterFrame(10, new float[] { 3.f, 3.f, 3.f }, 1)) //
+                .build();
+        GmxHydrogenBonds bonds = new GmxHydrogenBonds(sites);
+
+        for (int t = 0; t < FRAMES_NUM; t++) {
+            bonds.clear();
+            for (int pair = 0; pair < PAIRS.length; pair++)
+                if (series[pair][t]) bonds.add(PAIRS[pair][0], PAIRS[pair][1]);
+            bonds.setFrameNo(t);
+            analyzer.accept(bonds);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondClusterHistogram;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondDetector;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondNetwork;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBonds;
+import com.asemenkov.gromacs.analysis.utils.GmxUnionFind;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author asemenkov
+ * @since Jul 01, 2019
+ */
+@Test
+public class GmxHydrogenBondNetworkTest extends GmxAbstractTest {
+
+    private static final float[] WATER_BOX = new float[] { 3.f, 3.f, 3.f };
+
+    // ======== TEST UNION FIND ========
+
+    @Test
+    public void testUnionFindPercolation() {
+        GmxUnionFind unionFind = new GmxUnionFind();
+        unionFind.reset(8);
+        for (int i = 0; i < 4; i++) unionFind.union(i, (i + 1) % 5, 1.f, 0, 0, 2.5f);
+        Assert.assertFalse(unionFind.isPercolating(0), "Open chain percolates.");
+        unionFind.union(4, 0, 1.f, 0, 0, 2.5f);
+        Assert.assertTrue(unionFind.isPercolating(3), "Chain closed through the box doesn't percolate.");
+
+        unionFind.union(5, 6, 0.3f, 0.1f, 0, 2.5f);
+        unionFind.union(6, 7, -0.1f, 0.3f, 0, 2.5f);
+        unionFind.union(7, 5, -0.2f, -0.4f, 0, 2.5f);
+        Assert.assertFalse(unionFind.isPercolating(5), "Closed ring inside the box percolates.");
+        Assert.assertEquals(unionFind.getSetsNum(), 2, "Wrong number of sets.");
+        Assert.assertEquals(unionFind.getSize(7), 3, "Wrong set size.");
+
+        unionFind.reset(8);
+        Assert.assertEquals(unionFind.getSetsNum(), 8, "Union find isn't reset.");
+        Assert.assertFalse(unionFind.isPercolating(3), "Union find isn't reset.");
+    }
+
+    // ======== TEST NETWORK ========
+
+    @Test
+    public void testNetworkAgainstBreadthFirstSearch() {
+        GmxFrame frame = createWaterFrame(1000, WATER_BOX, 42);
+        GmxHydrogenBondDetector detector = hydrogenBondDetector();
+        GmxHydrogenBonds bonds = detector.detect(frame);
+        GmxHydrogenBondNetwork network = new GmxHydrogenBondNetwork(detector.getSites());
+        network.build(frame, bonds);
+
+        Map<Integer, List<Integer>> graph = new HashMap<>();
+        for (GmxResidue residue : frame.getResidues()) graph.put(residue.getResidueNo(), new ArrayList<>());
+        for (int i = 0; i < bonds.getSize(); i++) {
+            graph.get(bonds.getDonorResidueNo(i)).add(bonds.getAcceptorResidueNo(i));
+            graph.get(bonds.getAcceptorResidueNo(i)).add(bonds.getDonorResidueNo(i));
+        }
+
+        Map<Integer, Integer> clusterSizes = new HashMap<>();
+        Map<Integer, Integer> visited = new HashMap<>();
+        for (Integer start : graph.keySet()) {
+            if (visited.containsKey(start)) continue;
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(start);
+            visited.put(start, start);
+            int size = 0;
+            while (!queue.isEmpty()) {
+                Integer vertex = queue.poll();
+                size++;
+                for (Integer neighbour : graph.get(vertex))
+                    if (visited.putIfAbsent(neighbour, start) == null) queue.add(neighbour);
+            }
+            clusterSizes.merge(size, 1, Integer::sum);
+        }
+
+        Assert.assertEquals(network.getVerticesNum(), 1000, "Wrong number of vertices.");
+        Assert.assertEquals(network.getClustersNum(), clusterSizes.values().stream().mapToInt(i -> i).sum());
+        Assert.assertEquals(network.getLargestClusterSize(), (int) clusterSizes.keySet().stream() //
+                .max(Integer::compare).orElse(0), "Wrong largest cluster size.");
+        clusterSizes.forEach((size, num) -> Assert.assertEquals(network.getClustersNum(size), (int) num, //
+                "Wrong number of clusters of size " + size));
+        visited.forEach((vertex, start) -> Assert.assertEquals(network.getClusterNo(vertex), //
+                network.getClusterNo(start), "Residues of one cluster have different cluster No."));
+    }
+
+    @Test
+    public void testPercolationOfDenseWater() {
+        GmxFrame frame = createWaterFrame(1000, WATER_BOX, 42);
+        GmxHydrogenBondDetector detector = hydrogenBondDetector().withDistanceCutoff(0.6f).withAngleCutoff(90);
+        GmxHydrogenBonds bonds = detector.detect(frame);
+        GmxHydrogenBondNetwork network = new GmxHydrogenBondNetwork(detector.getSites());
+        network.build(frame, bonds);
+
+        Assert.assertEquals(network.getClustersNum(), 1, "Dense network isn't connected.");
+        Assert.assertTrue(network.isPercolating(), "Dense network doesn't percolate.");
+
+        GmxFrame sparseFrame = createWaterFrame(10, WATER_BOX, 42);
+        GmxHydrogenBondDetector sparseDetector = hydrogenBondDetector();
+        GmxHydrogenBonds sparseBonds = sparseDetector.detect(sparseFrame);
+        GmxHydrogenBondNetwork sparseNetwork = new GmxHydrogenBondNetwork(sparseDetector.getSites());
+        sparseNetwork.build(sparseFrame, sparseBonds);
+        Assert.assertFalse(sparseNetwork.isPercolating(), "Sparse network percolates.");
+    }
+
+    @Test
+    public void testClusterHistogram() {
+        GmxHydrogenBondClusterHistogram histogram = new GmxHydrogenBondClusterHistogram();
+        for (long seed = 1; seed <= 3; seed++) {
+            GmxFrame frame = createWaterFrame(300, WATER_BOX, seed);
+            GmxHydrogenBondDetector detector = hydrogenBondDetector();
+            GmxHydrogenBonds bonds = detector.detect(frame);
+            GmxHydrogenBondNetwork network = new GmxHydrogenBondNetwork(detector.getSites());
+            network.build(frame, bonds);
+            histogram.accept(network);
+        }
+
+        long residues = 0;
+        for (int size = 1; size <= histogram.getMaxClusterSize(); size++)
+            residues += size * histogram.getClustersNum(size);
+
+        Assert.assertEquals(histogram.getFramesNum(), 3, "Wrong number of frames.");
+        Assert.assertEquals(residues, 900, "Cluster sizes don't sum up to residues number.");
+        Assert.assertEquals(Arrays.stream(histogram.getClusterSizeDistribution()).sum(), 1., 1e-9);
+        Assert.assertTrue(histogram.getWeightedMeanClusterSize() >= histogram.getMeanClusterSize());
+    }
+}
@@ -0,0 +1,84 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondDetector;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSites;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondTimeSeries;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author asemenkov
+ * @since Jun 17, 2019
+ */
+@Test
+public class GmxHydrogenBondTrajectoryAnalyzerTest extends GmxAbstractTest {
+
+    private static final float[] WATER_BOX = new float[] { 3.f, 3.f, 3.f };
+
+    @Test
+    public void testSitesFromStructure() {
+        GmxFrame frame = createWaterFrame(50, WATER_BOX, 3);
+        GmxHydrogenBondSites expected = hydrogenBondSitesFromFrameBuilder().withFrame(frame).build();
+        GmxHydrogenBondSites actual = hydrogenBondSitesFromStructureBuilder() //
+                .withFrameStructure(frame.getFrameStructure()) //
+                .build();
+
+        Assert.assertEquals(actual.getDonorAtoms(), expected.getDonorAtoms(), "Wrong donor atoms.");
+        Assert.assertEquals(actual.getHydrogenAtoms(), expected.getHydrogenAtoms(), "Wrong hydrogen atoms.");
+        Assert.assertEquals(actual.getDonorResidues(), expected.getDonorResidues(), "Wrong donor residues.");
+        Assert.assertEquals(actual.getAcceptorAtoms(), expected.getAcceptorAtoms(), "Wrong acceptor atoms.");
+        Assert.assertEquals(actual.getAcceptorResidues(), expected.getAcceptorResidues(), "Wrong acceptor residues.");
+    }
+
+    @Test
+    public void testTrajectoryAgainstFrames() {
+        GmxFrameStructure structure = createWaterInArgonStructure();
+        AtomicInteger consumedFrames = new AtomicInteger();
+        GmxHydrogenBondTimeSeries timeSeries = hydrogenBondTrajectoryAnalyzer() //
+                .withFrameStructure(structure) //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withDetector(hydrogenBondDetector().withDistanceCutoff(0.5f).withAngleCutoff(60)) //
+                .withBondsConsumer(bonds -> consumedFrames.incrementAndGet()) //
+                .analyze();
+
+        Assert.assertFalse(xtcFileNativeReader.isBusy());
+        Assert.assertEquals(timeSeries.getSize(), 201, "Wrong number of frames.");
+        Assert.assertEquals(consumedFrames.get(), 201, "Wrong number of consumed frames.");
+        Assert.assertEquals(timeSeries.getFrameNo(0), 1, "Wrong first frame No.");
+        Assert.assertEquals(timeSeries.getFrameNo(200), 201, "Wrong last frame No.");
+
+        GmxHydrogenBondDetector detector = hydrogenBondDetector().withDistanceCutoff(0.5f).withAngleCutoff(60);
+        xtcFileNativeReader.openXtcFile(XTC_WATER_IN_ARGON_PATH);
+        GmxFrameCoordinates coordinates;
+        for (int i = 0; (coordinates = xtcFileNativeReader.readNextFrame()) != null; i++)
+            Assert.assertEquals(timeSeries.getCount(i), detector.detect(frameFactory.get(structure, coordinates)) //
+                    .getSize(), "Streaming detection differs from frame detection.");
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, //
+            expectedExceptionsMessageRegExp = "Frame structure atomsNum .*")
+    public void testTrajectoryWithWrongStructure() {
+        GmxFrameStructure structure = frameStructureFromScratchBuilder() //
+                .withDescription("Wrong structure") //
+                .withResidues("SOL", 10) //
+                .withBox(WATER_BOX) //
+                .build();
+        try {
+            hydrogenBondTrajectoryAnalyzer() //
+                    .withFrameStructure(structure) //
+                    .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                    .analyze();
+        } finally {
+            Assert.assertFalse(xtcFileNativeReader.isBusy());
+        }
+    }
+
+    // ======== SUPPORT METHODS ========
+}
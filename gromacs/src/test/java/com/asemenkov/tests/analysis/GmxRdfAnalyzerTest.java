@@ -0,0 +1,132 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.rdf.GmxRdf;
+import com.asemenkov.gromacs.analysis.rdf.GmxRdfSelection;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.particles.atoms.GmxAtomAr;
+import com.asemenkov.particles.atoms.GmxAtomO;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Jul 29, 2019
+ */
+@Test
+public class GmxRdfAnalyzerTest extends GmxAbstractTest {
+
+    private static final float CUTOFF = 1.5f;
+    private static final float BIN_WIDTH = 0.01f;
+
+    @Test
+    public void testRdfAgainstBruteForce() {
+        GmxFrameStructure structure = createWaterInArgonStructure();
+        List<GmxRdf> rdfs = rdfAnalyzer() //
+                .withFrameStructure(structure) //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withCutoff(CUTOFF) //
+                .withBinWidth(BIN_WIDTH) //
+                .withThreadsNum(4) //
+                .withPair(GmxRdfSelection.atoms(GmxAtomAr.class), GmxRdfSelection.atoms("Ar")) //
+                .withPair("O-Ar", GmxRdfSelection.residueAtoms("SOL", GmxAtomO.class), //
+                        GmxRdfSelection.atoms(GmxAtomAr.class)) //
+                .withPair(GmxRdfSelection.residues("SOL"), GmxRdfSelection.atoms(GmxAtomAr.class)) //
+                .analyze();
+
+        Assert.assertFalse(xtcFileNativeReader.isBusy());
+        Assert.assertEquals(rdfs.size(), 3, "Wrong number of RDFs.");
+        Assert.assertEquals(rdfs.get(0).getName(), "GmxAtomAr-Ar", "Wrong RDF name.");
+        Assert.assertEquals(rdfs.get(1).getName(), "O-Ar", "Wrong RDF name.");
+        Assert.assertEquals(rdfs.get(2).getName(), "SOL-GmxAtomAr", "Wrong RDF name.");
+        Assert.assertEquals(rdfs.get(0).getFramesNum(), 201, "Wrong number of frames.");
+        Assert.assertEquals(rdfs.get(0).getBinsNum(), 150, "Wrong number of bins.");
+
+        int[] argons = IntStream.range(0, 869).toArray();
+        double[] expectedArAr = computeRdfBruteForce(structure, argons, argons);
+        double[] expectedOAr = computeRdfBruteForce(structure, new int[] { 869 }, argons);
+        for (int bin = 0; bin < 150; bin++) {
+            Assert.assertEquals(rdfs.get(0).getRdf()[bin], expectedArAr[bin], 1e-9, "Wrong Ar-Ar RDF.");
+            Assert.assertEquals(rdfs.get(1).getRdf()[bin], expectedOAr[bin], 1e-9, "Wrong O-Ar RDF.");
+        }
+
+        double[] arAr = rdfs.get(0).getRdf();
+        int peak = IntStream.range(0, 150).reduce((bin1, bin2) -> arAr[bin2] > arAr[bin1] ? bin2 : bin1).orElse(0);
+        Assert.assertEquals(rdfs.get(0).getRadii()[peak], 0.38, 0.05, "Wrong position of the first Ar-Ar peak.");
+        Assert.assertEquals(IntStream.range(0, 25).mapToDouble(bin -> arAr[bin]).sum(), 0., "Argon cores overlap.");
+        Assert.assertEquals(rdfs.get(2).getCoordinationNumbers()[149], //
+                rdfs.get(1).getCoordinationNumbers()[149], 2., "Wrong coordination number.");
+    }
+
+    @Test
+    public void testThreadsNumDoesNotChangeRdf() {
+        GmxFrameStructure structure = createWaterInArgonStructure();
+        GmxRdf sequential = rdfAnalyzer().withFrameStructure(structure).withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(1) //
+                .withPair(GmxRdfSelection.atoms("Ar"), GmxRdfSelection.atoms("Ar")) //
+                .analyze().get(0);
+        GmxRdf parallel = rdfAnalyzer().withFrameStructure(structure).withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(3) //
+                .withPair(GmxRdfSelection.atoms("Ar"), GmxRdfSelection.atoms("Ar")) //
+                .analyze().get(0);
+        Assert.assertEquals(parallel.getRdf(), sequential.getRdf(), "RDF depends on threads number.");
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "Cutoff exceeds .*")
+    public void testCutoffLongerThanHalfBox() {
+        rdfAnalyzer().withFrameStructure(createWaterInArgonStructure()).withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withCutoff(4.f) //
+                .withPair(GmxRdfSelection.atoms("Ar"), GmxRdfSelection.atoms("Ar")) //
+                .analyze();
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "Unknown residue .*")
+    public void testUnknownResidue() {
+        rdfAnalyzer().withFrameStructure(createWaterInArgonStructure()).withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withPair(GmxRdfSelection.residues("XYZ"), GmxRdfSelection.atoms("Ar")) //
+                .analyze();
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private double[] computeRdfBruteForce(GmxFrameStructure structure, int[] reference, int[] target) {
+        GmxPbcBox box = GmxPbcBox.of(structure.getBox());
+        int binsNum = Math.round(CUTOFF / BIN_WIDTH);
+        float maxDistance2 = binsNum * BIN_WIDTH * binsNum * BIN_WIDTH;
+        long[] histogram = new long[binsNum];
+        int framesNum = 0;
+
+        xtcFileNativeReader.openXtcFile(XTC_WATER_IN_ARGON_PATH);
+        GmxFrameCoordinates frameCoordinates;
+        float[] delta = new float[3];
+        while ((frameCoordinates = xtcFileNativeReader.readNextFrame()) != null) {
+            float[][] coordinates = frameCoordinates.getCoordinates();
+            for (int i : reference)
+                for (int j : target) {
+                    if (i == j) continue;
+                    for (int k = 0; k < 3; k++) delta[k] = coordinates[j][k] - coordinates[i][k];
+                    box.minimumImage(delta);
+                    float distance2 = delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2];
+                    if (distance2 < maxDistance2) histogram[(int) (Math.sqrt(distance2) / BIN_WIDTH)]++;
+                }
+            framesNum++;
+        }
+
+        double pairsNum = reference == target ? reference.length * (reference.length - 1.) //
+                : (double) reference.length * target.length;
+        double[] rdf = new double[binsNum];
+        for (int bin = 0; bin < binsNum; bin++) {
+            double r1 = bin * (double) BIN_WIDTH;
+            double r2 = (bin + 1) * (double) BIN_WIDTH;
+            double shellVolume = 4. / 3. * Math.PI * (r2 * r2 * r2 - r1 * r1 * r1);
+            rdf[bin] = histogram[bin] * box.getVolume() / (framesNum * pairsNum * shellVolume);
+        }
+        return rdf;
+    }
+}
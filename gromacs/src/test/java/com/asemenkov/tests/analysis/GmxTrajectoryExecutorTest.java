@@ -0,0 +1,115 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondTimeSeries;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Jul 08, 2019
+ */
+@Test
+public class GmxTrajectoryExecutorTest extends GmxAbstractTest {
+
+    @Test
+    public void testResultsInFrameOrder() {
+        List<Integer> frameNos = trajectoryExecutor() //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(4) //
+                .withChunkSize(3) //
+                .execute(() -> GmxFrameCoordinates::getFrameNo);
+
+        Assert.assertFalse(xtcFileNativeReader.isBusy());
+        Assert.assertEquals(frameNos, IntStream.rangeClosed(1, 201).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testReduceAgainstSequentialReading() {
+        Float actual = trajectoryExecutor() //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(3) //
+                .reduce(() -> frameCoordinates -> frameCoordinates.getCoordinates()[871][0], 0.f, Float::sum);
+
+        float expected = 0;
+        xtcFileNativeReader.openXtcFile(XTC_WATER_IN_ARGON_PATH);
+        GmxFrameCoordinates frameCoordinates;
+        while ((frameCoordinates = xtcFileNativeReader.readNextFrame()) != null)
+            expected += frameCoordinates.getCoordinates()[871][0];
+
+        Assert.assertEquals(actual.floatValue(), expected, "Reduced result differs from sequential one.");
+    }
+
+    @Test
+    public void testFramesAreReboundPerThread() {
+        GmxFrameStructure structure = createWaterInArgonStructure();
+
+        Set<GmxFrame> frames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        List<float[]> actual = trajectoryExecutor() //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(3) //
+                .executeOnFrames(structure, () -> frame -> {
+                    frames.add(frame);
+                    return new float[] { frame.getFrameNo(), frame.getResidues()[0].getPivotAtom().getCoordinateX() };
+                });
+        List<float[]> expected = trajectoryExecutor() //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(1) //
+                .execute(() -> frameCoordinates -> new float[] { frameCoordinates.getFrameNo(), //
+                        frameCoordinates.getX(869) });
+
+        Assert.assertTrue(frames.size() <= 3, "Frames are built per trajectory frame: " + frames.size());
+        Assert.assertEquals(actual.size(), 201, "Wrong number of frames.");
+        for (int i = 0; i < actual.size(); i++)
+            Assert.assertEquals(actual.get(i), expected.get(i), "Wrong result of frame " + (i + 1));
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "Frame 50 failed.")
+    public void testExceptionPropagation() {
+        try {
+            trajectoryExecutor() //
+                    .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                    .withThreadsNum(2) //
+                    .execute(() -> frameCoordinates -> {
+                        if (frameCoordinates.getFrameNo() == 50) throw new GmxAnalysisException("Frame 50 failed.");
+                        return frameCoordinates.getFrameNo();
+                    });
+        } finally {
+            Assert.assertFalse(xtcFileNativeReader.isBusy());
+        }
+    }
+
+    @Test
+    public void testParallelHydrogenBondAnalysis() {
+        GmxFrameStructure structure = createWaterInArgonStructure();
+
+        List<Integer> consumedFrameNos = new ArrayList<>();
+        GmxHydrogenBondTimeSeries parallel = hydrogenBondTrajectoryAnalyzer() //
+                .withFrameStructure(structure) //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withThreadsNum(4) //
+                .withBondsConsumer(bonds -> consumedFrameNos.add(bonds.getFrameNo())) //
+                .analyze();
+
+        GmxHydrogenBondTimeSeries sequential = hydrogenBondTrajectoryAnalyzer() //
+                .withFrameStructure(structure) //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .analyze();
+
+        Assert.assertEquals(parallel.getFrameNos(), sequential.getFrameNos(), "Wrong frames order.");
+        Assert.assertEquals(parallel.getCounts(), sequential.getCounts(), "Parallel counts differ.");
+        Assert.assertEquals(consumedFrameNos, IntStream.rangeClosed(1, 201).boxed().collect(Collectors.toList()));
+    }
+}
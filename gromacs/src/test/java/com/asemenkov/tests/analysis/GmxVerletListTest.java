@@ -0,0 +1,111 @@
+package com.asemenkov.tests.analysis;
+
+import com.asemenkov.gromacs.analysis.exceptions.GmxAnalysisException;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondCriterion;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondDetector;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSites;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBonds;
+import com.asemenkov.gromacs.analysis.utils.GmxVerletList;
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @author asemenkov
+ * @since Jul 22, 2019
+ */
+@Test
+public class GmxVerletListTest extends GmxAbstractTest {
+
+    private static final float[] WATER_BOX = new float[] { 3.f, 3.f, 3.f };
+    private static final int STEPS_NUM = 100;
+
+    @Test
+    public void testVerletListAgainstBruteForce() {
+        Random random = new Random(9);
+        float[] xyz = new float[3000];
+        for (int i = 0; i < xyz.length; i++) xyz[i] = 3 * random.nextFloat();
+        int[] centers = new int[300];
+        int[] neighbours = new int[700];
+        for (int i = 0; i < centers.length; i++) centers[i] = i;
+        for (int i = 0; i < neighbours.length; i++) neighbours[i] = 300 + i;
+
+        GmxPbcBox box = GmxPbcBox.of(WATER_BOX);
+        GmxVerletList verletList = new GmxVerletList();
+        Assert.assertTrue(verletList.update(xyz, centers, neighbours, box, 0.4f, 0.1f), "List isn't built.");
+        Assert.assertFalse(verletList.update(xyz, centers, neighbours, box, 0.4f, 0.1f), "List is rebuilt.");
+        Assert.assertTrue(verletList.update(xyz, centers, neighbours, box, 0.5f, 0.1f), "List isn't rebuilt.");
+
+        for (int center = 0; center < centers.length; center++) {
+            Set<Integer> listed = new HashSet<>();
+            for (int i = verletList.getFrom(center); i < verletList.getTo(center); i++)
+                listed.add(verletList.getEntries()[i]);
+            for (int entry = 0; entry < neighbours.length; entry++)
+                Assert.assertEquals(listed.contains(entry), box.distance(xyz, centers[center], neighbours[entry]) //
+                        <= 0.6f, "Wrong Verlet list entry.");
+        }
+    }
+
+    @Test
+    public void testDetectionWithSkinAgainstRebuilding() {
+        GmxFrame frame = createWaterFrame(1000, WATER_BOX, 42);
+        GmxAtom[] atoms = frame.getAtoms();
+        float[] xyz = new float[3 * atoms.length];
+        for (int i = 0; i < atoms.length; i++) System.arraycopy(atoms[i].getCoordinates(), 0, xyz, 3 * i, 3);
+
+        GmxHydrogenBondCriterion criterion = GmxHydrogenBondCriterion.hydrogenAcceptorDistance(0.25f);
+        GmxHydrogenBondDetector detector = hydrogenBondDetector().withCriterion(criterion);
+        GmxHydrogenBondSites sites = detector.detect(frame).getSites();
+        GmxHydrogenBondDetector skinDetector = hydrogenBondDetector().withSites(sites).withCriterion(criterion) //
+                .withSkin(0.1f);
+
+        GmxPbcBox box = GmxPbcBox.of(WATER_BOX);
+        GmxHydrogenBonds expected = new GmxHydrogenBonds(sites);
+        GmxHydrogenBonds actual = new GmxHydrogenBonds(sites);
+        Random random = new Random(13);
+
+        for (int step = 0; step < STEPS_NUM; step++) {
+            for (int i = 0; i < xyz.length; i++) xyz[i] += 0.006f * (random.nextFloat() - 0.5f);
+            detector.detect(xyz, box, expected);
+            skinDetector.detect(xyz, box, actual);
+            Assert.assertEquals(toPairs(actual), toPairs(expected), "Verlet list detection differs at " + step);
+        }
+
+        int buildsNum = skinDetector.getVerletList().getBuildsNum();
+        Assert.assertTrue(buildsNum > 1 && buildsNum < STEPS_NUM / 4, "Unexpected builds number: " + buildsNum);
+    }
+
+    @Test
+    public void testTrajectoryWithSkin() {
+        GmxHydrogenBondDetector detector = hydrogenBondDetector().withDistanceCutoff(0.5f).withSkin(0.05f);
+        hydrogenBondTrajectoryAnalyzer() //
+                .withFrameStructure(createWaterInArgonStructure()) //
+                .withXtcFile(XTC_WATER_IN_ARGON_PATH) //
+                .withDetector(detector) //
+                .analyze();
+
+        int buildsNum = detector.getVerletList().getBuildsNum();
+        Assert.assertTrue(buildsNum >= 1 && buildsNum < 201, "Unexpected builds number: " + buildsNum);
+    }
+
+    @Test(expectedExceptions = GmxAnalysisException.class, expectedExceptionsMessageRegExp = "Invalid skin: .*")
+    public void testInvalidSkin() {
+        hydrogenBondDetector().withSkin(-0.1f);
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private Set<Long> toPairs(GmxHydrogenBonds bonds) {
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < bonds.getSize(); i++)
+            pairs.add((long) bonds.getDonorSite(i) << 32 | bonds.getAcceptorSite(i));
+        return pairs;
+    }
+}
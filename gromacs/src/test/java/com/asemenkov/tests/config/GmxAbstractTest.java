@@ -1,11 +1,21 @@
 package com.asemenkov.tests.config;
 
+import com.asemenkov.gromacs.analysis.config.GmxAnalysisConfig;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondDetector;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondLifetimeAnalyzer;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSitesFromFrameBuilder;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSitesFromStructureBuilder;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondTrajectoryAnalyzer;
+import com.asemenkov.gromacs.analysis.rdf.GmxRdfAnalyzer;
+import com.asemenkov.gromacs.analysis.trajectory.GmxTrajectoryExecutor;
 import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.config.GmxFrameConfig;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinatesFromArraysBuilder;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinatesFromGroFileBuilder;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinatesFromScratchBuilder;
+import com.asemenkov.gromacs.frame.offheap.GmxOffHeapFrameBuilder;
+import com.asemenkov.gromacs.frame.selection.GmxSelectionBuilder;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructureFromArraysBuilder;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructureFromGroFileBuilder;
@@ -15,10 +25,13 @@ import com.asemenkov.gromacs.io.GmxXtcFileNativeReader;
 import com.asemenkov.gromacs.io.config.GmxIoConfig;
 import com.asemenkov.gromacs.io.gro.GmxGroFileReader;
 import com.asemenkov.gromacs.io.gro.GmxGroFileWriter;
+import com.asemenkov.gromacs.io.xvg.GmxXvgFileWriter;
 import com.asemenkov.gromacs.particles.GmxAtom;
 import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.gromacs.particles.utils.GmxAnglePredicate;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
 import com.asemenkov.utils.config.Factories.DuoFactory;
+import com.asemenkov.utils.config.Factories.MonoFactory;
 import com.asemenkov.utils.config.Factories.PentaFactory;
 import com.asemenkov.utils.config.Factories.TetraFactory;
 import com.asemenkov.utils.config.Factories.TriFactory;
@@ -30,12 +43,14 @@ import org.testng.Assert;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Random;
 
 /**
  * @author asemenkov
  * @since May 3, 2018
  */
-@ContextConfiguration(classes = { GmxTestsConfig.class, GmxFrameConfig.class, GmxIoConfig.class })
+@ContextConfiguration(classes = { GmxTestsConfig.class, GmxFrameConfig.class, GmxIoConfig.class,
+        GmxAnalysisConfig.class })
 public abstract class GmxAbstractTest extends AbstractTestNGSpringContextTests {
     private @Autowired ApplicationContext context;
 
@@ -54,6 +69,7 @@ public abstract class GmxAbstractTest extends AbstractTestNGSpringContextTests {
     protected @Autowired GmxXtcFileNativeReader xtcFileNativeReader;
     protected @Autowired GmxGroFileWriter groFileWriter;
     protected @Autowired GmxGroFileReader groFileReader;
+    protected @Autowired GmxXvgFileWriter xvgFileWriter;
 
     public GmxFrame createFrame(GmxFrameStructure structure, GmxFrameCoordinates coordinates) {
         return frameFactory.get(structure, coordinates);
@@ -83,6 +99,42 @@ public abstract class GmxAbstractTest extends AbstractTestNGSpringContextTests {
         return context.getBean(GmxFrameCoordinatesFromArraysBuilder.class);
     }
 
+    public GmxSelectionBuilder selectionBuilder() {
+        return context.getBean(GmxSelectionBuilder.class);
+    }
+
+    public GmxOffHeapFrameBuilder offHeapFrameBuilder() {
+        return context.getBean(GmxOffHeapFrameBuilder.class);
+    }
+
+    public GmxHydrogenBondSitesFromFrameBuilder hydrogenBondSitesFromFrameBuilder() {
+        return context.getBean(GmxHydrogenBondSitesFromFrameBuilder.class);
+    }
+
+    public GmxHydrogenBondSitesFromStructureBuilder hydrogenBondSitesFromStructureBuilder() {
+        return context.getBean(GmxHydrogenBondSitesFromStructureBuilder.class);
+    }
+
+    public GmxHydrogenBondDetector hydrogenBondDetector() {
+        return context.getBean(GmxHydrogenBondDetector.class);
+    }
+
+    public GmxHydrogenBondTrajectoryAnalyzer hydrogenBondTrajectoryAnalyzer() {
+        return context.getBean(GmxHydrogenBondTrajectoryAnalyzer.class);
+    }
+
+    public GmxHydrogenBondLifetimeAnalyzer hydrogenBondLifetimeAnalyzer() {
+        return context.getBean(GmxHydrogenBondLifetimeAnalyzer.class);
+    }
+
+    public GmxTrajectoryExecutor trajectoryExecutor() {
+        return context.getBean(GmxTrajectoryExecutor.class);
+    }
+
+    public GmxRdfAnalyzer rdfAnalyzer() {
+        return context.getBean(GmxRdfAnalyzer.class);
+    }
+
     /**
      * @implSpec t1 -- (Class) atom class
      * @implSpec t2 -- (String) atom abbreviation
@@ -124,6 +176,17 @@ public abstract class GmxAbstractTest extends AbstractTestNGSpringContextTests {
      */
     protected @Autowired DuoFactory<GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameFactory;
 
+    /**
+     * @implSpec t1 -- (GmxFrameStructure) frame structure
+     * @implSpec t2 -- (GmxFrameCoordinates) frame coordinates, shared by atoms of the frame
+     */
+    protected @Autowired DuoFactory<GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameViewFactory;
+
+    /**
+     * @implSpec t1 -- (GmxFrame) frame to copy
+     */
+    protected @Autowired MonoFactory<GmxFrame, GmxFrame> frameCopyFactory;
+
     /**
      * @implSpec t1 -- (GmxAtom) vertex atom
      * @implSpec t2 -- (GmxAtom) point1 atom
@@ -133,6 +196,55 @@ public abstract class GmxAbstractTest extends AbstractTestNGSpringContextTests {
      */
     protected @Autowired PentaFactory<GmxAnglePredicate, GmxAtom, GmxAtom, GmxAtom, Double, Double> anglePredicateFactory;
 
+    // ======== FRAMES ========
+
+    /**
+     * @return structure of the water in argon .gro file, with its description and box
+     */
+    protected GmxFrameStructure createWaterInArgonStructure() {
+        return frameStructureFromGroFileBuilder() //
+                .withDescription(groFileReader.readGroFileDescription(GRO_WATER_IN_ARGON_PATH)) //
+                .withBox(groFileReader.readGroFileBox(GRO_WATER_IN_ARGON_PATH)) //
+                .withGroFileAtomLines(groFileReader.readGroFileAtomLines(GRO_WATER_IN_ARGON_PATH)) //
+                .build();
+    }
+
+    /**
+     * @return coordinates of the water in argon .gro file as frame 1
+     */
+    protected GmxFrameCoordinates createWaterInArgonCoordinates() {
+        return frameCoordinatesFromGroFileBuilder() //
+                .withGroFileAtomLines(groFileReader.readGroFileAtomLines(GRO_WATER_IN_ARGON_PATH)) //
+                .withFrameNo(1) //
+                .build();
+    }
+
+    /**
+     * @param watersNum number of water residues placed on a lattice
+     * @param box       box of the frame
+     * @param seed      seed of random residue orientations
+     */
+    protected GmxFrame createWaterFrame(int watersNum, float[] box, long seed) {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("Water frame") //
+                .withResidues("SOL", watersNum) //
+                .withBox(box) //
+                .build();
+
+        GmxFrameCoordinates frameCoordinates = frameCoordinatesFromScratchBuilder() //
+                .withFrameStructure(frameStructure) //
+                .withFrameNo(1) //
+                .build();
+
+        Random random = new Random(seed);
+        GmxRotation rotation = new GmxRotation();
+        float[] matrices = new float[9 * watersNum];
+        for (int i = 0; i < watersNum; i++) rotation.setAngles(random.nextDouble() * 2 * Math.PI, //
+                random.nextDouble() * 2 * Math.PI, random.nextDouble() * 2 * Math.PI).getMatrix(matrices, 9 * i);
+        GmxFrameUtils.rotateResidues(frameStructure, frameCoordinates.getXyz(), matrices);
+        return frameFactory.get(frameStructure, frameCoordinates);
+    }
+
     // ======== VALIDATORS ========
 
     /**
@@ -0,0 +1,64 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.utils.GmxArgSort;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Sep 02, 2019
+ */
+@Test
+public class GmxArgSortTest {
+
+    @Test
+    public void testArgsortAsStableSort() {
+        Random random = new Random(1);
+        for (int length : new int[] { 0, 1, 2, 17, 1000, 20000 }) {
+            float[] keys = new float[length];
+            for (int i = 0; i < length; i++) keys[i] = random.nextInt(50) - 25.f + (i % 3 == 0 ? .5f : 0.f);
+            int[] expected = IntStream.range(0, length).boxed() //
+                    .sorted(Comparator.comparingDouble(i -> keys[i])) //
+                    .mapToInt(Integer::intValue).toArray();
+
+            Assert.assertEquals(GmxArgSort.argsort(keys), expected, "Wrong argsort of " + length + " keys.");
+            for (int k : new int[] { 0, Math.min(1, length), length / 4, length / 2, length })
+                Assert.assertEquals(GmxArgSort.argsort(keys, k), IntStream.of(expected).limit(k).toArray(),
+                        "Wrong first " + k + " of " + length + " keys.");
+        }
+    }
+
+    @Test
+    public void testArgsortOfSpecialKeys() {
+        float[] keys = new float[] { Float.NaN, 1.f, -Float.MAX_VALUE, Float.POSITIVE_INFINITY, -1.f, 0.f };
+        Assert.assertEquals(GmxArgSort.argsort(keys), new int[] { 2, 4, 5, 1, 3, 0 }, "Wrong argsort.");
+        Assert.assertEquals(GmxArgSort.argsort(keys, 2), new int[] { 2, 4 }, "Wrong first keys.");
+    }
+
+    @Test
+    public void testArgsortOfDoubleKeys() {
+        Random random = new Random(2);
+        for (int length : new int[] { 0, 1, 2, 17, 20000 }) {
+            double[] keys = new double[length];
+            for (int i = 0; i < length; i++) keys[i] = random.nextInt(50) + (i % 3 == 0 ? 1e-12 : 0.);
+            int[] expected = IntStream.range(0, length).boxed() //
+                    .sorted(Comparator.comparingDouble(i -> keys[i])) //
+                    .mapToInt(Integer::intValue).toArray();
+            Assert.assertEquals(GmxArgSort.argsort(keys), expected, "Wrong argsort of " + length + " keys.");
+        }
+
+        double[] keys = new double[] { Double.NaN, 1., -Double.MAX_VALUE, Double.POSITIVE_INFINITY, -0., 0. };
+        Assert.assertEquals(GmxArgSort.argsort(keys), new int[] { 2, 4, 5, 1, 3, 0 }, "Wrong argsort.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testArgsortOfInvalidNumber() {
+        GmxArgSort.argsort(new float[3], 4);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.utils.GmxCoordinatesStatistics;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * @author asemenkov
+ * @since Sep 16, 2019
+ */
+@Test
+public class GmxCoordinatesStatisticsTest extends GmxAbstractTest {
+
+    private GmxFrame frame;
+
+    @BeforeClass
+    public void initFrame() {
+        frame = frameFactory.get(createWaterInArgonStructure(), createWaterInArgonCoordinates());
+    }
+
+    @Test
+    public void testBoundingBoxOfAtoms() {
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.ofAtoms(frame);
+        Assert.assertEquals(statistics.getCount(), 872, "Wrong count.");
+        Assert.assertEquals(statistics.getMinX(), GmxFrameUtils.getAtomWithMinimalX(frame).getCoordinateX());
+        Assert.assertEquals(statistics.getMinY(), GmxFrameUtils.getAtomWithMinimalY(frame).getCoordinateY());
+        Assert.assertEquals(statistics.getMinZ(), GmxFrameUtils.getAtomWithMinimalZ(frame).getCoordinateZ());
+        Assert.assertEquals(statistics.getMaxX(), GmxFrameUtils.getAtomWithMaximalX(frame).getCoordinateX());
+        Assert.assertEquals(statistics.getMaxY(), GmxFrameUtils.getAtomWithMaximalY(frame).getCoordinateY());
+        Assert.assertEquals(statistics.getMaxZ(), GmxFrameUtils.getAtomWithMaximalZ(frame).getCoordinateZ());
+        Assert.assertEquals(statistics.getExtents()[0], statistics.getMaxX() - statistics.getMinX(), "Wrong X extent.");
+    }
+
+    @Test
+    public void testCentroidAsSequentialSum() {
+        double[] sum = new double[3];
+        frame.getAtomsView().forEach(atom -> {
+            sum[0] += atom.getCoordinateX();
+            sum[1] += atom.getCoordinateY();
+            sum[2] += atom.getCoordinateZ();
+        });
+
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.ofAtoms(frame);
+        for (int i = 0; i < 3; i++) Assert.assertEquals(statistics.getSum()[i], sum[i], 1e-6, "Wrong sum.");
+        Assert.assertEquals(statistics.getCentroid()[0], sum[0] / 872, 1e-6, "Wrong centroid X.");
+        Assert.assertEquals(statistics.getCentroid()[2], sum[2] / 872, 1e-6, "Wrong centroid Z.");
+
+        GmxCoordinatesStatistics fromBuffer = GmxCoordinatesStatistics.of(frame.getFrameCoordinates().getXyz());
+        Assert.assertEquals(fromBuffer.getMin(), statistics.getMin(), "Wrong minimums.");
+        Assert.assertEquals(fromBuffer.getMax(), statistics.getMax(), "Wrong maximums.");
+        Assert.assertEquals(fromBuffer.getRadiusOfGyration(), statistics.getRadiusOfGyration(), 1e-9);
+    }
+
+    @Test
+    public void testResiduesAndGyration() {
+        GmxCoordinatesStatistics residues = GmxCoordinatesStatistics.ofResidues(frame);
+        Assert.assertEquals(residues.getCount(), 1, "Wrong count.");
+        Assert.assertEquals(residues.getCentroid(), frame.getResidue(0).getPivotAtom().getCoordinates());
+        Assert.assertEquals(residues.getRadiusOfGyration(), 0., 1e-6, "Wrong radius of gyration.");
+
+        float[] xyz = { 1.f, 0.f, 0.f, -1.f, 0.f, 0.f, 0.f, 3.f, 0.f, 0.f, -3.f, 0.f };
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.of(xyz);
+        Assert.assertEquals(statistics.getCentroid(), new float[3], "Wrong centroid.");
+        Assert.assertEquals(statistics.getRadiusOfGyration(), Math.sqrt(5.), 1e-9, "Wrong radius of gyration.");
+        Assert.assertEquals(statistics.getExtents(), new float[] { 2.f, 6.f, 0.f }, "Wrong extents.");
+    }
+
+    @Test
+    public void testEmptySet() {
+        GmxCoordinatesStatistics statistics = GmxCoordinatesStatistics.of(new float[0]);
+        Assert.assertEquals(statistics.getCount(), 0, "Wrong count.");
+        Assert.assertEquals(statistics.getMinX(), Float.POSITIVE_INFINITY, "Wrong minimum.");
+        Assert.assertEquals(statistics.getExtents(), new float[3], "Wrong extents.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testCentroidOfEmptySet() {
+        GmxCoordinatesStatistics.of(new float[0]).getCentroid();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testInvalidInterleavedCoordinates() {
+        GmxCoordinatesStatistics.of(new float[5]);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameCloner;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.particles.atoms.GmxAtomAr;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author asemenkov
+ * @since Aug 19, 2019
+ */
+@Test
+public class GmxFrameClonerTest extends GmxAbstractTest {
+
+    private GmxFrameStructure frameStructure;
+    private GmxFrameCoordinates frameCoordinates;
+
+    @BeforeMethod
+    public void initFrameParts() {
+        frameStructure = createWaterInArgonStructure();
+        frameCoordinates = createWaterInArgonCoordinates();
+    }
+
+    @Test
+    public void testCopyFrame() {
+        GmxFrame frame = frameFactory.get(frameStructure, frameCoordinates);
+        GmxFrame copy = frameCopyFactory.get(frame);
+        verifyCopy(frame, copy);
+
+        copy.getAtom(0).setCoordinateX(0.f);
+        copy.getFrameStructure().setBox(new float[] { 1.f, 1.f, 1.f });
+        Assert.assertEquals(frame.getAtom(0).getCoordinateX(), 3.804f, "Copied atom is shared.");
+        Assert.assertEquals(frame.getBoxX(), 7.f, "Copied structure is shared.");
+        Assert.assertEquals(copy.getFrameCoordinates().getX(0), 3.804f, "Wrong copied coordinates.");
+    }
+
+    @Test
+    public void testCopyFrameView() {
+        GmxFrame frame = frameViewFactory.get(frameStructure, frameCoordinates);
+        GmxFrame copy = frameCopyFactory.get(frame);
+        verifyCopy(frame, copy);
+
+        Assert.assertTrue(copy.getAtom(0).isCoordinatesView(), "Copied atom is not a view.");
+        copy.getAtom(0).setCoordinateX(0.f);
+        Assert.assertEquals(copy.getFrameCoordinates().getX(0), 0.f, "Copied atom is not a view of the copy.");
+        Assert.assertEquals(frameCoordinates.getX(0), 3.804f, "Copied atom is a view of the source.");
+    }
+
+    @Test
+    public void testCopyAtomsOfFrameView() {
+        GmxFrame frame = frameViewFactory.get(frameStructure, frameCoordinates);
+        GmxAtom[] atoms = GmxFrameCloner.copyAtoms(frame);
+        Assert.assertTrue(atoms[0].isCoordinatesView(), "Copied atom is not a view.");
+        Assert.assertEquals(atoms[871].getCoordinates(), frame.getAtom(871).getCoordinates(), "Wrong coordinates.");
+
+        atoms[0].setCoordinateX(0.f);
+        Assert.assertEquals(frameCoordinates.getX(0), 3.804f, "Copied atom is a view of the source.");
+        Assert.assertFalse(GmxFrameCloner.copyAtoms(frameFactory.get(frameStructure, frameCoordinates))[0] //
+                .isCoordinatesView(), "Copied atom of a frame without views is a view.");
+    }
+
+    @Test
+    public void testCopyResiduesKeepsMetadata() {
+        GmxFrame frame = frameFactory.get(frameStructure, frameCoordinates);
+        GmxAtom[] atoms = frame.getAtomsDeepCopy();
+        GmxResidue residue = GmxFrameCloner.copyResidues(frame, atoms)[0];
+        Assert.assertSame(residue.getPivotAtom(), atoms[869], "Residue is not wired to copied atoms.");
+        Assert.assertSame(residue.getDonorAtoms()[1], atoms[871], "Residue is not wired to copied atoms.");
+
+        GmxAtom[] residueAtoms = new GmxAtom[] { atoms[869].copy(), atoms[870].copy(), atoms[871].copy() };
+        GmxResidue copy = residue.copy(residueAtoms);
+        Assert.assertSame(copy.getAcceptorAtom(), residueAtoms[0], "Copy of a copy is not wired.");
+    }
+
+    @Test
+    public void testCopyResiduesOfNotReindexedFrame() {
+        GmxFrame frame = frameFactory.get(frameStructure, frameCoordinates);
+        GmxAtom[] argon = frame.getFilteredAtoms(atom -> atom.getClass() == GmxAtomAr.class);
+        GmxFrameUtils.removeFreeAtoms(frame, argon[0]);
+        frame.getAtom(0).setAtomNo(100);
+
+        GmxAtom[] atoms = frame.getAtomsDeepCopy();
+        GmxResidue residue = GmxFrameCloner.copyResidues(frame, atoms)[0];
+        Assert.assertSame(residue.getPivotAtom(), atoms[868], "Residue is not wired to copied atoms.");
+    }
+
+    private void verifyCopy(GmxFrame frame, GmxFrame copy) {
+        Assert.assertNotSame(copy, frame, "Frame is not copied.");
+        Assert.assertEquals(copy.getAtomsNum(), frame.getAtomsNum(), "Wrong number of atoms.");
+        Assert.assertEquals(copy.getResiduesNum(), frame.getResiduesNum(), "Wrong number of residues.");
+        Assert.assertEquals(copy.getFrameNo(), frame.getFrameNo(), "Wrong frameNo.");
+        Assert.assertEquals(copy.getDescription(), frame.getDescription(), "Wrong description.");
+        Assert.assertEquals(copy.getFrameCoordinates().getXyz(), frame.getFrameCoordinates().getXyz());
+        Assert.assertNotSame(copy.getFrameCoordinates().getXyz(), frame.getFrameCoordinates().getXyz());
+
+        for (int i = 0; i < frame.getAtomsNum(); i++) {
+            Assert.assertNotSame(copy.getAtom(i), frame.getAtom(i), "Atom is not copied.");
+            Assert.assertEquals(copy.getAtom(i).getClass(), frame.getAtom(i).getClass(), "Wrong atom class.");
+            Assert.assertEquals(copy.getAtom(i).getCoordinates(), frame.getAtom(i).getCoordinates());
+        }
+
+        GmxResidue residue = copy.getResidue(0);
+        Assert.assertNotSame(residue, frame.getResidue(0), "Residue is not copied.");
+        Assert.assertSame(residue.getPivotAtom(), copy.getAtom(869), "Residue is not wired to copied atoms.");
+        Assert.assertSame(residue.getAllAtoms()[2], copy.getAtom(871), "Residue is not wired to copied atoms.");
+    }
+}
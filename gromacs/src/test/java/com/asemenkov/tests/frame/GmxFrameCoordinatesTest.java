@@ -12,7 +12,6 @@ import com.asemenkov.tests.config.GmxAbstractTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.IntStream;
@@ -40,12 +39,9 @@ public class GmxFrameCoordinatesTest extends GmxAbstractTest {
                 .withFrameNo(100) //
                 .build();
 
-        Assert.assertNotEquals(frameCoordinates.getCoordinates()[0][0],
-                frameCoordinates.getCoordinates()[799999][0]);
-        Assert.assertNotEquals(frameCoordinates.getCoordinates()[0][1],
-                frameCoordinates.getCoordinates()[799999][1]);
-        Assert.assertNotEquals(frameCoordinates.getCoordinates()[0][2],
-                frameCoordinates.getCoordinates()[799999][2]);
+        Assert.assertNotEquals(frameCoordinates.getX(0), frameCoordinates.getX(799999));
+        Assert.assertNotEquals(frameCoordinates.getY(0), frameCoordinates.getY(799999));
+        Assert.assertNotEquals(frameCoordinates.getZ(0), frameCoordinates.getZ(799999));
         verifyFrameCoordinates(frameCoordinates, 100, 800000);
     }
 
@@ -86,6 +82,130 @@ public class GmxFrameCoordinatesTest extends GmxAbstractTest {
         frameCoordinatesFromScratchBuilder().withFrameNo(110).build();
     }
 
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Invalid box: .*")
+    public void testFrameCoordinatesFromScratchWithNegativeBox() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withResidues("SOL", 10) //
+                .withBox(new float[] { -3.f, 3.f, 3.f }) //
+                .build();
+
+        frameCoordinatesFromScratchBuilder().withFrameStructure(frameStructure).build();
+    }
+
+    @Test
+    public void testFrameCoordinatesFromScratchAreDeterministic() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 5000) //
+                .withResidues("SOL", 5000) //
+                .withBox(BOX) //
+                .build();
+
+        float[] lattice1 = frameCoordinatesFromScratchBuilder().withFrameStructure(frameStructure).build().getXyz();
+        float[] lattice2 = frameCoordinatesFromScratchBuilder().withFrameStructure(frameStructure).build().getXyz();
+        Assert.assertEquals(lattice1, lattice2, "Lattice is not deterministic.");
+
+        float[] packed1 = buildPackedCoordinates(frameStructure, 0.3f, 42L).getXyz();
+        float[] packed2 = buildPackedCoordinates(frameStructure, 0.3f, 42L).getXyz();
+        float[] packed3 = buildPackedCoordinates(frameStructure, 0.3f, 43L).getXyz();
+        Assert.assertEquals(packed1, packed2, "Packing is not deterministic.");
+        Assert.assertNotEquals(packed1, packed3, "Packing ignores seed.");
+    }
+
+    @Test
+    public void testFrameCoordinatesFromScratchWithMinimalDistance() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 2000) //
+                .withResidues("SOL", 2000) //
+                .withBox(new float[] { 10.f, 10.f, 10.f }) //
+                .build();
+
+        float minimalDistance = 0.35f;
+        GmxFrameCoordinates frameCoordinates = buildPackedCoordinates(frameStructure, minimalDistance, 7L);
+        Assert.assertEquals(frameCoordinates.getAtomsNum(), 8000, "Wrong number of coordinates.");
+
+        int[] owners = IntStream.range(0, 8000).map(i -> -1 - i).toArray();
+        frameStructure.getResidueAtomsMap().forEach((residueNo, atoms) -> {
+            for (int atom : atoms) owners[atom] = residueNo;
+        });
+
+        float[] xyz = frameCoordinates.getXyz();
+        IntStream.range(0, 8000).parallel().forEach(i -> {
+            for (int j = i + 1; j < 8000; j++) {
+                if (owners[i] == owners[j]) continue;
+                float distance2 = 0;
+                for (int k = 0; k < 3; k++) {
+                    float delta = xyz[3 * i + k] - xyz[3 * j + k];
+                    delta -= 10.f * Math.rint(delta / 10.f);
+                    distance2 += delta * delta;
+                }
+                Assert.assertTrue(distance2 >= minimalDistance * minimalDistance, "Atoms are too close.");
+            }
+        });
+
+        int[] residueAtoms = frameStructure.getResidueAtomsMap().get(0);
+        GmxFrameCoordinates lattice = frameCoordinatesFromScratchBuilder().withFrameStructure(frameStructure).build();
+        Assert.assertEquals(getDistance(frameCoordinates, residueAtoms[0], residueAtoms[1]),
+                getDistance(lattice, residueAtoms[0], residueAtoms[1]), 1e-5, "Residue geometry is broken.");
+    }
+
+    @Test
+    public void testFrameCoordinatesFromScratchWithRandomOrientations() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withResidues("SOL", 2000) //
+                .withBox(BOX) //
+                .build();
+
+        GmxFrameCoordinates frameCoordinates = frameCoordinatesFromScratchBuilder() //
+                .withFrameStructure(frameStructure) //
+                .withRandomOrientations(true) //
+                .withSeed(5L) //
+                .build();
+
+        int[] first = frameStructure.getResidueAtomsMap().get(0);
+        int[] second = frameStructure.getResidueAtomsMap().get(1);
+        Assert.assertNotEquals(frameCoordinates.getX(first[1]) - frameCoordinates.getX(first[0]),
+                frameCoordinates.getX(second[1]) - frameCoordinates.getX(second[0]), "Residues are not rotated.");
+    }
+
+    @Test
+    public void testFrameCoordinatesFromScratchWithMinimalDistanceInLargeBox() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 200000) //
+                .withResidues("SOL", 200000) //
+                .withBox(BOX) //
+                .build();
+
+        GmxFrameCoordinates frameCoordinates = buildPackedCoordinates(frameStructure, 0.25f, 1L);
+        Assert.assertEquals(frameCoordinates.getAtomsNum(), 800000, "Wrong number of coordinates.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Cannot place .*")
+    public void testFrameCoordinatesFromScratchInTooDenseBox() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 1000) //
+                .withBox(new float[] { 1.f, 1.f, 1.f }) //
+                .build();
+
+        buildPackedCoordinates(frameStructure, 0.3f, 1L);
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testFrameCoordinatesFromScratchWithNegativeMinimalDistance() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 10) //
+                .withBox(BOX) //
+                .build();
+
+        buildPackedCoordinates(frameStructure, -1.f, 1L);
+    }
+
     // ======== TEST FRAME STRUCTURE FROM GRO FILE ========
 
     @Test
@@ -164,17 +284,58 @@ public class GmxFrameCoordinatesTest extends GmxAbstractTest {
         frameCoordinatesFromArraysBuilder().withFrameNo(110).build();
     }
 
+    // ======== TEST INTERLEAVED STORAGE ========
+
+    @Test
+    public void testInterleavedStorage() {
+        float[][] coordinates = new float[][] { { 1.f, 2.f, 3.f }, { 4.f, 5.f, 6.f } };
+        GmxFrameCoordinates frameCoordinates = new GmxFrameCoordinates(coordinates, 7);
+        coordinates[0][0] = 10.f;
+
+        Assert.assertEquals(frameCoordinates.getAtomsNum(), 2, "Wrong number of atoms.");
+        Assert.assertEquals(frameCoordinates.getXyz(), new float[] { 1.f, 2.f, 3.f, 4.f, 5.f, 6.f });
+        Assert.assertEquals(frameCoordinates.getY(1), 5.f, "Wrong Y.");
+
+        float[] destination = new float[3];
+        frameCoordinates.getCoordinates(1, destination);
+        verifyCoordinates(destination, 4.f, 5.f, 6.f);
+        verifyCoordinates(frameCoordinates.getCoordinates()[0], 1.f, 2.f, 3.f);
+
+        float[] xyz = frameCoordinates.getXyz();
+        Assert.assertSame(new GmxFrameCoordinates(xyz, 8).getXyz(), xyz, "Interleaved array is copied.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Invalid interleaved .*")
+    public void testInvalidInterleavedLength() {
+        new GmxFrameCoordinates(new float[4], 1);
+    }
+
+    private GmxFrameCoordinates buildPackedCoordinates(GmxFrameStructure structure, float distance, long seed) {
+        return frameCoordinatesFromScratchBuilder() //
+                .withFrameStructure(structure) //
+                .withMinimalDistance(distance) //
+                .withRandomOrientations(true) //
+                .withSeed(seed) //
+                .build();
+    }
+
+    private double getDistance(GmxFrameCoordinates frameCoordinates, int atom1, int atom2) {
+        float[] xyz = frameCoordinates.getXyz();
+        return Math.sqrt(IntStream.range(0, 3).mapToDouble(k -> xyz[3 * atom1 + k] - xyz[3 * atom2 + k]) //
+                .map(delta -> delta * delta).sum());
+    }
+
     private void verifyFrameCoordinates(GmxFrameCoordinates frameCoordinates, int frameNo, int length) {
         Assert.assertEquals(frameCoordinates.getFrameNo(), frameNo, "Wrong frameNo.");
-        Assert.assertEquals(frameCoordinates.getCoordinates().length, length, "Wrong number of coordinates.");
-        Arrays.stream(frameCoordinates.getCoordinates()).parallel().forEach(coordinates -> {
-            Assert.assertEquals(coordinates.length, 3, "Wrong coordinates length.");
-            Assert.assertTrue(coordinates[0] >= 0, "Wrong X coordinate.");
-            Assert.assertTrue(coordinates[1] >= 0, "Wrong Y coordinate.");
-            Assert.assertTrue(coordinates[2] >= 0, "Wrong Z coordinate.");
-            Assert.assertTrue(coordinates[0] <= BOX[0], "Wrong X coordinate.");
-            Assert.assertTrue(coordinates[1] <= BOX[1], "Wrong Y coordinate.");
-            Assert.assertTrue(coordinates[2] <= BOX[2], "Wrong Z coordinate.");
+        Assert.assertEquals(frameCoordinates.getAtomsNum(), length, "Wrong number of coordinates.");
+        Assert.assertEquals(frameCoordinates.getXyz().length, 3 * length, "Wrong coordinates length.");
+        IntStream.range(0, length).parallel().forEach(i -> {
+            Assert.assertTrue(frameCoordinates.getX(i) >= 0, "Wrong X coordinate.");
+            Assert.assertTrue(frameCoordinates.getY(i) >= 0, "Wrong Y coordinate.");
+            Assert.assertTrue(frameCoordinates.getZ(i) >= 0, "Wrong Z coordinate.");
+            Assert.assertTrue(frameCoordinates.getX(i) <= BOX[0], "Wrong X coordinate.");
+            Assert.assertTrue(frameCoordinates.getY(i) <= BOX[1], "Wrong Y coordinate.");
+            Assert.assertTrue(frameCoordinates.getZ(i) <= BOX[2], "Wrong Z coordinate.");
         });
     }
 }
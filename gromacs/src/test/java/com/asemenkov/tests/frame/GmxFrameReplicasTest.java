@@ -0,0 +1,89 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameReplicas;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author asemenkov
+ * @since Sep 23, 2019
+ */
+@Test
+public class GmxFrameReplicasTest extends GmxAbstractTest {
+
+    private GmxFrameStructure frameStructure;
+    private GmxFrameCoordinates frameCoordinates;
+    private GmxFrame frame;
+
+    @BeforeMethod
+    public void initFrame() {
+        frameStructure = createWaterInArgonStructure();
+        frameCoordinates = createWaterInArgonCoordinates();
+
+        frame = frameFactory.get(frameStructure, frameCoordinates);
+    }
+
+    @Test
+    public void testReplicasAsMultipliedFrame() {
+        GmxFrameReplicas replicas = GmxFrameReplicas.of(frame, 2, 3, 2);
+        float[] xyz = replicas.getXyz();
+        GmxFrame multiplied = frameFactory.get(frameStructure, frameCoordinates);
+        GmxFrameUtils.multiplyFrame(multiplied, 2, 3, 2);
+
+        Assert.assertEquals(replicas.getReplicasNum(), 12, "Wrong number of replicas.");
+        Assert.assertEquals(replicas.getAtomsNum(), multiplied.getAtomsNum(), "Wrong number of atoms.");
+        Assert.assertEquals(replicas.getResiduesNum(), multiplied.getResiduesNum(), "Wrong number of residues.");
+        Assert.assertEquals(replicas.getBox(), multiplied.getBox(), "Wrong box.");
+        Assert.assertEquals(xyz, multiplied.getFrameCoordinates().getXyz(), "Wrong coordinates.");
+
+        float[] coordinates = new float[3];
+        for (int i = 0; i < multiplied.getAtomsNum(); i += 97) {
+            GmxAtom atom = multiplied.getAtom(i);
+            replicas.getCoordinates(i, coordinates, 0);
+            Assert.assertEquals(coordinates, atom.getCoordinates(), "Wrong coordinates of atom " + i);
+            Assert.assertEquals(replicas.getSourceAtom(i).getClass(), atom.getClass(), "Wrong class of atom " + i);
+        }
+        Assert.assertEquals(replicas.getAtomReplica(872 * 5 + 3), 5, "Wrong replica.");
+        Assert.assertSame(replicas.getSourceResidue(7), frame.getResidue(0), "Wrong source residue.");
+    }
+
+    @Test
+    public void testMultipliedResiduesWiring() {
+        GmxAtom source = frame.getAtom(0);
+        GmxFrameUtils.multiplyFrame(frame, 2, 2, 1);
+
+        Assert.assertSame(frame.getAtom(0), source, "Source atom is replaced.");
+        for (int r = 0; r < frame.getResiduesNum(); r++) {
+            GmxResidue residue = frame.getResidue(r);
+            Assert.assertEquals(residue.getResidueNo(), r, "Wrong residueNo.");
+            Assert.assertSame(residue.getPivotAtom(), frame.getAtom(872 * r + 869), "Wrong pivot atom.");
+            Assert.assertSame(residue.getDonorAtoms()[1], frame.getAtom(872 * r + 871), "Wrong donor atom.");
+        }
+
+        frame.getAtom(872).setCoordinateX(0.f);
+        Assert.assertEquals(source.getCoordinateX(), 3.804f, "Replica shares coordinates with source.");
+        Assert.assertEquals(frame.getAtom(872 * 3).getCoordinateY(), 2.449f + 7.f, 1e-5f, "Wrong Y of replica.");
+    }
+
+    @Test
+    public void testReplicasFollowSource() {
+        GmxFrameReplicas replicas = GmxFrameReplicas.of(frame, 1, 1, 3);
+        frame.getAtom(1).setCoordinateZ(1.f);
+        Assert.assertEquals(replicas.getZ(872 * 2 + 1), 15.f, "Replica doesn't follow source atom.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testInvalidMultiplier() {
+        GmxFrameReplicas.of(frame, 1, 0, 1);
+    }
+
+}
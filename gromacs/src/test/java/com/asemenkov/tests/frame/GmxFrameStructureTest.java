@@ -1,5 +1,6 @@
 package com.asemenkov.tests.frame;
 
+import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
 import com.asemenkov.gromacs.io.exceptions.GmxIoException;
@@ -322,6 +323,52 @@ public class GmxFrameStructureTest extends GmxAbstractTest {
                 .build();
     }
 
+    // ======== TEST COMPRESSED RESIDUES ========
+
+    @Test
+    public void testCompressedResiduesFromGroFile() {
+        GmxFrameStructure frameStructure = frameStructureFromGroFileBuilder() //
+                .withDescription("From .gro file") //
+                .withGroFileAtomLines(groFileReader.readGroFileAtomLines(GRO_WATER_IN_ARGON_PATH)) //
+                .withBox(BOX) //
+                .build();
+
+        Assert.assertEquals(frameStructure.getResidueTypesNum(), 1, "Wrong number of residue types.");
+        Assert.assertEquals(frameStructure.getResidueClass(0), GmxResidueH2O.class, "Wrong residue class.");
+        Assert.assertEquals(frameStructure.getResidueNo(0), 869, "Wrong residueNo.");
+        Assert.assertEquals(frameStructure.getResidueAtoms(0), new int[] { 869, 870, 871 }, "Wrong residue atoms.");
+        Assert.assertEquals(frameStructure.getResidueAtomsNum(0), 3, "Wrong residue size.");
+
+        GmxFrameStructure copy = frameStructure.copy();
+        Assert.assertEquals(copy.getResidueAtoms(0), frameStructure.getResidueAtoms(0), "Wrong residue atoms of copy.");
+        Assert.assertEquals(copy.getResidueAtom(0, 2), 871, "Wrong residue atom of copy.");
+    }
+
+    @Test
+    public void testCompressedResiduesFromScratch() {
+        GmxFrameStructure frameStructure = frameStructureFromScratchBuilder() //
+                .withDescription("From scratch") //
+                .withFreeAtoms("Ar", 100) //
+                .withResidues("SOL", 50) //
+                .withBox(BOX) //
+                .build();
+
+        Assert.assertEquals(frameStructure.getResiduesNum(), Integer.valueOf(50), "Wrong number of residues.");
+        for (int r = 0; r < 50; r++) {
+            Assert.assertEquals(frameStructure.getResidueNo(r), r, "Wrong residueNo.");
+            Assert.assertEquals(frameStructure.getResidueAtomsNum(r), 3, "Wrong residue size.");
+            Assert.assertEquals(frameStructure.getResidueAtom(r, 0), 100 + 3 * r, "Wrong pivot atom.");
+        }
+
+        GmxFrame frame = frameFactory.get(frameStructure, frameCoordinatesFromScratchBuilder() //
+                .withFrameStructure(frameStructure) //
+                .build());
+        for (int r = 0; r < 50; r++) {
+            Assert.assertEquals(frame.getResidue(r).getResidueNo(), r, "Residues are out of structure order.");
+            Assert.assertSame(frame.getResidue(r).getAllAtoms()[2], frame.getAtom(102 + 3 * r), "Wrong atom.");
+        }
+    }
+
     // ======== VALIDATORS ========
 
     private void verifyStructureMeta(GmxFrameStructure frameStructure, String description, Integer atomsNum) {
@@ -2,6 +2,7 @@ package com.asemenkov.tests.frame;
 
 import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
 import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
 import com.asemenkov.gromacs.io.gro.GmxGroFileAtomLine;
 import com.asemenkov.gromacs.particles.GmxAtom;
@@ -102,6 +103,62 @@ public class GmxFrameTest extends GmxAbstractTest {
         Assert.assertEquals(residues2.length, 1, "Length of residues array is not as expected.");
     }
 
+    @Test
+    public void testRebindFrameCoordinates() {
+        GmxAtom[] atoms = frame.getAtoms();
+        GmxResidue residue = frame.getResidues()[0];
+        xtcFileNativeReader.openXtcFile(XTC_WATER_IN_ARGON_PATH);
+
+        for (int i = 0; i < 3; i++) {
+            GmxFrameCoordinates nextCoordinates = xtcFileNativeReader.readNextFrame();
+            GmxFrame expectedFrame = frameFactory.get(frameStructure, nextCoordinates);
+            frame.rebindFrameCoordinates(nextCoordinates);
+
+            Assert.assertSame(frame.getFrameCoordinates(), nextCoordinates, "Frame coordinates are not rebound.");
+            Assert.assertSame(frame.getAtoms()[0], atoms[0], "Atoms are rebuilt.");
+            Assert.assertSame(frame.getResidues()[0], residue, "Residues are rebuilt.");
+            for (int j = 0; j < atoms.length; j++) Assert.assertEquals(atoms[j].getCoordinates(), //
+                    expectedFrame.getAtoms()[j].getCoordinates(), "Wrong coordinates of atom " + j);
+            Assert.assertEquals(residue.getPivotAtom().getCoordinates(), //
+                    expectedFrame.getResidues()[0].getPivotAtom().getCoordinates(), "Wrong residue coordinates.");
+        }
+
+        xtcFileNativeReader.closeXtcFile();
+        frame.getAtoms()[0].setCoordinateX(0.f);
+        Assert.assertNotEquals(frame.getFrameCoordinates().getX(0), 0.f, "Atom shares the coordinates.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "frameCoordinates .*")
+    public void testRebindFrameCoordinatesOfWrongLength() {
+        frame.rebindFrameCoordinates(new GmxFrameCoordinates(new float[9], 2));
+    }
+
+    @Test
+    public void testAtomsViewGetter() {
+        List<GmxAtom> atoms = frame.getAtomsView();
+        Assert.assertEquals(atoms.size(), 872, "Size of atoms view is not as expected.");
+        Assert.assertSame(atoms.get(871), frame.getAtoms()[871], "Atoms view is not as expected.");
+        Assert.assertSame(frame.getAtom(871), frame.getAtoms()[871], "Indexed atom getter is broken.");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAtomsViewIsReadOnly() {
+        frame.getAtomsView().set(0, frame.getAtom(1));
+    }
+
+    @Test
+    public void testResiduesViewGetter() {
+        List<GmxResidue> residues = frame.getResiduesView();
+        Assert.assertEquals(residues.size(), 1, "Size of residues view is not as expected.");
+        Assert.assertSame(residues.get(0), frame.getResidues()[0], "Residues view is not as expected.");
+        Assert.assertSame(frame.getResidue(0), frame.getResidues()[0], "Indexed residue getter is broken.");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testResiduesViewIsReadOnly() {
+        frame.getResiduesView().remove(0);
+    }
+
     @Test
     public void testAtomsNumGetter() {
         int atomsNum = frame.getAtomsNum();
@@ -135,6 +192,9 @@ public class GmxFrameTest extends GmxAbstractTest {
         Assert.assertEquals(box1[0], 7.f, "X dimension of box is not as expected.");
         Assert.assertEquals(box2[0], 7.f, "X dimension of box is not as expected.");
         Assert.assertNotSame(box1, box2, "Box getter doesn't make a copy of array.");
+        Assert.assertEquals(frame.getBoxX(), 7.f, "X dimension of box is not as expected.");
+        Assert.assertEquals(frame.getBoxY(), box1[1], "Y dimension of box is not as expected.");
+        Assert.assertEquals(frame.getBoxZ(), box1[2], "Z dimension of box is not as expected.");
     }
 
 }
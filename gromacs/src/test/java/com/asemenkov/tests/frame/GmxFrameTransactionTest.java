@@ -0,0 +1,146 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameTransaction;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.particles.atoms.GmxAtomAr;
+import com.asemenkov.particles.atoms.GmxAtomO;
+import com.asemenkov.particles.residues.GmxResidueH2O;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * @author asemenkov
+ * @since Sep 09, 2019
+ */
+@Test
+public class GmxFrameTransactionTest extends GmxAbstractTest {
+
+    private static final String REGEX_ATOM_NOT_FREE = "Atom is not free: GmxAtom(O|H|Ar)\\[.*\\]";
+    private static final String REGEX_NOT_IN_FRAME = "Error while removing (atoms|residues) from frame: .*";
+    private static final String REGEX_DUPLICATE = "Cannot append duplicate (atoms|residues)";
+
+    private GmxFrameStructure frameStructure;
+    private GmxFrameCoordinates frameCoordinates;
+    private GmxFrame frame;
+
+    @BeforeMethod
+    public void initFrame() {
+        frameStructure = createWaterInArgonStructure();
+        frameCoordinates = createWaterInArgonCoordinates();
+
+        frame = frameFactory.get(frameStructure, frameCoordinates);
+    }
+
+    @Test
+    public void testBatchAsConsecutiveCalls() {
+        GmxFrame expected = frameFactory.get(frameStructure, frameCoordinates);
+        for (int i = 0; i < 100; i++)
+            GmxFrameUtils.replaceAtomsWithResidues(expected, GmxResidueH2O.class, expected.getAtom(0));
+        GmxFrameUtils.replaceResiduesWithAtoms(expected, GmxAtomAr.class, "Ar", expected.getResidue(0));
+
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        for (int i = 0; i < 100; i++) transaction.replaceAtomsWithResidues(GmxResidueH2O.class, frame.getAtom(i));
+        transaction.replaceResiduesWithAtoms(GmxAtomAr.class, "Ar", frame.getResidue(0));
+        Assert.assertEquals(frame.getAtomsNum(), 872, "Frame is changed before commit.");
+        transaction.commit();
+
+        verifyFrame(frame, "Ar+SOL", 1, new float[] { 7.f, 7.f, 7.f });
+        verifyFrameAtoms(frame, 1070, "Argon", "Argon");
+        verifyFrameResidues(frame, 100, "Water", "Oxygen");
+        Assert.assertEquals(frame.getFrameCoordinates().getXyz(), expected.getFrameCoordinates().getXyz());
+        Assert.assertEquals(frame.getFrameStructure().getAtomAbbreviationsSequence(), //
+                expected.getFrameStructure().getAtomAbbreviationsSequence(), "Wrong atom abbreviations.");
+        for (int i = 0; i < frame.getAtomsNum(); i++) {
+            Assert.assertEquals(frame.getAtom(i).getAtomNo(), i, "Wrong atomNo.");
+            Assert.assertEquals(frame.getAtom(i).getClass(), expected.getAtom(i).getClass(), "Wrong atom class.");
+        }
+        for (int i = 0; i < frame.getResiduesNum(); i++)
+            Assert.assertEquals(frame.getResidue(i).getResidueNo(), i, "Wrong residueNo.");
+    }
+
+    @Test
+    public void testRemoveAppendedInSameTransaction() {
+        GmxAtom argon = atomFactory.get(GmxAtomAr.class, "Ar", -1, new float[] { 1.f, 1.f, 1.f });
+        GmxResidue water = residueByCoordsFactory.get(GmxResidueH2O.class, 1, new float[] { 2.f, 2.f, 2.f });
+
+        frame.beginTransaction() //
+                .appendFreeAtoms(argon) //
+                .appendResidues(water) //
+                .removeFreeAtoms(argon, frame.getAtom(0)) //
+                .removeResidues(water) //
+                .commit();
+
+        verifyFrameAtoms(frame, 871, "Argon", "Hydrogen");
+        verifyFrameResidues(frame, 1, "Water", "Oxygen");
+        Assert.assertEquals(frame.getFrameCoordinates().getAtomsNum(), 871, "Wrong number of coordinates.");
+    }
+
+    @Test
+    public void testFailedCommitKeepsFrame() {
+        GmxAtom[] atoms = frame.getAtoms();
+        GmxFrameTransaction transaction = frame.beginTransaction();
+        transaction.replaceAtomsWithAtoms(GmxAtomO.class, "O", frame.getAtom(0), frame.getAtom(871));
+        try {
+            transaction.commit();
+            Assert.fail("Transaction with not free atom is committed.");
+        } catch (GmxFrameException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Atom is not free"), "Wrong exception.");
+        }
+
+        Assert.assertEquals(frame.getAtoms(), atoms, "Frame is changed by failed commit.");
+        Assert.assertSame(frame.getFrameCoordinates(), frameCoordinates, "Frame is changed by failed commit.");
+    }
+
+    @Test
+    public void testTransactionOnView() {
+        GmxFrame view = frameViewFactory.get(frameStructure, frameCoordinates);
+        GmxAtom[] atoms = view.beginTransaction().replaceAtomsWithAtoms(GmxAtomO.class, "O", view.getAtom(0));
+        view.beginTransaction().appendFreeAtoms(atomFactory.get(GmxAtomAr.class, "Ar", -1, new float[3])).commit();
+
+        Assert.assertEquals(view.getAtomsNum(), 873, "Wrong number of atoms.");
+        Assert.assertFalse(atoms[0].isCoordinatesView(), "Atom of not committed transaction is bound.");
+        Assert.assertTrue(view.getAtom(872).isCoordinatesView(), "Appended atom is not a view.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_ATOM_NOT_FREE)
+    public void testRemoveNotFreeAtoms() {
+        frame.beginTransaction().removeFreeAtoms(frame.getAtom(871)).commit();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_NOT_IN_FRAME)
+    public void testRemoveNotInFrameResidues() {
+        GmxResidue water = residueByCoordsFactory.get(GmxResidueH2O.class, 1, new float[] { 1, 1, 1 });
+        frame.beginTransaction().removeResidues(water).commit();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_NOT_IN_FRAME)
+    public void testRemoveDuplicateAtoms() {
+        frame.beginTransaction().removeFreeAtoms(frame.getAtom(0)).removeFreeAtoms(frame.getAtom(0));
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_DUPLICATE)
+    public void testAppendAtomsOfFrame() {
+        frame.beginTransaction().appendFreeAtoms(frame.getAtom(0)).commit();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_DUPLICATE)
+    public void testAppendResiduesOfFrame() {
+        frame.beginTransaction().appendResidues(frame.getResidue(0)).commit();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testCommitTwice() {
+        GmxFrameTransaction transaction = frame.beginTransaction().removeFreeAtoms(frame.getAtom(0));
+        transaction.commit();
+        transaction.commit();
+    }
+
+}
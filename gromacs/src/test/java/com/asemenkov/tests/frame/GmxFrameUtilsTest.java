@@ -9,6 +9,8 @@ import com.asemenkov.gromacs.io.gro.GmxGroFileAtomLine;
 import com.asemenkov.gromacs.particles.GmxAtom;
 import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.gromacs.particles.utils.GmxAtomUtils;
+import com.asemenkov.gromacs.particles.utils.GmxResidueUtils;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
 import com.asemenkov.particles.atoms.GmxAtomAr;
 import com.asemenkov.particles.atoms.GmxAtomH;
 import com.asemenkov.particles.atoms.GmxAtomO;
@@ -20,6 +22,7 @@ import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author asemenkov
@@ -139,6 +142,31 @@ public class GmxFrameUtilsTest extends GmxAbstractTest {
         Assert.assertSame(frame.getAtoms()[100], atom, "Wrong pivot atom index.");
     }
 
+    @Test
+    public void testFirstAtomsSorting() {
+        float[] point = new float[] { 3.5f, 3.5f, 3.5f };
+        float[] xyz = frame.getFrameCoordinates().getXyz().clone();
+        GmxAtom[] sorted = GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, point);
+        GmxAtom[] first = GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, point, 10);
+
+        Assert.assertEquals(first.length, 10, "Wrong number of atoms.");
+        for (int i = 0; i < first.length; i++) Assert.assertSame(first[i], sorted[i], "Wrong atom " + i);
+        Assert.assertEquals(frame.getFrameCoordinates().getXyz(), xyz, "Frame is changed.");
+        Assert.assertEquals(frame.getAtoms()[0].getCoordinates(), new float[] { 3.804f, 2.449f, 4.279f });
+    }
+
+    @Test
+    public void testFirstResiduesSorting() {
+        GmxResidue[] first = GmxFrameUtils.getResiduesSortedByDistanceToPoint(frame, new float[3], 1);
+        Assert.assertSame(first[0], frame.getResidues()[0], "Wrong neighbour residue.");
+        Assert.assertEquals(GmxFrameUtils.getResiduesSortedByDistanceToPoint(frame, new float[3], 0).length, 0);
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testFirstAtomsSortingOfInvalidNumber() {
+        GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, new float[3], frame.getAtomsNum() + 1);
+    }
+
     @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_INVALID_POINT)
     public void testNeighborAtomsSortedByDistanceToInvalidPoint() {
         GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, new float[] {});
@@ -252,6 +280,29 @@ public class GmxFrameUtilsTest extends GmxAbstractTest {
         GmxFrameUtils.multiplyFrame(frame, 1, 0, -1);
     }
 
+    // ======== RESIDUES ROTATION ========
+
+    @Test
+    public void testResiduesRotationInFrameCoordinates() {
+        GmxFrame waters = createWaterFrame(50, new float[] { 3.f, 3.f, 3.f }, 2L);
+        GmxFrame view = frameViewFactory.get(waters.getFrameStructure(), waters.getFrameCoordinates());
+        Random random = new Random(3);
+        GmxRotation rotation = new GmxRotation();
+        float[] matrices = new float[9 * 50];
+        for (int i = 0; i < 50; i++) rotation.setRandom(random).getMatrix(matrices, 9 * i);
+
+        GmxFrameUtils.rotateResidues(view, matrices);
+        GmxResidueUtils.rotate(matrices, waters.getResidues());
+        for (int i = 0; i < waters.getAtomsNum(); i++)
+            Assert.assertEquals(view.getAtom(i).getCoordinates(), waters.getAtom(i).getCoordinates(), //
+                    "Wrong coordinates of atom " + i);
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Frame atoms aren't views.*")
+    public void testResiduesRotationInFrameWithoutViews() {
+        GmxFrameUtils.rotateResidues(frame, new float[9]);
+    }
+
     // ======== PARTICLES REMOVAL ========
 
     @Test
@@ -271,6 +322,21 @@ public class GmxFrameUtilsTest extends GmxAbstractTest {
         verifyFrameResidues(frame, 0, null, null);
     }
 
+    @Test
+    public void testRemoveManyResidues() {
+        GmxFrame waterFrame = createWaterFrame(8000, new float[] { 6.f, 6.f, 6.f }, 1L);
+        GmxResidue[] odd = waterFrame.getFilteredResidues(residue -> residue.getResidueNo() % 2 == 1);
+        GmxResidue last = waterFrame.getResidues()[7998];
+        GmxFrameUtils.removeResidues(waterFrame, odd);
+
+        Assert.assertEquals(waterFrame.getResiduesNum(), 4000, "Wrong number of residues.");
+        Assert.assertEquals(waterFrame.getAtomsNum(), 12000, "Wrong number of atoms.");
+        Assert.assertSame(waterFrame.getResidues()[3999], last, "Wrong order of residues.");
+        Assert.assertEquals(last.getResidueNo(), 3999, "Residues are not reindexed.");
+        for (int i = 0; i < waterFrame.getAtomsNum(); i++)
+            Assert.assertEquals(waterFrame.getAtom(i).getAtomNo(), i, "Atoms are not reindexed.");
+    }
+
     @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = REGEX_ATOM_NOT_FREE)
     public void testRemoveAtomNotFree() {
         GmxFrameUtils.removeFreeAtoms(frame, frame.getAtoms()[870]);
@@ -0,0 +1,141 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameInitializer;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.particles.atoms.GmxAtomAr;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author asemenkov
+ * @since Aug 05, 2019
+ */
+@Test
+public class GmxFrameViewTest extends GmxAbstractTest {
+
+    private GmxFrameCoordinates frameCoordinates;
+    private GmxFrame frame;
+
+    @BeforeMethod
+    public void initFrame() {
+        GmxFrameStructure frameStructure = createWaterInArgonStructure();
+        frameCoordinates = createWaterInArgonCoordinates();
+
+        frame = frameViewFactory.get(frameStructure, frameCoordinates);
+    }
+
+    @Test
+    public void testAtomsAreViews() {
+        Assert.assertTrue(Arrays.stream(frame.getAtoms()).allMatch(GmxAtom::isCoordinatesView), "Not a view.");
+        verifyAtomCoordinates(frame.getAtoms()[0], 3.804f, 2.449f, 4.279f);
+        verifyAtomCoordinates(frame.getAtoms()[871], 3.872f, 4.472f, 4.685f);
+    }
+
+    @Test
+    public void testAtomWritesToBuffer() {
+        frame.getAtoms()[100].setCoordinates(new float[] { 1.f, 2.f, 3.f });
+        frame.getAtoms()[101].setCoordinateY(5.f);
+        Assert.assertEquals(frameCoordinates.getX(100), 1.f, "Wrong X.");
+        Assert.assertEquals(frameCoordinates.getZ(100), 3.f, "Wrong Z.");
+        Assert.assertEquals(frameCoordinates.getY(101), 5.f, "Wrong Y.");
+    }
+
+    @Test
+    public void testRefillBuffer() {
+        GmxResidue residue = frame.getResidues()[0];
+        frameCoordinates.getXyz()[3 * 869] = 1.f;
+        frameCoordinates.getXyz()[3 * 871 + 2] = 2.f;
+        Assert.assertEquals(residue.getAllAtoms()[0].getCoordinateX(), 1.f, "Residue is not a view.");
+        Assert.assertEquals(residue.getAllAtoms()[2].getCoordinateZ(), 2.f, "Residue is not a view.");
+    }
+
+    @Test
+    public void testSwapBuffer() {
+        GmxAtom[] atoms = frame.getAtoms();
+        float[] xyz = new float[frameCoordinates.getXyz().length];
+        for (int i = 0; i < xyz.length; i++) xyz[i] = i;
+
+        frame.setFrameCoordinates(new GmxFrameCoordinates(xyz, 2));
+        GmxFrameInitializer.bindAtoms(frame);
+
+        Assert.assertSame(frame.getAtoms()[5], atoms[5], "Atoms are reallocated.");
+        verifyAtomCoordinates(atoms[5], 15.f, 16.f, 17.f);
+        verifyAtomCoordinates(frame.getResidues()[0].getPivotAtom(), 2607.f, 2608.f, 2609.f);
+        Assert.assertEquals(frame.getFrameNo(), 2, "Wrong frameNo.");
+    }
+
+    @Test
+    public void testRebindFrameCoordinates() {
+        GmxAtom atom = frame.getAtoms()[5];
+        float[] xyz = new float[frameCoordinates.getXyz().length];
+        frame.rebindFrameCoordinates(new GmxFrameCoordinates(xyz, 2));
+
+        xyz[15] = 1.f;
+        Assert.assertEquals(atom.getCoordinateX(), 1.f, "Atom is not a view of the new buffer.");
+        atom.setCoordinateZ(2.f);
+        Assert.assertEquals(frame.getFrameCoordinates().getZ(5), 2.f, "Atom is not a view of the new buffer.");
+        Assert.assertEquals(frameCoordinates.getZ(5), 5.748f, "Old buffer is changed.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testSwapBufferOfWrongLength() {
+        frame.setFrameCoordinates(new GmxFrameCoordinates(new float[9], 2));
+        GmxFrameInitializer.bindAtoms(frame);
+    }
+
+    @Test
+    public void testUnbindCoordinates() {
+        GmxAtom atom = frame.getAtoms()[0];
+        atom.unbindCoordinates();
+        atom.setCoordinateX(9.f);
+        Assert.assertFalse(atom.isCoordinatesView(), "Atom is still a view.");
+        Assert.assertEquals(frameCoordinates.getX(0), 3.804f, "Buffer is changed by unbound atom.");
+    }
+
+    @Test
+    public void testDeepCopy() {
+        GmxAtom[] atoms = frame.getAtomsDeepCopy();
+        atoms[0].setCoordinateX(9.f);
+        Assert.assertEquals(frame.getAtoms()[0].getCoordinateX(), 3.804f, "Deep copy shares the buffer.");
+        Assert.assertEquals(atoms[1].getCoordinateX(), frame.getAtoms()[1].getCoordinateX(), "Wrong copy.");
+    }
+
+    // ======== FRAME UTILS ON VIEWS ========
+
+    @Test
+    public void testRemoveAndAppendAtoms() {
+        GmxAtom[] argon = frame.getFilteredAtoms(atom -> atom.getClass() == GmxAtomAr.class);
+        GmxFrameUtils.removeFreeAtoms(frame, argon[0], argon[1]);
+        GmxAtom atom = atomFactory.get(GmxAtomAr.class, "Ar", -1, new float[] { 1.f, 2.f, 3.f });
+        GmxFrameUtils.appendFreeAtoms(frame, atom);
+
+        Assert.assertEquals(frame.getAtomsNum(), 871, "Wrong number of atoms.");
+        Assert.assertEquals(frame.getFrameCoordinates().getAtomsNum(), 871, "Wrong number of coordinates.");
+        Assert.assertTrue(atom.isCoordinatesView(), "Appended atom is not a view.");
+
+        atom.setCoordinateX(4.f);
+        Assert.assertEquals(frame.getFrameCoordinates().getX(atom.getAtomNo()), 4.f, "Wrong X.");
+        frame.getAtoms()[0].setCoordinateX(5.f);
+        Assert.assertEquals(frame.getFrameCoordinates().getX(0), 5.f, "Wrong X.");
+    }
+
+    @Test
+    public void testMultiplyFrame() {
+        GmxFrameUtils.multiplyFrame(frame, 2, 1, 1);
+        GmxAtom copy = frame.getAtoms()[872];
+        Assert.assertEquals(frame.getFrameCoordinates().getAtomsNum(), 1744, "Wrong number of coordinates.");
+        Assert.assertEquals(copy.getCoordinateX(), frame.getAtoms()[0].getCoordinateX() + 7.f, 1e-5f);
+        Assert.assertEquals(frame.getFrameCoordinates().getX(872), copy.getCoordinateX(), "Wrong X.");
+    }
+
+}
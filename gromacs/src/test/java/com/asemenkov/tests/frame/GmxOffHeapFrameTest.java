@@ -0,0 +1,139 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.offheap.GmxOffHeapFrame;
+import com.asemenkov.gromacs.frame.offheap.GmxOffHeapTopology;
+import com.asemenkov.gromacs.frame.structure.GmxFrameStructure;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.particles.atoms.GmxAtomAr;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Aug 12, 2019
+ */
+@Test
+public class GmxOffHeapFrameTest extends GmxAbstractTest {
+
+    private GmxFrameStructure frameStructure;
+    private GmxFrameCoordinates frameCoordinates;
+    private GmxOffHeapFrame offHeapFrame;
+    private GmxFrame frame;
+
+    @BeforeClass
+    public void initFrames() {
+        frameStructure = createWaterInArgonStructure();
+        frameCoordinates = createWaterInArgonCoordinates();
+
+        frame = frameFactory.get(frameStructure, frameCoordinates);
+        offHeapFrame = offHeapFrameBuilder() //
+                .withFrameStructure(frameStructure) //
+                .withFrameCoordinates(frameCoordinates) //
+                .build();
+    }
+
+    @Test
+    public void testGetters() {
+        Assert.assertEquals(offHeapFrame.getAtomsNum(), 872, "Wrong number of atoms.");
+        Assert.assertEquals(offHeapFrame.getResiduesNum(), 1, "Wrong number of residues.");
+        Assert.assertEquals(offHeapFrame.getFrameNo(), 1, "Wrong frameNo.");
+        Assert.assertEquals(offHeapFrame.getDescription(), "Ar+SOL", "Wrong description.");
+        Assert.assertEquals(offHeapFrame.getBox(), frame.getBox(), "Wrong box.");
+        Assert.assertEquals(offHeapFrame.getTopology().getAtomTypesNum(), 4, "Wrong number of atom types.");
+    }
+
+    @Test
+    public void testAtomsAsInFrame() {
+        GmxOffHeapTopology topology = offHeapFrame.getTopology();
+        GmxAtom[] atoms = frame.getAtoms();
+        IntStream.range(0, atoms.length).forEach(i -> {
+            Assert.assertEquals(topology.getAtomClass(i), atoms[i].getClass(), "Wrong atom class.");
+            Assert.assertEquals(topology.getAtomAbbreviation(i), atoms[i].getAbbreviation(), "Wrong abbreviation.");
+            Assert.assertEquals(offHeapFrame.getX(i), atoms[i].getCoordinateX(), "Wrong X.");
+            Assert.assertEquals(offHeapFrame.getY(i), atoms[i].getCoordinateY(), "Wrong Y.");
+            Assert.assertEquals(offHeapFrame.getZ(i), atoms[i].getCoordinateZ(), "Wrong Z.");
+        });
+        Assert.assertTrue(topology.isFreeAtom(0), "Argon is not free.");
+        Assert.assertEquals(topology.getAtomResidue(870), 0, "Wrong residue of hydrogen.");
+    }
+
+    @Test
+    public void testResiduesAsInFrame() {
+        GmxOffHeapTopology topology = offHeapFrame.getTopology();
+        GmxResidue residue = frame.getResidues()[0];
+        Assert.assertEquals(topology.getResidueClass(0), residue.getClass(), "Wrong residue class.");
+        Assert.assertEquals(topology.getResidueNo(0), residue.getResidueNo(), "Wrong residue number.");
+        Assert.assertEquals(topology.getResidueAtomsNum(0), 3, "Wrong number of residue atoms.");
+        for (int k = 0; k < 3; k++)
+            Assert.assertEquals(topology.getResidueAtom(0, k), residue.getAllAtoms()[k].getAtomNo());
+        Assert.assertEquals(topology.getPivotAtom(0), residue.getPivotAtom().getAtomNo(), "Wrong pivot atom.");
+    }
+
+    @Test
+    public void testFunctionalInterface() {
+        Assert.assertEquals(offHeapFrame.getMinAtom(offHeapFrame::getX), //
+                GmxFrameUtils.getAtomWithMinimalX(frame).getAtomNo(), "Wrong atom with minimal X.");
+        Assert.assertEquals(offHeapFrame.getMaxAtom(offHeapFrame::getRadiusVector), //
+                GmxFrameUtils.getAtomWithMaximalRadiusVector(frame).getAtomNo(), "Wrong atom with maximal R.");
+
+        GmxOffHeapTopology topology = offHeapFrame.getTopology();
+        int[] argon = offHeapFrame.getFilteredAtoms(i -> topology.getAtomClass(i) == GmxAtomAr.class);
+        Assert.assertEquals(argon.length, 869, "Wrong number of argon atoms.");
+
+        int[] sorted = offHeapFrame.getSortedAtoms(offHeapFrame::getZ);
+        Assert.assertEquals(sorted.length, 872, "Wrong number of sorted atoms.");
+        for (int i = 1; i < sorted.length; i++)
+            Assert.assertTrue(offHeapFrame.getZ(sorted[i - 1]) <= offHeapFrame.getZ(sorted[i]), "Not sorted.");
+    }
+
+    @Test
+    public void testReadCoordinatesIntoSharedTopology() {
+        float[] xyz = new float[3 * 872];
+        for (int i = 0; i < xyz.length; i++) xyz[i] = i;
+
+        GmxOffHeapFrame nextFrame = offHeapFrameBuilder() //
+                .withTopology(offHeapFrame.getTopology()) //
+                .withBox(offHeapFrame.getBox()) //
+                .build();
+        nextFrame.readCoordinates(new GmxFrameCoordinates(xyz, 2));
+
+        Assert.assertSame(nextFrame.getTopology(), offHeapFrame.getTopology(), "Topology is not shared.");
+        Assert.assertEquals(nextFrame.getFrameNo(), 2, "Wrong frameNo.");
+        Assert.assertEquals(nextFrame.getY(5), 16.f, "Wrong Y.");
+        Assert.assertEquals(nextFrame.toFrameCoordinates().getXyz(), xyz, "Wrong coordinates.");
+        Assert.assertEquals(offHeapFrame.getX(0), frameCoordinates.getX(0), "Coordinates are shared.");
+
+        nextFrame.setCoordinates(5, 1.f, 2.f, 3.f);
+        float[] destination = new float[3];
+        nextFrame.getCoordinates(5, destination);
+        Assert.assertEquals(destination, new float[] { 1.f, 2.f, 3.f }, "Wrong coordinates.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "frameCoordinates .*")
+    public void testReadCoordinatesOfWrongLength() {
+        offHeapFrame.readCoordinates(new GmxFrameCoordinates(new float[9], 2));
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "frameStructure .*")
+    public void testBuildWithoutFrameStructure() {
+        offHeapFrameBuilder().withFrameCoordinates(frameCoordinates).build();
+    }
+
+    @Test
+    public void testResiduesFunctionalInterface() {
+        GmxOffHeapTopology topology = offHeapFrame.getTopology();
+        int[] residues = offHeapFrame.getFilteredResidues(r -> topology.getResidueAtomsNum(r) == 3);
+        Assert.assertEquals(residues, new int[] { 0 }, "Wrong filtered residues.");
+        Assert.assertEquals(offHeapFrame.getMaxResidue(r -> offHeapFrame.getX(topology.getPivotAtom(r))), 0);
+    }
+
+}
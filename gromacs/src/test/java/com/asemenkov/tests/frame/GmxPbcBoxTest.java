@@ -0,0 +1,178 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+/**
+ * @author asemenkov
+ * @since Jun 10, 2019
+ */
+@Test
+public class GmxPbcBoxTest {
+
+    private static final float[] RECTANGULAR_BOX = new float[] { 3.f, 4.f, 5.f };
+    private static final float[] TRICLINIC_BOX = new float[] { 3.f, 2.6f, 2.4f, 0, 0, 1.4f, 0, -1.2f, 1.1f };
+    private static final float DELTA = 1e-4f;
+
+    // ======== TEST MINIMUM IMAGE ========
+
+    @Test
+    public void testRectangularMinimumImage() {
+        GmxPbcBox box = GmxPbcBox.of(RECTANGULAR_BOX);
+        Assert.assertFalse(box.isTriclinic());
+
+        float[] delta = new float[] { 2.f, -3.5f, 7.f };
+        box.minimumImage(delta);
+        Assert.assertEquals(delta[0], -1.f, DELTA);
+        Assert.assertEquals(delta[1], 0.5f, DELTA);
+        Assert.assertEquals(delta[2], 2.f, DELTA);
+        verifyMinimumImageAgainstBruteForce(box, RECTANGULAR_BOX, 10000);
+    }
+
+    @Test
+    public void testTriclinicMinimumImage() {
+        GmxPbcBox box = GmxPbcBox.of(TRICLINIC_BOX);
+        Assert.assertTrue(box.isTriclinic());
+        Assert.assertEquals(box.getVolume(), 3. * 2.6 * 2.4, DELTA);
+        verifyMinimumImageAgainstBruteForce(box, TRICLINIC_BOX, 10000);
+    }
+
+    @Test
+    public void testDistancesAndAngles() {
+        GmxPbcBox box = GmxPbcBox.of(RECTANGULAR_BOX);
+        float[] xyz = new float[] { 0.1f, 0.1f, 0.1f, 2.9f, 0.1f, 0.1f, 0.1f, 3.9f, 0.1f };
+        Assert.assertEquals(box.distance(xyz, 0, 1), 0.2, DELTA);
+        Assert.assertEquals(box.distance(xyz, 1, 2), Math.sqrt(0.08), DELTA);
+        Assert.assertEquals(box.angleCosine(xyz, 0, 1, 2), 0, DELTA);
+    }
+
+    @Test
+    public void testTriclinicDistancesAndAnglesAsMinimumImage() {
+        GmxPbcBox box = GmxPbcBox.of(TRICLINIC_BOX);
+        Random random = new Random(11);
+        float[] xyz = new float[3000];
+        for (int i = 0; i < xyz.length; i++) xyz[i] = 12 * random.nextFloat() - 6;
+
+        for (int i = 0; i + 2 < 1000; i++) {
+            float[] delta1 = new float[3];
+            float[] delta2 = new float[3];
+            box.displacement(xyz, i, i + 1, delta1);
+            box.displacement(xyz, i, i + 2, delta2);
+            double length1 = Math.sqrt(delta1[0] * delta1[0] + delta1[1] * delta1[1] + delta1[2] * delta1[2]);
+            double length2 = Math.sqrt(delta2[0] * delta2[0] + delta2[1] * delta2[1] + delta2[2] * delta2[2]);
+            double cosine = (delta1[0] * delta2[0] + delta1[1] * delta2[1] + delta1[2] * delta2[2]) //
+                    / (length1 * length2);
+
+            Assert.assertEquals(box.distance(xyz, i, i + 1), length1, DELTA, "Wrong distance.");
+            Assert.assertEquals(box.angleCosine(xyz, i, i + 1, i + 2), cosine, DELTA, "Wrong angle cosine.");
+        }
+    }
+
+    // ======== TEST WRAPPING ========
+
+    @Test
+    public void testWrap() {
+        for (float[] components : new float[][] { RECTANGULAR_BOX, TRICLINIC_BOX }) {
+            GmxPbcBox box = GmxPbcBox.of(components);
+            Random random = new Random(7);
+            float[] xyz = new float[3000];
+            for (int i = 0; i < xyz.length; i++) xyz[i] = 20 * random.nextFloat() - 10;
+            float[] wrapped = xyz.clone();
+            box.wrap(wrapped, 1000);
+
+            for (int i = 0; i < 1000; i++) {
+                float[] point = new float[] { wrapped[3 * i], wrapped[3 * i + 1], wrapped[3 * i + 2] };
+                Assert.assertTrue(box.getFractionalZ(point[2]) >= -DELTA);
+                Assert.assertTrue(box.getFractionalZ(point[2]) < 1 + DELTA);
+                Assert.assertTrue(box.getFractionalY(point[1], point[2]) >= -DELTA);
+                Assert.assertTrue(box.getFractionalY(point[1], point[2]) < 1 + DELTA);
+                Assert.assertTrue(box.getFractionalX(point[0], point[1], point[2]) >= -DELTA);
+                Assert.assertTrue(box.getFractionalX(point[0], point[1], point[2]) < 1 + DELTA);
+                float[] original = new float[] { xyz[3 * i], xyz[3 * i + 1], xyz[3 * i + 2] };
+                Assert.assertEquals(box.distance(original, point), 0, 1e-3, "Wrapping is not a periodic shift.");
+            }
+        }
+    }
+
+    @Test
+    public void testWrapWithImagesAsMinimumImage() {
+        for (float[] components : new float[][] { RECTANGULAR_BOX, TRICLINIC_BOX }) {
+            GmxPbcBox box = GmxPbcBox.of(components);
+            Random random = new Random(5);
+
+            for (int sample = 0; sample < 3000; sample++) {
+                float[] atom = new float[] { 10 * random.nextFloat() - 5, 10 * random.nextFloat() - 5, 0 };
+                float[] point = new float[] { 10 * random.nextFloat() - 5, 10 * random.nextFloat() - 5, 0 };
+                atom[2] = 10 * random.nextFloat() - 5;
+                point[2] = 10 * random.nextFloat() - 5;
+                box.wrap(point);
+                float[] images = box.wrapWithImages(atom, 1, 1.5f);
+                double expected = box.distance(point, atom);
+                if (Math.abs(expected - 1.5) < DELTA) continue;
+
+                boolean isImageWithin = false;
+                for (int i = 0; i < images.length; i += 3) {
+                    float deltaX = images[i] - point[0], deltaY = images[i + 1] - point[1];
+                    float deltaZ = images[i + 2] - point[2];
+                    isImageWithin |= deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ <= 1.5 * 1.5;
+                }
+                Assert.assertEquals(isImageWithin, expected <= 1.5, "Wrong periodic images.");
+            }
+        }
+    }
+
+    // ======== TEST EQUALITY ========
+
+    @Test
+    public void testEquals() {
+        GmxPbcBox box = GmxPbcBox.of(TRICLINIC_BOX);
+        Assert.assertEquals(GmxPbcBox.of(box.getComponents()), box, "Equal boxes differ.");
+        Assert.assertEquals(GmxPbcBox.of(box.getComponents()).hashCode(), box.hashCode(), "Hash codes differ.");
+        Assert.assertEquals(GmxPbcBox.of(new float[] { 3.f, 4.f, 5.f, 0, 0, 0, 0, 0, 0 }),
+                GmxPbcBox.of(RECTANGULAR_BOX), "Equal boxes differ.");
+        Assert.assertNotEquals(GmxPbcBox.of(RECTANGULAR_BOX), box, "Different boxes are equal.");
+    }
+
+    // ======== TEST INVALID BOXES ========
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Invalid box: .*")
+    public void testInvalidBox() {
+        GmxPbcBox.of(new float[] { 1.f, -1.f, 1.f });
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = "Triclinic box .*")
+    public void testUpperTriangularBox() {
+        GmxPbcBox.of(new float[] { 3.f, 3.f, 3.f, 0.5f, 0, 0, 0, 0, 0 });
+    }
+
+    // ======== SUPPORT METHODS ========
+
+    private void verifyMinimumImageAgainstBruteForce(GmxPbcBox box, float[] components, int samples) {
+        float[] matrix = box.getComponents();
+        float ax = matrix[0], by = matrix[1], cz = matrix[2], bx = matrix[5], cx = matrix[7], cy = matrix[8];
+        Random random = new Random(components.length);
+
+        for (int sample = 0; sample < samples; sample++) {
+            float[] delta = new float[3];
+            for (int i = 0; i < 3; i++) delta[i] = 12 * random.nextFloat() - 6;
+
+            double best = Double.MAX_VALUE;
+            for (int i = -4; i <= 4; i++)
+                for (int j = -4; j <= 4; j++)
+                    for (int k = -4; k <= 4; k++) {
+                        double x = delta[0] + i * ax + j * bx + k * cx;
+                        double y = delta[1] + j * by + k * cy;
+                        double z = delta[2] + k * cz;
+                        best = Math.min(best, x * x + y * y + z * z);
+                    }
+
+            box.minimumImage(delta);
+            double actual = delta[0] * delta[0] + delta[1] * delta[1] + delta[2] * delta[2];
+            Assert.assertEquals(actual, best, 1e-3, "Minimum image is not the shortest one.");
+        }
+    }
+}
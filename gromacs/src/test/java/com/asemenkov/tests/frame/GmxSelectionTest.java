@@ -0,0 +1,136 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.pbc.GmxPbcBox;
+import com.asemenkov.gromacs.frame.selection.GmxSelection;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Oct 14, 2019
+ */
+@Test
+public class GmxSelectionTest extends GmxAbstractTest {
+
+    private GmxFrame frame;
+
+    @BeforeMethod
+    public void initFrame() {
+        frame = frameFactory.get(createWaterInArgonStructure(), createWaterInArgonCoordinates());
+    }
+
+    @Test
+    public void testStaticSelections() {
+        verifySelection("name OW", 869);
+        verifySelection("resname SOL", 869, 870, 871);
+        verifySelection("donor", 870, 871);
+        verifySelection("acceptor", 869);
+        verifySelection("resnr 869 and not (name HW1 or acceptor)", 871);
+        verifySelection("atomnr 3 to 5 868", 3, 4, 5, 868);
+        verifySelection("none or name OW and resnr 1 to 10");
+
+        Assert.assertEquals(select("all").cardinality(), 872, "Wrong number of atoms.");
+        Assert.assertEquals(select("not resname SOL").cardinality(), 869, "Wrong number of atoms.");
+        Assert.assertEquals(select("name Ar and not atomnr 0 to 99").cardinality(), 769, "Wrong number of atoms.");
+        Assert.assertTrue(selectionBuilder().withExpression("donor or name Ar").build().isStatic(), "Not static.");
+    }
+
+    @Test
+    public void testStaticSelectionIsNotModifiedByCaller() {
+        GmxSelection selection = selectionBuilder().withExpression("resname SOL").build();
+        selection.select(frame).clear();
+        Assert.assertEquals(selection.select(frame).cardinality(), 3, "Cached selection is modified.");
+        Assert.assertEquals(selection.getAtomIndexes(frame), new int[] { 869, 870, 871 }, "Wrong atom indexes.");
+    }
+
+    @Test
+    public void testWithinAsBruteForce() {
+        GmxSelection selection = selectionBuilder().withExpression("name Ar and within 0.6 of resname SOL").build();
+        Assert.assertFalse(selection.isStatic(), "Geometric selection is static.");
+
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 869; i++)
+            for (int j = 869; j < 872; j++)
+                if (getDistance(frame.getAtom(i), frame.getAtom(j)) <= 0.6f) expected.set(i);
+        Assert.assertFalse(expected.isEmpty(), "No atoms near water.");
+        Assert.assertEquals(selection.select(frame), expected, "Wrong atoms within radius.");
+
+        GmxAtom far = IntStream.range(0, 869).filter(i -> !expected.get(i)).mapToObj(frame::getAtom) //
+                .findFirst().orElseThrow(AssertionError::new);
+        far.setCoordinates(frame.getAtom(870).getCoordinates());
+        Assert.assertTrue(selection.select(frame).get(far.getAtomNo()), "Selection doesn't follow coordinates.");
+    }
+
+    @Test
+    public void testSelectedAsFilteredAtoms() {
+        GmxSelection selection = selectionBuilder().withExpression("name HW1 HW2 or within 0.4 of acceptor").build();
+        GmxAtom[] selected = frame.getSelectedAtoms(selection);
+        GmxAtom oxygen = frame.getAtom(869);
+        GmxAtom[] filtered = frame.getFilteredAtoms(atom -> atom.getAbbreviation().startsWith("HW") //
+                || getDistance(atom, oxygen) <= 0.4f);
+        Assert.assertEquals(selected, filtered, "Selected atoms differ from filtered ones.");
+    }
+
+    @Test
+    public void testWithinAcrossBoxEdge() {
+        frame.getAtom(869).setCoordinates(new float[] { .1f, .1f, .1f });
+        frame.getAtom(0).setCoordinates(new float[] { 6.95f, 6.95f, 6.95f });
+        verifySelection("atomnr 0 and within 0.3 of name OW", 0);
+
+        GmxAtom edge = IntStream.range(1, 869).mapToObj(frame::getAtom) //
+                .max(Comparator.comparing(GmxAtom::getCoordinateX)).orElseThrow(AssertionError::new);
+        frame.getAtom(869).setCoordinates(edge.getCoordinates());
+        frame.getAtom(869).setCoordinateX(edge.getCoordinateX() - 6.7f);
+
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 872; i++) if (getDistance(frame.getAtom(i), frame.getAtom(869)) <= 1.2f) expected.set(i);
+        Assert.assertTrue(expected.cardinality() > 5, "Too few atoms near the box edge.");
+        Assert.assertEquals(select("within 1.2 of name OW"), expected, "Wrong atoms within radius.");
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = ".*Missing abbreviation")
+    public void testSelectionWithoutNames() {
+        selectionBuilder().withExpression("name and donor").build();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = ".*Unknown residue.*")
+    public void testSelectionWithUnknownResidue() {
+        selectionBuilder().withExpression("resname XYZ").build();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = ".*Missing '\\)'")
+    public void testSelectionWithUnbalancedParenthesis() {
+        selectionBuilder().withExpression("(name OW or donor").build();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = ".*Invalid radius.*")
+    public void testSelectionWithInvalidRadius() {
+        selectionBuilder().withExpression("within -1 of all").build();
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class, expectedExceptionsMessageRegExp = ".*Unexpected end")
+    public void testIncompleteSelection() {
+        selectionBuilder().withExpression("donor or").build();
+    }
+
+    private BitSet select(String expression) {
+        return selectionBuilder().withExpression(expression).build().select(frame);
+    }
+
+    private void verifySelection(String expression, int... atoms) {
+        Assert.assertEquals(select(expression).stream().toArray(), atoms, "Wrong selection: " + expression);
+    }
+
+    private float getDistance(GmxAtom atom1, GmxAtom atom2) {
+        return (float) GmxPbcBox.of(frame.getBox()).distance(atom1, atom2);
+    }
+}
@@ -0,0 +1,177 @@
+package com.asemenkov.tests.frame;
+
+import com.asemenkov.gromacs.frame.GmxFrame;
+import com.asemenkov.gromacs.frame.exceptions.GmxFrameException;
+import com.asemenkov.gromacs.frame.utils.GmxFrameUtils;
+import com.asemenkov.gromacs.frame.utils.GmxSpatialIndex;
+import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.GmxResidue;
+import com.asemenkov.tests.config.GmxAbstractTest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * @author asemenkov
+ * @since Aug 26, 2019
+ */
+@Test
+public class GmxSpatialIndexTest extends GmxAbstractTest {
+
+    private GmxFrame frame;
+    private GmxSpatialIndex atomsIndex;
+
+    @BeforeClass
+    public void initFrame() {
+        frame = frameFactory.get(createWaterInArgonStructure(), createWaterInArgonCoordinates());
+        atomsIndex = GmxSpatialIndex.ofAtoms(frame);
+    }
+
+    @Test
+    public void testNeighbourAtomAsSorted() {
+        Random random = new Random(1);
+        for (int q = 0; q < 50; q++) {
+            float[] point = { 8 * random.nextFloat(), 8 * random.nextFloat(), 8 * random.nextFloat() };
+            GmxAtom[] sorted = GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, point);
+            int order = random.nextInt(20);
+            Assert.assertSame(GmxFrameUtils.getNeighbourAtom(frame, atomsIndex, point, order), sorted[order]);
+        }
+    }
+
+    @Test
+    public void testNearestAsSorted() {
+        float[] point = frame.getAtom(5).getCoordinates();
+        GmxAtom[] sorted = GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, point);
+        int[] nearest = atomsIndex.getNearest(point[0], point[1], point[2], 30);
+        Assert.assertEquals(nearest[0], 5, "Atom is not nearest to itself.");
+        for (int i = 0; i < nearest.length; i++)
+            Assert.assertSame(frame.getAtom(nearest[i]), sorted[i], "Wrong neighbour " + i);
+
+        int[] all = atomsIndex.getNearest(point[0], point[1], point[2], frame.getAtomsNum());
+        for (int i = 0; i < all.length; i++) Assert.assertSame(frame.getAtom(all[i]), sorted[i]);
+    }
+
+    @Test
+    public void testWithinRadiusAsBruteForce() {
+        float[] point = { 3.5f, 3.5f, 3.5f };
+        GmxAtom[] within = GmxFrameUtils.getAtomsWithinRadius(frame, atomsIndex, point, 1.2f);
+        GmxAtom[] expected = Arrays.stream(GmxFrameUtils.getAtomsSortedByDistanceToPoint(frame, point)) //
+                .filter(atom -> squaredDistance(atom, point) <= 1.2f * 1.2f) //
+                .toArray(GmxAtom[]::new);
+
+        Assert.assertTrue(expected.length > 10, "Too few atoms in the sphere.");
+        Assert.assertEquals(within.length, expected.length, "Wrong number of atoms in the sphere.");
+        for (int i = 0; i < within.length; i++) Assert.assertSame(within[i], expected[i]);
+        Assert.assertEquals(GmxFrameUtils.getAtomsWithinRadius(frame, atomsIndex, point, 0.f).length, 0);
+    }
+
+    @Test
+    public void testResidues() {
+        GmxFrame waterFrame = createWaterFrame(100, new float[] { 3.f, 3.f, 3.f }, 1L);
+        GmxSpatialIndex residuesIndex = GmxSpatialIndex.ofResidues(waterFrame);
+        float[] point = { 1.f, 2.f, .5f };
+
+        GmxResidue[] sorted = GmxFrameUtils.getResiduesSortedByDistanceToPoint(waterFrame, point);
+        for (int order = 0; order < 10; order++)
+            Assert.assertSame(GmxFrameUtils.getNeighbourResidue(waterFrame, residuesIndex, point, order), //
+                    sorted[order], "Wrong neighbour " + order);
+
+        GmxResidue[] within = GmxFrameUtils.getResiduesWithinRadius(waterFrame, residuesIndex, point, 1.f);
+        long expected = Arrays.stream(sorted).filter(r -> squaredDistance(r.getPivotAtom(), point) <= 1.f).count();
+        Assert.assertEquals(within.length, expected, "Wrong number of residues in the sphere.");
+    }
+
+    @Test
+    public void testParallelQueries() {
+        boolean allMatch = IntStream.range(0, frame.getAtomsNum()).parallel().allMatch(i -> {
+            GmxAtom atom = frame.getAtom(i);
+            int[] nearest = atomsIndex.getNearest(atom.getCoordinateX(), atom.getCoordinateY(),
+                    atom.getCoordinateZ(), 2);
+            return nearest[0] == i && nearest[1] != i;
+        });
+        Assert.assertTrue(allMatch, "Atom is not nearest to itself.");
+    }
+
+    @Test
+    public void testIndexIsSnapshot() {
+        float[] xyz = { 0.f, 0.f, 0.f, 1.f, 1.f, 1.f };
+        GmxSpatialIndex index = GmxSpatialIndex.of(xyz);
+        xyz[3] = 10.f;
+        Assert.assertEquals(index.getPointsNum(), 2, "Wrong number of points.");
+        Assert.assertEquals(index.getNearest(.9f, .9f, .9f, 2), new int[] { 1, 0 }, "Wrong neighbours.");
+    }
+
+    @Test
+    public void testDegeneratePoints() {
+        GmxSpatialIndex samePoints = GmxSpatialIndex.of(new float[] { 1.f, 1.f, 1.f, 1.f, 1.f, 1.f, 1.f, 1.f, 1.f });
+        Assert.assertEquals(samePoints.getNearest(5.f, 5.f, 5.f, 3), new int[] { 0, 1, 2 }, "Wrong tie breaking.");
+        Assert.assertEquals(samePoints.getWithinRadius(1.f, 1.f, 2.f, 1.f), new int[] { 0, 1, 2 });
+
+        float[] xyz = new float[300];
+        for (int i = 0; i < 100; i++) xyz[3 * i] = i;
+        GmxSpatialIndex line = GmxSpatialIndex.of(xyz);
+        Assert.assertEquals(line.getNearest(41.6f, 0.f, 0.f, 3), new int[] { 42, 41, 43 }, "Wrong neighbours.");
+        Assert.assertEquals(line.getWithinRadius(-1.f, 0.f, 0.f, 2.f), new int[] { 0, 1 }, "Wrong neighbours.");
+
+        GmxSpatialIndex empty = GmxSpatialIndex.of(new float[0]);
+        Assert.assertEquals(empty.getNearest(0.f, 0.f, 0.f, 0).length, 0, "Wrong neighbours.");
+        Assert.assertEquals(empty.getWithinRadius(0.f, 0.f, 0.f, 1.f).length, 0, "Wrong neighbours.");
+    }
+
+    @Test
+    public void testFlatAndCollinearPoints() {
+        Random random = new Random(3);
+        float[][] pointSets = { new float[30000], new float[30000], new float[30000] };
+        for (int i = 0; i < 10000; i++) {
+            pointSets[0][3 * i] = 10 * random.nextFloat();
+            pointSets[0][3 * i + 1] = 10 * random.nextFloat();
+            pointSets[0][3 * i + 2] = 1e-7f * random.nextFloat();
+            pointSets[1][3 * i] = 10 * random.nextFloat();
+            pointSets[1][3 * i + 1] = 1e-7f * random.nextFloat();
+            pointSets[1][3 * i + 2] = 1e-7f * random.nextFloat();
+            pointSets[2][3 * i] = 10 * random.nextFloat();
+            pointSets[2][3 * i + 1] = 1e-30f * random.nextFloat();
+            pointSets[2][3 * i + 2] = 1e-30f * random.nextFloat();
+        }
+
+        for (float[] xyz : pointSets) {
+            GmxSpatialIndex index = GmxSpatialIndex.of(xyz);
+            Assert.assertTrue(index.getCellsNum() <= 10000, "Too many cells: " + index.getCellsNum());
+            Assert.assertTrue(index.getCellsNum() >= 100, "Too few cells: " + index.getCellsNum());
+
+            int[] within = index.getWithinRadius(5.f, 5.f, 0.f, .2f);
+            long expected = IntStream.range(0, 10000).filter(i -> { //
+                float deltaX = xyz[3 * i] - 5.f, deltaY = xyz[3 * i + 1] - 5.f, deltaZ = xyz[3 * i + 2];
+                return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ <= .2f * .2f;
+            }).count();
+            Assert.assertEquals(within.length, expected, "Wrong number of points within radius.");
+        }
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testInvalidNeighboursNum() {
+        atomsIndex.getNearest(0.f, 0.f, 0.f, frame.getAtomsNum() + 1);
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testInvalidRadius() {
+        atomsIndex.getWithinRadius(0.f, 0.f, 0.f, -1.f);
+    }
+
+    @Test(expectedExceptions = GmxFrameException.class)
+    public void testInvalidInterleavedCoordinates() {
+        GmxSpatialIndex.of(new float[4]);
+    }
+
+    private static float squaredDistance(GmxAtom atom, float[] point) {
+        float deltaX = atom.getCoordinateX() - point[0];
+        float deltaY = atom.getCoordinateY() - point[1];
+        float deltaZ = atom.getCoordinateZ() - point[2];
+        return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.asemenkov.tests.particles;
 
 import com.asemenkov.gromacs.particles.GmxAtom;
+import com.asemenkov.gromacs.particles.utils.GmxAnglePredicate;
 import com.asemenkov.particles.atoms.GmxAtomAr;
 import com.asemenkov.particles.atoms.GmxAtomH;
 import com.asemenkov.particles.atoms.GmxAtomO;
@@ -8,6 +9,8 @@ import com.asemenkov.tests.config.GmxAbstractTest;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Random;
+
 import static com.asemenkov.gromacs.particles.utils.GmxAtomUtils.*;
 
 /**
@@ -115,6 +118,26 @@ public class GmxAtomTest extends GmxAbstractTest {
         Assert.assertEquals(Math.toDegrees(Math.acos(cosAlpha)), 0.3116288346870596, "Wrong angle degree.");
     }
 
+    @Test
+    public void testAnglePredicateAgainstAngleCosine() {
+        Random random = new Random(3);
+        GmxAtom[] atoms = new GmxAtom[3];
+        for (int i = 0; i < 3; i++) atoms[i] = atomFactory.get(GmxAtomO.class, "O", i, new float[3]);
+
+        for (int i = 0; i < 10000; i++) {
+            for (GmxAtom atom : atoms)
+                atom.setCoordinates(new float[] { random.nextFloat(), random.nextFloat(), random.nextFloat() });
+            double expectedCos = 2 * random.nextDouble() - 1;
+            double precision = random.nextDouble() / 2;
+            GmxAnglePredicate predicate = anglePredicateFactory.get(atoms[0], atoms[1], atoms[2], expectedCos, //
+                    precision);
+
+            double difference = Math.abs(angleCosine(atoms[0], atoms[1], atoms[2]) - expectedCos);
+            if (Math.abs(difference - precision) < 1e-6) continue;
+            Assert.assertEquals(predicate.isAngleAsExpected(), difference < precision, "Wrong predicate result.");
+        }
+    }
+
     @Test
     public void testRadiusVector() {
         GmxAtom argon = atomFactory.get(GmxAtomAr.class, "Ar", 0, new float[] { 1.1f, 2.2f, 3.3f });
@@ -137,4 +160,16 @@ public class GmxAtomTest extends GmxAbstractTest {
         Assert.assertEquals(argon.getRadiusVector(), 4.115822958620668, "Wrong radius-vector.");
     }
 
+    @Test
+    public void testCoordinatesOfAtomAndView() {
+        GmxAtom argon = atomFactory.get(GmxAtomAr.class, "Ar", 0, new float[] { 1.1f, 2.2f, 3.3f });
+        Assert.assertSame(argon.getCoordinates(), argon.getCoordinates(), "Coordinates of atom are copied.");
+        Assert.assertNotSame(argon.copy().getCoordinates(), argon.getCoordinates(), "Copy shares coordinates.");
+
+        float[] buffer = new float[] { 0.f, 0.f, 0.f, 4.4f, 5.5f, 6.6f };
+        argon.bindCoordinates(buffer, 1);
+        argon.getCoordinates()[0] = 7.7f;
+        verifyAtomCoordinates(argon, 4.4f, 5.5f, 6.6f);
+    }
+
 }
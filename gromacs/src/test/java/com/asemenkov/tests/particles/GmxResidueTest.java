@@ -5,6 +5,7 @@ import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.gromacs.particles.utils.GmxAnglePredicate;
 import com.asemenkov.gromacs.particles.utils.GmxAtomUtils;
 import com.asemenkov.gromacs.particles.utils.GmxResidueUtils;
+import com.asemenkov.gromacs.particles.utils.GmxRotation;
 import com.asemenkov.particles.atoms.GmxAtomH;
 import com.asemenkov.particles.atoms.GmxAtomO;
 import com.asemenkov.particles.residues.GmxResidueH2O;
@@ -13,6 +14,8 @@ import com.asemenkov.utils.io.Logger;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Random;
+
 /**
  * @author asemenkov
  * @since May 10, 2018
@@ -227,6 +230,69 @@ public class GmxResidueTest extends GmxAbstractTest {
                 new float[] { 3.9659998f, 4.472f, 4.7870000f });
     }
 
+    @Test
+    public void testRotateByRotations() {
+        GmxResidue[] waters = new GmxResidue[2];
+        GmxResidue[] expected = new GmxResidue[2];
+        for (int i = 0; i < 2; i++) {
+            float[] pivot = { 1f + i, 2f, 3f };
+            waters[i] = residueByAtomsFactory.get(GmxResidueH2O.class, i, //
+                    residueAtomsFactory.get(GmxResidueH2O.class, pivot));
+            expected[i] = residueByAtomsFactory.get(GmxResidueH2O.class, i, //
+                    residueAtomsFactory.get(GmxResidueH2O.class, pivot));
+        }
+
+        float[] matrices = new float[18];
+        GmxRotation.ofAngles(0.3, 0.2, 0.1).getMatrix(matrices, 0);
+        GmxRotation.ofAngles(1.5, -0.5, 2.5).getMatrix(matrices, 9);
+        GmxResidueUtils.rotate(matrices, waters);
+        GmxResidueUtils.rotate(0.3, 0.2, 0.1, expected[0]);
+        GmxResidueUtils.rotate(1.5, -0.5, 2.5, expected[1]);
+
+        for (int i = 0; i < 2; i++) {
+            GmxAtom[] atoms = expected[i].getAllAtoms();
+            verifyWaterCoordinates(waters[i], atoms[0].getCoordinates(), atoms[1].getCoordinates(),
+                    atoms[2].getCoordinates());
+        }
+    }
+
+    @Test
+    public void testRotationOfContiguousCoordinates() {
+        GmxRotation rotation = GmxRotation.ofRandom(new Random(7));
+        float[] xyz = new float[6 * 3];
+        GmxResidue[] waters = new GmxResidue[2];
+        for (int i = 0; i < 2; i++) {
+            waters[i] = residueByAtomsFactory.get(GmxResidueH2O.class, i, //
+                    residueAtomsFactory.get(GmxResidueH2O.class, new float[] { 1f, 2f + i, 3f }));
+            for (int j = 0; j < 3; j++) waters[i].getAllAtoms()[j].getCoordinates(xyz, 3 * (3 * i + j));
+        }
+
+        for (int i = 0; i < 2; i++) rotation.apply(xyz, 3 * i, 3 * i + 3, 3 * i);
+        GmxResidueUtils.rotate(rotation, waters);
+
+        for (int i = 0; i < 2; i++) {
+            GmxAtom[] atoms = waters[i].getAllAtoms();
+            Assert.assertEquals(atoms[0].getCoordinates(), new float[] { 1f, 2f + i, 3f }, "Pivot is moved.");
+            for (int j = 0; j < 3; j++)
+                verifyAtomCoordinates(atoms[j], xyz[3 * (3 * i + j)], xyz[3 * (3 * i + j) + 1],
+                        xyz[3 * (3 * i + j) + 2]);
+            Assert.assertEquals(GmxAtomUtils.euclideanDistance(atoms[0], atoms[1]), 0.100533, 1e-5,
+                    "Bond length changed.");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRotateByTooFewRotations() {
+        GmxResidue h2o = residueByAtomsFactory.get(GmxResidueH2O.class, 1, //
+                residueAtomsFactory.get(GmxResidueH2O.class, new float[] { 1f, 2f, 3f }));
+        GmxResidueUtils.rotate(new float[9 * 2], h2o);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRotationOfZeroQuaternion() {
+        GmxRotation.ofQuaternion(0, 0, 0, 0);
+    }
+
     @Test
     public void testRadiusVector() {
         GmxAtom[] water = new GmxAtom[3];
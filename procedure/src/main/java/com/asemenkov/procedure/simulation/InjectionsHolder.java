@@ -4,6 +4,14 @@ import com.asemenkov.command.config.CmdGmxCommandsConfig;
 import com.asemenkov.command.execution.CmdExecutor;
 import com.asemenkov.command.gmx.CmdGmxGrompp;
 import com.asemenkov.command.gmx.CmdGmxMdrun;
+import com.asemenkov.gromacs.analysis.config.GmxAnalysisConfig;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondDetector;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondLifetimeAnalyzer;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSitesFromFrameBuilder;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondSitesFromStructureBuilder;
+import com.asemenkov.gromacs.analysis.hbonds.GmxHydrogenBondTrajectoryAnalyzer;
+import com.asemenkov.gromacs.analysis.rdf.GmxRdfAnalyzer;
+import com.asemenkov.gromacs.analysis.trajectory.GmxTrajectoryExecutor;
 import com.asemenkov.gromacs.frame.GmxFrame;
 import com.asemenkov.gromacs.frame.config.GmxFrameConfig;
 import com.asemenkov.gromacs.frame.coordinates.GmxFrameCoordinates;
@@ -18,6 +26,7 @@ import com.asemenkov.gromacs.io.GmxXtcFileNativeReader;
 import com.asemenkov.gromacs.io.config.GmxIoConfig;
 import com.asemenkov.gromacs.io.gro.GmxGroFileReader;
 import com.asemenkov.gromacs.io.gro.GmxGroFileWriter;
+import com.asemenkov.gromacs.io.xvg.GmxXvgFileWriter;
 import com.asemenkov.gromacs.particles.GmxAtom;
 import com.asemenkov.gromacs.particles.GmxResidue;
 import com.asemenkov.gromacs.particles.utils.GmxAnglePredicate;
@@ -35,7 +44,7 @@ import java.nio.file.Path;
  * @author asemenkov
  * @since Sep 07, 2018
  */
-@Import({ CmdGmxCommandsConfig.class, GmxFrameConfig.class, GmxIoConfig.class })
+@Import({ CmdGmxCommandsConfig.class, GmxFrameConfig.class, GmxIoConfig.class, GmxAnalysisConfig.class })
 public abstract class InjectionsHolder {
 
     protected @Autowired ApplicationContext context;
@@ -75,6 +84,10 @@ public abstract class InjectionsHolder {
         public GmxGroFileReader groFileReader() {
             return context.getBean(GmxGroFileReader.class);
         }
+
+        public GmxXvgFileWriter xvgFileWriter() {
+            return context.getBean(GmxXvgFileWriter.class);
+        }
     }
 
     // ======== FRAME INJECTIONS ========
@@ -86,10 +99,23 @@ public abstract class InjectionsHolder {
         private @Autowired DuoFactory< //
                 GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameFactory;
 
+        private @Autowired DuoFactory< //
+                GmxFrame, GmxFrameStructure, GmxFrameCoordinates> frameViewFactory;
+
         public GmxFrame createFrame(GmxFrameStructure structure, GmxFrameCoordinates coordinates) {
             return frameFactory.get(structure, coordinates);
         }
 
+        /**
+         * For trajectory loops: creates a frame of atom views on the first call, when frame is null,
+         * and rebinds the same frame to the next coordinates afterwards.
+         */
+        public GmxFrame rebindFrame(GmxFrame frame, GmxFrameStructure structure, GmxFrameCoordinates coordinates) {
+            if (frame == null) return frameViewFactory.get(structure, coordinates);
+            frame.rebindFrameCoordinates(coordinates);
+            return frame;
+        }
+
         public GmxFrameStructureFromGroFileBuilder frameStructureFromGroFileBuilder() {
             return context.getBean(GmxFrameStructureFromGroFileBuilder.class);
         }
@@ -184,4 +210,39 @@ public abstract class InjectionsHolder {
             return residuesFactory.get(residueClass, residuesNo, residueAtoms);
         }
     }
+
+    // ======== ANALYSIS INJECTIONS ========
+
+    protected Analysis analysis = new Analysis();
+
+    protected class Analysis {
+
+        public GmxHydrogenBondSitesFromFrameBuilder hydrogenBondSitesFromFrameBuilder() {
+            return context.getBean(GmxHydrogenBondSitesFromFrameBuilder.class);
+        }
+
+        public GmxHydrogenBondSitesFromStructureBuilder hydrogenBondSitesFromStructureBuilder() {
+            return context.getBean(GmxHydrogenBondSitesFromStructureBuilder.class);
+        }
+
+        public GmxHydrogenBondDetector hydrogenBondDetector() {
+            return context.getBean(GmxHydrogenBondDetector.class);
+        }
+
+        public GmxHydrogenBondTrajectoryAnalyzer hydrogenBondTrajectoryAnalyzer() {
+            return context.getBean(GmxHydrogenBondTrajectoryAnalyzer.class);
+        }
+
+        public GmxHydrogenBondLifetimeAnalyzer hydrogenBondLifetimeAnalyzer() {
+            return context.getBean(GmxHydrogenBondLifetimeAnalyzer.class);
+        }
+
+        public GmxTrajectoryExecutor trajectoryExecutor() {
+            return context.getBean(GmxTrajectoryExecutor.class);
+        }
+
+        public GmxRdfAnalyzer rdfAnalyzer() {
+            return context.getBean(GmxRdfAnalyzer.class);
+        }
+    }
 }